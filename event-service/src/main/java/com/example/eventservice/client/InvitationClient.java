@@ -2,10 +2,16 @@ package com.example.eventservice.client;
 
 import com.example.eventservice.config.FeignClientConfig;
 import com.example.eventservice.model.InvitationResponse;
+import com.example.eventservice.model.InvitationWatermark;
+import com.example.eventservice.model.UserEventStatusRequest;
+import com.example.eventservice.model.UserEventStatusResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 
@@ -25,6 +31,21 @@ public interface InvitationClient {
     @GetMapping("/invitations")
     ResponseEntity<List<InvitationResponse>> getAllInvitations();
 
+    /**
+     * Page du snapshot des invitations (identifiants croissants), pour reconstruire la projection locale
+     */
+    @GetMapping("/invitations/snapshot")
+    ResponseEntity<List<InvitationResponse>> getInvitationSnapshot(@RequestParam("afterId") Long afterId, @RequestParam("limit") int limit);
+
+    @GetMapping("/invitations/snapshot/watermark")
+    ResponseEntity<InvitationWatermark> getInvitationWatermark();
+
+    /**
+     * Statut de l'utilisateur (inscrit, en attente, annulé, place) pour plusieurs événements en un seul appel
+     */
+    @PostMapping("/invitations/status/bulk")
+    ResponseEntity<List<UserEventStatusResponse>> getUserEventStatuses(@RequestBody UserEventStatusRequest request);
+
     @org.springframework.web.bind.annotation.PatchMapping("/invitations/cancel/{eventId}/{userEmail}")
     ResponseEntity<Void> cancelUserRegistration(@PathVariable("eventId") Long eventId, @PathVariable("userEmail") String userEmail);
 } 
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.eventservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dédié aux lookups d'enrichissement des réponses d'événements.
+ * Borné en threads et en file d'attente : au-delà, les tâches sont rejetées et les champs restent inconnus.
+ */
+@Configuration
+public class EnrichmentConfig {
+
+    @Value("${event.enrichment.pool-size:16}")
+    private int poolSize;
+
+    @Value("${event.enrichment.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService enrichmentExecutor(MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "event-enrichment-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        // Le SecurityContext est propagé pour que l'intercepteur Feign transmette le JWT de l'appelant
+        return new DelegatingSecurityContextExecutorService(
+                ExecutorServiceMetrics.monitor(meterRegistry, executor, "event.enrichment"));
+    }
+}
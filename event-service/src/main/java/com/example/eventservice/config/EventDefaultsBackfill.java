@@ -0,0 +1,52 @@
+package com.example.eventservice.config;
+
+import com.example.eventservice.repository.EventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Migration exécutée au démarrage : renseigne max_capacity et waitlist_enabled sur les anciennes lignes
+ * en une seule instruction, puis pose les valeurs par défaut et les contraintes NOT NULL en base.
+ * Idempotente : sans ligne à corriger, seuls les ALTER (sans effet) sont rejoués.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventDefaultsBackfill implements ApplicationRunner {
+
+    static final int DEFAULT_MAX_CAPACITY = 5;
+
+    private final EventRepository eventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer updated = transactionTemplate.execute(status -> eventRepository.backfillDefaults(DEFAULT_MAX_CAPACITY));
+        if (updated != null && updated > 0) {
+            log.info("Valeurs par défaut renseignées pour {} événement(s)", updated);
+        }
+
+        alter("ALTER TABLE events ALTER COLUMN max_capacity SET DEFAULT " + DEFAULT_MAX_CAPACITY);
+        alter("ALTER TABLE events ALTER COLUMN max_capacity SET NOT NULL");
+        alter("ALTER TABLE events ALTER COLUMN waitlist_enabled SET DEFAULT TRUE");
+        alter("ALTER TABLE events ALTER COLUMN waitlist_enabled SET NOT NULL");
+        // Contrainte CHECK générée par Hibernate sur l'énumération des statuts : ddl-auto=update ne la met pas
+        // à jour quand un statut est ajouté (ENTERED)
+        alter("ALTER TABLE waitlist_entries DROP CONSTRAINT IF EXISTS waitlist_entries_status_check");
+    }
+
+    private void alter(String ddl) {
+        try {
+            jdbcTemplate.execute(ddl);
+        } catch (Exception e) {
+            // Ne bloque pas le démarrage (droits insuffisants, base non compatible...)
+            log.warn("Contrainte non appliquée ({}): {}", ddl, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.eventservice.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -7,11 +8,14 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
 public class KafkaConfig {
@@ -21,6 +25,10 @@ public class KafkaConfig {
 
     @Bean
     public ProducerFactory<String, String> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    }
+
+    private Map<String, Object> producerConfigs() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
@@ -30,15 +38,76 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 1000);
+        // Pas de réordonnancement ni de doublon lors des retries : l'ordre par clé (eventId) est conservé
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+        // Compression des lots (rappels volumineux : listes d'emails très répétitives)
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
         
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return configProps;
+    }
+
+    /**
+     * Topic des rappels : plusieurs partitions pour que les lots d'un même rappel soient consommés en parallèle
+     */
+    @Bean
+    public NewTopic eventReminderTopic(@Value("${kafka.topics.event-reminder:event.reminder}") String topic,
+                                       @Value("${reminder.topic-partitions:6}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
     }
 
+    /**
+     * Topic des changements de liste d'attente : la partition de la clé eventId désigne l'instance propriétaire
+     */
     @Bean
+    public NewTopic waitlistChangesTopic(@Value("${kafka.topics.waitlist-changes:waitlist.changes}") String topic,
+                                         @Value("${waitlist.engine.partitions:12}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
+    /**
+     * Topics de la liste d'attente, tous clés par eventId : l'ordre est garanti par événement,
+     * et les partitions permettent de répartir les événements entre plusieurs consommateurs
+     */
+    @Bean
+    public NewTopic waitlistRedistributionTopic(@Value("${kafka.topics.waitlist-redistribution:waitlist.redistribution}") String topic,
+                                                @Value("${waitlist.topic-partitions:6}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic waitlistInvitationCreatedTopic(@Value("${kafka.topics.waitlist-invitation-created:waitlist.invitation.created}") String topic,
+                                                   @Value("${waitlist.topic-partitions:6}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic invitationAutoConfirmTopic(@Value("${kafka.topics.invitation-auto-confirm:invitation.auto.confirm}") String topic,
+                                               @Value("${waitlist.topic-partitions:6}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
+    @Bean
+    @Primary
     public KafkaTemplate<String, String> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * Producteur transactionnel du relais de l'outbox : chaque lot devient visible en entier
+     * pour les consommateurs en read_committed, ou pas du tout.
+     * Préfixe unique par instance pour que deux instances ne s'isolent pas mutuellement.
+     */
+    @Bean
+    public KafkaTemplate<String, String> transactionalKafkaTemplate(
+            @Value("${outbox.relay.transaction-id-prefix:event-service-outbox-}") String transactionIdPrefix) {
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(producerConfigs());
+        factory.setTransactionIdPrefix(transactionIdPrefix + UUID.randomUUID() + "-");
+        return new KafkaTemplate<>(factory);
+    }
+
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -47,6 +116,8 @@ public class KafkaConfig {
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Messages publiés par le relais de l'outbox dans des transactions Kafka
+        configProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
         
         return new DefaultKafkaConsumerFactory<>(configProps);
     }
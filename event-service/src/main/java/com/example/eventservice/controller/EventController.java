@@ -1,26 +1,33 @@
 package com.example.eventservice.controller;
 
-import com.example.eventservice.client.InvitationClient;
 import com.example.eventservice.entity.EventEntity;
 import com.example.eventservice.mapper.EventMapper;
+import com.example.eventservice.model.EventPage;
 import com.example.eventservice.model.EventRequest;
 import com.example.eventservice.model.EventResponse;
+import com.example.eventservice.service.EventEnrichmentService;
 import com.example.eventservice.service.EventService;
+import com.example.eventservice.service.EventVersionService;
 import com.example.eventservice.service.EventReminderService;
-import com.example.eventservice.service.WaitlistService;
+import com.example.eventservice.service.InvitationProjectionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/events")
@@ -29,10 +36,12 @@ public class EventController {
 
     private final EventService eventService;
     private final EventMapper eventMapper;
-    private final InvitationClient invitationClient;
     private final EventReminderService eventReminderService;
-    private final WaitlistService waitlistService;
+    private final EventEnrichmentService eventEnrichmentService;
+    private final InvitationProjectionService invitationProjectionService;
+    private final EventVersionService eventVersionService;
     private static final Logger logger = LoggerFactory.getLogger(EventController.class);
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -43,163 +52,88 @@ public class EventController {
         return new ResponseEntity<>(eventMapper.toResponse(createdEvent), HttpStatus.CREATED);
     }
 
+    /**
+     * Liste paginée par curseur, ordonnée par date puis id. Le curseur de la page suivante est renvoyé
+     * dans l'en-tête X-Next-Cursor (absent sur la dernière page). La description n'est pas listée :
+     * elle est renvoyée par GET /events/{id}.
+     * Répond 304 sans enrichissement si l'ETag de la page correspond à If-None-Match.
+     */
     @GetMapping
-    public ResponseEntity<List<EventResponse>> getAllEvents(@AuthenticationPrincipal Jwt jwt) {
-        List<EventEntity> events = eventService.getAllEvents();
+    public ResponseEntity<List<EventResponse>> getAllEvents(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String location,
+            @RequestParam(defaultValue = "false") boolean upcomingOnly,
+            WebRequest webRequest) {
         String userEmail = jwt.getClaim("email");
         
-        logger.info("Getting all events for user: {}", userEmail);
+        logger.info("Getting events for user: {} (cursor={}, size={})", userEmail, cursor, size);
         logger.debug("JWT token subject: {}", jwt.getSubject());
-        logger.debug("JWT token claims: {}", jwt.getClaims());
-        
-        List<EventResponse> responses = events.stream()
-            .map(event -> {
-                EventResponse response = eventMapper.toResponse(event);
-
-                // Log des valeurs importantes pour debug
-                logger.info("Event {}: maxCapacity={}, waitlistEnabled={}",
-                           event.getTitle(), event.getMaxCapacity(), event.getWaitlistEnabled());
-                
-                try {
-                    logger.info("Checking registration for event ID: {} ({})", event.getId(), event.getTitle());
-                    
-                    ResponseEntity<Boolean> registrationResponse = invitationClient.isUserRegisteredForEvent(event.getId(), userEmail);
-                    
-                    if (registrationResponse.getBody() != null) {
-                        boolean isRegistered = registrationResponse.getBody();
-                        logger.info("User {} is {} registered for event {}", 
-                                  userEmail, isRegistered ? "" : "not", event.getId());
-                        response.setUserRegistered(isRegistered);
-                    } else {
-                        logger.warn("Received null response body for event {} registration check", event.getId());
-                        response.setUserRegistered(false);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error checking registration for event {}: {}", event.getId(), e.getMessage());
-                    logger.error("Full error details:", e);
-                    response.setUserRegistered(false);
-                }
-
-                // Vérifier si l'utilisateur a une invitation en attente
-                try {
-                    ResponseEntity<Boolean> pendingResponse = invitationClient.hasUserPendingInvitation(event.getId(), userEmail);
-                    if (pendingResponse.getBody() != null) {
-                        response.setUserHasPendingInvitation(pendingResponse.getBody());
-                    } else {
-                        response.setUserHasPendingInvitation(false);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error checking pending invitation for event {}: {}", event.getId(), e.getMessage());
-                    response.setUserHasPendingInvitation(false);
-                }
-
-                // Ajout : Récupérer l'invitation de l'utilisateur pour ce event
-                try {
-                    List<com.example.eventservice.model.InvitationResponse> allInvitations = invitationClient.getAllInvitations().getBody();
-                    if (allInvitations != null) {
-                        allInvitations.stream()
-                            .filter(inv -> inv.getEventId().equals(event.getId()) && userEmail.equals(inv.getUserEmail()))
-                            .findFirst()
-                            .ifPresent(inv -> {
-                                if ("CANCELLED".equals(inv.getStatus())) {
-                                    response.setUserStatus("CANCELLED");
-                                }
-                            });
-                    }
-                } catch (Exception e) {
-                    logger.error("Error fetching invitation status for event {}: {}", event.getId(), e.getMessage());
-                }
-
-                // Ajouter les informations de liste d'attente
-                try {
-                    response.setConfirmedParticipants(waitlistService.getConfirmedParticipantsCount(event.getId()));
-                    response.setWaitlistCount(waitlistService.getWaitlistCount(event.getId()));
-
-                    // Position et statut de l'utilisateur dans la liste d'attente (si applicable)
-                    waitlistService.getUserWaitlistPosition(event.getId(), userEmail)
-                            .ifPresent(waitlistResponse -> {
-                                response.setUserWaitlistPosition(waitlistResponse.getPosition());
-                                response.setUserWaitlistStatus(waitlistResponse.getStatus());
-                            });
-                } catch (Exception e) {
-                    logger.error("Error fetching waitlist information for event {}: {}", event.getId(), e.getMessage());
-                    response.setConfirmedParticipants(0L);
-                    response.setWaitlistCount(0L);
-                }
-                
-                return response;
-            })
+
+        EventPage page;
+        try {
+            page = eventService.getEventPage(cursor, size, from, to, location, upcomingOnly);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid event listing request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        String etag = eventVersionService.pageETag(page.getEvents(), page.getNextCursor(), userEmail);
+        if (matchesIfNoneMatch(webRequest, etag)) {
+            ResponseEntity.HeadersBuilder<?> notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate());
+            if (page.getNextCursor() != null) {
+                notModified.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return notModified.build();
+        }
+
+        List<EventResponse> responses = page.getEvents().stream()
+            .map(eventMapper::toResponse)
             .toList();
+        eventEnrichmentService.enrich(responses, userEmail);
         
         logger.info("Returning {} events", responses.size());
-        return ResponseEntity.ok(responses);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        if (responses.stream().noneMatch(response -> response.getUnknownFields() != null)) {
+            builder.eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+        }
+        return builder.body(responses);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<EventResponse> getEventById(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<EventResponse> getEventById(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt,
+                                                      WebRequest webRequest) {
+        String userEmail = jwt != null ? jwt.getClaim("email") : null;
+        Optional<String> etag = eventVersionService.eventETag(id, userEmail);
+        if (etag.isPresent() && matchesIfNoneMatch(webRequest, etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag.get())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+
         return eventService.getEventById(id)
                 .map(event -> {
                     EventResponse response = eventMapper.toResponse(event);
-                    String userEmail = jwt != null ? jwt.getClaim("email") : null;
                     
                     if (userEmail != null) {
-                        // Vérifier l'inscription de l'utilisateur
-                        try {
-                            ResponseEntity<Boolean> registrationResponse = invitationClient.isUserRegisteredForEvent(event.getId(), userEmail);
-                            response.setUserRegistered(Boolean.TRUE.equals(registrationResponse.getBody()));
-                        } catch (Exception e) {
-                            logger.error("Error checking registration for event {}: {}", event.getId(), e.getMessage());
-                            response.setUserRegistered(false);
-                        }
-
-                        // Vérifier si l'utilisateur a une invitation en attente
-                        try {
-                            ResponseEntity<Boolean> pendingResponse = invitationClient.hasUserPendingInvitation(event.getId(), userEmail);
-                            if (pendingResponse.getBody() != null) {
-                                response.setUserHasPendingInvitation(pendingResponse.getBody());
-                            } else {
-                                response.setUserHasPendingInvitation(false);
-                            }
-                        } catch (Exception e) {
-                            logger.error("Error checking pending invitation for event {}: {}", event.getId(), e.getMessage());
-                            response.setUserHasPendingInvitation(false);
-                        }
-                        
-                        // Ajout : Récupérer l'invitation de l'utilisateur pour ce event
-                        try {
-                            List<com.example.eventservice.model.InvitationResponse> allInvitations = invitationClient.getAllInvitations().getBody();
-                            if (allInvitations != null) {
-                                allInvitations.stream()
-                                    .filter(inv -> inv.getEventId().equals(event.getId()) && userEmail.equals(inv.getUserEmail()))
-                                    .findFirst()
-                                    .ifPresent(inv -> {
-                                        if ("CANCELLED".equals(inv.getStatus())) {
-                                            response.setUserStatus("CANCELLED");
-                                        }
-                                    });
-                            }
-                        } catch (Exception e) {
-                            logger.error("Error fetching invitation status for event {}: {}", event.getId(), e.getMessage());
-                        }
-                        
-                        // Ajouter les informations de liste d'attente
-                        try {
-                            response.setConfirmedParticipants(waitlistService.getConfirmedParticipantsCount(event.getId()));
-                            response.setWaitlistCount(waitlistService.getWaitlistCount(event.getId()));
-
-                            waitlistService.getUserWaitlistPosition(event.getId(), userEmail)
-                                    .ifPresent(waitlistResponse -> {
-                                        response.setUserWaitlistPosition(waitlistResponse.getPosition());
-                                        response.setUserWaitlistStatus(waitlistResponse.getStatus());
-                                    });
-                        } catch (Exception e) {
-                            logger.error("Error fetching waitlist information for event {}: {}", event.getId(), e.getMessage());
-                            response.setConfirmedParticipants(0L);
-                            response.setWaitlistCount(0L);
-                        }
+                        eventEnrichmentService.enrich(List.of(response), userEmail);
                     }
                     
-                    return ResponseEntity.ok(response);
+                    // Une réponse incomplète (champs inconnus) n'est pas validable par ETag
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+                    if (etag.isPresent() && response.getUnknownFields() == null) {
+                        builder.eTag(etag.get()).cacheControl(CacheControl.noCache().cachePrivate());
+                    }
+                    return builder.body(response);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -221,6 +155,19 @@ public class EventController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Reconstruit la projection locale des invitations depuis le snapshot d'invitation-service
+     */
+    @PostMapping("/admin/invitation-projection/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> rebuildInvitationProjection() {
+        long count = invitationProjectionService.rebuildFromSnapshot();
+        if (count < 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Reconstruction déjà en cours");
+        }
+        return ResponseEntity.ok("Projection reconstruite à partir de " + count + " invitation(s)");
+    }
+
     /**
      * Endpoint de test pour déclencher manuellement les rappels d'événements
      * Utile pour les tests et la démonstration
@@ -238,4 +185,22 @@ public class EventController {
                     .body("Erreur lors du déclenchement des rappels : " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Comparaison explicite avec If-None-Match : contrairement à WebRequest.checkNotModified,
+     * elle n'ajoute pas d'ETag aux réponses 200 qu'on ne veut pas rendre validables
+     */
+    private static boolean matchesIfNoneMatch(WebRequest webRequest, String etag) {
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
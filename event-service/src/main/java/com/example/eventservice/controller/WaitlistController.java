@@ -2,9 +2,11 @@ package com.example.eventservice.controller;
 
 import com.example.eventservice.model.WaitlistResponse;
 import com.example.eventservice.service.WaitlistService;
+import com.example.eventservice.service.WaitlistStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -20,6 +22,7 @@ import java.util.Optional;
 public class WaitlistController {
 
     private final WaitlistService waitlistService;
+    private final WaitlistStreamService waitlistStreamService;
 
     /**
      * Rejoindre la liste d'attente d'un événement
@@ -93,6 +96,30 @@ public class WaitlistController {
         }
     }
 
+    /**
+     * Flux SSE de la position en liste d'attente : état courant puis chaque changement (position, statut, expiration).
+     * Remplace l'interrogation périodique de /position.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<?> streamWaitlistPosition(@PathVariable Long eventId, @AuthenticationPrincipal Jwt jwt) {
+        try {
+            String userEmail = jwt.getClaim("email");
+            Optional<WaitlistResponse> position = waitlistService.getUserWaitlistPosition(eventId, userEmail);
+            if (position.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(waitlistStreamService.subscribe(eventId, userEmail, position.get()));
+        } catch (IllegalStateException e) {
+            log.warn("Abonnement au flux de position refusé : {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Erreur lors de l'abonnement au flux de position", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erreur interne du serveur");
+        }
+    }
+
     /**
      * Confirmer une place depuis la liste d'attente
      */
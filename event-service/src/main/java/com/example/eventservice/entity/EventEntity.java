@@ -5,10 +5,14 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+    @Index(name = "idx_events_date_time_id", columnList = "date_time, id"),
+    @Index(name = "idx_events_location_date_time_id", columnList = "location, date_time, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -34,12 +38,27 @@ public class EventEntity {
     @Column(name = "organizer_id", nullable = false)
     private String organizerId;
 
-    @Column(name = "max_capacity")
+    @Column(name = "max_capacity", nullable = false)
+    @ColumnDefault("5")
+    @Builder.Default
     private Integer maxCapacity = 5; // 5 places par défaut
 
-    @Column(name = "waitlist_enabled")
+    @Column(name = "waitlist_enabled", nullable = false)
+    @ColumnDefault("true")
+    @Builder.Default
     private Boolean waitlistEnabled = true; // Liste d'attente activée par défaut
 
+    // Mode tirage : inscriptions non ordonnées jusqu'à cette date, puis rangs tirés au sort en un seul lot
+    @Column(name = "waitlist_draw_ends_at")
+    private LocalDateTime waitlistDrawEndsAt;
+
+    // Graine du tirage (reproductible) ; générée et enregistrée au tirage si absente
+    @Column(name = "waitlist_draw_seed")
+    private Long waitlistDrawSeed;
+
+    @Column(name = "waitlist_drawn_at")
+    private LocalDateTime waitlistDrawnAt;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,66 @@
+package com.example.eventservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Registre des rappels d'événements : un rappel par événement, envoyé une seule fois à fire_at
+ */
+@Entity
+@Table(name = "event_reminders",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"event_id"}),
+       indexes = @Index(name = "idx_event_reminders_status_fire_at", columnList = "status, fire_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventReminder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "fire_at", nullable = false)
+    private LocalDateTime fireAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReminderStatus status;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (status == null) {
+            status = ReminderStatus.PENDING;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum ReminderStatus {
+        PENDING,        // À envoyer à fire_at
+        SENT,           // Envoyé
+        CANCELLED,      // Événement supprimé
+        SKIPPED         // Événement déjà commencé au moment de l'envoi
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.eventservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Compteurs de participants par événement, maintenus de façon incrémentale
+ */
+@Entity
+@Table(name = "event_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventStats {
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "confirmed_count", nullable = false)
+    private long confirmedCount;
+
+    @Column(name = "pending_count", nullable = false)
+    private long pendingCount;
+
+    @Column(name = "waitlist_count", nullable = false)
+    private long waitlistCount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private long cancelledCount;
+
+    @Column(name = "version", nullable = false)
+    private long version; // Incrémenté à chaque changement de compteur
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
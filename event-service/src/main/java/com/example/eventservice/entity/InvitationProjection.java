@@ -0,0 +1,53 @@
+package com.example.eventservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Copie locale des invitations, alimentée par les messages invitation.lifecycle
+ */
+@Entity
+@Table(name = "invitation_projection",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"event_id", "user_email"}),
+       indexes = {
+           @Index(name = "idx_invitation_projection_event_status", columnList = "event_id, status"),
+           @Index(name = "idx_invitation_projection_user_event", columnList = "user_email, event_id")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvitationProjection {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "invitation_id")
+    private Long invitationId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "seat_row")
+    private Integer seatRow;
+
+    @Column(name = "seat_number")
+    private Integer seatNumber;
+
+    @Column(name = "source_updated_at")
+    private LocalDateTime sourceUpdatedAt; // updatedAt côté invitation-service, pour ignorer les messages obsolètes
+
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt;
+}
@@ -0,0 +1,34 @@
+package com.example.eventservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Bail d'exécution d'un job : une seule instance le détient jusqu'à expires_at.
+ * Le jeton de fencing augmente à chaque changement de détenteur.
+ */
+@Entity
+@Table(name = "job_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "holder")
+    private String holder;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+}
@@ -9,7 +9,11 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "waitlist_entries", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"event_id", "user_email"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"event_id", "user_email"}),
+       indexes = {
+               @Index(name = "idx_waitlist_event_status_ticket", columnList = "event_id, status, position"),
+               @Index(name = "idx_waitlist_status_expires", columnList = "status, expires_at")
+       })
 @Data
 @Builder
 @NoArgsConstructor
@@ -26,8 +30,9 @@ public class WaitlistEntry {
     @Column(name = "user_email", nullable = false)
     private String userEmail;
 
-    @Column(name = "position", nullable = false)
-    private Integer position;
+    // Ticket d'arrivée, croissant et jamais réécrit ; le rang affiché est calculé (entrées WAITING au ticket inférieur)
+    @Column(name = "position", nullable = false, updatable = false)
+    private Integer ticket;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
@@ -63,6 +68,7 @@ public class WaitlistEntry {
     }
 
     public enum WaitlistStatus {
+        ENTERED,        // Inscrit au tirage, rang attribué à la clôture
         WAITING,        // En attente
         NOTIFIED,       // Notification envoyée
         CONFIRMED,      // Place confirmée
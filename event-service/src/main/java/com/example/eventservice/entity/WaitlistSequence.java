@@ -0,0 +1,28 @@
+package com.example.eventservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dernier ticket attribué dans la liste d'attente d'un événement.
+ * Incrémenté dans la transaction qui insère l'entrée : le verrou de ligne sérialise les inscriptions
+ * d'un même événement et un rollback rend le ticket, ce qui garde la suite sans trou.
+ */
+@Entity
+@Table(name = "waitlist_sequences")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistSequence {
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "last_ticket", nullable = false)
+    private int lastTicket;
+}
@@ -3,6 +3,7 @@ package com.example.eventservice.mapper;
 import com.example.eventservice.entity.EventEntity;
 import com.example.eventservice.model.EventRequest;
 import com.example.eventservice.model.EventResponse;
+import com.example.eventservice.repository.EventSummary;
 import org.mapstruct.Mapper;
 
 import java.util.List;
@@ -13,5 +14,7 @@ public interface EventMapper {
 
     EventResponse toResponse(EventEntity entity);
 
+    EventResponse toResponse(EventSummary summary);
+
     List<EventResponse> toResponseList(List<EventEntity> entities);
 } 
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.eventservice.model;
+
+import com.example.eventservice.repository.EventSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page d'événements ordonnée par (eventDate, id) ; nextCursor est null sur la dernière page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPage {
+    private List<EventSummary> events;
+    private String nextCursor;
+}
@@ -20,4 +20,9 @@ public class EventReminderMessage {
     private String eventLocation;
     private String organizerId;
     private List<String> participantEmails;
+    // Découpage des destinataires : les lots d'un même rappel partagent le batchId
+    private String batchId;
+    private Integer chunkIndex;
+    private Integer chunkCount;
+    private Integer totalRecipients;
 } 
\ No newline at end of file
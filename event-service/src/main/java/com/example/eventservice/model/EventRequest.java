@@ -23,4 +23,9 @@ public class EventRequest {
     private Integer maxCapacity;
 
     private Boolean waitlistEnabled;
+
+    // Fin de la fenêtre d'inscription au tirage (null = liste d'attente par ordre d'arrivée)
+    private LocalDateTime waitlistDrawEndsAt;
+
+    private Long waitlistDrawSeed;
 } 
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.eventservice.model;
 
 import lombok.Data;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 public class EventResponse {
@@ -13,13 +14,15 @@ public class EventResponse {
     private String organizerId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-    private boolean userRegistered;
+    private Boolean userRegistered; // null si le statut n'a pas pu être obtenu à temps
     private Integer maxCapacity;
     private Boolean waitlistEnabled;
+    private LocalDateTime waitlistDrawEndsAt;
     private Long confirmedParticipants;
     private Long waitlistCount;
     private Integer userWaitlistPosition;
-    private String userWaitlistStatus; // WAITING, NOTIFIED, CONFIRMED, EXPIRED, CANCELLED
+    private String userWaitlistStatus; // ENTERED, WAITING, NOTIFIED, CONFIRMED, EXPIRED, CANCELLED
     private Boolean userHasPendingInvitation; // L'utilisateur a une invitation en attente
     private String userStatus; // Statut personnalisé pour l'utilisateur (ex: CANCELLED)
+    private List<String> unknownFields; // Champs non renseignés car leur source n'a pas répondu avant l'échéance
 }
\ No newline at end of file
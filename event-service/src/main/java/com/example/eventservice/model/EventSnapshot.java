@@ -0,0 +1,47 @@
+package com.example.eventservice.model;
+
+import com.example.eventservice.entity.EventEntity;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copie immuable d'un événement, partagée par le cache entre les requêtes (sans la description)
+ */
+@Value
+@Builder
+public class EventSnapshot {
+    Long id;
+    String title;
+    LocalDateTime eventDate;
+    String location;
+    String organizerId;
+    Integer maxCapacity;
+    Boolean waitlistEnabled;
+    LocalDateTime waitlistDrawEndsAt;
+    LocalDateTime waitlistDrawnAt;
+    LocalDateTime updatedAt;
+
+    /**
+     * Tirage prévu et pas encore effectué : les inscriptions entrent au tirage
+     */
+    public boolean isWaitlistDrawPending() {
+        return waitlistDrawEndsAt != null && waitlistDrawnAt == null;
+    }
+
+    public static EventSnapshot of(EventEntity event) {
+        return EventSnapshot.builder()
+                .id(event.getId())
+                .title(event.getTitle())
+                .eventDate(event.getEventDate())
+                .location(event.getLocation())
+                .organizerId(event.getOrganizerId())
+                .maxCapacity(event.getMaxCapacity())
+                .waitlistEnabled(event.getWaitlistEnabled())
+                .waitlistDrawEndsAt(event.getWaitlistDrawEndsAt())
+                .waitlistDrawnAt(event.getWaitlistDrawnAt())
+                .updatedAt(event.getUpdatedAt())
+                .build();
+    }
+}
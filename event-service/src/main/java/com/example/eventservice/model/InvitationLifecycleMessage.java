@@ -0,0 +1,31 @@
+package com.example.eventservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvitationLifecycleMessage {
+
+    public enum Type {
+        UPSERTED,
+        DELETED,
+        CLEARED
+    }
+
+    private Type type;
+    private Long invitationId;
+    private Long eventId;
+    private String userEmail;
+    private String status;
+    private Integer seatRow;
+    private Integer seatNumber;
+    private LocalDateTime updatedAt;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,20 @@
+package com.example.eventservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position courante de la table des invitations côté invitation-service
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvitationWatermark {
+    private long count;
+    private LocalDateTime lastUpdatedAt;
+}
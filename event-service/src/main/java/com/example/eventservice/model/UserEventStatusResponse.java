@@ -0,0 +1,19 @@
+package com.example.eventservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEventStatusResponse {
+    private Long eventId;
+    private String status; // Statut de l'invitation (null si aucune invitation)
+    private boolean registered;
+    private boolean pending;
+    private boolean cancelled;
+    private InvitationResponse.SeatInfo seatInfo;
+}
@@ -0,0 +1,32 @@
+package com.example.eventservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message du topic waitlist.changes (clé = eventId) à destination de l'instance propriétaire de l'événement :
+ * changements déjà persistés par une autre instance, ou demande de redistribution à exécuter par le propriétaire
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistChange {
+
+    public enum Type {
+        JOINED,     // Inscription persistée
+        REMOVED,    // Entrée supprimée ou sortie de l'attente
+        REDISTRIBUTE, // Places libérées à attribuer
+        RELOAD      // Liste modifiée en masse (tirage) : à recharger depuis la table
+    }
+
+    private Type type;
+    private Long eventId;
+    private String userEmail;
+    private Integer ticket;
+    private Integer slots;
+    private Integer row;
+    private Integer number;
+}
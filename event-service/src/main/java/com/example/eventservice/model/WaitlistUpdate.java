@@ -0,0 +1,22 @@
+package com.example.eventservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message du topic waitlist.updates (clé = eventId), diffusé à toutes les instances une fois le changement
+ * persisté : réveille les abonnés au flux de position concernés
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistUpdate {
+    private Long eventId;
+    private String userEmail;
+    private Integer ticket;
+    // Entrée sortie de l'attente : les rangs des tickets suivants diminuent
+    private boolean leftQueue;
+}
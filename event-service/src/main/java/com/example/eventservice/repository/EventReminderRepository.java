@@ -0,0 +1,46 @@
+package com.example.eventservice.repository;
+
+import com.example.eventservice.entity.EventReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EventReminderRepository extends JpaRepository<EventReminder, Long> {
+
+    Optional<EventReminder> findByEventId(Long eventId);
+
+    /**
+     * Rappels à envoyer avant l'horizon donné (y compris ceux en retard après un redémarrage)
+     */
+    @Query("SELECT r FROM EventReminder r WHERE r.status = 'PENDING' AND r.fireAt <= :horizon ORDER BY r.fireAt ASC")
+    List<EventReminder> findPendingBefore(@Param("horizon") LocalDateTime horizon);
+
+    /**
+     * Passe le rappel à l'état final uniquement s'il est encore PENDING, dû, et si le bail est toujours
+     * détenu avec le même jeton de fencing : une seule instance peut le traiter.
+     */
+    @Modifying
+    @Query("UPDATE EventReminder r SET r.status = :status, r.sentAt = :now, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'PENDING' AND r.fireAt <= :now " +
+           "AND EXISTS (SELECT l FROM JobLease l WHERE l.name = :lease AND l.holder = :holder AND l.fencingToken = :token)")
+    int complete(@Param("id") Long id,
+                 @Param("status") EventReminder.ReminderStatus status,
+                 @Param("now") LocalDateTime now,
+                 @Param("lease") String lease,
+                 @Param("holder") String holder,
+                 @Param("token") long token);
+
+    /**
+     * Événements à venir sans rappel dans le registre (événements antérieurs à l'introduction du registre)
+     */
+    @Query("SELECT e.id FROM EventEntity e WHERE e.eventDate > :now " +
+           "AND NOT EXISTS (SELECT r FROM EventReminder r WHERE r.eventId = e.id)")
+    List<Long> findUpcomingEventIdsWithoutReminder(@Param("now") LocalDateTime now);
+}
@@ -1,7 +1,9 @@
 package com.example.eventservice.repository;
 
 import com.example.eventservice.entity.EventEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,6 +13,15 @@ import java.util.List;
  
 @Repository
 public interface EventRepository extends JpaRepository<EventEntity, Long> {
+
+    /**
+     * Renseigne en une seule instruction les valeurs par défaut manquantes (anciennes lignes)
+     */
+    @Modifying
+    @Query("UPDATE EventEntity e SET e.maxCapacity = COALESCE(e.maxCapacity, :defaultCapacity), " +
+           "e.waitlistEnabled = COALESCE(e.waitlistEnabled, true) " +
+           "WHERE e.maxCapacity IS NULL OR e.waitlistEnabled IS NULL")
+    int backfillDefaults(@Param("defaultCapacity") int defaultCapacity);
     
     /**
      * Trouve les événements qui commencent dans une plage de temps donnée
@@ -19,4 +30,33 @@ public interface EventRepository extends JpaRepository<EventEntity, Long> {
     @Query("SELECT e FROM EventEntity e WHERE e.eventDate BETWEEN :startTime AND :endTime")
     List<EventEntity> findEventsInTimeRange(@Param("startTime") LocalDateTime startTime, 
                                            @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * Page d'événements (pagination par clé) : événements strictement après le curseur (cursorDate, cursorId)
+     * dans l'ordre (eventDate, id), bornés par [from, to). Seul le nombre de lignes du Pageable est utilisé.
+     */
+    @Query("SELECT e.id AS id, e.title AS title, e.eventDate AS eventDate, e.location AS location, " +
+           "e.organizerId AS organizerId, e.maxCapacity AS maxCapacity, e.waitlistEnabled AS waitlistEnabled, " +
+           "e.waitlistDrawEndsAt AS waitlistDrawEndsAt, e.createdAt AS createdAt, e.updatedAt AS updatedAt FROM EventEntity e " +
+           "WHERE e.eventDate >= :from AND e.eventDate < :to " +
+           "AND (e.eventDate > :cursorDate OR (e.eventDate = :cursorDate AND e.id > :cursorId)) " +
+           "ORDER BY e.eventDate ASC, e.id ASC")
+    List<EventSummary> findPage(@Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to,
+                                @Param("cursorDate") LocalDateTime cursorDate,
+                                @Param("cursorId") Long cursorId,
+                                Pageable pageable);
+
+    @Query("SELECT e.id AS id, e.title AS title, e.eventDate AS eventDate, e.location AS location, " +
+           "e.organizerId AS organizerId, e.maxCapacity AS maxCapacity, e.waitlistEnabled AS waitlistEnabled, " +
+           "e.waitlistDrawEndsAt AS waitlistDrawEndsAt, e.createdAt AS createdAt, e.updatedAt AS updatedAt FROM EventEntity e " +
+           "WHERE e.location = :location AND e.eventDate >= :from AND e.eventDate < :to " +
+           "AND (e.eventDate > :cursorDate OR (e.eventDate = :cursorDate AND e.id > :cursorId)) " +
+           "ORDER BY e.eventDate ASC, e.id ASC")
+    List<EventSummary> findPageByLocation(@Param("location") String location,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("cursorDate") LocalDateTime cursorDate,
+                                          @Param("cursorId") Long cursorId,
+                                          Pageable pageable);
 } 
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.example.eventservice.repository;
+
+import com.example.eventservice.entity.EventStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface EventStatsRepository extends JpaRepository<EventStats, Long> {
+
+    /**
+     * Applique un delta sur les compteurs d'un événement en une seule instruction
+     */
+    @Modifying
+    @Query("UPDATE EventStats s SET s.confirmedCount = s.confirmedCount + :confirmed, " +
+           "s.pendingCount = s.pendingCount + :pending, " +
+           "s.waitlistCount = s.waitlistCount + :waitlist, " +
+           "s.cancelledCount = s.cancelledCount + :cancelled, " +
+           "s.version = s.version + 1, s.updatedAt = :now " +
+           "WHERE s.eventId = :eventId")
+    int applyDelta(@Param("eventId") Long eventId,
+                   @Param("confirmed") long confirmed,
+                   @Param("pending") long pending,
+                   @Param("waitlist") long waitlist,
+                   @Param("cancelled") long cancelled,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Remplace les compteurs uniquement si aucun delta n'a été appliqué depuis la lecture
+     */
+    @Modifying
+    @Query("UPDATE EventStats s SET s.confirmedCount = :confirmed, s.pendingCount = :pending, " +
+           "s.waitlistCount = :waitlist, s.cancelledCount = :cancelled, " +
+           "s.version = s.version + 1, s.updatedAt = :now " +
+           "WHERE s.eventId = :eventId AND s.version = :expectedVersion")
+    int overwriteIfVersion(@Param("eventId") Long eventId,
+                           @Param("confirmed") long confirmed,
+                           @Param("pending") long pending,
+                           @Param("waitlist") long waitlist,
+                           @Param("cancelled") long cancelled,
+                           @Param("expectedVersion") long expectedVersion,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE EventStats s SET s.confirmedCount = 0, s.pendingCount = 0, s.cancelledCount = 0, " +
+           "s.version = s.version + 1, s.updatedAt = :now")
+    int resetInvitationCounts(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE EventStats s SET s.waitlistCount = 0, s.version = s.version + 1, s.updatedAt = :now")
+    int resetWaitlistCounts(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,19 @@
+package com.example.eventservice.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection légère d'un événement pour les listes (sans la description TEXT, lue par GET /events/{id})
+ */
+public interface EventSummary {
+    Long getId();
+    String getTitle();
+    LocalDateTime getEventDate();
+    String getLocation();
+    String getOrganizerId();
+    Integer getMaxCapacity();
+    Boolean getWaitlistEnabled();
+    LocalDateTime getWaitlistDrawEndsAt();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,49 @@
+package com.example.eventservice.repository;
+
+import com.example.eventservice.entity.InvitationProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InvitationProjectionRepository extends JpaRepository<InvitationProjection, Long> {
+
+    Optional<InvitationProjection> findByEventIdAndUserEmail(Long eventId, String userEmail);
+
+    long countByEventIdAndStatus(Long eventId, String status);
+
+    /**
+     * Emails distincts des participants d'un événement pour un statut donné
+     */
+    @Query("SELECT DISTINCT p.userEmail FROM InvitationProjection p WHERE p.eventId = :eventId AND p.status = :status")
+    List<String> findUserEmailsByEventIdAndStatus(@Param("eventId") Long eventId, @Param("status") String status);
+
+    @Query("SELECT MAX(p.sourceUpdatedAt) FROM InvitationProjection p")
+    LocalDateTime findLastSourceUpdatedAt();
+
+    @Modifying
+    @Query("DELETE FROM InvitationProjection p WHERE p.eventId = :eventId AND p.userEmail = :userEmail")
+    int deleteByEventIdAndUserEmail(@Param("eventId") Long eventId, @Param("userEmail") String userEmail);
+
+    /**
+     * Nombre d'invitations par événement et par statut, pour la réconciliation des compteurs
+     */
+    @Query("SELECT p.eventId, p.status, COUNT(p) FROM InvitationProjection p GROUP BY p.eventId, p.status")
+    List<Object[]> countGroupedByEventIdAndStatus();
+
+    @Query("SELECT p.status, COUNT(p) FROM InvitationProjection p WHERE p.eventId = :eventId GROUP BY p.status")
+    List<Object[]> countByEventIdGroupedByStatus(@Param("eventId") Long eventId);
+
+    /**
+     * Supprime les lignes qui n'ont été ni vues dans le snapshot ni modifiées depuis le début de la reconstruction
+     */
+    @Modifying
+    @Query("DELETE FROM InvitationProjection p WHERE p.syncedAt < :rebuildStartedAt")
+    int deleteNotSyncedSince(@Param("rebuildStartedAt") LocalDateTime rebuildStartedAt);
+}
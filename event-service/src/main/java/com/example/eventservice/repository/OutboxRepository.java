@@ -0,0 +1,33 @@
+package com.example.eventservice.repository;
+
+import com.example.eventservice.entity.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Prochains messages à publier, dans l'ordre d'écriture
+     */
+    @Query("SELECT m FROM OutboxMessage m ORDER BY m.id ASC")
+    List<OutboxMessage> findNextBatch(Pageable pageable);
+
+    /**
+     * Date d'écriture du plus ancien message non publié (retard du relais)
+     */
+    @Query("SELECT MIN(m.createdAt) FROM OutboxMessage m")
+    LocalDateTime findOldestCreatedAt();
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,12 +1,15 @@
 package com.example.eventservice.repository;
 
 import com.example.eventservice.entity.WaitlistEntry;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,11 +17,47 @@ import java.util.Optional;
 public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
     
     /**
-     * Trouve les entrées en attente pour un événement, triées par position
+     * Trouve les entrées en attente pour un événement, par ordre d'arrivée
      */
-    @Query("SELECT w FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.status = 'WAITING' ORDER BY w.position ASC")
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.status = 'WAITING' ORDER BY w.ticket ASC")
     List<WaitlistEntry> findWaitingByEventId(@Param("eventId") Long eventId);
     
+    /**
+     * Nombre d'entrées en attente arrivées avant un ticket (parcours de l'index event_id, status, position)
+     */
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.status = 'WAITING' AND w.ticket < :ticket")
+    long countWaitingAhead(@Param("eventId") Long eventId, @Param("ticket") Integer ticket);
+    
+    /**
+     * Tickets en attente d'un événement, par ordre d'arrivée (rangs de nombreux abonnés en une requête)
+     */
+    @Query("SELECT w.ticket FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.status = 'WAITING' ORDER BY w.ticket ASC")
+    List<Integer> findWaitingTickets(@Param("eventId") Long eventId);
+    
+    List<WaitlistEntry> findByEventIdAndUserEmailIn(Long eventId, Collection<String> userEmails);
+    
+    /**
+     * Événements dont la fenêtre de tirage est close et qui ont encore des inscrits au tirage
+     */
+    @Query("SELECT DISTINCT w.eventId FROM WaitlistEntry w, EventEntity e " +
+           "WHERE e.id = w.eventId AND w.status = 'ENTERED' AND e.waitlistDrawEndsAt <= :now")
+    List<Long> findEventIdsWithDueDraw(@Param("now") LocalDateTime now);
+    
+    /**
+     * Verrouille les inscrits au tirage d'un événement, dans un ordre stable (le tirage est reproductible)
+     */
+    @Query(value = "SELECT * FROM waitlist_entries WHERE event_id = :eventId AND status = 'ENTERED' " +
+                   "ORDER BY id ASC FOR UPDATE", nativeQuery = true)
+    List<WaitlistEntry> lockDrawEntrants(@Param("eventId") Long eventId);
+    
+    /**
+     * Pour chaque entrée en attente d'un utilisateur parmi un ensemble d'événements : nombre d'entrées en attente devant lui
+     */
+    @Query("SELECT w.eventId, COUNT(o) FROM WaitlistEntry w, WaitlistEntry o " +
+           "WHERE w.userEmail = :userEmail AND w.eventId IN :eventIds AND w.status = 'WAITING' " +
+           "AND o.eventId = w.eventId AND o.status = 'WAITING' AND o.ticket < w.ticket GROUP BY w.eventId")
+    List<Object[]> countWaitingAheadOfUser(@Param("userEmail") String userEmail, @Param("eventIds") Collection<Long> eventIds);
+    
     /**
      * Trouve une entrée spécifique pour un utilisateur et un événement
      */
@@ -31,26 +70,69 @@ public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
     long countWaitingByEventId(@Param("eventId") Long eventId);
     
     /**
-     * Trouve la prochaine position disponible pour un événement
+     * Entrées d'un utilisateur pour un ensemble d'événements (une seule requête pour une liste)
+     */
+    List<WaitlistEntry> findByUserEmailAndEventIdIn(String userEmail, Collection<Long> eventIds);
+    
+    /**
+     * Nombre de personnes en attente par événement, pour la réconciliation des compteurs
+     */
+    @Query("SELECT w.eventId, COUNT(w) FROM WaitlistEntry w WHERE w.status = 'WAITING' GROUP BY w.eventId")
+    List<Object[]> countWaitingGroupedByEventId();
+    
+    /**
+     * Verrouille un lot d'entrées notifiées expirées (index status, expires_at) d'une part des événements
+     * (event_id modulo shardCount) ; les lignes déjà prises par une autre transaction sont sautées
      */
-    @Query("SELECT COALESCE(MAX(w.position), 0) + 1 FROM WaitlistEntry w WHERE w.eventId = :eventId")
-    int getNextPosition(@Param("eventId") Long eventId);
+    @Query(value = "SELECT * FROM waitlist_entries WHERE status = 'NOTIFIED' AND expires_at < :now " +
+                   "AND MOD(event_id, :shardCount) = :shardIndex " +
+                   "ORDER BY expires_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WaitlistEntry> lockExpiredNotifications(@Param("now") LocalDateTime now,
+                                                 @Param("shardIndex") int shardIndex,
+                                                 @Param("shardCount") int shardCount,
+                                                 @Param("limit") int limit);
     
     /**
-     * Trouve les entrées notifiées qui ont expiré
+     * Passe à EXPIRED, en une requête, les entrées verrouillées par {@link #lockExpiredNotifications}
      */
-    @Query("SELECT w FROM WaitlistEntry w WHERE w.status = 'NOTIFIED' AND w.expiresAt < :now")
-    List<WaitlistEntry> findExpiredNotifications(@Param("now") LocalDateTime now);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'EXPIRED', w.updatedAt = :now WHERE w.id IN :ids AND w.status = 'NOTIFIED'")
+    int expireNotified(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
     
     /**
      * Trouve les N premières personnes en attente pour un événement
      */
-    @Query("SELECT w FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.status = 'WAITING' ORDER BY w.position ASC")
-    List<WaitlistEntry> findTopWaitingByEventId(@Param("eventId") Long eventId, @Param("limit") int limit);
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.status = 'WAITING' ORDER BY w.ticket ASC")
+    List<WaitlistEntry> findTopWaitingByEventId(@Param("eventId") Long eventId, Pageable pageable);
     
     /**
-     * Met à jour les positions après suppression d'une entrée
+     * Verrouille les n premières entrées en attente non verrouillées par une autre transaction :
+     * deux redistributions simultanées du même événement se partagent la file sans se bloquer ni se recouvrir
      */
-    @Query("UPDATE WaitlistEntry w SET w.position = w.position - 1 WHERE w.eventId = :eventId AND w.position > :deletedPosition")
-    void updatePositionsAfterDeletion(@Param("eventId") Long eventId, @Param("deletedPosition") int deletedPosition);
-} 
\ No newline at end of file
+    @Query(value = "SELECT * FROM waitlist_entries WHERE event_id = :eventId AND status = 'WAITING' " +
+                   "ORDER BY position ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WaitlistEntry> lockTopWaiting(@Param("eventId") Long eventId, @Param("limit") int limit);
+    
+    /**
+     * Promotion ensembliste des entrées verrouillées par {@link #lockTopWaiting}
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = :status, w.notificationSent = true, w.updatedAt = :now " +
+           "WHERE w.id IN :ids AND w.status = 'WAITING'")
+    int promoteWaiting(@Param("ids") Collection<Long> ids, @Param("status") WaitlistEntry.WaitlistStatus status,
+                       @Param("now") LocalDateTime now);
+    
+    /**
+     * Écritures différées du moteur de liste d'attente
+     */
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = :status, w.notificationSent = :notificationSent, w.updatedAt = :now " +
+           "WHERE w.eventId = :eventId AND w.userEmail = :userEmail")
+    int updateStatus(@Param("eventId") Long eventId, @Param("userEmail") String userEmail,
+                     @Param("status") WaitlistEntry.WaitlistStatus status,
+                     @Param("notificationSent") Boolean notificationSent, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.userEmail = :userEmail")
+    int deleteByEventIdAndUserEmail(@Param("eventId") Long eventId, @Param("userEmail") String userEmail);
+}
@@ -0,0 +1,40 @@
+package com.example.eventservice.repository;
+
+import com.example.eventservice.entity.WaitlistSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WaitlistSequenceRepository extends JpaRepository<WaitlistSequence, Long> {
+
+    /**
+     * Crée le compteur d'un événement à partir des tickets déjà attribués
+     * (une insertion concurrente lève une violation de clé)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO waitlist_sequences (event_id, last_ticket) " +
+                   "SELECT :eventId, COALESCE((SELECT MAX(position) FROM waitlist_entries WHERE event_id = :eventId), 0) " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM waitlist_sequences WHERE event_id = :eventId)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") Long eventId);
+
+    /**
+     * Incrémente le compteur ; la ligne reste verrouillée jusqu'à la fin de la transaction
+     */
+    @Modifying
+    @Query("UPDATE WaitlistSequence s SET s.lastTicket = s.lastTicket + 1 WHERE s.eventId = :eventId")
+    int increment(@Param("eventId") Long eventId);
+
+    /**
+     * Réserve une plage de tickets (le moteur en mémoire attribue ensuite les tickets de la plage)
+     */
+    @Modifying
+    @Query("UPDATE WaitlistSequence s SET s.lastTicket = s.lastTicket + :count WHERE s.eventId = :eventId")
+    int advance(@Param("eventId") Long eventId, @Param("count") int count);
+
+    @Query("SELECT s.lastTicket FROM WaitlistSequence s WHERE s.eventId = :eventId")
+    int findLastTicket(@Param("eventId") Long eventId);
+}
@@ -0,0 +1,150 @@
+package com.example.eventservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exécution des jobs planifiés à l'échelle du cluster, via les baux de {@link LeaseService} (table job_leases).
+ * En mode simple, seule l'instance qui détient le bail du job l'exécute. En mode partitionné, le job est découpé
+ * en N parts (event_id modulo N) ayant chacune leur bail : les parts se répartissent entre les instances.
+ * Métriques par job : exécutions, exécutions sautées faute de bail, durée, éléments traités, dernière exécution.
+ */
+@Service
+@Slf4j
+public class ClusterJobRunner {
+
+    private final LeaseService leaseService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, JobMeters> meters = new ConcurrentHashMap<>();
+    // Parts détenues par cette instance, par job
+    private final Map<String, Set<Integer>> heldShards = new ConcurrentHashMap<>();
+
+    // Au-delà, une instance laisse les parts restantes aux autres
+    @Value("${cluster.jobs.max-shards-per-instance:2147483647}")
+    private int maxShardsPerInstance;
+
+    public ClusterJobRunner(LeaseService leaseService, MeterRegistry meterRegistry) {
+        this.leaseService = leaseService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Exécute le job si cette instance détient (ou obtient) son bail
+     *
+     * @param job reçoit le jeton de fencing du bail et renvoie le nombre d'éléments traités
+     */
+    public void run(String jobName, Duration leaseTtl, ToIntFunction<Long> job) {
+        OptionalLong token = leaseService.acquireOrRenew(jobName, leaseTtl);
+        if (token.isEmpty()) {
+            meters(jobName).skipped.increment();
+            return;
+        }
+        execute(jobName, () -> job.applyAsInt(token.getAsLong()));
+    }
+
+    /**
+     * Exécute les parts du job dont cette instance détient le bail, dans la limite de
+     * cluster.jobs.max-shards-per-instance. Les parts d'une instance arrêtée sont reprises à l'expiration du bail.
+     */
+    public void runSharded(String jobName, int shardCount, Duration leaseTtl, ShardJob job) {
+        Set<Integer> held = heldShards.computeIfAbsent(jobName, name -> ConcurrentHashMap.newKeySet());
+        // Décalage propre à l'instance : les instances ne visent pas toutes les mêmes parts en premier
+        int offset = Math.floorMod(leaseService.getInstanceId().hashCode(), shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int shard = (offset + i) % shardCount;
+            String shardName = jobName + "#" + shard + "/" + shardCount;
+            if (!held.contains(shard) && held.size() >= maxShardsPerInstance) {
+                continue;
+            }
+            OptionalLong token = leaseService.acquireOrRenew(shardName, leaseTtl);
+            if (token.isEmpty()) {
+                held.remove(shard);
+                meters(jobName).skipped.increment();
+                continue;
+            }
+            held.add(shard);
+            execute(jobName, () -> job.run(new Shard(shard, shardCount, token.getAsLong())));
+        }
+    }
+
+    /**
+     * Pour les jobs qui gèrent eux-mêmes un bail de longue durée : enregistre l'exécution ou le saut
+     */
+    public void track(String jobName, boolean leader, IntSupplier job) {
+        if (!leader) {
+            meters(jobName).skipped.increment();
+            return;
+        }
+        execute(jobName, job);
+    }
+
+    private void execute(String jobName, IntSupplier job) {
+        JobMeters jobMeters = meters(jobName);
+        long start = System.nanoTime();
+        try {
+            int items = job.getAsInt();
+            jobMeters.items.increment(items);
+        } catch (Exception e) {
+            jobMeters.failures.increment();
+            log.error("Échec du job {}: {}", jobName, e.getMessage(), e);
+        } finally {
+            jobMeters.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            jobMeters.runs.increment();
+            jobMeters.lastRunEpochSeconds.set(System.currentTimeMillis() / 1000);
+        }
+    }
+
+    private JobMeters meters(String jobName) {
+        return meters.computeIfAbsent(jobName, name -> new JobMeters(name, meterRegistry));
+    }
+
+    /**
+     * Part d'un job partitionné : traiter les événements tels que event_id modulo count = index
+     */
+    public record Shard(int index, int count, long fencingToken) {
+    }
+
+    @FunctionalInterface
+    public interface ShardJob {
+        int run(Shard shard);
+    }
+
+    private static final class JobMeters {
+        private final Counter runs;
+        private final Counter skipped;
+        private final Counter failures;
+        private final Counter items;
+        private final Timer duration;
+        private final AtomicLong lastRunEpochSeconds = new AtomicLong();
+
+        private JobMeters(String job, MeterRegistry registry) {
+            runs = Counter.builder("cluster.job.runs").tag("job", job)
+                    .description("Exécutions du job sur cette instance").register(registry);
+            skipped = Counter.builder("cluster.job.skipped").tag("job", job)
+                    .description("Exécutions sautées : bail détenu par une autre instance").register(registry);
+            failures = Counter.builder("cluster.job.failures").tag("job", job)
+                    .description("Exécutions du job en échec").register(registry);
+            items = Counter.builder("cluster.job.items").tag("job", job)
+                    .description("Éléments traités par le job").register(registry);
+            duration = Timer.builder("cluster.job.duration").tag("job", job)
+                    .description("Durée d'exécution du job").register(registry);
+            Gauge.builder("cluster.job.last.run", lastRunEpochSeconds, AtomicLong::get).tag("job", job)
+                    .description("Date de la dernière exécution (secondes epoch)").register(registry);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.model.EventSnapshot;
+import com.example.eventservice.repository.EventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cache borné (taille + TTL) des événements, sous forme de copies immuables.
+ * Invalidé localement lors d'une modification ou suppression, puis diffusé sur le topic event.cache.invalidate :
+ * chaque instance écoute avec son propre groupe de consommateurs et supprime son entrée.
+ * Le TTL borne la durée de vie d'une entrée qui aurait manqué une invalidation.
+ */
+@Service
+@Slf4j
+public class EventCacheService {
+
+    private final EventRepository eventRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, EventSnapshot> cache;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${kafka.topics.event-cache-invalidate:event.cache.invalidate}")
+    private String invalidationTopic;
+
+    public EventCacheService(EventRepository eventRepository,
+                             KafkaTemplate<String, String> kafkaTemplate,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${event.cache.maximum-size:10000}") long maximumSize,
+                             @Value("${event.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.eventRepository = eventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "event.snapshot");
+    }
+
+    /**
+     * Événement depuis le cache, chargé depuis la base en cas d'absence. Les événements inexistants ne sont pas mis en cache.
+     */
+    public Optional<EventSnapshot> get(Long eventId) {
+        return Optional.ofNullable(cache.get(eventId, id -> eventRepository.findById(id)
+                .map(EventSnapshot::of)
+                .orElse(null)));
+    }
+
+    /**
+     * Supprime l'entrée locale et diffuse l'invalidation aux autres instances (après commit si une transaction est active)
+     */
+    public void invalidate(Long eventId) {
+        cache.invalidate(eventId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Une lecture concurrente a pu recharger l'ancienne version avant le commit
+                    cache.invalidate(eventId);
+                    broadcast(eventId);
+                }
+            });
+        } else {
+            broadcast(eventId);
+        }
+    }
+
+    /**
+     * Invalidations émises par les autres instances (un groupe par instance pour recevoir tous les messages)
+     */
+    @org.springframework.kafka.annotation.KafkaListener(
+        topics = "${kafka.topics.event-cache-invalidate:event.cache.invalidate}",
+        groupId = "event-service-cache-#{T(java.util.UUID).randomUUID().toString()}",
+        properties = {"auto.offset.reset=latest"}
+    )
+    public void handleInvalidation(String message) {
+        try {
+            InvalidationMessage invalidation = objectMapper.readValue(message, InvalidationMessage.class);
+            if (instanceId.equals(invalidation.getOrigin())) {
+                return;
+            }
+            cache.invalidate(invalidation.getEventId());
+            log.debug("Entrée de cache invalidée pour l'événement {} (instance {})", invalidation.getEventId(), invalidation.getOrigin());
+        } catch (Exception e) {
+            log.error("Erreur lors du traitement de l'invalidation de cache: {}", e.getMessage(), e);
+        }
+    }
+
+    private void broadcast(Long eventId) {
+        try {
+            String message = objectMapper.writeValueAsString(new InvalidationMessage(eventId, instanceId));
+            kafkaTemplate.send(invalidationTopic, String.valueOf(eventId), message);
+        } catch (Exception e) {
+            log.error("Erreur lors de la diffusion de l'invalidation de l'événement {}: {}", eventId, e.getMessage(), e);
+        }
+    }
+
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class InvalidationMessage {
+        private Long eventId;
+        private String origin;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.model.EventResponse;
+import com.example.eventservice.model.UserEventStatusRequest;
+import com.example.eventservice.model.UserEventStatusResponse;
+import com.example.eventservice.model.WaitlistResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Enrichit les réponses d'événements (statut de l'utilisateur, compteurs, liste d'attente).
+ * Les lookups sont lancés en parallèle sur un pool borné et attendus jusqu'à une échéance commune :
+ * la latence est celle du lookup le plus lent, plafonnée par l'échéance. Un lookup en retard ou en erreur
+ * laisse ses champs à null et les liste dans {@link EventResponse#getUnknownFields()}.
+ */
+@Service
+@Slf4j
+public class EventEnrichmentService {
+
+    static final String LOOKUP_USER_STATUS = "userStatus";
+    static final String LOOKUP_PARTICIPANTS = "participants";
+    static final String LOOKUP_WAITLIST = "waitlist";
+
+    private final InvitationClient invitationClient;
+    private final WaitlistService waitlistService;
+    private final EventStatsService eventStatsService;
+    private final ExecutorService enrichmentExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${event.enrichment.deadline-ms:800}")
+    private long deadlineMs;
+
+    public EventEnrichmentService(InvitationClient invitationClient,
+                                  WaitlistService waitlistService,
+                                  EventStatsService eventStatsService,
+                                  @Qualifier("enrichmentExecutor") ExecutorService enrichmentExecutor,
+                                  MeterRegistry meterRegistry) {
+        this.invitationClient = invitationClient;
+        this.waitlistService = waitlistService;
+        this.eventStatsService = eventStatsService;
+        this.enrichmentExecutor = enrichmentExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Enrichit les réponses en place. Sans utilisateur, seuls les compteurs sont renseignés.
+     */
+    public void enrich(List<EventResponse> responses, String userEmail) {
+        if (responses.isEmpty()) {
+            return;
+        }
+        Set<Long> eventIds = responses.stream().map(EventResponse::getId).collect(Collectors.toSet());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+
+        Future<Map<Long, EventStatsService.Snapshot>> statsFuture = submit(() -> eventIds.stream()
+                .collect(Collectors.toMap(Function.identity(), eventStatsService::getStats)));
+        Future<Map<Long, UserEventStatusResponse>> statusFuture = userEmail == null
+                ? CompletableFuture.completedFuture(Map.of())
+                : submit(() -> fetchUserStatuses(userEmail, eventIds));
+        Future<Map<Long, WaitlistResponse>> waitlistFuture = userEmail == null
+                ? CompletableFuture.completedFuture(Map.of())
+                : submit(() -> waitlistService.getUserWaitlistPositions(eventIds, userEmail));
+
+        Map<Long, EventStatsService.Snapshot> stats = await(statsFuture, deadline, LOOKUP_PARTICIPANTS, responses.size());
+        Map<Long, UserEventStatusResponse> statuses = await(statusFuture, deadline, LOOKUP_USER_STATUS, responses.size());
+        Map<Long, WaitlistResponse> waitlistPositions = await(waitlistFuture, deadline, LOOKUP_WAITLIST, responses.size());
+
+        for (EventResponse response : responses) {
+            applyParticipants(response, stats);
+            applyUserStatus(response, statuses);
+            applyWaitlistPosition(response, waitlistPositions);
+        }
+    }
+
+    private Map<Long, UserEventStatusResponse> fetchUserStatuses(String userEmail, Set<Long> eventIds) {
+        List<UserEventStatusResponse> statuses = invitationClient.getUserEventStatuses(
+                UserEventStatusRequest.builder().userEmail(userEmail).eventIds(eventIds).build()).getBody();
+        if (statuses == null) {
+            throw new IllegalStateException("Réponse vide pour le statut des invitations de " + userEmail);
+        }
+        return statuses.stream()
+                .collect(Collectors.toMap(UserEventStatusResponse::getEventId, Function.identity(), (a, b) -> a));
+    }
+
+    private <T> Future<T> submit(Callable<T> lookup) {
+        try {
+            return enrichmentExecutor.submit(lookup);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Attend un lookup jusqu'à l'échéance commune. Retourne null si le résultat n'est pas disponible à temps.
+     */
+    private <T> T await(Future<T> future, long deadline, String lookup, int eventCount) {
+        String reason;
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            reason = "timeout";
+            log.warn("Lookup {} non terminé avant l'échéance de {} ms", lookup, deadlineMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            reason = "interrupted";
+        } catch (Exception e) {
+            reason = e.getCause() instanceof RejectedExecutionException ? "rejected" : "error";
+            log.error("Erreur lors du lookup {}: {}", lookup, e.getMessage());
+        }
+        meterRegistry.counter("event.enrichment.unknown", "lookup", lookup, "reason", reason).increment(eventCount);
+        return null;
+    }
+
+    private void applyParticipants(EventResponse response, Map<Long, EventStatsService.Snapshot> stats) {
+        if (stats == null) {
+            markUnknown(response, "confirmedParticipants", "waitlistCount");
+            return;
+        }
+        EventStatsService.Snapshot snapshot = stats.get(response.getId());
+        response.setConfirmedParticipants(snapshot.getConfirmed());
+        response.setWaitlistCount(snapshot.getWaitlist());
+    }
+
+    private void applyUserStatus(EventResponse response, Map<Long, UserEventStatusResponse> statuses) {
+        if (statuses == null) {
+            markUnknown(response, "userRegistered", "userHasPendingInvitation", "userStatus");
+            return;
+        }
+        UserEventStatusResponse status = statuses.get(response.getId());
+        if (status == null) {
+            response.setUserRegistered(false);
+            response.setUserHasPendingInvitation(false);
+            return;
+        }
+        response.setUserRegistered(status.isRegistered());
+        response.setUserHasPendingInvitation(status.isPending());
+        if (status.isCancelled()) {
+            response.setUserStatus("CANCELLED");
+        }
+    }
+
+    private void applyWaitlistPosition(EventResponse response, Map<Long, WaitlistResponse> waitlistPositions) {
+        if (waitlistPositions == null) {
+            markUnknown(response, "userWaitlistPosition", "userWaitlistStatus");
+            return;
+        }
+        WaitlistResponse waitlistResponse = waitlistPositions.get(response.getId());
+        if (waitlistResponse != null) {
+            response.setUserWaitlistPosition(waitlistResponse.getPosition());
+            response.setUserWaitlistStatus(waitlistResponse.getStatus());
+        }
+    }
+
+    private void markUnknown(EventResponse response, String... fields) {
+        if (response.getUnknownFields() == null) {
+            response.setUnknownFields(new ArrayList<>());
+        }
+        response.getUnknownFields().addAll(List.of(fields));
+    }
+}
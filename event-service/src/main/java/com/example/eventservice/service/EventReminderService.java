@@ -1,95 +1,274 @@
 package com.example.eventservice.service;
 
-import com.example.eventservice.client.InvitationClient;
 import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.entity.EventReminder;
 import com.example.eventservice.model.EventReminderMessage;
-import com.example.eventservice.model.InvitationResponse;
+import com.example.eventservice.repository.EventReminderRepository;
 import com.example.eventservice.repository.EventRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Rappels d'événements envoyés une seule fois, à l'heure exacte (début de l'événement moins le décalage configuré).
+ * Chaque événement a une ligne dans le registre event_reminders, créée ou recalée à la création / modification
+ * et annulée à la suppression. L'instance qui détient le bail "event-reminders" charge les rappels proches
+ * dans une DelayQueue et les envoie à échéance ; le passage à SENT est conditionnel (statut PENDING et
+ * jeton de fencing du bail) pour qu'un rappel ne soit traité qu'une fois, y compris après un redémarrage.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EventReminderService {
 
+    static final String LEASE_NAME = "event-reminders";
+
     private final EventRepository eventRepository;
-    private final InvitationClient invitationClient;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
-    
+    private final EventReminderRepository reminderRepository;
+    private final InvitationProjectionService invitationProjectionService;
+    private final LeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    private final ClusterJobRunner clusterJobRunner;
+    private final MeterRegistry meterRegistry;
+
+    private final DelayQueue<ScheduledReminder> queue = new DelayQueue<>();
+    private final Map<Long, Long> queuedFireAt = new ConcurrentHashMap<>();
+    private volatile boolean leader;
+    private volatile boolean running;
+    private Thread dispatcher;
+
     @Value("${kafka.topics.event-reminder:event.reminder}")
     private String eventReminderTopic;
 
+    @Value("${reminder.offset-minutes:60}")
+    private long offsetMinutes;
+
+    // Les rappels dont l'échéance est dans cet horizon sont chargés en mémoire
+    @Value("${reminder.horizon-minutes:30}")
+    private long horizonMinutes;
+
+    @Value("${reminder.lease-ttl-seconds:30}")
+    private long leaseTtlSeconds;
+
+    // Nombre maximal de destinataires par message de rappel
+    @Value("${reminder.chunk-size:500}")
+    private int chunkSize;
+
+    @PostConstruct
+    void start() {
+        Gauge.builder("event.reminder.queue.size", queue, DelayQueue::size)
+                .description("Rappels chargés en attente d'échéance")
+                .register(meterRegistry);
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "event-reminder-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Crée ou recale le rappel d'un événement créé ou modifié
+     */
+    @Transactional
+    public void schedule(EventEntity event) {
+        EventReminder reminder = upsertReminder(event);
+        if (reminder.getStatus() == EventReminder.ReminderStatus.PENDING) {
+            afterCommit(() -> enqueueIfLeader(reminder));
+        }
+    }
+
     /**
-     * Vérifie les événements qui commencent dans 1 heure et envoie des rappels
-     * S'exécute toutes les 10 minutes
+     * Annule le rappel d'un événement supprimé
      */
-    @Scheduled(fixedRate = 600000) // 10 minutes = 600,000 ms
+    @Transactional
+    public void cancel(Long eventId) {
+        reminderRepository.findByEventId(eventId)
+                .filter(reminder -> reminder.getStatus() == EventReminder.ReminderStatus.PENDING)
+                .ifPresent(reminder -> {
+                    reminder.setStatus(EventReminder.ReminderStatus.CANCELLED);
+                    reminderRepository.save(reminder);
+                    afterCommit(() -> queuedFireAt.remove(reminder.getId()));
+                });
+    }
+
+    /**
+     * Renouvelle ou prend le bail. À la prise, complète le registre et charge les rappels proches.
+     */
+    @Scheduled(fixedDelayString = "${reminder.lease-renew-ms:10000}")
+    public void maintainLeadership() {
+        boolean nowLeader = leaseService.acquireOrRenew(LEASE_NAME, Duration.ofSeconds(leaseTtlSeconds)).isPresent();
+        if (nowLeader && !leader) {
+            leader = true;
+            log.info("Instance responsable de l'envoi des rappels d'événements");
+            backfillLedger();
+            sendEventReminders();
+        } else if (!nowLeader && leader) {
+            leader = false;
+            queue.clear();
+            queuedFireAt.clear();
+            log.warn("Bail des rappels perdu, file vidée");
+        }
+    }
+
+    /**
+     * Charge dans la file les rappels dont l'échéance tombe dans l'horizon (y compris ceux en retard).
+     * Rattrape aussi les modifications faites sur les autres instances.
+     * Sans le bail, {@link ClusterJobRunner#track} n'exécute rien et compte le passage comme sauté.
+     */
+    @Scheduled(fixedDelayString = "${reminder.poll-interval-ms:15000}")
     public void sendEventReminders() {
+        clusterJobRunner.track(LEASE_NAME, leader, () -> {
+            List<EventReminder> due = reminderRepository.findPendingBefore(LocalDateTime.now().plusMinutes(horizonMinutes));
+            due.forEach(this::enqueue);
+            log.debug("{} rappel(s) dans l'horizon de {} min", due.size(), horizonMinutes);
+            return due.size();
+        });
+    }
+
+    private EventReminder upsertReminder(EventEntity event) {
+        LocalDateTime fireAt = event.getEventDate().minusMinutes(offsetMinutes);
+        EventReminder reminder = reminderRepository.findByEventId(event.getId())
+                .orElseGet(() -> EventReminder.builder().eventId(event.getId()).build());
+
+        if (reminder.getStatus() == EventReminder.ReminderStatus.SENT && fireAt.equals(reminder.getFireAt())) {
+            return reminder;
+        }
+        // Un événement déplacé après l'envoi reçoit un nouveau rappel
+        reminder.setFireAt(fireAt);
+        reminder.setSentAt(null);
+        reminder.setStatus(event.getEventDate().isAfter(LocalDateTime.now())
+                ? EventReminder.ReminderStatus.PENDING
+                : EventReminder.ReminderStatus.SKIPPED);
+        return reminderRepository.save(reminder);
+    }
+
+    private void backfillLedger() {
         try {
-            log.info("=== DÉBUT du traitement des rappels d'événements ===");
-            
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime oneHourFromNow = now.plusHours(1);
-            
-            // Fenêtre de 10 minutes pour capturer les événements 
-            // qui commencent entre 50 et 70 minutes à partir de maintenant
-            LocalDateTime startWindow = now.plusMinutes(50);
-            LocalDateTime endWindow = now.plusMinutes(70);
-            
-            log.info("Recherche d'événements entre {} et {}", startWindow, endWindow);
-            
-            // Récupérer les événements qui commencent dans cette fenêtre
-            List<EventEntity> upcomingEvents = eventRepository.findEventsInTimeRange(startWindow, endWindow);
-            
-            log.info("Trouvé {} événement(s) nécessitant un rappel", upcomingEvents.size());
-            
-            for (EventEntity event : upcomingEvents) {
-                try {
-                    sendReminderForEvent(event);
-                } catch (Exception e) {
-                    log.error("Erreur lors de l'envoi du rappel pour l'événement {}: {}", 
-                             event.getId(), e.getMessage(), e);
+            List<Long> eventIds = reminderRepository.findUpcomingEventIdsWithoutReminder(LocalDateTime.now());
+            for (Long eventId : eventIds) {
+                transactionTemplate.executeWithoutResult(status ->
+                        eventRepository.findById(eventId).ifPresent(this::upsertReminder));
+            }
+            if (!eventIds.isEmpty()) {
+                log.info("{} rappel(s) ajouté(s) au registre pour des événements existants", eventIds.size());
+            }
+        } catch (Exception e) {
+            log.error("Erreur lors de la complétion du registre des rappels: {}", e.getMessage(), e);
+        }
+    }
+
+    private void enqueueIfLeader(EventReminder reminder) {
+        if (leader && !reminder.getFireAt().isAfter(LocalDateTime.now().plusMinutes(horizonMinutes))) {
+            enqueue(reminder);
+        }
+    }
+
+    private void enqueue(EventReminder reminder) {
+        long fireAtMillis = reminder.getFireAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Long previous = queuedFireAt.put(reminder.getId(), fireAtMillis);
+        if (!Objects.equals(previous, fireAtMillis)) {
+            queue.add(new ScheduledReminder(reminder.getId(), reminder.getEventId(), fireAtMillis));
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                ScheduledReminder next = queue.poll(1, TimeUnit.SECONDS);
+                // Entrée remplacée (événement recalé) ou retirée (annulation, perte du bail)
+                if (next == null || !queuedFireAt.remove(next.reminderId(), next.fireAtMillis())) {
+                    continue;
                 }
+                fire(next);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Erreur dans la boucle d'envoi des rappels: {}", e.getMessage(), e);
             }
-            
-            log.info("=== FIN du traitement des rappels d'événements ===");
-            
+        }
+    }
+
+    /**
+     * Valide le rappel et écrit ses messages dans l'outbox dans la même transaction : un échec annule la validation
+     * et le rappel, resté PENDING, est rechargé au prochain passage.
+     */
+    private void fire(ScheduledReminder scheduled) {
+        OptionalLong token = leaseService.currentToken(LEASE_NAME);
+        if (!leader || token.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                EventEntity event = eventRepository.findById(scheduled.eventId()).orElse(null);
+                EventReminder.ReminderStatus outcome = event == null ? EventReminder.ReminderStatus.CANCELLED
+                        : event.getEventDate().isBefore(now) ? EventReminder.ReminderStatus.SKIPPED
+                        : EventReminder.ReminderStatus.SENT;
+
+                int claimed = reminderRepository.complete(scheduled.reminderId(), outcome, now,
+                        LEASE_NAME, leaseService.getInstanceId(), token.getAsLong());
+                if (claimed == 0) {
+                    log.debug("Rappel {} déjà traité, recalé ou bail perdu", scheduled.reminderId());
+                    return;
+                }
+                if (outcome == EventReminder.ReminderStatus.SENT) {
+                    sendReminderForEvent(event);
+                } else {
+                    log.info("Rappel {} de l'événement {} non envoyé: {}", scheduled.reminderId(), scheduled.eventId(), outcome);
+                }
+            });
         } catch (Exception e) {
-            log.error("Erreur globale lors du traitement des rappels d'événements: {}", e.getMessage(), e);
+            log.error("Échec de l'envoi du rappel {} pour l'événement {}: {}",
+                    scheduled.reminderId(), scheduled.eventId(), e.getMessage());
         }
     }
 
-    private void sendReminderForEvent(EventEntity event) {
+    /**
+     * Publie le rappel en lots d'au plus reminder.chunk-size destinataires. Chaque lot porte l'identifiant
+     * du batch, son index et le nombre total de lots, et a pour clé eventId-index : les lots se répartissent
+     * sur les partitions et notification-service les envoie en parallèle. Les lots sont écrits dans l'outbox
+     * dans la transaction qui valide le rappel.
+     */
+    void sendReminderForEvent(EventEntity event) {
         try {
             log.info("Traitement du rappel pour l'événement: {} - {}", event.getId(), event.getTitle());
             
-            // Récupérer toutes les invitations
-            List<InvitationResponse> allInvitations = invitationClient.getAllInvitations()
-                .getBody();
-            
-            if (allInvitations == null) {
-                log.warn("Impossible de récupérer les invitations pour l'événement {}", event.getId());
-                return;
-            }
-            
-            // Filtrer les participants confirmés pour cet événement
-            List<String> participantEmails = allInvitations.stream()
-                .filter(invitation -> invitation.getEventId().equals(event.getId()))
-                .filter(invitation -> "CONFIRMED".equals(invitation.getStatus()))
-                .map(InvitationResponse::getUserEmail)
-                .distinct()
-                .collect(Collectors.toList());
+            // Participants confirmés depuis la projection locale des invitations
+            List<String> participantEmails = invitationProjectionService.findParticipantEmails(
+                    event.getId(), InvitationProjectionService.STATUS_CONFIRMED);
             
             log.info("Trouvé {} participant(s) confirmé(s) pour l'événement {}", 
                     participantEmails.size(), event.getTitle());
@@ -99,23 +278,32 @@ public class EventReminderService {
                 return;
             }
             
-            // Créer le message de rappel
-            EventReminderMessage reminderMessage = EventReminderMessage.builder()
-                .eventId(event.getId())
-                .eventTitle(event.getTitle())
-                .eventDescription(event.getDescription())
-                .eventDateTime(event.getEventDate())
-                .eventLocation(event.getLocation())
-                .organizerId(event.getOrganizerId())
-                .participantEmails(participantEmails)
-                .build();
-            
-            // Convertir en JSON et publier sur Kafka
-            String jsonMessage = objectMapper.writeValueAsString(reminderMessage);
-            kafkaTemplate.send(eventReminderTopic, jsonMessage);
+            int size = Math.max(1, chunkSize);
+            int chunkCount = (participantEmails.size() + size - 1) / size;
+            String batchId = UUID.randomUUID().toString();
+
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                List<String> recipients = participantEmails.subList(chunkIndex * size,
+                        Math.min(participantEmails.size(), (chunkIndex + 1) * size));
+                EventReminderMessage reminderMessage = EventReminderMessage.builder()
+                    .eventId(event.getId())
+                    .eventTitle(event.getTitle())
+                    .eventDescription(event.getDescription())
+                    .eventDateTime(event.getEventDate())
+                    .eventLocation(event.getLocation())
+                    .organizerId(event.getOrganizerId())
+                    .participantEmails(new ArrayList<>(recipients))
+                    .batchId(batchId)
+                    .chunkIndex(chunkIndex)
+                    .chunkCount(chunkCount)
+                    .totalRecipients(participantEmails.size())
+                    .build();
+
+                outboxService.enqueue(eventReminderTopic, event.getId() + "-" + chunkIndex, reminderMessage);
+            }
             
-            log.info("Rappel envoyé sur Kafka pour l'événement '{}' avec {} participant(s)", 
-                    event.getTitle(), participantEmails.size());
+            log.info("Rappel écrit dans l'outbox pour l'événement '{}' avec {} participant(s) en {} lot(s) (batch {})", 
+                    event.getTitle(), participantEmails.size(), chunkCount, batchId);
             
         } catch (Exception e) {
             log.error("Erreur lors de l'envoi du rappel pour l'événement {}: {}", 
@@ -123,4 +311,30 @@ public class EventReminderService {
             throw new RuntimeException("Erreur lors de l'envoi du rappel", e);
         }
     }
-} 
\ No newline at end of file
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record ScheduledReminder(Long reminderId, Long eventId, long fireAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(fireAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(fireAtMillis, ((ScheduledReminder) other).fireAtMillis);
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.eventservice.service;
 
 import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.model.EventPage;
 import com.example.eventservice.model.EventRequest;
 import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.repository.EventSummary;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,39 +26,69 @@ public class EventService {
 
     private final EventRepository eventRepository;
     private final WaitlistService waitlistService;
+    private final EventStatsService eventStatsService;
+    private final EventCacheService eventCacheService;
+    private final EventReminderService eventReminderService;
+
+    // Bornes utilisées quand la plage de dates n'est pas précisée
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Value("${event.listing.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${event.listing.max-page-size:200}")
+    private int maxPageSize;
 
     public EventEntity createEvent(EventEntity event) {
         // Forcer les valeurs par défaut
         event.setMaxCapacity(5); // 5 places par défaut
         event.setWaitlistEnabled(true); // Liste d'attente activée par défaut
 
-        return eventRepository.save(event);
+        EventEntity savedEvent = eventRepository.save(event);
+        eventReminderService.schedule(savedEvent);
+        return savedEvent;
     }
 
-    public List<EventEntity> getAllEvents() {
-        List<EventEntity> events = eventRepository.findAll();
-
-        // Mettre à jour les événements qui n'ont pas les valeurs par défaut
-        for (EventEntity event : events) {
-            boolean needsUpdate = false;
-
-            if (event.getMaxCapacity() == null) {
-                event.setMaxCapacity(5);
-                needsUpdate = true;
-            }
+    /**
+     * Page d'événements ordonnée par (eventDate, id), filtrée par plage de dates, lieu et événements à venir.
+     * Lecture pure : les valeurs par défaut manquantes sont renseignées une fois au démarrage (EventDefaultsBackfill).
+     * Le curseur est opaque : il encode la clé (eventDate, id) du dernier événement de la page précédente.
+     * Sans taille, la page compte event.listing.default-page-size événements.
+     */
+    @Transactional(readOnly = true)
+    public EventPage getEventPage(String cursor, Integer size, LocalDateTime from, LocalDateTime to,
+                                  String location, boolean upcomingOnly) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+        LocalDateTime lowerBound = from != null ? from : MIN_DATE;
+        if (upcomingOnly) {
+            LocalDateTime now = LocalDateTime.now();
+            lowerBound = lowerBound.isAfter(now) ? lowerBound : now;
+        }
+        LocalDateTime upperBound = to != null ? to : MAX_DATE;
+
+        // Sans curseur, la condition de clé (date > borne) OU (date = borne ET id > 0) couvre toute la plage
+        LocalDateTime cursorDate = lowerBound;
+        long cursorId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = decodeCursor(cursor);
+            cursorDate = LocalDateTime.parse(key[0]);
+            cursorId = Long.parseLong(key[1]);
+        }
 
-            if (event.getWaitlistEnabled() == null) {
-                event.setWaitlistEnabled(true);
-                needsUpdate = true;
-            }
+        // Une ligne de plus que la taille demandée pour savoir s'il existe une page suivante
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<EventSummary> rows = location != null && !location.isBlank()
+                ? eventRepository.findPageByLocation(location, lowerBound, upperBound, cursorDate, cursorId, limit)
+                : eventRepository.findPage(lowerBound, upperBound, cursorDate, cursorId, limit);
 
-            if (needsUpdate) {
-                eventRepository.save(event);
-                log.info("Mise à jour des valeurs par défaut pour l'événement: {}", event.getTitle());
-            }
+        if (rows.size() <= pageSize) {
+            return new EventPage(rows, null);
         }
-
-        return events;
+        List<EventSummary> page = rows.subList(0, pageSize);
+        EventSummary last = page.get(pageSize - 1);
+        return new EventPage(page, encodeCursor(last.getEventDate(), last.getId()));
     }
 
     public Optional<EventEntity> getEventById(Long id) {
@@ -59,6 +97,28 @@ public class EventService {
 
     public void deleteEvent(Long id) {
         eventRepository.deleteById(id);
+        eventStatsService.remove(id);
+        eventCacheService.invalidate(id);
+        eventReminderService.cancel(id);
+    }
+
+    private static String encodeCursor(LocalDateTime eventDate, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((eventDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            LocalDateTime.parse(key[0]);
+            Long.parseLong(key[1]);
+            return key;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur invalide", e);
+        }
     }
 
     public EventEntity updateEvent(Long id, EventRequest eventRequest) {
@@ -73,8 +133,16 @@ public class EventService {
         // Forcer les valeurs par défaut même en modification
         existingEvent.setMaxCapacity(5); // 5 places par défaut
         existingEvent.setWaitlistEnabled(true); // Liste d'attente activée par défaut
+        // Le tirage ne peut plus être modifié une fois effectué
+        if (existingEvent.getWaitlistDrawnAt() == null) {
+            existingEvent.setWaitlistDrawEndsAt(eventRequest.getWaitlistDrawEndsAt());
+            existingEvent.setWaitlistDrawSeed(eventRequest.getWaitlistDrawSeed());
+        }
 
-        return eventRepository.save(existingEvent);
+        EventEntity savedEvent = eventRepository.save(existingEvent);
+        eventCacheService.invalidate(id);
+        eventReminderService.schedule(savedEvent);
+        return savedEvent;
     }
 
     /**
@@ -0,0 +1,324 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.EventStats;
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.repository.EventStatsRepository;
+import com.example.eventservice.repository.InvitationProjectionRepository;
+import com.example.eventservice.repository.WaitlistRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compteurs de participants par événement (confirmés, en attente de validation, liste d'attente, annulés).
+ * Mis à jour par deltas à chaque changement d'état d'invitation ou de liste d'attente, servis depuis la mémoire
+ * et écrits en direct dans la table event_stats. Une réconciliation périodique corrige les dérives
+ * par rapport aux tables sources (invitation_projection, waitlist_entries).
+ */
+@Service
+@Slf4j
+public class EventStatsService {
+
+    private static final int CONFIRMED = 0;
+    private static final int PENDING = 1;
+    private static final int WAITLIST = 2;
+    private static final int CANCELLED = 3;
+
+    private final EventStatsRepository statsRepository;
+    private final InvitationProjectionRepository projectionRepository;
+    private final WaitlistRepository waitlistRepository;
+    private final TransactionTemplate requiresNewTemplate;
+    private final InvitationProjectionGate projectionGate;
+    private final Counter driftCounter;
+
+    private final Map<Long, CachedStats> cache = new ConcurrentHashMap<>();
+
+    // Les deltas appliqués par les autres instances ne passent que par la base : on relit la ligne passé ce délai
+    @Value("${event-stats.memory-ttl-ms:5000}")
+    private long memoryTtlMs;
+
+    public EventStatsService(EventStatsRepository statsRepository,
+                             InvitationProjectionRepository projectionRepository,
+                             WaitlistRepository waitlistRepository,
+                             PlatformTransactionManager transactionManager,
+                             InvitationProjectionGate projectionGate,
+                             MeterRegistry meterRegistry) {
+        this.statsRepository = statsRepository;
+        this.projectionRepository = projectionRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.projectionGate = projectionGate;
+        this.driftCounter = Counter.builder("event.stats.reconcile.drift")
+                .description("Compteurs d'événement corrigés par la réconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compteurs courants d'un événement. Attend que la projection des invitations soit amorcée :
+     * les lignes créées avant seraient comptées sur une projection vide.
+     */
+    public Snapshot getStats(Long eventId) {
+        projectionGate.await();
+        CachedStats cached = cache.get(eventId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAtMillis() < memoryTtlMs) {
+            return cached.snapshot();
+        }
+        EventStats stats = statsRepository.findById(eventId).orElseGet(() -> ensureRow(eventId));
+        Snapshot snapshot = Snapshot.of(stats);
+        cache.put(eventId, new CachedStats(snapshot, System.currentTimeMillis()));
+        return snapshot;
+    }
+
+    /**
+     * Changement de statut d'une invitation (null = invitation inexistante)
+     */
+    @Transactional
+    public void onInvitationStatusChanged(Long eventId, String oldStatus, String newStatus) {
+        if (eventId == null || Objects.equals(oldStatus, newStatus)) {
+            return;
+        }
+        long[] delta = new long[4];
+        addInvitationStatus(delta, oldStatus, -1);
+        addInvitationStatus(delta, newStatus, 1);
+        applyDelta(eventId, delta);
+    }
+
+    /**
+     * Changement de statut d'une entrée de liste d'attente (null = entrée inexistante)
+     */
+    @Transactional
+    public void onWaitlistStatusChanged(Long eventId, WaitlistEntry.WaitlistStatus oldStatus, WaitlistEntry.WaitlistStatus newStatus) {
+        if (eventId == null || oldStatus == newStatus) {
+            return;
+        }
+        long[] delta = new long[4];
+        if (oldStatus == WaitlistEntry.WaitlistStatus.WAITING) {
+            delta[WAITLIST]--;
+        }
+        if (newStatus == WaitlistEntry.WaitlistStatus.WAITING) {
+            delta[WAITLIST]++;
+        }
+        applyDelta(eventId, delta);
+    }
+
+    /**
+     * Toutes les invitations ont été supprimées
+     */
+    @Transactional
+    public void resetInvitationCounts() {
+        statsRepository.resetInvitationCounts(LocalDateTime.now());
+        afterCommit(cache::clear);
+    }
+
+    /**
+     * Toutes les listes d'attente ont été vidées
+     */
+    @Transactional
+    public void resetWaitlistCounts() {
+        statsRepository.resetWaitlistCounts(LocalDateTime.now());
+        afterCommit(cache::clear);
+    }
+
+    @Transactional
+    public void remove(Long eventId) {
+        statsRepository.findById(eventId).ifPresent(statsRepository::delete);
+        afterCommit(() -> cache.remove(eventId));
+    }
+
+    /**
+     * Compare les compteurs aux tables sources et corrige les dérives.
+     * La correction n'est appliquée que si aucun delta n'a été écrit entre la lecture et l'écriture (version inchangée).
+     *
+     * @return nombre d'événements corrigés
+     */
+    @Scheduled(fixedDelayString = "${event-stats.reconcile-interval-ms:600000}", initialDelay = 60000)
+    public int reconcile() {
+        try {
+            Map<Long, long[]> expected = new HashMap<>();
+            for (Object[] row : projectionRepository.countGroupedByEventIdAndStatus()) {
+                addInvitationStatus(expected.computeIfAbsent((Long) row[0], id -> new long[4]), (String) row[1], (Long) row[2]);
+            }
+            for (Object[] row : waitlistRepository.countWaitingGroupedByEventId()) {
+                expected.computeIfAbsent((Long) row[0], id -> new long[4])[WAITLIST] += (Long) row[1];
+            }
+
+            int corrected = 0;
+            for (EventStats stats : statsRepository.findAll()) {
+                long[] counts = expected.getOrDefault(stats.getEventId(), new long[4]);
+                if (!matches(stats, counts) && correct(stats.getEventId())) {
+                    corrected++;
+                }
+            }
+            if (corrected > 0) {
+                log.warn("Réconciliation des compteurs: {} événement(s) corrigé(s)", corrected);
+            }
+            return corrected;
+        } catch (Exception e) {
+            log.error("Erreur lors de la réconciliation des compteurs d'événements", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Recompte un événement depuis les tables sources et remplace ses compteurs si la ligne n'a pas bougé entre-temps
+     */
+    private boolean correct(Long eventId) {
+        Boolean corrected = requiresNewTemplate.execute(status -> {
+            EventStats stats = statsRepository.findById(eventId).orElse(null);
+            if (stats == null) {
+                return false;
+            }
+            long[] counts = countFromSource(eventId);
+            if (matches(stats, counts)) {
+                return false;
+            }
+            int updated = statsRepository.overwriteIfVersion(eventId, counts[CONFIRMED], counts[PENDING],
+                    counts[WAITLIST], counts[CANCELLED], stats.getVersion(), LocalDateTime.now());
+            if (updated == 1) {
+                log.warn("Compteurs de l'événement {} corrigés: confirmés {} -> {}, en attente {} -> {}, liste d'attente {} -> {}, annulés {} -> {}",
+                        eventId, stats.getConfirmedCount(), counts[CONFIRMED], stats.getPendingCount(), counts[PENDING],
+                        stats.getWaitlistCount(), counts[WAITLIST], stats.getCancelledCount(), counts[CANCELLED]);
+            }
+            return updated == 1;
+        });
+        cache.remove(eventId);
+        if (Boolean.TRUE.equals(corrected)) {
+            driftCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Un delta nul est tout de même écrit : le changement de statut est visible dans les réponses,
+     * et l'incrément de version invalide les ETags de l'événement.
+     */
+    private void applyDelta(Long eventId, long[] delta) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = statsRepository.applyDelta(eventId, delta[CONFIRMED], delta[PENDING], delta[WAITLIST], delta[CANCELLED], now);
+        if (updated == 0) {
+            // Première modification : la ligne est initialisée depuis l'état déjà validé, le delta courant s'y ajoute
+            ensureRow(eventId);
+            statsRepository.applyDelta(eventId, delta[CONFIRMED], delta[PENDING], delta[WAITLIST], delta[CANCELLED], now);
+        }
+        afterCommit(() -> cache.computeIfPresent(eventId, (id, cached) ->
+                new CachedStats(cached.snapshot().plus(delta), cached.loadedAtMillis())));
+    }
+
+    /**
+     * Crée la ligne de compteurs d'un événement depuis les tables sources, dans une transaction séparée
+     */
+    private EventStats ensureRow(Long eventId) {
+        try {
+            return requiresNewTemplate.execute(status -> statsRepository.findById(eventId).orElseGet(() -> {
+                long[] counts = countFromSource(eventId);
+                return statsRepository.saveAndFlush(EventStats.builder()
+                        .eventId(eventId)
+                        .confirmedCount(counts[CONFIRMED])
+                        .pendingCount(counts[PENDING])
+                        .waitlistCount(counts[WAITLIST])
+                        .cancelledCount(counts[CANCELLED])
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Ligne créée en parallèle par une autre transaction
+            return statsRepository.findById(eventId).orElseThrow(() -> e);
+        }
+    }
+
+    private long[] countFromSource(Long eventId) {
+        long[] counts = new long[4];
+        for (Object[] row : projectionRepository.countByEventIdGroupedByStatus(eventId)) {
+            addInvitationStatus(counts, (String) row[0], (Long) row[1]);
+        }
+        counts[WAITLIST] = waitlistRepository.countWaitingByEventId(eventId);
+        return counts;
+    }
+
+    private static void addInvitationStatus(long[] counts, String status, long amount) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case "CONFIRMED" -> counts[CONFIRMED] += amount;
+            case "PENDING", "WAITLIST" -> counts[PENDING] += amount;
+            case "CANCELLED" -> counts[CANCELLED] += amount;
+            default -> { }
+        }
+    }
+
+    private static boolean matches(EventStats stats, long[] counts) {
+        return stats.getConfirmedCount() == counts[CONFIRMED]
+                && stats.getPendingCount() == counts[PENDING]
+                && stats.getWaitlistCount() == counts[WAITLIST]
+                && stats.getCancelledCount() == counts[CANCELLED];
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record CachedStats(Snapshot snapshot, long loadedAtMillis) {
+    }
+
+    /**
+     * Vue immuable des compteurs d'un événement
+     */
+    @lombok.Value
+    @lombok.Builder
+    public static class Snapshot {
+        long confirmed;
+        long pending;
+        long waitlist;
+        long cancelled;
+        long version;
+
+        static Snapshot of(EventStats stats) {
+            return Snapshot.builder()
+                    .confirmed(stats.getConfirmedCount())
+                    .pending(stats.getPendingCount())
+                    .waitlist(stats.getWaitlistCount())
+                    .cancelled(stats.getCancelledCount())
+                    .version(stats.getVersion())
+                    .build();
+        }
+
+        Snapshot plus(long[] delta) {
+            return Snapshot.builder()
+                    .confirmed(confirmed + delta[CONFIRMED])
+                    .pending(pending + delta[PENDING])
+                    .waitlist(waitlist + delta[WAITLIST])
+                    .cancelled(cancelled + delta[CANCELLED])
+                    .version(version + 1)
+                    .build();
+        }
+    }
+}
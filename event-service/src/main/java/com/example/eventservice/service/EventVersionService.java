@@ -0,0 +1,58 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.repository.EventSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Versions des réponses d'événements pour les requêtes conditionnelles (ETag / If-None-Match).
+ * La version combine la date de modification de l'événement, la version de ses compteurs
+ * (incrémentée à chaque changement d'invitation ou de liste d'attente) et l'utilisateur, la réponse lui étant propre.
+ * Elle se calcule sans appel distant : cache des événements et compteurs en mémoire.
+ */
+@Service
+@RequiredArgsConstructor
+public class EventVersionService {
+
+    private final EventCacheService eventCacheService;
+    private final EventStatsService eventStatsService;
+
+    /**
+     * ETag du détail d'un événement, vide si l'événement n'existe pas
+     */
+    public Optional<String> eventETag(Long eventId, String userEmail) {
+        return eventCacheService.get(eventId).map(event -> {
+            StringBuilder version = new StringBuilder("event:");
+            appendEventVersion(version, event.getId(), String.valueOf(event.getUpdatedAt()));
+            version.append("|user:").append(userEmail);
+            return toETag(version);
+        });
+    }
+
+    /**
+     * ETag d'une page de la liste : ensemble ordonné des événements, leurs versions et le curseur suivant
+     */
+    public String pageETag(List<EventSummary> events, String nextCursor, String userEmail) {
+        StringBuilder version = new StringBuilder("page:");
+        for (EventSummary event : events) {
+            appendEventVersion(version, event.getId(), String.valueOf(event.getUpdatedAt()));
+            version.append(';');
+        }
+        version.append("|next:").append(nextCursor).append("|user:").append(userEmail);
+        return toETag(version);
+    }
+
+    private void appendEventVersion(StringBuilder version, Long eventId, String updatedAt) {
+        version.append(eventId).append('@').append(updatedAt)
+                .append('#').append(eventStatsService.getStats(eventId).getVersion());
+    }
+
+    private String toETag(CharSequence version) {
+        return "\"" + DigestUtils.md5DigestAsHex(version.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
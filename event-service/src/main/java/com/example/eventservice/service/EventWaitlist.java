@@ -0,0 +1,369 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liste d'attente d'un événement en mémoire : entrées WAITING indexées par ticket dans un arbre de Fenwick
+ * (rang, nombre et prochaine entrée en O(log n)), plus les écritures en attente de persistance.
+ * Non thread-safe : l'appelant synchronise sur l'instance.
+ */
+class EventWaitlist {
+
+    private final Long eventId;
+    private final Map<String, WaitlistEntry> waitingByEmail = new HashMap<>();
+    private final Map<Integer, WaitlistEntry> waitingByTicket = new HashMap<>();
+    private final TicketIndex index = new TicketIndex();
+
+    // Statut en base des entrées suivies (absente = pas de ligne en base)
+    private final Map<String, WaitlistEntry.WaitlistStatus> persistedStatus = new HashMap<>();
+    // Dernier état à écrire par email (null = ligne à supprimer)
+    private final Map<String, WaitlistEntry> pending = new LinkedHashMap<>();
+    // Message à publier avec l'insertion d'une inscription en attente d'écriture
+    private final Map<String, Object> joinMessages = new HashMap<>();
+
+    private int nextTicket;
+    private int reservedUpTo;
+    private long lastAccessMillis = System.currentTimeMillis();
+    private boolean evicted;
+
+    EventWaitlist(Long eventId, List<WaitlistEntry> waitingEntries) {
+        this.eventId = eventId;
+        for (WaitlistEntry entry : waitingEntries) {
+            addWaiting(entry);
+            persistedStatus.put(entry.getUserEmail(), WaitlistEntry.WaitlistStatus.WAITING);
+        }
+    }
+
+    Long getEventId() {
+        return eventId;
+    }
+
+    WaitlistEntry find(String userEmail) {
+        touch();
+        WaitlistEntry entry = waitingByEmail.get(userEmail);
+        return entry != null ? entry : pending.get(userEmail);
+    }
+
+    /**
+     * Le suivi d'un email est-il connu ici (en attente ou écriture non persistée) ?
+     */
+    boolean tracks(String userEmail) {
+        return waitingByEmail.containsKey(userEmail) || pending.containsKey(userEmail);
+    }
+
+    /**
+     * Départ en attente d'écriture d'une ligne présente en base : une réinscription doit attendre sa suppression
+     * (le ticket d'une ligne n'est jamais réécrit, une mise à jour garderait l'ancien)
+     */
+    boolean hasPendingRemoval(String userEmail) {
+        return pending.containsKey(userEmail) && pending.get(userEmail) == null && persistedStatus.containsKey(userEmail);
+    }
+
+    boolean needsTickets() {
+        return nextTicket == 0 || nextTicket > reservedUpTo;
+    }
+
+    /**
+     * Plage de tickets réservée dans waitlist_sequences
+     */
+    void addTicketRange(int first, int last) {
+        nextTicket = first;
+        reservedUpTo = last;
+    }
+
+    /**
+     * @param joinMessage message écrit dans l'outbox avec l'insertion de la ligne (null = aucun)
+     */
+    WaitlistEntry join(String userEmail, Object joinMessage) {
+        touch();
+        LocalDateTime now = LocalDateTime.now();
+        WaitlistEntry entry = WaitlistEntry.builder()
+                .eventId(eventId)
+                .userEmail(userEmail)
+                .ticket(nextTicket++)
+                .status(WaitlistEntry.WaitlistStatus.WAITING)
+                .notificationSent(false)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        addWaiting(entry);
+        pending.put(userEmail, entry);
+        if (joinMessage != null) {
+            joinMessages.put(userEmail, joinMessage);
+        }
+        return entry;
+    }
+
+    WaitlistEntry leave(String userEmail) {
+        touch();
+        WaitlistEntry entry = removeWaiting(userEmail);
+        if (entry == null) {
+            entry = pending.get(userEmail);
+        }
+        if (entry != null) {
+            pending.put(userEmail, null);
+            joinMessages.remove(userEmail);
+        }
+        return entry;
+    }
+
+    /**
+     * Retire les n premières entrées en attente et les passe au statut donné. Aucune écriture n'est mise
+     * en attente : l'appelant persiste la promotion lui-même et les entrées ne sont plus suivies ici.
+     * Les écritures en attente doivent avoir été vidées au préalable (les lignes existent en base).
+     */
+    List<WaitlistEntry> popNext(int n, WaitlistEntry.WaitlistStatus newStatus) {
+        touch();
+        List<WaitlistEntry> popped = new ArrayList<>();
+        while (popped.size() < n && index.total() > 0) {
+            WaitlistEntry entry = removeWaiting(waitingByTicket.get(index.findKth(1)).getUserEmail());
+            entry.setStatus(newStatus);
+            entry.setNotificationSent(true);
+            entry.setUpdatedAt(LocalDateTime.now());
+            persistedStatus.remove(entry.getUserEmail());
+            popped.add(entry);
+        }
+        return popped;
+    }
+
+    /**
+     * Rang (1 = prochaine servie), null si l'email n'est pas en attente
+     */
+    Integer rank(String userEmail) {
+        touch();
+        WaitlistEntry entry = waitingByEmail.get(userEmail);
+        return entry == null ? null : Math.toIntExact(index.prefix(entry.getTicket() - 1) + 1);
+    }
+
+    long waitingCount() {
+        touch();
+        return index.total();
+    }
+
+    /**
+     * Inscription persistée par une autre instance
+     */
+    void applyExternalJoin(WaitlistEntry entry) {
+        if (!tracks(entry.getUserEmail())) {
+            addWaiting(entry);
+            persistedStatus.put(entry.getUserEmail(), WaitlistEntry.WaitlistStatus.WAITING);
+        }
+    }
+
+    /**
+     * Départ ou changement de statut persisté par une autre instance
+     */
+    void applyExternalRemoval(String userEmail) {
+        if (!pending.containsKey(userEmail)) {
+            removeWaiting(userEmail);
+            persistedStatus.remove(userEmail);
+        }
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Marque la liste comme retirée de la mémoire : les appelants qui détenaient la référence rechargent
+     */
+    void evict() {
+        evicted = true;
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    /**
+     * Vide les écritures en attente. Le statut en base est mis à jour par anticipation ;
+     * {@link #restore} le rétablit si l'écriture échoue.
+     */
+    List<PendingWrite> drain() {
+        List<PendingWrite> writes = new ArrayList<>(pending.size());
+        pending.forEach((email, entry) -> {
+            WaitlistEntry.WaitlistStatus before = persistedStatus.get(email);
+            Object joinMessage = before == null && entry != null ? joinMessages.get(email) : null;
+            writes.add(new PendingWrite(eventId, email, before, entry != null ? copy(entry) : null, joinMessage));
+            if (entry != null && entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING) {
+                persistedStatus.put(email, WaitlistEntry.WaitlistStatus.WAITING);
+            } else {
+                persistedStatus.remove(email);
+            }
+        });
+        pending.clear();
+        joinMessages.clear();
+        return writes;
+    }
+
+    void restore(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            if (write.before() != null) {
+                persistedStatus.put(write.userEmail(), write.before());
+            } else {
+                persistedStatus.remove(write.userEmail());
+            }
+            // Une écriture plus récente pour le même email la remplace
+            if (!pending.containsKey(write.userEmail())) {
+                pending.put(write.userEmail(), write.after());
+                if (write.joinMessage() != null) {
+                    joinMessages.put(write.userEmail(), write.joinMessage());
+                }
+            }
+        }
+    }
+
+    private void addWaiting(WaitlistEntry entry) {
+        waitingByEmail.put(entry.getUserEmail(), entry);
+        waitingByTicket.put(entry.getTicket(), entry);
+        index.add(entry.getTicket(), 1);
+    }
+
+    private WaitlistEntry removeWaiting(String userEmail) {
+        WaitlistEntry entry = waitingByEmail.remove(userEmail);
+        if (entry != null) {
+            waitingByTicket.remove(entry.getTicket());
+            index.add(entry.getTicket(), -1);
+        }
+        return entry;
+    }
+
+    private void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    private static WaitlistEntry copy(WaitlistEntry entry) {
+        return WaitlistEntry.builder()
+                .id(entry.getId())
+                .eventId(entry.getEventId())
+                .userEmail(entry.getUserEmail())
+                .ticket(entry.getTicket())
+                .status(entry.getStatus())
+                .notificationSent(entry.getNotificationSent())
+                .expiresAt(entry.getExpiresAt())
+                .createdAt(entry.getCreatedAt())
+                .updatedAt(entry.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Écriture à persister : before = statut en base (null = pas de ligne), after = état cible (null = suppression),
+     * joinMessage = message à écrire dans l'outbox avec l'insertion
+     */
+    record PendingWrite(Long eventId, String userEmail, WaitlistEntry.WaitlistStatus before, WaitlistEntry after,
+                        Object joinMessage) {
+    }
+
+    /**
+     * Arbre de Fenwick sur les tickets (décalés par rapport au plus petit ticket connu), agrandi à la demande
+     */
+    static final class TicketIndex {
+        private int base = -1;
+        private long[] tree = new long[64];
+        private long total;
+
+        void add(int ticket, int delta) {
+            if (base < 0) {
+                base = ticket;
+            }
+            if (ticket < base) {
+                rebase(ticket);
+            }
+            int position = ticket - base + 1;
+            if (position >= tree.length) {
+                grow(position);
+            }
+            for (int i = position; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+            total += delta;
+        }
+
+        /**
+         * Nombre d'entrées dont le ticket est inférieur ou égal à ticket
+         */
+        long prefix(int ticket) {
+            if (base < 0 || ticket < base) {
+                return 0;
+            }
+            int position = Math.min(ticket - base + 1, tree.length - 1);
+            long sum = 0;
+            for (int i = position; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        /**
+         * Ticket de la k-ième entrée (k >= 1, k <= total)
+         */
+        int findKth(long k) {
+            int position = 0;
+            for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+                int next = position + step;
+                if (next < tree.length && tree[next] < k) {
+                    position = next;
+                    k -= tree[next];
+                }
+            }
+            return base + position;
+        }
+
+        long total() {
+            return total;
+        }
+
+        private void grow(int position) {
+            int size = tree.length;
+            while (size <= position) {
+                size <<= 1;
+            }
+            rebuild(base, size);
+        }
+
+        private void rebase(int newBase) {
+            int size = tree.length;
+            while (size <= (tree.length - 1) + (base - newBase)) {
+                size <<= 1;
+            }
+            rebuild(newBase, size);
+        }
+
+        private void rebuild(int newBase, int size) {
+            long[] counts = new long[tree.length];
+            for (int i = 1; i < tree.length; i++) {
+                counts[i] = prefixAt(i) - prefixAt(i - 1);
+            }
+            long[] rebuilt = new long[size];
+            for (int i = 1; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    int position = i + (base - newBase);
+                    for (int j = position; j < size; j += j & -j) {
+                        rebuilt[j] += counts[i];
+                    }
+                }
+            }
+            tree = rebuilt;
+            base = newBase;
+        }
+
+        private long prefixAt(int position) {
+            long sum = 0;
+            for (int i = position; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
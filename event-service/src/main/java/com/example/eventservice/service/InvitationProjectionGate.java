@@ -0,0 +1,49 @@
+package com.example.eventservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retient les lectures qui dépendent de la projection des invitations (compteurs, destinataires des rappels)
+ * tant que l'amorçage de {@link InvitationProjectionService} ne l'a pas déclarée à jour
+ */
+@Component
+public class InvitationProjectionGate {
+
+    private final CountDownLatch ready = new CountDownLatch(1);
+
+    @Value("${invitation.projection.read-wait-ms:5000}")
+    private long readWaitMs;
+
+    public boolean isOpen() {
+        return ready.getCount() == 0;
+    }
+
+    void open() {
+        ready.countDown();
+    }
+
+    /**
+     * Attend l'ouverture au plus invitation.projection.read-wait-ms
+     *
+     * @throws ResponseStatusException 503 si la projection n'est toujours pas prête
+     */
+    public void await() {
+        if (isOpen()) {
+            return;
+        }
+        try {
+            if (ready.await(readWaitMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Projection des invitations en cours d'initialisation");
+    }
+}
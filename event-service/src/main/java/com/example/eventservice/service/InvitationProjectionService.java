@@ -0,0 +1,305 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.entity.InvitationProjection;
+import com.example.eventservice.model.InvitationLifecycleMessage;
+import com.example.eventservice.model.InvitationResponse;
+import com.example.eventservice.model.InvitationWatermark;
+import com.example.eventservice.repository.InvitationProjectionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Projection locale des invitations (table invitation_projection).
+ * Alimentée par le topic invitation.lifecycle, reconstructible depuis le snapshot d'invitation-service.
+ * Au démarrage, la projection est reconstruite sous bail si elle est vide ou en retard sur invitation-service ;
+ * les lectures qui en dépendent attendent la fin de l'amorçage ({@link InvitationProjectionGate}).
+ */
+@Service
+@Slf4j
+public class InvitationProjectionService {
+
+    public static final String STATUS_CONFIRMED = "CONFIRMED";
+    static final String BOOTSTRAP_LEASE = "invitation-projection-bootstrap";
+
+    private final InvitationProjectionRepository projectionRepository;
+    private final InvitationClient invitationClient;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EventStatsService eventStatsService;
+    private final LeaseService leaseService;
+    private final InvitationProjectionGate gate;
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final AtomicLong lastOccurredAtMillis = new AtomicLong(0);
+    private final Timer lagTimer;
+    private final Counter appliedCounter;
+
+    @Value("${invitation.projection.snapshot-page-size:500}")
+    private int snapshotPageSize;
+
+    @Value("${invitation.projection.bootstrap.enabled:true}")
+    private boolean bootstrapEnabled;
+
+    // Écart toléré entre la dernière modification vue par la projection et celle d'invitation-service
+    @Value("${invitation.projection.bootstrap.max-lag-seconds:300}")
+    private long bootstrapMaxLagSeconds;
+
+    @Value("${invitation.projection.bootstrap.lease-ttl-seconds:60}")
+    private long bootstrapLeaseTtlSeconds;
+
+    // Au-delà, les lectures sont servies même si l'amorçage n'a pas pu aboutir (invitation-service injoignable)
+    @Value("${invitation.projection.bootstrap.max-wait-ms:300000}")
+    private long bootstrapMaxWaitMs;
+
+    public InvitationProjectionService(InvitationProjectionRepository projectionRepository,
+                                       InvitationClient invitationClient,
+                                       ObjectMapper objectMapper,
+                                       TransactionTemplate transactionTemplate,
+                                       EventStatsService eventStatsService,
+                                       LeaseService leaseService,
+                                       InvitationProjectionGate gate,
+                                       MeterRegistry meterRegistry) {
+        this.projectionRepository = projectionRepository;
+        this.invitationClient = invitationClient;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.eventStatsService = eventStatsService;
+        this.leaseService = leaseService;
+        this.gate = gate;
+        this.lagTimer = Timer.builder("invitation.projection.lag")
+                .description("Délai entre le changement d'une invitation et son application dans la projection")
+                .register(meterRegistry);
+        this.appliedCounter = Counter.builder("invitation.projection.applied")
+                .description("Messages invitation.lifecycle appliqués")
+                .register(meterRegistry);
+        Gauge.builder("invitation.projection.staleness.seconds", lastOccurredAtMillis,
+                        last -> last.get() == 0 ? 0 : (System.currentTimeMillis() - last.get()) / 1000.0)
+                .description("Âge du dernier changement d'invitation appliqué")
+                .register(meterRegistry);
+        Gauge.builder("invitation.projection.rebuilding", rebuilding, flag -> flag.get() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Écoute les changements d'état des invitations
+     */
+    @org.springframework.kafka.annotation.KafkaListener(
+        topics = "${kafka.topics.invitation-lifecycle:invitation.lifecycle}",
+        groupId = "event-service-group"
+    )
+    @Transactional
+    public void handleInvitationLifecycle(String message) {
+        try {
+            InvitationLifecycleMessage lifecycle = objectMapper.readValue(message, InvitationLifecycleMessage.class);
+            apply(lifecycle, LocalDateTime.now());
+            recordLag(lifecycle.getOccurredAt());
+        } catch (Exception e) {
+            log.error("Erreur lors de l'application du changement d'invitation: {} - message: {}", e.getMessage(), message, e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long countByStatus(Long eventId, String status) {
+        gate.await();
+        return projectionRepository.countByEventIdAndStatus(eventId, status);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findParticipantEmails(Long eventId, String status) {
+        gate.await();
+        return projectionRepository.findUserEmailsByEventIdAndStatus(eventId, status);
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Amorçage : tant que la projection n'est pas déclarée à jour, compare sa dernière modification à celle
+     * d'invitation-service et la reconstruit si elle est vide ou en retard. Une seule instance reconstruit
+     * (bail invitation-projection-bootstrap, prolongé à chaque page) ; les autres attendent qu'elle soit à jour.
+     */
+    @Scheduled(fixedDelayString = "${invitation.projection.bootstrap.interval-ms:5000}")
+    public void bootstrap() {
+        if (gate.isOpen()) {
+            return;
+        }
+        if (!bootstrapEnabled) {
+            gate.open();
+            return;
+        }
+        try {
+            if (isUpToDate()) {
+                log.info("Projection des invitations à jour, lectures ouvertes");
+                gate.open();
+                return;
+            }
+            Duration ttl = Duration.ofSeconds(bootstrapLeaseTtlSeconds);
+            if (leaseService.acquireOrRenew(BOOTSTRAP_LEASE, ttl).isEmpty()) {
+                log.info("Projection des invitations en cours de reconstruction par une autre instance");
+                return;
+            }
+            try {
+                if (rebuild(() -> leaseService.acquireOrRenew(BOOTSTRAP_LEASE, ttl)) >= 0) {
+                    gate.open();
+                }
+            } finally {
+                leaseService.release(BOOTSTRAP_LEASE);
+            }
+        } catch (Exception e) {
+            log.warn("Amorçage de la projection des invitations impossible: {}", e.getMessage());
+            if (System.currentTimeMillis() - startedAtMillis > bootstrapMaxWaitMs) {
+                log.error("Projection des invitations non amorcée après {} ms : lectures ouvertes, reconstruction manuelle nécessaire",
+                        bootstrapMaxWaitMs);
+                gate.open();
+            }
+        }
+    }
+
+    /**
+     * Reconstruit la projection depuis le snapshot paginé d'invitation-service.
+     * Les lignes non vues dans le snapshot et non modifiées par le flux pendant la reconstruction sont supprimées.
+     *
+     * @return nombre d'invitations lues dans le snapshot, ou -1 si une reconstruction est déjà en cours
+     */
+    public long rebuildFromSnapshot() {
+        long total = rebuild(() -> { });
+        if (total >= 0) {
+            gate.open();
+        }
+        return total;
+    }
+
+    /**
+     * @param onPage appelé après chaque page appliquée
+     */
+    private long rebuild(Runnable onPage) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.warn("Reconstruction de la projection des invitations déjà en cours");
+            return -1;
+        }
+        try {
+            LocalDateTime rebuildStartedAt = LocalDateTime.now();
+            long afterId = 0;
+            long total = 0;
+            log.info("=== DEBUT reconstruction de la projection des invitations ===");
+            while (true) {
+                List<InvitationResponse> page = invitationClient.getInvitationSnapshot(afterId, snapshotPageSize).getBody();
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> page.forEach(invitation ->
+                        apply(fromSnapshot(invitation), LocalDateTime.now())));
+                total += page.size();
+                afterId = page.get(page.size() - 1).getId();
+                onPage.run();
+                // Pas d'arrêt sur une page courte : le serveur peut plafonner la taille demandée
+            }
+            Integer removed = transactionTemplate.execute(status -> projectionRepository.deleteNotSyncedSince(rebuildStartedAt));
+            log.info("=== FIN reconstruction de la projection des invitations: {} lue(s), {} obsolète(s) supprimée(s) ===",
+                    total, removed);
+            // Les suppressions en masse ne passent pas par les deltas
+            eventStatsService.reconcile();
+            return total;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private boolean isUpToDate() {
+        InvitationWatermark source = invitationClient.getInvitationWatermark().getBody();
+        if (source == null || source.getCount() == 0) {
+            return true;
+        }
+        if (projectionRepository.count() == 0) {
+            return false;
+        }
+        LocalDateTime local = projectionRepository.findLastSourceUpdatedAt();
+        return source.getLastUpdatedAt() == null || (local != null
+                && !local.isBefore(source.getLastUpdatedAt().minusSeconds(bootstrapMaxLagSeconds)));
+    }
+
+    private void apply(InvitationLifecycleMessage message, LocalDateTime syncedAt) {
+        switch (message.getType()) {
+            case CLEARED -> {
+                projectionRepository.deleteAllInBatch();
+                eventStatsService.resetInvitationCounts();
+            }
+            case DELETED -> delete(message);
+            case UPSERTED -> upsert(message, syncedAt);
+        }
+        appliedCounter.increment();
+    }
+
+    private void delete(InvitationLifecycleMessage message) {
+        String previousStatus = projectionRepository
+                .findByEventIdAndUserEmail(message.getEventId(), message.getUserEmail())
+                .map(InvitationProjection::getStatus)
+                .orElse(null);
+        projectionRepository.deleteByEventIdAndUserEmail(message.getEventId(), message.getUserEmail());
+        eventStatsService.onInvitationStatusChanged(message.getEventId(), previousStatus, null);
+    }
+
+    private void upsert(InvitationLifecycleMessage message, LocalDateTime syncedAt) {
+        InvitationProjection projection = projectionRepository
+                .findByEventIdAndUserEmail(message.getEventId(), message.getUserEmail())
+                .orElseGet(() -> InvitationProjection.builder()
+                        .eventId(message.getEventId())
+                        .userEmail(message.getUserEmail())
+                        .build());
+
+        String previousStatus = projection.getStatus();
+        projection.setSyncedAt(syncedAt);
+        boolean stale = projection.getSourceUpdatedAt() != null && message.getUpdatedAt() != null
+                && message.getUpdatedAt().isBefore(projection.getSourceUpdatedAt());
+        if (!stale) {
+            projection.setInvitationId(message.getInvitationId());
+            projection.setStatus(message.getStatus());
+            projection.setSeatRow(message.getSeatRow());
+            projection.setSeatNumber(message.getSeatNumber());
+            projection.setSourceUpdatedAt(message.getUpdatedAt());
+        }
+        projectionRepository.save(projection);
+        eventStatsService.onInvitationStatusChanged(message.getEventId(), previousStatus, projection.getStatus());
+    }
+
+    private InvitationLifecycleMessage fromSnapshot(InvitationResponse invitation) {
+        return InvitationLifecycleMessage.builder()
+                .type(InvitationLifecycleMessage.Type.UPSERTED)
+                .invitationId(invitation.getId())
+                .eventId(invitation.getEventId())
+                .userEmail(invitation.getUserEmail())
+                .status(invitation.getStatus())
+                .seatRow(invitation.getSeatInfo() != null ? invitation.getSeatInfo().getRow() : null)
+                .seatNumber(invitation.getSeatInfo() != null ? invitation.getSeatInfo().getNumber() : null)
+                .updatedAt(invitation.getUpdatedAt())
+                .build();
+    }
+
+    private void recordLag(LocalDateTime occurredAt) {
+        if (occurredAt == null) {
+            return;
+        }
+        long occurredAtMillis = occurredAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        lastOccurredAtMillis.accumulateAndGet(occurredAtMillis, Math::max);
+        lagTimer.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - occurredAtMillis)));
+    }
+}
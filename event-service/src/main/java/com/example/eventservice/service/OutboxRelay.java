@@ -0,0 +1,138 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.OutboxMessage;
+import com.example.eventservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publie les messages de outbox_messages. Une seule instance (bail "outbox-relay") lit la table par lots
+ * dans l'ordre des ids ; chaque lot part dans une transaction Kafka (visible en entier ou pas du tout pour les
+ * consommateurs read_committed) puis est supprimé. Un lot en échec est rejoué tel quel : livraison au moins
+ * une fois, ordre conservé par clé.
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+    static final String LEASE_NAME = "outbox-relay";
+
+    private final OutboxRepository outboxRepository;
+    private final LeaseService leaseService;
+    private final KafkaTemplate<String, String> transactionalKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Timer deliveryTimer;
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private volatile boolean leader;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.lease-ttl-seconds:30}")
+    private long leaseTtlSeconds;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       LeaseService leaseService,
+                       @Qualifier("transactionalKafkaTemplate") KafkaTemplate<String, String> transactionalKafkaTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.leaseService = leaseService;
+        this.transactionalKafkaTemplate = transactionalKafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Messages de l'outbox publiés sur Kafka")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("outbox.relay.failures")
+                .description("Lots de l'outbox en échec (rejoués au passage suivant)")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("outbox.relay.delivery")
+                .description("Délai entre l'écriture d'un message dans l'outbox et sa publication")
+                .register(meterRegistry);
+        Gauge.builder("outbox.depth", depth, AtomicLong::get)
+                .description("Messages en attente dans l'outbox")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag.seconds", lagMillis, value -> value.get() / 1000.0)
+                .description("Âge du plus ancien message non publié")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.lease-renew-ms:10000}")
+    public void maintainLeadership() {
+        boolean nowLeader = leaseService.acquireOrRenew(LEASE_NAME, Duration.ofSeconds(leaseTtlSeconds)).isPresent();
+        if (nowLeader != leader) {
+            log.info(nowLeader ? "Instance responsable du relais de l'outbox" : "Bail du relais de l'outbox perdu");
+        }
+        leader = nowLeader;
+    }
+
+    /**
+     * Vide l'outbox lot par lot ; l'intervalle entre deux passages est l'attente maximale d'un message (linger)
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.linger-ms:50}")
+    public void relay() {
+        if (!leader) {
+            return;
+        }
+        try {
+            List<OutboxMessage> batch;
+            do {
+                if (leaseService.currentToken(LEASE_NAME).isEmpty()) {
+                    return;
+                }
+                batch = outboxRepository.findNextBatch(PageRequest.of(0, Math.max(1, batchSize)));
+                if (!batch.isEmpty()) {
+                    publish(batch);
+                }
+            } while (batch.size() >= batchSize);
+        } catch (Exception e) {
+            failureCounter.increment();
+            log.error("Échec de la publication d'un lot de l'outbox: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.metrics-interval-ms:10000}")
+    public void refreshMetrics() {
+        try {
+            depth.set(outboxRepository.count());
+            LocalDateTime oldest = outboxRepository.findOldestCreatedAt();
+            lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+        } catch (Exception e) {
+            log.debug("Métriques de l'outbox indisponibles: {}", e.getMessage());
+        }
+    }
+
+    private void publish(List<OutboxMessage> batch) {
+        transactionalKafkaTemplate.executeInTransaction(operations -> {
+            batch.forEach(message -> operations.send(message.getTopic(), message.getMessageKey(), message.getPayload()));
+            return null;
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                outboxRepository.deleteByIdIn(batch.stream().map(OutboxMessage::getId).toList()));
+
+        LocalDateTime now = LocalDateTime.now();
+        batch.forEach(message -> deliveryTimer.record(Duration.between(message.getCreatedAt(), now)));
+        publishedCounter.increment(batch.size());
+        log.debug("{} message(s) de l'outbox publié(s)", batch.size());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.OutboxMessage;
+import com.example.eventservice.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Écriture des messages Kafka dans la table outbox_messages, dans la transaction de l'appelant
+ * (ou une transaction dédiée s'il n'en a pas). La publication est faite par {@link OutboxRelay}.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public void enqueue(String topic, Object key, Object message) {
+        outboxRepository.save(toOutboxMessage(topic, key, message));
+    }
+
+    /**
+     * Plusieurs messages de même clé, publiés dans l'ordre de la liste
+     */
+    @Transactional
+    public void enqueueAll(String topic, Object key, List<?> messages) {
+        outboxRepository.saveAll(messages.stream().map(message -> toOutboxMessage(topic, key, message)).toList());
+    }
+
+    private OutboxMessage toOutboxMessage(String topic, Object key, Object message) {
+        try {
+            return OutboxMessage.builder()
+                    .topic(topic)
+                    .messageKey(key != null ? String.valueOf(key) : null)
+                    .payload(message instanceof String text ? text : objectMapper.writeValueAsString(message))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation du message pour " + topic + " impossible", e);
+        }
+    }
+}
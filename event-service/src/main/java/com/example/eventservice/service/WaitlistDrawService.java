@@ -0,0 +1,140 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.WaitlistChange;
+import com.example.eventservice.model.WaitlistUpdate;
+import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.example.eventservice.repository.WaitlistSequenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tirage au sort des listes d'attente en mode tirage. Pendant la fenêtre d'inscription, les entrées sont ajoutées
+ * sans ticket (statut ENTERED). À la clôture, une seule instance (bail "waitlist-draw") mélange les inscrits
+ * avec la graine de l'événement, réserve d'un coup autant de tickets sur le compteur et les attribue en un lot.
+ * Les inscriptions arrivées après le tirage (cache d'événement pas encore invalidé) sont ajoutées à la suite,
+ * par ordre d'arrivée, au passage suivant.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistDrawService {
+
+    static final String JOB_NAME = "waitlist-draw";
+    // Ticket provisoire des inscrits au tirage (les tickets attribués commencent à 1)
+    static final int UNDRAWN_TICKET = 0;
+
+    private final WaitlistRepository waitlistRepository;
+    private final WaitlistSequenceRepository sequenceRepository;
+    private final EventRepository eventRepository;
+    private final EventStatsService eventStatsService;
+    private final EventCacheService eventCacheService;
+    private final WaitlistEngine waitlistEngine;
+    private final WaitlistStreamService waitlistStreamService;
+    private final ClusterJobRunner clusterJobRunner;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${waitlist.draw.lease-ttl-seconds:60}")
+    private long leaseTtlSeconds;
+
+    @Scheduled(fixedDelayString = "${waitlist.draw.interval-ms:5000}")
+    public void runDueDraws() {
+        clusterJobRunner.run(JOB_NAME, Duration.ofSeconds(leaseTtlSeconds), token -> {
+            int drawn = 0;
+            for (Long eventId : waitlistRepository.findEventIdsWithDueDraw(LocalDateTime.now())) {
+                try {
+                    drawn += draw(eventId);
+                } catch (Exception e) {
+                    log.error("Échec du tirage de la liste d'attente de l'événement {}: {}", eventId, e.getMessage(), e);
+                }
+            }
+            return drawn;
+        });
+    }
+
+    /**
+     * Attribue les rangs des inscrits au tirage de l'événement, dans une seule transaction
+     *
+     * @return le nombre d'entrées placées en attente
+     */
+    int draw(Long eventId) {
+        Integer drawn = transactionTemplate.execute(status -> {
+            EventEntity event = eventRepository.findById(eventId).orElse(null);
+            List<WaitlistEntry> entrants = waitlistRepository.lockDrawEntrants(eventId);
+            if (event == null || entrants.isEmpty()) {
+                return 0;
+            }
+            List<WaitlistEntry> ordered = entrants;
+            if (event.getWaitlistDrawnAt() == null) {
+                long seed = event.getWaitlistDrawSeed() != null ? event.getWaitlistDrawSeed() : new SecureRandom().nextLong();
+                ordered = shuffle(entrants, seed);
+                event.setWaitlistDrawSeed(seed);
+                event.setWaitlistDrawnAt(LocalDateTime.now());
+                eventRepository.save(event);
+                log.info("Tirage de la liste d'attente de l'événement {} : {} inscrit(s), graine {}",
+                        eventId, entrants.size(), seed);
+            }
+            assignTickets(eventId, ordered);
+            return ordered.size();
+        });
+        eventCacheService.invalidate(eventId);
+        return drawn != null ? drawn : 0;
+    }
+
+    /**
+     * Mélange déterministe : même liste (ordre des id) et même graine donnent le même classement
+     */
+    static <T> List<T> shuffle(List<T> entrants, long seed) {
+        List<T> shuffled = new ArrayList<>(entrants);
+        Collections.shuffle(shuffled, new Random(seed));
+        return shuffled;
+    }
+
+    private void assignTickets(Long eventId, List<WaitlistEntry> ordered) {
+        int count = ordered.size();
+        if (sequenceRepository.advance(eventId, count) == 0) {
+            sequenceRepository.insertIfAbsent(eventId);
+            sequenceRepository.advance(eventId, count);
+        }
+        int first = sequenceRepository.findLastTicket(eventId) - count + 1;
+
+        // Le ticket n'est pas modifiable par l'entité : mise à jour en un lot JDBC
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(count);
+        List<WaitlistUpdate> updates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            WaitlistEntry entry = ordered.get(i);
+            rows.add(new Object[]{first + i, now, entry.getId()});
+            updates.add(WaitlistUpdate.builder()
+                    .eventId(eventId)
+                    .userEmail(entry.getUserEmail())
+                    .ticket(first + i)
+                    .build());
+            eventStatsService.onWaitlistStatusChanged(eventId, WaitlistEntry.WaitlistStatus.ENTERED,
+                    WaitlistEntry.WaitlistStatus.WAITING);
+        }
+        jdbcTemplate.batchUpdate("UPDATE waitlist_entries SET position = ?, status = 'WAITING', updated_at = ? " +
+                "WHERE id = ? AND status = 'ENTERED'", rows);
+
+        // L'instance propriétaire recharge la liste depuis la table
+        waitlistEngine.publish(WaitlistChange.builder().type(WaitlistChange.Type.RELOAD).eventId(eventId).build());
+        waitlistStreamService.publish(updates);
+    }
+}
@@ -0,0 +1,532 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.WaitlistChange;
+import com.example.eventservice.model.WaitlistUpdate;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.example.eventservice.repository.WaitlistSequenceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Listes d'attente en mémoire pour les événements dont cette instance est propriétaire.
+ * Un événement appartient à l'instance à laquelle Kafka assigne la partition de sa clé dans waitlist.changes
+ * (groupe commun à toutes les instances). Le propriétaire sert inscription, départ, rang, nombre et promotion
+ * depuis la mémoire ; les écritures sont reportées par lots dans waitlist_entries, sauf les promotions,
+ * écrites dans la transaction qui publie les confirmations. Les autres instances
+ * passent par la base et publient leurs changements sur waitlist.changes pour que le propriétaire les applique.
+ * Une liste est rechargée depuis la table au premier accès et retirée de la mémoire après inactivité.
+ */
+@Service
+@Slf4j
+public class WaitlistEngine implements ConsumerSeekAware {
+
+    private final WaitlistRepository waitlistRepository;
+    private final WaitlistSequenceRepository sequenceRepository;
+    private final EventStatsService eventStatsService;
+    private final OutboxService outboxService;
+    private final WaitlistStreamService waitlistStreamService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate requiresNewTemplate;
+    private final Counter flushedCounter;
+    private final Counter flushFailureCounter;
+
+    private final Map<Long, EventWaitlist> states = new ConcurrentHashMap<>();
+    // Incrémenté avant chaque retrait de liste : invalide les chargements commencés avant
+    private final AtomicLong removals = new AtomicLong();
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<WaitlistChange> redistributionHandler;
+
+    @Value("${waitlist.engine.enabled:true}")
+    private boolean enabled;
+
+    @Value("${waitlist.engine.partitions:12}")
+    private int partitions;
+
+    @Value("${waitlist.engine.ticket-block-size:32}")
+    private int ticketBlockSize;
+
+    @Value("${waitlist.engine.idle-evict-ms:600000}")
+    private long idleEvictMs;
+
+    @Value("${kafka.topics.waitlist-changes:waitlist.changes}")
+    private String changesTopic;
+
+    @Value("${kafka.topics.waitlist-invitation-created:waitlist.invitation.created}")
+    private String invitationCreatedTopic;
+
+    public WaitlistEngine(WaitlistRepository waitlistRepository,
+                          WaitlistSequenceRepository sequenceRepository,
+                          EventStatsService eventStatsService,
+                          OutboxService outboxService,
+                          WaitlistStreamService waitlistStreamService,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.waitlistRepository = waitlistRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.eventStatsService = eventStatsService;
+        this.outboxService = outboxService;
+        this.waitlistStreamService = waitlistStreamService;
+        this.objectMapper = objectMapper;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushedCounter = Counter.builder("waitlist.engine.flushed")
+                .description("Écritures de liste d'attente persistées par lots")
+                .register(meterRegistry);
+        this.flushFailureCounter = Counter.builder("waitlist.engine.flush.failures")
+                .description("Lots d'écritures de liste d'attente en échec (rejoués au passage suivant)")
+                .register(meterRegistry);
+        Gauge.builder("waitlist.engine.events", states, Map::size)
+                .description("Listes d'attente chargées en mémoire")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Traitement des demandes de redistribution reçues pour les événements possédés
+     */
+    public void setRedistributionHandler(Consumer<WaitlistChange> redistributionHandler) {
+        this.redistributionHandler = redistributionHandler;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean owns(Long eventId) {
+        return enabled && eventId != null && ownedPartitions.contains(partitionFor(eventId));
+    }
+
+    /**
+     * Entrée de l'utilisateur : depuis la mémoire si elle y est suivie, sinon depuis la table
+     * (entrées déjà sorties de l'attente)
+     */
+    public Optional<WaitlistEntry> find(Long eventId, String userEmail) {
+        Optional<WaitlistEntry> tracked = withState(eventId, state ->
+                state.tracks(userEmail) ? Optional.ofNullable(state.find(userEmail)) : null);
+        return tracked != null ? tracked : waitlistRepository.findByEventIdAndUserEmail(eventId, userEmail);
+    }
+
+    /**
+     * Entrées de l'utilisateur suivies par les listes possédées déjà en mémoire, sans charger les autres.
+     * Une valeur vide signale un départ pas encore persisté ; les événements absents du résultat se lisent en base.
+     */
+    public Map<Long, Optional<WaitlistEntry>> findLoaded(Collection<Long> eventIds, String userEmail) {
+        Map<Long, Optional<WaitlistEntry>> found = new HashMap<>();
+        for (Long eventId : eventIds) {
+            if (owns(eventId)) {
+                ifLoaded(eventId, state -> {
+                    if (state.tracks(userEmail)) {
+                        found.put(eventId, Optional.ofNullable(state.find(userEmail)));
+                    }
+                });
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Inscrit l'utilisateur, ou renvoie son entrée s'il est déjà suivi.
+     * L'appelant a vérifié au préalable l'absence de ligne en base (via {@link #find}).
+     * L'invitation WAITLIST est écrite dans l'outbox par la transaction qui insère la ligne : elle n'est
+     * publiée que si l'inscription est persistée. Un départ pas encore écrit est d'abord persisté : la réinscription
+     * est alors une nouvelle insertion, avec son nouveau ticket et son invitation.
+     */
+    public WaitlistEntry join(Long eventId, String userEmail, Object invitationMessage) {
+        return withState(eventId, state -> {
+            WaitlistEntry existing = state.find(userEmail);
+            if (existing != null) {
+                return existing;
+            }
+            if (state.hasPendingRemoval(userEmail)) {
+                writePending(state);
+            }
+            if (state.needsTickets()) {
+                reserveTickets(state);
+            }
+            return state.join(userEmail, invitationMessage);
+        });
+    }
+
+    public Optional<WaitlistEntry> leave(Long eventId, String userEmail) {
+        return Optional.ofNullable(withState(eventId, state -> state.leave(userEmail)));
+    }
+
+    public Integer rank(Long eventId, String userEmail) {
+        return withState(eventId, state -> state.rank(userEmail));
+    }
+
+    public long waitingCount(Long eventId) {
+        return withState(eventId, EventWaitlist::waitingCount);
+    }
+
+    /**
+     * Promeut les n premières personnes en attente. Contrairement aux autres écritures, la promotion n'est pas
+     * différée : elle est écrite dans la transaction de l'appelant, avec les messages qu'elle déclenche (outbox).
+     * Un propriétaire arrêté après la validation ne laisse donc pas en base des entrées encore WAITING que son
+     * successeur promouvrait une seconde fois. Les écritures en attente de la liste sont d'abord persistées
+     * (les lignes promues doivent exister) ; si la transaction est annulée, la liste est rechargée depuis la table.
+     */
+    public List<WaitlistEntry> popNext(Long eventId, int n, WaitlistEntry.WaitlistStatus newStatus) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("La promotion doit être écrite dans la transaction de l'appelant");
+        }
+        EventWaitlist[] promotedFrom = new EventWaitlist[1];
+        List<WaitlistEntry> promoted = withState(eventId, state -> {
+            writePending(state);
+            promotedFrom[0] = state;
+            return state.popNext(n, newStatus);
+        });
+        if (promoted.isEmpty()) {
+            return promoted;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (WaitlistEntry entry : promoted) {
+            if (waitlistRepository.updateStatus(eventId, entry.getUserEmail(), newStatus, true, now) == 0) {
+                throw new IllegalStateException("Entrée en liste d'attente introuvable pour " + entry.getUserEmail());
+            }
+            eventStatsService.onWaitlistStatusChanged(eventId, WaitlistEntry.WaitlistStatus.WAITING, newStatus);
+        }
+        List<WaitlistUpdate> updates = promoted.stream()
+                .map(entry -> toUpdate(new EventWaitlist.PendingWrite(eventId, entry.getUserEmail(),
+                        WaitlistEntry.WaitlistStatus.WAITING, entry, null)))
+                .toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    flushedCounter.increment(updates.size());
+                    waitlistStreamService.publish(updates);
+                } else {
+                    log.warn("Promotion annulée pour l'événement {}, liste rechargée depuis la table", eventId);
+                    release(promotedFrom[0]);
+                }
+            }
+        });
+        return promoted;
+    }
+
+    /**
+     * Oublie toutes les listes en mémoire (listes vidées en base)
+     */
+    public void clear() {
+        states.values().forEach(state -> {
+            synchronized (state) {
+                state.evict();
+            }
+        });
+        removals.incrementAndGet();
+        states.clear();
+    }
+
+    /**
+     * Publie vers le propriétaire de l'événement un changement ou une demande à exécuter,
+     * via l'outbox dans la transaction de l'appelant
+     */
+    public void publish(WaitlistChange change) {
+        if (!enabled) {
+            return;
+        }
+        outboxService.enqueue(changesTopic, change.getEventId(), change);
+    }
+
+    @org.springframework.kafka.annotation.KafkaListener(
+        topics = "${kafka.topics.waitlist-changes:waitlist.changes}",
+        groupId = "event-service-waitlist-engine",
+        autoStartup = "${waitlist.engine.enabled:true}"
+    )
+    public void handleChange(String message) {
+        try {
+            WaitlistChange change = objectMapper.readValue(message, WaitlistChange.class);
+            // Seules les listes chargées (donc possédées) appliquent les changements ; une redistribution
+            // arrivée pendant un rééquilibrage est exécutée ici, en mémoire ou en base selon la propriété
+            switch (change.getType()) {
+                case JOINED -> ifLoaded(change.getEventId(), state -> state.applyExternalJoin(WaitlistEntry.builder()
+                        .eventId(change.getEventId())
+                        .userEmail(change.getUserEmail())
+                        .ticket(change.getTicket())
+                        .status(WaitlistEntry.WaitlistStatus.WAITING)
+                        .notificationSent(false)
+                        .build()));
+                case REMOVED -> ifLoaded(change.getEventId(), state -> state.applyExternalRemoval(change.getUserEmail()));
+                case RELOAD -> {
+                    EventWaitlist state = states.get(change.getEventId());
+                    if (state != null) {
+                        release(state);
+                    }
+                }
+                case REDISTRIBUTE -> {
+                    Consumer<WaitlistChange> handler = redistributionHandler;
+                    if (handler != null) {
+                        handler.accept(change);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erreur lors du traitement d'un changement de liste d'attente: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Les listes des nouvelles partitions sont chargées depuis la table : l'historique du topic est inutile
+        callback.seekToEnd(assignments.keySet());
+        assignments.keySet().forEach(partition -> ownedPartitions.add(partition.partition()));
+        log.info("Listes d'attente possédées: partitions {}", ownedPartitions);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+        revoked.forEach(partition -> ownedPartitions.remove(partition.partition()));
+        states.values().stream()
+                .filter(state -> !owns(state.getEventId()))
+                .toList()
+                .forEach(this::release);
+        log.info("Partitions de listes d'attente révoquées: {}", revoked);
+    }
+
+    /**
+     * Persiste par lots les écritures en attente, une transaction par événement.
+     * Le lot est écrit sous le verrou de la liste : une promotion ne peut pas voir une liste sans écriture
+     * en attente dont les insertions ne sont pas encore validées.
+     * Un lot en échec est remis en attente et rejoué au passage suivant.
+     */
+    @Scheduled(fixedDelayString = "${waitlist.engine.flush-interval-ms:200}")
+    public synchronized void flush() {
+        for (EventWaitlist state : states.values()) {
+            synchronized (state) {
+                if (!state.hasPending()) {
+                    continue;
+                }
+                List<EventWaitlist.PendingWrite> writes = state.drain();
+                try {
+                    write(writes);
+                } catch (Exception e) {
+                    flushFailureCounter.increment();
+                    log.error("Échec de l'écriture de {} changement(s) de la liste d'attente de l'événement {}: {}",
+                            writes.size(), state.getEventId(), e.getMessage());
+                    recover(state, writes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejoue un lot en échec écriture par écriture, sous le verrou de la liste. Si rien ne passe (base indisponible), le lot est remis
+     * en attente ; sinon les écritures rejetées sont abandonnées et la liste est rechargée depuis la table.
+     */
+    private void recover(EventWaitlist state, List<EventWaitlist.PendingWrite> writes) {
+        List<EventWaitlist.PendingWrite> rejected = new ArrayList<>();
+        for (EventWaitlist.PendingWrite write : writes) {
+            try {
+                write(List.of(write));
+            } catch (Exception e) {
+                rejected.add(write);
+            }
+        }
+        if (rejected.isEmpty()) {
+            return;
+        }
+        if (rejected.size() == writes.size()) {
+            state.restore(rejected);
+            return;
+        }
+        rejected.forEach(write -> log.error("Écriture abandonnée pour {} (événement {}), liste rechargée depuis la table",
+                write.userEmail(), write.eventId()));
+        release(state);
+    }
+
+    /**
+     * Retire de la mémoire les listes inactives dont tout est persisté
+     */
+    @Scheduled(fixedDelayString = "${waitlist.engine.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long threshold = System.currentTimeMillis() - idleEvictMs;
+        states.values().removeIf(state -> {
+            synchronized (state) {
+                if (state.hasPending() || state.getLastAccessMillis() >= threshold) {
+                    return false;
+                }
+                state.evict();
+                removals.incrementAndGet();
+                return true;
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ownedPartitions.clear();
+        new ArrayList<>(states.values()).forEach(this::release);
+    }
+
+    /**
+     * Charge la liste hors de la map (aucune lecture en base sous le verrou d'un compute), puis l'installe
+     * si aucune autre n'a été installée entre-temps ; la copie perdante est abandonnée. Une copie lue avant
+     * le retrait d'une liste (dont les écritures venaient d'être validées) est rechargée.
+     */
+    private <T> T withState(Long eventId, Function<EventWaitlist, T> action) {
+        while (true) {
+            EventWaitlist state = states.get(eventId);
+            if (state == null) {
+                long removalsBefore = removals.get();
+                EventWaitlist loaded = load(eventId);
+                state = states.compute(eventId, (id, current) ->
+                        current != null || removals.get() != removalsBefore ? current : loaded);
+                if (state == null) {
+                    continue;
+                }
+            }
+            synchronized (state) {
+                // Liste retirée entre la lecture de la map et la prise du verrou : on recharge
+                if (!state.isEvicted()) {
+                    return action.apply(state);
+                }
+            }
+        }
+    }
+
+    private void ifLoaded(Long eventId, Consumer<EventWaitlist> action) {
+        EventWaitlist state = states.get(eventId);
+        if (state != null) {
+            synchronized (state) {
+                if (!state.isEvicted()) {
+                    action.accept(state);
+                }
+            }
+        }
+    }
+
+    private EventWaitlist load(Long eventId) {
+        List<WaitlistEntry> waiting = waitlistRepository.findWaitingByEventId(eventId);
+        log.debug("Liste d'attente de l'événement {} chargée en mémoire ({} entrée(s))", eventId, waiting.size());
+        return new EventWaitlist(eventId, waiting);
+    }
+
+    /**
+     * Sort la liste de la mémoire après avoir persisté ses écritures. Elle reste dans la map jusqu'à la fin
+     * de l'écriture : un appelant concurrent attend le verrou puis recharge une table à jour.
+     */
+    private void release(EventWaitlist state) {
+        synchronized (state) {
+            state.evict();
+            List<EventWaitlist.PendingWrite> writes = state.drain();
+            if (!writes.isEmpty()) {
+                try {
+                    write(writes);
+                } catch (Exception e) {
+                    flushFailureCounter.increment();
+                    log.error("Écritures perdues pour la liste d'attente de l'événement {} ({} changement(s)): {}",
+                            state.getEventId(), writes.size(), e.getMessage(), e);
+                }
+            }
+            removals.incrementAndGet();
+            states.remove(state.getEventId(), state);
+        }
+    }
+
+    /**
+     * Persiste les écritures en attente de la liste ; appelée sous son verrou. En cas d'échec, elles restent en attente.
+     */
+    private void writePending(EventWaitlist state) {
+        if (!state.hasPending()) {
+            return;
+        }
+        List<EventWaitlist.PendingWrite> writes = state.drain();
+        try {
+            write(writes);
+        } catch (RuntimeException e) {
+            state.restore(writes);
+            throw e;
+        }
+    }
+
+    private void write(List<EventWaitlist.PendingWrite> writes) {
+        requiresNewTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<WaitlistEntry> inserts = new ArrayList<>();
+            for (EventWaitlist.PendingWrite write : writes) {
+                WaitlistEntry after = write.after();
+                if (write.before() == null && after != null) {
+                    inserts.add(after);
+                    if (write.joinMessage() != null) {
+                        outboxService.enqueue(invitationCreatedTopic, write.eventId(), write.joinMessage());
+                    }
+                } else if (write.before() != null && after == null) {
+                    waitlistRepository.deleteByEventIdAndUserEmail(write.eventId(), write.userEmail());
+                } else if (write.before() != null) {
+                    waitlistRepository.updateStatus(write.eventId(), write.userEmail(), after.getStatus(),
+                            after.getNotificationSent(), now);
+                }
+                eventStatsService.onWaitlistStatusChanged(write.eventId(), write.before(),
+                        after != null ? after.getStatus() : null);
+            }
+            waitlistRepository.saveAll(inserts);
+        });
+        flushedCounter.increment(writes.size());
+        waitlistStreamService.publish(writes.stream().map(WaitlistEngine::toUpdate).toList());
+    }
+
+    private void reserveTickets(EventWaitlist state) {
+        Long eventId = state.getEventId();
+        Integer last = requiresNewTemplate.execute(status -> {
+            if (sequenceRepository.advance(eventId, ticketBlockSize) == 0) {
+                sequenceRepository.insertIfAbsent(eventId);
+                sequenceRepository.advance(eventId, ticketBlockSize);
+            }
+            return sequenceRepository.findLastTicket(eventId);
+        });
+        state.addTicketRange(last - ticketBlockSize + 1, last);
+    }
+
+    /**
+     * Une suppression ne connaît plus le ticket : tous les abonnés de l'événement sont alors réveillés
+     */
+    private static WaitlistUpdate toUpdate(EventWaitlist.PendingWrite write) {
+        WaitlistEntry after = write.after();
+        boolean stillWaiting = after != null && after.getStatus() == WaitlistEntry.WaitlistStatus.WAITING;
+        return WaitlistUpdate.builder()
+                .eventId(write.eventId())
+                .userEmail(write.userEmail())
+                .ticket(after != null ? after.getTicket() : null)
+                .leftQueue(write.before() == WaitlistEntry.WaitlistStatus.WAITING && !stillWaiting)
+                .build();
+    }
+
+    /**
+     * Partition de la clé eventId, calculée comme le partitionneur par défaut du producteur
+     */
+    int partitionFor(Long eventId) {
+        return Utils.toPositive(Utils.murmur2(String.valueOf(eventId).getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+}
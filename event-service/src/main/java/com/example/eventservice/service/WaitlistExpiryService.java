@@ -0,0 +1,138 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.WaitlistUpdate;
+import com.example.eventservice.repository.WaitlistRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expiration des notifications de liste d'attente sans confirmation.
+ * Les entrées expirées sont traitées par lots bornés, chacun dans sa propre courte transaction
+ * (verrouillage SKIP LOCKED puis mise à jour ensembliste). Les places libérées sont demandées en redistribution
+ * dans cette même transaction, via l'outbox sur waitlist.redistribution (une demande par événement) : un lot validé
+ * ne perd pas ses places si l'instance s'arrête. Les demandes sont consommées en parallèle par l'écouteur de
+ * redistribution (concurrence bornée), une transaction par événement, hors du thread du planificateur.
+ * Le job est partitionné par event_id entre les instances via {@link ClusterJobRunner}.
+ */
+@Service
+@Slf4j
+public class WaitlistExpiryService {
+
+    static final String JOB_NAME = "waitlist-expiry";
+
+    private final WaitlistRepository waitlistRepository;
+    private final EventStatsService eventStatsService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final WaitlistStreamService waitlistStreamService;
+    private final Counter expiredCounter;
+
+    @Value("${waitlist.expiry.chunk-size:500}")
+    private int chunkSize;
+
+    // Au-delà, le reste de l'arriéré est traité au passage suivant
+    @Value("${waitlist.expiry.max-chunks-per-run:20}")
+    private int maxChunksPerRun;
+
+    @Value("${waitlist.expiry.shards:4}")
+    private int shards;
+
+    // Plus long que l'intervalle : une instance garde ses parts d'un passage à l'autre
+    @Value("${waitlist.expiry.lease-ttl-seconds:180}")
+    private long leaseTtlSeconds;
+
+    @Value("${kafka.topics.waitlist-redistribution:waitlist.redistribution}")
+    private String waitlistRedistributionTopic;
+
+    public WaitlistExpiryService(WaitlistRepository waitlistRepository,
+                                 EventStatsService eventStatsService,
+                                 OutboxService outboxService,
+                                 TransactionTemplate transactionTemplate,
+                                 ClusterJobRunner clusterJobRunner,
+                                 WaitlistStreamService waitlistStreamService,
+                                 MeterRegistry meterRegistry) {
+        this.waitlistRepository = waitlistRepository;
+        this.eventStatsService = eventStatsService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterJobRunner = clusterJobRunner;
+        this.waitlistStreamService = waitlistStreamService;
+        this.expiredCounter = Counter.builder("waitlist.expiry.expired")
+                .description("Notifications de liste d'attente expirées")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Chaque instance traite les parts (event_id modulo waitlist.expiry.shards) dont elle détient le bail
+     */
+    @Scheduled(fixedDelayString = "${waitlist.expiry.interval-ms:60000}")
+    public void processExpiredNotifications() {
+        clusterJobRunner.runSharded(JOB_NAME, Math.max(1, shards), Duration.ofSeconds(leaseTtlSeconds), this::expireShard);
+    }
+
+    private int expireShard(ClusterJobRunner.Shard shard) {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int expired;
+        int chunks = 0;
+        do {
+            expired = expireChunk(now, shard);
+            total += expired;
+        } while (expired >= chunkSize && ++chunks < maxChunksPerRun);
+
+        if (total > 0) {
+            log.info("{} notification(s) expirée(s) (part {}/{})", total, shard.index(), shard.count());
+        }
+        return total;
+    }
+
+    /**
+     * Expire un lot dans sa propre transaction, qui écrit aussi dans l'outbox une demande de redistribution
+     * par événement avec toutes ses places libérées
+     *
+     * @return le nombre d'entrées verrouillées dans ce lot
+     */
+    int expireChunk(LocalDateTime now, ClusterJobRunner.Shard shard) {
+        Integer locked = transactionTemplate.execute(status -> {
+            List<WaitlistEntry> entries = waitlistRepository.lockExpiredNotifications(now, shard.index(), shard.count(),
+                    Math.max(1, chunkSize));
+            if (entries.isEmpty()) {
+                return 0;
+            }
+            waitlistRepository.expireNotified(entries.stream().map(WaitlistEntry::getId).toList(), LocalDateTime.now());
+            Map<Long, Integer> freed = new HashMap<>();
+            List<WaitlistUpdate> updates = new ArrayList<>(entries.size());
+            for (WaitlistEntry entry : entries) {
+                eventStatsService.onWaitlistStatusChanged(entry.getEventId(),
+                        WaitlistEntry.WaitlistStatus.NOTIFIED, WaitlistEntry.WaitlistStatus.EXPIRED);
+                freed.merge(entry.getEventId(), 1, Integer::sum);
+                updates.add(WaitlistUpdate.builder()
+                        .eventId(entry.getEventId())
+                        .userEmail(entry.getUserEmail())
+                        .ticket(entry.getTicket())
+                        .build());
+            }
+            // Même format que les demandes d'invitation-service, consommées par WaitlistService
+            freed.forEach((eventId, slots) -> outboxService.enqueue(waitlistRedistributionTopic, eventId,
+                    Map.of("eventId", eventId, "availableSlots", slots)));
+            waitlistStreamService.publish(updates);
+            return entries.size();
+        });
+        expiredCounter.increment(locked != null ? locked : 0);
+        return locked != null ? locked : 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.service.WaitlistService.AutoConfirmInvitationMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Confirmations automatiques d'une redistribution : écrites dans l'outbox dans la transaction de la promotion,
+ * avec la clé eventId. Le relais les publie ensemble dans une même transaction Kafka.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistPromotionPublisher {
+
+    private final OutboxService outboxService;
+
+    @Value("${kafka.topics.invitation-auto-confirm:invitation.auto.confirm}")
+    private String autoConfirmTopic;
+
+    public void publish(List<AutoConfirmInvitationMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Long eventId = messages.get(0).getEventId();
+        outboxService.enqueueAll(autoConfirmTopic, eventId, messages);
+        log.info("{} confirmation(s) automatique(s) en attente de publication pour l'événement {}", messages.size(), eventId);
+    }
+}
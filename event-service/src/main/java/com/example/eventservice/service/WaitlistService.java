@@ -1,26 +1,35 @@
 package com.example.eventservice.service;
 
 import com.example.eventservice.client.InvitationClient;
-import com.example.eventservice.entity.EventEntity;
 import com.example.eventservice.entity.WaitlistEntry;
-import com.example.eventservice.model.InvitationResponse;
+import com.example.eventservice.model.EventSnapshot;
+import com.example.eventservice.model.WaitlistChange;
 import com.example.eventservice.model.WaitlistResponse;
-import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.model.WaitlistUpdate;
 import com.example.eventservice.repository.WaitlistRepository;
+import com.example.eventservice.repository.WaitlistSequenceRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @RequiredArgsConstructor
@@ -28,10 +37,19 @@ import java.util.stream.Collectors;
 public class WaitlistService {
 
     private final WaitlistRepository waitlistRepository;
-    private final EventRepository eventRepository;
+    private final EventCacheService eventCacheService;
     private final InvitationClient invitationClient;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final EventStatsService eventStatsService;
     private final ObjectMapper objectMapper;
+    private final WaitlistSequenceRepository sequenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WaitlistEngine waitlistEngine;
+    private final WaitlistPromotionPublisher promotionPublisher;
+    private final OutboxService outboxService;
+    private final WaitlistStreamService waitlistStreamService;
+
+    private final Lock[] joinLocks = newStripes(64);
+    private final Set<Long> knownSequences = ConcurrentHashMap.newKeySet();
 
     @Value("${waitlist.notification-expiry-hours:24}")
     private int notificationExpiryHours;
@@ -42,13 +60,26 @@ public class WaitlistService {
     @Value("${kafka.topics.waitlist-notification:waitlist.notification}")
     private String waitlistNotificationTopic;
 
+    @Value("${kafka.topics.waitlist-invitation-created:waitlist.invitation.created}")
+    private String waitlistInvitationCreatedTopic;
+
+    @PostConstruct
+    void registerRedistributionHandler() {
+        // Demandes transmises par les autres instances pour les événements possédés par celle-ci
+        waitlistEngine.setRedistributionHandler(change -> transactionTemplate.executeWithoutResult(status ->
+                redistributeLocally(change.getEventId(), change.getSlots() != null ? change.getSlots() : 1,
+                        change.getRow(), change.getNumber())));
+    }
+
     /**
-     * Ajouter un utilisateur à la liste d'attente
+     * Ajouter un utilisateur à la liste d'attente.
+     * Les vérifications (dont l'appel à invitation-service) sont faites hors transaction ; seule l'attribution
+     * du ticket et l'insertion sont sérialisées par événement, et une double inscription concurrente
+     * renvoie l'entrée existante.
      */
-    @Transactional
     public WaitlistResponse joinWaitlist(Long eventId, String userEmail) {
         // Vérifier que l'événement existe et que la liste d'attente est activée
-        EventEntity event = eventRepository.findById(eventId)
+        EventSnapshot event = eventCacheService.get(eventId)
                 .orElseThrow(() -> new IllegalArgumentException("Événement non trouvé"));
 
         if (!Boolean.TRUE.equals(event.getWaitlistEnabled())) {
@@ -61,53 +92,111 @@ public class WaitlistService {
         }
 
         // Vérifier que l'utilisateur n'est pas déjà en liste d'attente
-        Optional<WaitlistEntry> existingEntry = waitlistRepository.findByEventIdAndUserEmail(eventId, userEmail);
+        Optional<WaitlistEntry> existingEntry = findEntry(eventId, userEmail);
         if (existingEntry.isPresent()) {
             WaitlistEntry entry = existingEntry.get();
-            if (entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING) {
+            if (entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING
+                    || entry.getStatus() == WaitlistEntry.WaitlistStatus.ENTERED) {
                 return toResponse(entry, event.getTitle());
             } else {
                 throw new IllegalStateException("Vous êtes déjà en liste d'attente pour cet événement");
             }
         }
 
-        // Ajouter à la liste d'attente
-        int nextPosition = waitlistRepository.getNextPosition(eventId);
-        WaitlistEntry newEntry = WaitlistEntry.builder()
+        // Ajouter à la liste d'attente (en mémoire si l'événement est possédé par cette instance).
+        // L'invitation WAITLIST est écrite dans l'outbox par la transaction qui insère l'entrée :
+        // un échec annule l'inscription, et aucune invitation n'est publiée pour une inscription perdue.
+        WaitlistInvitationMessage invitation = WaitlistInvitationMessage.builder()
                 .eventId(eventId)
+                .eventTitle(event.getTitle())
                 .userEmail(userEmail)
-                .position(nextPosition)
-                .status(WaitlistEntry.WaitlistStatus.WAITING)
-                .notificationSent(false)
                 .build();
+        WaitlistEntry savedEntry;
+        try {
+            if (event.isWaitlistDrawPending()) {
+                savedEntry = enterDraw(eventId, userEmail, invitation);
+            } else if (waitlistEngine.owns(eventId)) {
+                savedEntry = waitlistEngine.join(eventId, userEmail, invitation);
+            } else {
+                savedEntry = insertWithTicket(eventId, userEmail, invitation);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Même utilisateur inscrit en parallèle : la transaction perdante est annulée, ticket compris
+            WaitlistEntry entry = waitlistRepository.findByEventIdAndUserEmail(eventId, userEmail).orElseThrow(() -> e);
+            if (entry.getStatus() != WaitlistEntry.WaitlistStatus.WAITING
+                    && entry.getStatus() != WaitlistEntry.WaitlistStatus.ENTERED) {
+                throw new IllegalStateException("Vous êtes déjà en liste d'attente pour cet événement");
+            }
+            return toResponse(entry, event.getTitle());
+        }
+        log.info("Utilisateur {} ajouté à la liste d'attente de l'événement {} (ticket {}), invitation WAITLIST en attente de publication",
+                userEmail, eventId, savedEntry.getTicket());
 
-        WaitlistEntry savedEntry = waitlistRepository.save(newEntry);
-        log.info("Utilisateur {} ajouté à la liste d'attente de l'événement {} en position {}",
-                userEmail, eventId, nextPosition);
+        return toResponse(savedEntry, event.getTitle());
+    }
 
-        // Créer automatiquement une invitation WAITLIST
+    /**
+     * Attribue le ticket suivant, insère l'entrée et écrit l'invitation et le changement dans l'outbox,
+     * dans une même transaction. Le verrou en mémoire fait patienter les inscriptions d'un même événement sans occuper de connexion ;
+     * le verrou de ligne sur waitlist_sequences protège entre instances.
+     */
+    private WaitlistEntry insertWithTicket(Long eventId, String userEmail, WaitlistInvitationMessage invitation) {
+        ensureSequence(eventId);
+        Lock lock = joinLocks[Math.floorMod(eventId.hashCode(), joinLocks.length)];
+        lock.lock();
         try {
-            log.info("=== DEBUT création invitation WAITLIST ===");
-            WaitlistInvitationMessage message = WaitlistInvitationMessage.builder()
+            return transactionTemplate.execute(status -> {
+                if (sequenceRepository.increment(eventId) == 0) {
+                    sequenceRepository.insertIfAbsent(eventId);
+                    sequenceRepository.increment(eventId);
+                }
+                int ticket = sequenceRepository.findLastTicket(eventId);
+                WaitlistEntry savedEntry = waitlistRepository.saveAndFlush(WaitlistEntry.builder()
+                        .eventId(eventId)
+                        .userEmail(userEmail)
+                        .ticket(ticket)
+                        .status(WaitlistEntry.WaitlistStatus.WAITING)
+                        .notificationSent(false)
+                        .build());
+                eventStatsService.onWaitlistStatusChanged(eventId, null, WaitlistEntry.WaitlistStatus.WAITING);
+                outboxService.enqueue(waitlistInvitationCreatedTopic, eventId, invitation);
+                publishChange(WaitlistChange.Type.JOINED, savedEntry);
+                return savedEntry;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inscription au tirage : simple insertion, sans ticket ni verrou sur le compteur de l'événement.
+     * Les rangs sont attribués en un lot à la clôture de la fenêtre (WaitlistDrawService).
+     */
+    private WaitlistEntry enterDraw(Long eventId, String userEmail, WaitlistInvitationMessage invitation) {
+        return transactionTemplate.execute(status -> {
+            WaitlistEntry savedEntry = waitlistRepository.saveAndFlush(WaitlistEntry.builder()
                     .eventId(eventId)
-                    .eventTitle(event.getTitle())
                     .userEmail(userEmail)
-                    .build();
-
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            log.info("Message JSON créé: {}", jsonMessage);
-            log.info("Envoi du message vers le topic: waitlist.invitation.created");
+                    .ticket(WaitlistDrawService.UNDRAWN_TICKET)
+                    .status(WaitlistEntry.WaitlistStatus.ENTERED)
+                    .notificationSent(false)
+                    .build());
+            outboxService.enqueue(waitlistInvitationCreatedTopic, eventId, invitation);
+            return savedEntry;
+        });
+    }
 
-            kafkaTemplate.send("waitlist.invitation.created", jsonMessage);
-            log.info("Message Kafka envoyé avec succès pour {} - événement {}", userEmail, eventId);
-            log.info("=== FIN création invitation WAITLIST ===");
-        } catch (Exception e) {
-            log.error("=== ERREUR création invitation WAITLIST ===");
-            log.error("Erreur lors de la création de l'invitation WAITLIST pour {} - événement {}: {}",
-                     userEmail, eventId, e.getMessage(), e);
+    private void ensureSequence(Long eventId) {
+        if (knownSequences.contains(eventId)) {
+            return;
         }
-
-        return toResponse(savedEntry, event.getTitle());
+        try {
+            transactionTemplate.executeWithoutResult(status -> sequenceRepository.insertIfAbsent(eventId));
+        } catch (DataIntegrityViolationException e) {
+            // Compteur créé en parallèle par une autre instance
+            log.debug("Compteur de liste d'attente de l'événement {} déjà créé", eventId);
+        }
+        knownSequences.add(eventId);
     }
 
     /**
@@ -115,14 +204,20 @@ public class WaitlistService {
      */
     @Transactional
     public void leaveWaitlist(Long eventId, String userEmail) {
+        if (waitlistEngine.owns(eventId)) {
+            // Suppression persistée au prochain lot ; une entrée déjà sortie de l'attente n'est suivie qu'en base
+            if (waitlistEngine.leave(eventId, userEmail).isPresent()) {
+                log.info("Utilisateur {} retiré de la liste d'attente de l'événement {}", userEmail, eventId);
+                return;
+            }
+        }
         WaitlistEntry entry = waitlistRepository.findByEventIdAndUserEmail(eventId, userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("Vous n'êtes pas en liste d'attente pour cet événement"));
 
-        int deletedPosition = entry.getPosition();
+        // Les rangs des suivants sont calculés à la lecture : aucune autre ligne n'est réécrite
         waitlistRepository.delete(entry);
-
-        // Mettre à jour les positions des autres utilisateurs
-        waitlistRepository.updatePositionsAfterDeletion(eventId, deletedPosition);
+        eventStatsService.onWaitlistStatusChanged(eventId, entry.getStatus(), null);
+        publishChange(WaitlistChange.Type.REMOVED, entry);
 
         log.info("Utilisateur {} retiré de la liste d'attente de l'événement {}", userEmail, eventId);
     }
@@ -132,7 +227,31 @@ public class WaitlistService {
      */
     @Transactional
     public void redistributeAvailableSlots(Long eventId, int availableSlots) {
-        EventEntity event = eventRepository.findById(eventId)
+        redistributeAvailableSlots(eventId, availableSlots, null, null);
+    }
+
+    /**
+     * Redistribuer les places libérées ; la première personne promue reçoit le siège (row, number) s'il est fourni.
+     * Si le moteur en mémoire est actif et qu'une autre instance possède l'événement, la demande lui est transmise.
+     */
+    @Transactional
+    public void redistributeAvailableSlots(Long eventId, int availableSlots, Integer row, Integer number) {
+        if (waitlistEngine.isEnabled() && !waitlistEngine.owns(eventId)) {
+            waitlistEngine.publish(WaitlistChange.builder()
+                    .type(WaitlistChange.Type.REDISTRIBUTE)
+                    .eventId(eventId)
+                    .slots(availableSlots)
+                    .row(row)
+                    .number(number)
+                    .build());
+            log.debug("Redistribution de l'événement {} transmise à l'instance propriétaire", eventId);
+            return;
+        }
+        redistributeLocally(eventId, availableSlots, row, number);
+    }
+
+    private void redistributeLocally(Long eventId, int availableSlots, Integer row, Integer number) {
+        EventSnapshot event = eventCacheService.get(eventId)
                 .orElseThrow(() -> new IllegalArgumentException("Événement non trouvé"));
 
         if (!Boolean.TRUE.equals(event.getWaitlistEnabled())) {
@@ -142,50 +261,58 @@ public class WaitlistService {
 
         // Limiter le nombre de places redistribuées
         int slotsToRedistribute = Math.min(availableSlots, redistributionBatchSize);
+        if (slotsToRedistribute <= 0) {
+            return;
+        }
 
-        List<WaitlistEntry> waitingEntries = waitlistRepository.findWaitingByEventId(eventId);
-        int assignmentsToMake = Math.min(slotsToRedistribute, waitingEntries.size());
-
-        if (assignmentsToMake == 0) {
+        List<WaitlistEntry> promoted = promoteNext(eventId, slotsToRedistribute);
+        if (promoted.isEmpty()) {
             log.info("Aucune personne en attente pour l'événement {}", eventId);
             return;
         }
 
-        for (int i = 0; i < assignmentsToMake; i++) {
-            WaitlistEntry entry = waitingEntries.get(i);
+        // Confirmer automatiquement les invitations WAITLIST correspondantes, en un seul envoi transactionnel
+        List<AutoConfirmInvitationMessage> messages = new ArrayList<>(promoted.size());
+        for (int i = 0; i < promoted.size(); i++) {
+            WaitlistEntry entry = promoted.get(i);
+            Integer assignedRow = (i == 0) ? row : null;
+            Integer assignedNumber = (i == 0) ? number : null;
+            log.info("[REDIST] Affectation à {}: row={}, number={}", entry.getUserEmail(), assignedRow, assignedNumber);
+            messages.add(AutoConfirmInvitationMessage.builder()
+                    .eventId(eventId)
+                    .userEmail(entry.getUserEmail())
+                    .row(assignedRow)
+                    .number(assignedNumber)
+                    .build());
+        }
+        promotionPublisher.publish(messages);
 
-            log.info("=== DEBUT assignation automatique pour {} ===", entry.getUserEmail());
+        log.info("Redistribution automatique de {} place(s) pour l'événement {} - {} assignation(s) effectuée(s)",
+                slotsToRedistribute, eventId, promoted.size());
+    }
 
-            // Confirmer automatiquement la place
+    /**
+     * Passe à CONFIRMED les premières personnes en attente : depuis la mémoire si l'événement est possédé
+     * (écrit dans la transaction courante, avec les confirmations de l'outbox), sinon en base en une mise à jour ensembliste des seules lignes verrouillées.
+     * Les lignes déjà verrouillées par une redistribution concurrente sont sautées : aucune double promotion.
+     */
+    private List<WaitlistEntry> promoteNext(Long eventId, int count) {
+        if (waitlistEngine.owns(eventId)) {
+            return waitlistEngine.popNext(eventId, count, WaitlistEntry.WaitlistStatus.CONFIRMED);
+        }
+        List<WaitlistEntry> locked = waitlistRepository.lockTopWaiting(eventId, count);
+        if (locked.isEmpty()) {
+            return locked;
+        }
+        waitlistRepository.promoteWaiting(locked.stream().map(WaitlistEntry::getId).toList(),
+                WaitlistEntry.WaitlistStatus.CONFIRMED, LocalDateTime.now());
+        for (WaitlistEntry entry : locked) {
+            eventStatsService.onWaitlistStatusChanged(eventId, WaitlistEntry.WaitlistStatus.WAITING, WaitlistEntry.WaitlistStatus.CONFIRMED);
             entry.setStatus(WaitlistEntry.WaitlistStatus.CONFIRMED);
             entry.setNotificationSent(true);
-            waitlistRepository.save(entry);
-
-            log.info("Statut liste d'attente mis à jour: {} -> CONFIRMED", entry.getUserEmail());
-
-            // Confirmer automatiquement l'invitation WAITLIST correspondante
-            try {
-                AutoConfirmInvitationMessage message = AutoConfirmInvitationMessage.builder()
-                        .eventId(eventId)
-                        .userEmail(entry.getUserEmail())
-                        .build();
-
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                log.info("Message de confirmation automatique créé: {}", jsonMessage);
-                log.info("Envoi vers topic: invitation.auto.confirm");
-
-                kafkaTemplate.send("invitation.auto.confirm", jsonMessage);
-                log.info("Confirmation automatique déclenchée pour {} - événement {}", entry.getUserEmail(), eventId);
-                log.info("=== FIN assignation automatique pour {} ===", entry.getUserEmail());
-            } catch (Exception e) {
-                log.error("=== ERREUR assignation automatique pour {} ===", entry.getUserEmail());
-                log.error("Erreur lors de la confirmation automatique pour {} - événement {}: {}",
-                         entry.getUserEmail(), eventId, e.getMessage(), e);
-            }
+            publishChange(WaitlistChange.Type.REMOVED, entry);
         }
-
-        log.info("Redistribution automatique de {} place(s) pour l'événement {} - {} assignation(s) effectuée(s)",
-                slotsToRedistribute, eventId, assignmentsToMake);
+        return locked;
     }
 
     /**
@@ -205,92 +332,88 @@ public class WaitlistService {
         }
 
         // Récupérer les informations de l'événement
-        EventEntity event = eventRepository.findById(eventId)
+        EventSnapshot event = eventCacheService.get(eventId)
                 .orElseThrow(() -> new IllegalArgumentException("Événement non trouvé"));
 
         // Marquer l'entrée comme confirmée
         entry.setStatus(WaitlistEntry.WaitlistStatus.CONFIRMED);
         waitlistRepository.save(entry);
+        eventStatsService.onWaitlistStatusChanged(eventId, WaitlistEntry.WaitlistStatus.NOTIFIED, WaitlistEntry.WaitlistStatus.CONFIRMED);
+        publishUpdate(entry, false);
 
-        // Créer automatiquement une invitation avec statut WAITLIST
-        try {
-            // Créer une invitation spéciale pour les utilisateurs de liste d'attente
-            // Cette invitation aura le statut WAITLIST et sera visible par l'admin
-            WaitlistInvitationMessage message = WaitlistInvitationMessage.builder()
-                    .eventId(eventId)
-                    .eventTitle(event.getTitle())
-                    .userEmail(userEmail)
-                    .build();
-
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            kafkaTemplate.send("waitlist.invitation.created", jsonMessage);
-            log.info("Invitation WAITLIST créée pour {} - événement {}", userEmail, eventId);
-        } catch (Exception e) {
-            log.error("Erreur lors de la création de l'invitation WAITLIST pour {} - événement {}: {}",
-                     userEmail, eventId, e.getMessage(), e);
-            // Ne pas faire échouer la confirmation pour cette erreur
-        }
+        // Créer automatiquement une invitation avec statut WAITLIST, visible par l'admin.
+        // Écrite dans l'outbox dans la transaction de la confirmation : publiée si et seulement si elle est validée
+        WaitlistInvitationMessage message = WaitlistInvitationMessage.builder()
+                .eventId(eventId)
+                .eventTitle(event.getTitle())
+                .userEmail(userEmail)
+                .build();
+        outboxService.enqueue(waitlistInvitationCreatedTopic, eventId, message);
 
         log.info("Place confirmée depuis la liste d'attente pour {} - événement {}", userEmail, eventId);
     }
 
-    /**
-     * Traitement automatique des notifications expirées
-     */
-    @Scheduled(fixedRate = 300000) // Toutes les 5 minutes
-    @Transactional
-    public void processExpiredNotifications() {
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            List<WaitlistEntry> expiredEntries = waitlistRepository.findExpiredNotifications(now);
-
-            if (expiredEntries.isEmpty()) {
-                return;
-            }
-
-            log.info("Traitement de {} notification(s) expirée(s)", expiredEntries.size());
-
-            for (WaitlistEntry entry : expiredEntries) {
-                entry.setStatus(WaitlistEntry.WaitlistStatus.EXPIRED);
-                waitlistRepository.save(entry);
-                log.info("Notification expirée pour {} - événement {}", entry.getUserEmail(), entry.getEventId());
-            }
-
-            // Relancer la redistribution pour les événements affectés
-            expiredEntries.stream()
-                    .map(WaitlistEntry::getEventId)
-                    .distinct()
-                    .forEach(eventId -> redistributeAvailableSlots(eventId, 1));
-
-        } catch (Exception e) {
-            log.error("Erreur lors du traitement des notifications expirées", e);
-        }
-    }
-
     /**
      * Obtenir la position d'un utilisateur dans la liste d'attente
      */
     public Optional<WaitlistResponse> getUserWaitlistPosition(Long eventId, String userEmail) {
-        return waitlistRepository.findByEventIdAndUserEmail(eventId, userEmail)
+        return findEntry(eventId, userEmail)
                 .map(entry -> {
-                    EventEntity event = eventRepository.findById(eventId).orElse(null);
+                    EventSnapshot event = eventCacheService.get(eventId).orElse(null);
                     String eventTitle = event != null ? event.getTitle() : null;
                     return toResponse(entry, eventTitle);
                 });
     }
 
+    /**
+     * Positions d'un utilisateur dans les listes d'attente d'un ensemble d'événements, indexées par événement
+     */
+    public Map<Long, WaitlistResponse> getUserWaitlistPositions(Collection<Long> eventIds, String userEmail) {
+        // Listes déjà chargées qui suivent l'utilisateur : réponse depuis la mémoire (les écritures peuvent
+        // ne pas être encore persistées). Les autres, possédées ou non, sont lues en base en deux requêtes
+        // groupées plutôt que de charger une liste entière par événement.
+        Map<Long, WaitlistResponse> positions = new HashMap<>();
+        Map<Long, Optional<WaitlistEntry>> loaded = waitlistEngine.findLoaded(eventIds, userEmail);
+        loaded.forEach((eventId, entry) -> entry.ifPresent(e -> positions.put(eventId, toResponse(e, null))));
+        List<Long> otherEventIds = eventIds.stream()
+                .filter(eventId -> !loaded.containsKey(eventId))
+                .toList();
+        if (otherEventIds.isEmpty()) {
+            return positions;
+        }
+        List<WaitlistEntry> entries = waitlistRepository.findByUserEmailAndEventIdIn(userEmail, otherEventIds);
+        if (entries.isEmpty()) {
+            return positions;
+        }
+        // Un seul comptage groupé pour toutes les entrées en attente (absence de ligne = personne devant)
+        Map<Long, Long> aheadByEvent = new HashMap<>();
+        for (Object[] row : waitlistRepository.countWaitingAheadOfUser(userEmail, otherEventIds)) {
+            aheadByEvent.put((Long) row[0], (Long) row[1]);
+        }
+        for (WaitlistEntry entry : entries) {
+            positions.putIfAbsent(entry.getEventId(), toResponse(entry, null,
+                    entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING
+                            ? Math.toIntExact(aheadByEvent.getOrDefault(entry.getEventId(), 0L) + 1)
+                            : null));
+        }
+        return positions;
+    }
+
     /**
      * Obtenir le nombre de personnes en attente
      */
     public long getWaitlistCount(Long eventId) {
-        return waitlistRepository.countWaitingByEventId(eventId);
+        if (waitlistEngine.owns(eventId)) {
+            return waitlistEngine.waitingCount(eventId);
+        }
+        return eventStatsService.getStats(eventId).getWaitlist();
     }
 
     /**
      * Vérifier si l'événement est complet
      */
     public boolean isEventFull(Long eventId) {
-        EventEntity event = eventRepository.findById(eventId).orElse(null);
+        EventSnapshot event = eventCacheService.get(eventId).orElse(null);
         if (event == null || event.getMaxCapacity() == null) {
             return false;
         }
@@ -300,39 +423,16 @@ public class WaitlistService {
     }
 
     /**
-     * Obtenir le nombre de participants confirmés
+     * Obtenir le nombre de participants confirmés (compteurs par événement)
+     *
+     * @throws ResponseStatusException 503 tant que la projection des invitations n'est pas prête :
+     *                                 répondre 0 ferait passer l'événement pour non complet
      */
     public long getConfirmedParticipantsCount(Long eventId) {
         try {
-            List<InvitationResponse> invitations = invitationClient.getAllInvitations().getBody();
-            if (invitations == null) {
-                log.warn("Aucune invitation retournée pour le comptage des participants de l'événement {}", eventId);
-                return 0;
-            }
-            // Log toutes les invitations pour debug
-            long totalForEvent = invitations.stream()
-                .filter(inv -> String.valueOf(inv.getEventId()).equals(String.valueOf(eventId)))
-                .count();
-            log.info("Invitations trouvées pour eventId {}: {}", eventId, totalForEvent);
-
-            // Compter par statut pour debug
-            Map<String, Long> statusCounts = invitations.stream()
-                .filter(inv -> String.valueOf(inv.getEventId()).equals(String.valueOf(eventId)))
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getStatus() != null ? inv.getStatus() : "NULL",
-                    Collectors.counting()
-                ));
-            log.info("Répartition des statuts pour l'événement {}: {}", eventId, statusCounts);
-
-            long count = invitations.stream()
-                .filter(inv -> String.valueOf(inv.getEventId()).equals(String.valueOf(eventId)))
-                .filter(inv -> {
-                    String status = inv.getStatus();
-                    return status != null && status.equalsIgnoreCase("CONFIRMED");
-                })
-                .count();
-            log.info("Participants confirmés comptés pour l'événement {}: {} (seulement CONFIRMED, excluant CANCELLED)", eventId, count);
-            return count;
+            return eventStatsService.getStats(eventId).getConfirmed();
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Erreur lors du comptage des participants pour l'événement {}", eventId, e);
             return 0;
@@ -342,8 +442,47 @@ public class WaitlistService {
     /**
      * Méthode utilitaire pour récupérer un événement
      */
-    private Optional<com.example.eventservice.entity.EventEntity> getEventById(Long eventId) {
-        return eventRepository.findById(eventId);
+    private Optional<EventSnapshot> getEventById(Long eventId) {
+        return eventCacheService.get(eventId);
+    }
+
+    private Optional<WaitlistEntry> findEntry(Long eventId, String userEmail) {
+        return waitlistEngine.owns(eventId)
+                ? waitlistEngine.find(eventId, userEmail)
+                : waitlistRepository.findByEventIdAndUserEmail(eventId, userEmail);
+    }
+
+    /**
+     * Informe le propriétaire de l'événement d'un changement persisté ici (outbox : publié une fois validé)
+     */
+    private void publishChange(WaitlistChange.Type type, WaitlistEntry entry) {
+        waitlistEngine.publish(WaitlistChange.builder()
+                .type(type)
+                .eventId(entry.getEventId())
+                .userEmail(entry.getUserEmail())
+                .ticket(entry.getTicket())
+                .build());
+        publishUpdate(entry, type == WaitlistChange.Type.REMOVED);
+    }
+
+    /**
+     * Réveille les abonnés au flux de position concernés (diffusé après validation)
+     */
+    private void publishUpdate(WaitlistEntry entry, boolean leftQueue) {
+        waitlistStreamService.publish(WaitlistUpdate.builder()
+                .eventId(entry.getEventId())
+                .userEmail(entry.getUserEmail())
+                .ticket(entry.getTicket())
+                .leftQueue(leftQueue)
+                .build());
+    }
+
+    private static Lock[] newStripes(int count) {
+        Lock[] stripes = new Lock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
     }
 
     private boolean isUserRegistered(Long eventId, String userEmail) {
@@ -357,35 +496,46 @@ public class WaitlistService {
         }
     }
 
-    private void sendWaitlistNotification(WaitlistEntry entry, EventEntity event) {
-        try {
-            WaitlistNotificationMessage message = WaitlistNotificationMessage.builder()
-                    .eventId(entry.getEventId())
-                    .eventTitle(event.getTitle())
-                    .eventDate(event.getEventDate())
-                    .eventLocation(event.getLocation())
-                    .userEmail(entry.getUserEmail())
-                    .position(entry.getPosition())
-                    .expiresAt(entry.getExpiresAt())
-                    .build();
-
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            kafkaTemplate.send(waitlistNotificationTopic, jsonMessage);
-            
-            log.info("Notification de liste d'attente envoyée pour {} - événement {}", 
-                    entry.getUserEmail(), entry.getEventId());
-        } catch (Exception e) {
-            log.error("Erreur lors de l'envoi de la notification de liste d'attente", e);
+    private void sendWaitlistNotification(WaitlistEntry entry, EventSnapshot event) {
+        WaitlistNotificationMessage message = WaitlistNotificationMessage.builder()
+                .eventId(entry.getEventId())
+                .eventTitle(event.getTitle())
+                .eventDate(event.getEventDate())
+                .eventLocation(event.getLocation())
+                .userEmail(entry.getUserEmail())
+                .position(rankOf(entry))
+                .expiresAt(entry.getExpiresAt())
+                .build();
+        outboxService.enqueue(waitlistNotificationTopic, entry.getEventId(), message);
+
+        log.info("Notification de liste d'attente en attente de publication pour {} - événement {}",
+                entry.getUserEmail(), entry.getEventId());
+    }
+
+    /**
+     * Rang d'une entrée en attente (1 = prochaine servie) ; null si l'entrée n'est plus en attente
+     */
+    private Integer rankOf(WaitlistEntry entry) {
+        if (entry.getStatus() != WaitlistEntry.WaitlistStatus.WAITING) {
+            return null;
         }
+        if (waitlistEngine.owns(entry.getEventId())) {
+            return waitlistEngine.rank(entry.getEventId(), entry.getUserEmail());
+        }
+        return Math.toIntExact(waitlistRepository.countWaitingAhead(entry.getEventId(), entry.getTicket()) + 1);
     }
 
     private WaitlistResponse toResponse(WaitlistEntry entry, String eventTitle) {
+        return toResponse(entry, eventTitle, rankOf(entry));
+    }
+
+    private WaitlistResponse toResponse(WaitlistEntry entry, String eventTitle, Integer position) {
         return WaitlistResponse.builder()
                 .id(entry.getId())
                 .eventId(entry.getEventId())
                 .eventTitle(eventTitle)
                 .userEmail(entry.getUserEmail())
-                .position(entry.getPosition())
+                .position(position)
                 .status(entry.getStatus().name())
                 .notificationSent(entry.getNotificationSent())
                 .expiresAt(entry.getExpiresAt())
@@ -430,11 +580,13 @@ public class WaitlistService {
     }
 
     /**
-     * Écoute les messages de redistribution automatique
+     * Écoute les messages de redistribution automatique. Messages clés par eventId : ceux d'un même événement
+     * arrivent sur la même partition, donc sur le même thread, dans l'ordre d'envoi.
      */
     @org.springframework.kafka.annotation.KafkaListener(
-        topics = "waitlist.redistribution",
-        groupId = "event-service-group"
+        topics = "${kafka.topics.waitlist-redistribution:waitlist.redistribution}",
+        groupId = "event-service-group",
+        concurrency = "${kafka.listeners.waitlist-redistribution.concurrency:3}"
     )
     public void handleWaitlistRedistribution(String message) {
         try {
@@ -456,56 +608,6 @@ public class WaitlistService {
         }
     }
 
-    // Nouvelle signature
-    public void redistributeAvailableSlots(Long eventId, int availableSlots, Integer row, Integer number) {
-        EventEntity event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new IllegalArgumentException("Événement non trouvé"));
-
-        if (!Boolean.TRUE.equals(event.getWaitlistEnabled())) {
-            log.debug("Liste d'attente désactivée pour l'événement {}", eventId);
-            return;
-        }
-
-        int slotsToRedistribute = Math.min(availableSlots, redistributionBatchSize);
-        List<WaitlistEntry> waitingEntries = waitlistRepository.findWaitingByEventId(eventId);
-        int assignmentsToMake = Math.min(slotsToRedistribute, waitingEntries.size());
-        if (assignmentsToMake == 0) {
-            log.info("Aucune personne en attente pour l'événement {}", eventId);
-            return;
-        }
-        for (int i = 0; i < assignmentsToMake; i++) {
-            WaitlistEntry entry = waitingEntries.get(i);
-            log.info("=== DEBUT assignation automatique pour {} ===", entry.getUserEmail());
-            entry.setStatus(WaitlistEntry.WaitlistStatus.CONFIRMED);
-            entry.setNotificationSent(true);
-            waitlistRepository.save(entry);
-            log.info("Statut liste d'attente mis à jour: {} -> CONFIRMED", entry.getUserEmail());
-            try {
-                Integer assignedRow = (i == 0) ? row : null;
-                Integer assignedNumber = (i == 0) ? number : null;
-                log.info("[REDIST] Affectation à {}: row={}, number={}", entry.getUserEmail(), assignedRow, assignedNumber);
-                AutoConfirmInvitationMessage message = AutoConfirmInvitationMessage.builder()
-                        .eventId(eventId)
-                        .userEmail(entry.getUserEmail())
-                        .row(assignedRow)
-                        .number(assignedNumber)
-                        .build();
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                log.info("Message de confirmation automatique créé: {}", jsonMessage);
-                log.info("Envoi vers topic: invitation.auto.confirm");
-                kafkaTemplate.send("invitation.auto.confirm", jsonMessage);
-                log.info("Confirmation automatique déclenchée pour {} - événement {}", entry.getUserEmail(), eventId);
-                log.info("=== FIN assignation automatique pour {} ===", entry.getUserEmail());
-            } catch (Exception e) {
-                log.error("=== ERREUR assignation automatique pour {} ===", entry.getUserEmail());
-                log.error("Erreur lors de la confirmation automatique pour {} - événement {}: {}",
-                         entry.getUserEmail(), eventId, e.getMessage(), e);
-            }
-        }
-        log.info("Redistribution automatique de {} place(s) pour l'événement {} - {} assignation(s) effectuée(s)",
-                slotsToRedistribute, eventId, assignmentsToMake);
-    }
-
     /**
      * Écoute les messages de vidage de toutes les listes d'attente
      */
@@ -520,7 +622,9 @@ public class WaitlistService {
 
             // Vider toutes les listes d'attente
             long countBefore = waitlistRepository.count();
+            waitlistEngine.clear();
             waitlistRepository.deleteAll();
+            eventStatsService.resetWaitlistCounts();
             log.info("Nombre d'entrées de liste d'attente supprimées: {}", countBefore);
 
             log.info("=== FIN handleClearAllWaitlists ===");
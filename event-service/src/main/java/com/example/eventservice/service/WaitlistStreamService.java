@@ -0,0 +1,340 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.WaitlistResponse;
+import com.example.eventservice.model.WaitlistUpdate;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flux SSE de la position en liste d'attente. Les changements persistés sont diffusés sur waitlist.updates
+ * (un groupe par instance) ; chaque instance ne réveille que ses abonnés concernés : l'utilisateur du changement
+ * et, si une entrée sort de l'attente, ceux dont le ticket est derrière. Les réveils d'un même événement sont
+ * regroupés et servis en deux requêtes au plus par passage, et seul un état différent du dernier envoyé est poussé.
+ * Le registre est borné (waitlist.stream.max-subscribers) : un abonné inactif n'occupe qu'une connexion asynchrone.
+ * La diffusion est au mieux, après validation, comme l'invalidation du cache des événements : un message perdu
+ * (arrêt entre commit et envoi, Kafka indisponible) laisse une position en retard jusqu'au changement suivant
+ * ou à la reconnexion du client (waitlist.stream.timeout-ms), qui renvoie l'état courant.
+ */
+@Service
+@Slf4j
+public class WaitlistStreamService {
+
+    private final WaitlistRepository waitlistRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter pushedCounter;
+
+    private final Map<Long, Map<String, Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Abonnés à réveiller au prochain passage, par événement
+    private final Map<Long, Set<String>> pending = new ConcurrentHashMap<>();
+
+    @Value("${kafka.topics.waitlist-updates:waitlist.updates}")
+    private String updatesTopic;
+
+    @Value("${waitlist.stream.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    // Le client (EventSource) se reconnecte à l'expiration
+    @Value("${waitlist.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    // Au-delà, les rangs sont calculés depuis la liste des tickets en attente plutôt qu'un comptage par abonné
+    @Value("${waitlist.stream.bulk-rank-threshold:16}")
+    private int bulkRankThreshold;
+
+    public WaitlistStreamService(WaitlistRepository waitlistRepository,
+                                 KafkaTemplate<String, String> kafkaTemplate,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        this.waitlistRepository = waitlistRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.pushedCounter = Counter.builder("waitlist.stream.pushed")
+                .description("Mises à jour de position poussées aux abonnés")
+                .register(meterRegistry);
+        Gauge.builder("waitlist.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Abonnés au flux de position sur cette instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abonne l'utilisateur et lui envoie son état courant ; un nouvel abonnement remplace le précédent
+     *
+     * @throws IllegalStateException si le nombre maximal d'abonnés de l'instance est atteint
+     */
+    public SseEmitter subscribe(Long eventId, String userEmail, WaitlistResponse current) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Nombre maximal d'abonnés atteint");
+        }
+        Subscriber subscriber = new Subscriber(userEmail, new SseEmitter(timeoutMs));
+        subscriber.remember(current.getPosition(), current.getStatus(), current.getExpiresAt());
+        Subscriber[] previous = new Subscriber[1];
+        subscribers.compute(eventId, (id, eventSubscribers) -> {
+            Map<String, Subscriber> map = eventSubscribers != null ? eventSubscribers : new ConcurrentHashMap<>();
+            previous[0] = map.put(userEmail, subscriber);
+            return map;
+        });
+        if (previous[0] != null) {
+            subscriberCount.decrementAndGet();
+            previous[0].emitter.complete();
+        }
+
+        subscriber.emitter.onCompletion(() -> unregister(eventId, subscriber));
+        subscriber.emitter.onTimeout(() -> unregister(eventId, subscriber));
+        subscriber.emitter.onError(error -> unregister(eventId, subscriber));
+        send(eventId, subscriber, SseEmitter.event().name("position").data(current));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Diffuse des changements persistés ; dans une transaction, l'envoi a lieu après validation (au mieux, hors outbox)
+     */
+    public void publish(Collection<WaitlistUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<WaitlistUpdate> batch = List.copyOf(updates);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(batch);
+                }
+            });
+        } else {
+            send(batch);
+        }
+    }
+
+    public void publish(WaitlistUpdate update) {
+        publish(List.of(update));
+    }
+
+    @org.springframework.kafka.annotation.KafkaListener(
+        topics = "${kafka.topics.waitlist-updates:waitlist.updates}",
+        groupId = "event-service-waitlist-stream-#{T(java.util.UUID).randomUUID().toString()}",
+        properties = {"auto.offset.reset=latest"}
+    )
+    public void handleUpdate(String message) {
+        try {
+            onUpdate(objectMapper.readValue(message, WaitlistUpdate.class));
+        } catch (Exception e) {
+            log.error("Erreur lors du traitement d'une mise à jour de liste d'attente: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retient les abonnés de l'événement concernés par le changement
+     */
+    void onUpdate(WaitlistUpdate update) {
+        Map<String, Subscriber> eventSubscribers = subscribers.get(update.getEventId());
+        if (eventSubscribers == null) {
+            return;
+        }
+        Set<String> affected = ConcurrentHashMap.newKeySet();
+        if (eventSubscribers.containsKey(update.getUserEmail())) {
+            affected.add(update.getUserEmail());
+        }
+        if (update.isLeftQueue()) {
+            eventSubscribers.forEach((email, subscriber) -> {
+                Integer ticket = subscriber.ticket;
+                if (ticket == null || update.getTicket() == null || ticket > update.getTicket()) {
+                    affected.add(email);
+                }
+            });
+        }
+        if (!affected.isEmpty()) {
+            pending.merge(update.getEventId(), affected, (current, added) -> {
+                current.addAll(added);
+                return current;
+            });
+        }
+    }
+
+    /**
+     * Pousse aux abonnés réveillés leur nouvel état, un événement à la fois
+     */
+    @Scheduled(fixedDelayString = "${waitlist.stream.push-interval-ms:500}")
+    public void push() {
+        for (Long eventId : new ArrayList<>(pending.keySet())) {
+            Set<String> emails = pending.remove(eventId);
+            if (emails == null || emails.isEmpty()) {
+                continue;
+            }
+            try {
+                push(eventId, emails);
+            } catch (Exception e) {
+                log.error("Erreur lors de l'envoi des positions de l'événement {}: {}", eventId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Commentaire périodique : garde les connexions ouvertes derrière les proxys et détecte les clients partis
+     */
+    @Scheduled(fixedDelayString = "${waitlist.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach((eventId, eventSubscribers) -> eventSubscribers.values()
+                .forEach(subscriber -> send(eventId, subscriber, SseEmitter.event().comment("ping"))));
+    }
+
+    int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    Set<String> pendingFor(Long eventId) {
+        return pending.getOrDefault(eventId, Collections.emptySet());
+    }
+
+    private void push(Long eventId, Set<String> emails) {
+        Map<String, Subscriber> eventSubscribers = subscribers.get(eventId);
+        if (eventSubscribers == null) {
+            return;
+        }
+        Map<String, WaitlistEntry> entries = new HashMap<>();
+        waitlistRepository.findByEventIdAndUserEmailIn(eventId, emails)
+                .forEach(entry -> entries.put(entry.getUserEmail(), entry));
+        Map<String, Integer> ranks = ranks(eventId, entries.values());
+
+        for (String email : emails) {
+            Subscriber subscriber = eventSubscribers.get(email);
+            if (subscriber == null) {
+                continue;
+            }
+            WaitlistEntry entry = entries.get(email);
+            if (entry == null) {
+                send(eventId, subscriber, SseEmitter.event().name("closed").data("Vous n'êtes plus en liste d'attente"));
+                subscriber.emitter.complete();
+                continue;
+            }
+            subscriber.ticket = entry.getTicket();
+            Integer position = ranks.get(email);
+            String status = entry.getStatus().name();
+            if (!subscriber.remember(position, status, entry.getExpiresAt())) {
+                continue;
+            }
+            WaitlistResponse response = WaitlistResponse.builder()
+                    .id(entry.getId())
+                    .eventId(eventId)
+                    .userEmail(email)
+                    .position(position)
+                    .status(status)
+                    .notificationSent(entry.getNotificationSent())
+                    .expiresAt(entry.getExpiresAt())
+                    .createdAt(entry.getCreatedAt())
+                    .updatedAt(entry.getUpdatedAt())
+                    .build();
+            if (send(eventId, subscriber, SseEmitter.event().name("position").data(response))) {
+                pushedCounter.increment();
+            }
+            // Entrée sortie de la liste (confirmée, expirée, annulée) : plus rien à suivre
+            if (entry.getStatus() != WaitlistEntry.WaitlistStatus.WAITING
+                    && entry.getStatus() != WaitlistEntry.WaitlistStatus.NOTIFIED) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private Map<String, Integer> ranks(Long eventId, Collection<WaitlistEntry> entries) {
+        List<WaitlistEntry> waiting = entries.stream()
+                .filter(entry -> entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING)
+                .toList();
+        Map<String, Integer> ranks = new HashMap<>();
+        if (waiting.size() <= bulkRankThreshold) {
+            waiting.forEach(entry -> ranks.put(entry.getUserEmail(),
+                    Math.toIntExact(waitlistRepository.countWaitingAhead(eventId, entry.getTicket()) + 1)));
+            return ranks;
+        }
+        List<Integer> tickets = waitlistRepository.findWaitingTickets(eventId);
+        for (WaitlistEntry entry : waiting) {
+            int index = Collections.binarySearch(tickets, entry.getTicket());
+            ranks.put(entry.getUserEmail(), (index >= 0 ? index : -index - 1) + 1);
+        }
+        return ranks;
+    }
+
+    private boolean send(Long eventId, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (Exception e) {
+            // Client déconnecté
+            unregister(eventId, subscriber);
+            return false;
+        }
+    }
+
+    private void send(List<WaitlistUpdate> updates) {
+        for (WaitlistUpdate update : updates) {
+            try {
+                kafkaTemplate.send(updatesTopic, String.valueOf(update.getEventId()), objectMapper.writeValueAsString(update));
+            } catch (Exception e) {
+                log.error("Erreur lors de la diffusion d'une mise à jour de l'événement {}: {}",
+                        update.getEventId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void unregister(Long eventId, Subscriber subscriber) {
+        subscribers.computeIfPresent(eventId, (id, eventSubscribers) -> {
+            if (eventSubscribers.remove(subscriber.userEmail, subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return eventSubscribers.isEmpty() ? null : eventSubscribers;
+        });
+    }
+
+    private static final class Subscriber {
+        private final String userEmail;
+        private final SseEmitter emitter;
+        private volatile Integer ticket;
+        private Integer position;
+        private String status;
+        private LocalDateTime expiresAt;
+
+        private Subscriber(String userEmail, SseEmitter emitter) {
+            this.userEmail = userEmail;
+            this.emitter = emitter;
+        }
+
+        /**
+         * @return vrai si l'état diffère du dernier envoyé
+         */
+        private synchronized boolean remember(Integer position, String status, LocalDateTime expiresAt) {
+            if (Objects.equals(this.position, position) && Objects.equals(this.status, status)
+                    && Objects.equals(this.expiresAt, expiresAt)) {
+                return false;
+            }
+            this.position = position;
+            this.status = status;
+            this.expiresAt = expiresAt;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.eventservice.config;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Messages clés par eventId consommés avec une concurrence supérieure à 1 : l'ordre est conservé par événement
+ */
+@SpringJUnitConfig(KafkaKeyOrderingTest.TestConfig.class)
+@EmbeddedKafka(partitions = 6, topics = KafkaKeyOrderingTest.TOPIC)
+@TestPropertySource(properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+class KafkaKeyOrderingTest {
+
+    static final String TOPIC = "waitlist.redistribution.ordering";
+    private static final int EVENTS = 12;
+    private static final int MESSAGES_PER_EVENT = 50;
+
+    @Configuration
+    @EnableKafka
+    @Import(KafkaConfig.class)
+    static class TestConfig {
+        @Bean
+        OrderingListener orderingListener() {
+            return new OrderingListener();
+        }
+    }
+
+    static class OrderingListener {
+        private final Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+        private final CountDownLatch latch = new CountDownLatch(EVENTS * MESSAGES_PER_EVENT);
+
+        @KafkaListener(topics = TOPIC, groupId = "ordering-test", concurrency = "3")
+        public void onMessage(ConsumerRecord<String, String> record) {
+            threads.add(Thread.currentThread().getName());
+            received.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(Integer.parseInt(record.value()));
+            latch.countDown();
+        }
+    }
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Autowired
+    private OrderingListener listener;
+
+    @Test
+    void testPerEventOrderIsPreservedAcrossConcurrentConsumers() throws Exception {
+        // Envois entrelacés entre événements, séquence croissante par événement
+        for (int seq = 0; seq < MESSAGES_PER_EVENT; seq++) {
+            for (long eventId = 1; eventId <= EVENTS; eventId++) {
+                kafkaTemplate.send(TOPIC, String.valueOf(eventId), String.valueOf(seq));
+            }
+        }
+        kafkaTemplate.flush();
+
+        assertTrue(listener.latch.await(60, TimeUnit.SECONDS), "Tous les messages doivent être consommés");
+        assertTrue(listener.threads.size() > 1, "Les partitions doivent être réparties entre plusieurs threads");
+        assertEquals(EVENTS, listener.received.size());
+        listener.received.forEach((eventId, sequence) -> {
+            assertEquals(MESSAGES_PER_EVENT, sequence.size());
+            for (int i = 0; i < sequence.size(); i++) {
+                assertEquals(i, sequence.get(i), "Ordre rompu pour l'événement " + eventId);
+            }
+        });
+    }
+}
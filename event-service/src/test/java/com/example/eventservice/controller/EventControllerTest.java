@@ -3,6 +3,17 @@ package com.example.eventservice.controller;
 import com.example.eventservice.service.EventService;
 import com.example.eventservice.mapper.EventMapper;
 import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.model.EventPage;
+import com.example.eventservice.model.EventResponse;
+import com.example.eventservice.model.UserEventStatusResponse;
+import com.example.eventservice.repository.EventSummary;
+import com.example.eventservice.service.EventEnrichmentService;
+import com.example.eventservice.service.EventReminderService;
+import com.example.eventservice.service.EventStatsService;
+import com.example.eventservice.service.EventVersionService;
+import com.example.eventservice.service.InvitationProjectionService;
+import com.example.eventservice.service.WaitlistService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,11 +26,25 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import org.springframework.http.ResponseEntity;
+
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(
@@ -47,6 +72,37 @@ class EventControllerTest {
         InvitationClient invitationClient() {
             return Mockito.mock(InvitationClient.class);
         }
+        @Bean
+        WaitlistService waitlistService() {
+            return Mockito.mock(WaitlistService.class);
+        }
+        @Bean
+        EventReminderService eventReminderService() {
+            return Mockito.mock(EventReminderService.class);
+        }
+        @Bean
+        InvitationProjectionService invitationProjectionService() {
+            return Mockito.mock(InvitationProjectionService.class);
+        }
+        @Bean
+        EventStatsService eventStatsService() {
+            EventStatsService eventStatsService = Mockito.mock(EventStatsService.class);
+            when(eventStatsService.getStats(any())).thenReturn(EventStatsService.Snapshot.builder().build());
+            return eventStatsService;
+        }
+        @Bean
+        EventVersionService eventVersionService() {
+            EventVersionService eventVersionService = Mockito.mock(EventVersionService.class);
+            when(eventVersionService.pageETag(any(), any(), any())).thenReturn("\"page-v1\"");
+            when(eventVersionService.eventETag(any(), any())).thenReturn(Optional.of("\"event-v1\""));
+            return eventVersionService;
+        }
+        @Bean
+        EventEnrichmentService eventEnrichmentService(InvitationClient invitationClient, WaitlistService waitlistService,
+                                                      EventStatsService eventStatsService) {
+            return new EventEnrichmentService(invitationClient, waitlistService, eventStatsService,
+                    Executors.newFixedThreadPool(4), new SimpleMeterRegistry());
+        }
     }
 
     @Autowired
@@ -61,12 +117,101 @@ class EventControllerTest {
 
     @Test
     void shouldReturnOkForGetAll() throws Exception {
-        when(eventService.getAllEvents()).thenReturn(Collections.emptyList());
+        when(eventService.getEventPage(any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new EventPage(Collections.emptyList(), null));
+        mockMvc.perform(get("/events")
+                        .with(jwt().jwt(jwt -> jwt
+                                .claim("email", "test@example.com")
+                                .subject("user-id-123")
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void shouldReturnNextCursorHeaderAndForwardFilters() throws Exception {
+        when(eventService.getEventPage(eq("abc"), eq(10), isNull(), isNull(), eq("Paris"), eq(true)))
+                .thenReturn(new EventPage(Collections.emptyList(), "next"));
+        mockMvc.perform(get("/events")
+                        .param("cursor", "abc")
+                        .param("size", "10")
+                        .param("location", "Paris")
+                        .param("upcomingOnly", "true")
+                        .with(jwt().jwt(jwt -> jwt
+                                .claim("email", "test@example.com")
+                                .subject("user-id-123")
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"));
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() throws Exception {
+        when(eventService.getEventPage(eq("bad"), any(), any(), any(), any(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException("Curseur invalide"));
+        mockMvc.perform(get("/events")
+                        .param("cursor", "bad")
+                        .with(jwt().jwt(jwt -> jwt
+                                .claim("email", "test@example.com")
+                                .subject("user-id-123")
+                        )))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldFetchUserStatusesInOneCallForAllEvents() throws Exception {
+        EventSummary first = Mockito.mock(EventSummary.class);
+        when(first.getId()).thenReturn(1L);
+        EventSummary second = Mockito.mock(EventSummary.class);
+        when(second.getId()).thenReturn(2L);
+        when(eventService.getEventPage(any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new EventPage(List.of(first, second), null));
+        when(eventMapper.toResponse(any(EventSummary.class))).thenAnswer(invocation -> {
+            EventResponse response = new EventResponse();
+            response.setId(((EventSummary) invocation.getArgument(0)).getId());
+            return response;
+        });
+        when(invitationClient.getUserEventStatuses(any())).thenReturn(ResponseEntity.ok(List.of(
+                UserEventStatusResponse.builder().eventId(1L).status("CONFIRMED").registered(true).build())));
+
+        mockMvc.perform(get("/events")
+                        .with(jwt().jwt(jwt -> jwt
+                                .claim("email", "test@example.com")
+                                .subject("user-id-123")
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userRegistered").value(true))
+                .andExpect(jsonPath("$[1].userRegistered").value(false));
+
+        verify(invitationClient, times(1)).getUserEventStatuses(any());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutEnrichingWhenETagMatches() throws Exception {
+        mockMvc.perform(get("/events/1")
+                        .header("If-None-Match", "\"event-v1\"")
+                        .with(jwt().jwt(jwt -> jwt
+                                .claim("email", "test@example.com")
+                                .subject("user-id-123")
+                        )))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"event-v1\""));
+
+        verify(eventService, never()).getEventById(any());
+        verify(invitationClient, never()).getUserEventStatuses(any());
+    }
+
+    @Test
+    void shouldReturnETagOnListWhenNothingIsUnknown() throws Exception {
+        when(eventService.getEventPage(any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new EventPage(Collections.emptyList(), null));
         mockMvc.perform(get("/events")
+                        .header("If-None-Match", "\"stale\"")
                         .with(jwt().jwt(jwt -> jwt
                                 .claim("email", "test@example.com")
                                 .subject("user-id-123")
                         )))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"page-v1\""));
     }
-}
\ No newline at end of file
+}
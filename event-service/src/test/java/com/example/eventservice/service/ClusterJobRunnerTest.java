@@ -0,0 +1,97 @@
+package com.example.eventservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class ClusterJobRunnerTest {
+    @Mock
+    private LeaseService leaseService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ClusterJobRunner clusterJobRunner;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        clusterJobRunner = new ClusterJobRunner(leaseService, meterRegistry);
+        ReflectionTestUtils.setField(clusterJobRunner, "maxShardsPerInstance", Integer.MAX_VALUE);
+        when(leaseService.getInstanceId()).thenReturn("instance-a");
+    }
+
+    @Test
+    void testJobRunsOnlyWithLease() {
+        when(leaseService.acquireOrRenew(eq("job"), any())).thenReturn(OptionalLong.of(3L), OptionalLong.empty());
+        List<Long> tokens = new ArrayList<>();
+
+        clusterJobRunner.run("job", Duration.ofSeconds(30), token -> {
+            tokens.add(token);
+            return 5;
+        });
+        clusterJobRunner.run("job", Duration.ofSeconds(30), token -> {
+            tokens.add(token);
+            return 5;
+        });
+
+        assertEquals(List.of(3L), tokens);
+        assertEquals(1.0, meterRegistry.counter("cluster.job.runs", "job", "job").count());
+        assertEquals(1.0, meterRegistry.counter("cluster.job.skipped", "job", "job").count());
+        assertEquals(5.0, meterRegistry.counter("cluster.job.items", "job", "job").count());
+    }
+
+    @Test
+    void testShardedJobRunsOnlyHeldShards() {
+        when(leaseService.acquireOrRenew(anyString(), any())).thenReturn(OptionalLong.empty());
+        when(leaseService.acquireOrRenew(eq("job#1/4"), any())).thenReturn(OptionalLong.of(7L));
+        when(leaseService.acquireOrRenew(eq("job#3/4"), any())).thenReturn(OptionalLong.of(8L));
+        List<Integer> shards = new ArrayList<>();
+
+        clusterJobRunner.runSharded("job", 4, Duration.ofSeconds(30), shard -> {
+            shards.add(shard.index());
+            return 1;
+        });
+
+        assertEquals(2, shards.size());
+        assertEquals(List.of(1, 3), shards.stream().sorted().toList());
+        assertEquals(2.0, meterRegistry.counter("cluster.job.skipped", "job", "job").count());
+    }
+
+    @Test
+    void testShardLimitPerInstance() {
+        ReflectionTestUtils.setField(clusterJobRunner, "maxShardsPerInstance", 1);
+        when(leaseService.acquireOrRenew(anyString(), any())).thenReturn(OptionalLong.of(1L));
+        List<Integer> shards = new ArrayList<>();
+
+        clusterJobRunner.runSharded("job", 4, Duration.ofSeconds(30), shard -> {
+            shards.add(shard.index());
+            return 0;
+        });
+
+        assertEquals(1, shards.size());
+    }
+
+    @Test
+    void testFailureIsCountedAndSwallowed() {
+        clusterJobRunner.track("job", true, () -> {
+            throw new IllegalStateException("panne");
+        });
+
+        assertEquals(1.0, meterRegistry.counter("cluster.job.failures", "job", "job").count());
+        assertEquals(1.0, meterRegistry.counter("cluster.job.runs", "job", "job").count());
+    }
+}
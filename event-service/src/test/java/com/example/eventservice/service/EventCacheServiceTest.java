@@ -0,0 +1,61 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.repository.EventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EventCacheServiceTest {
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private EventCacheService eventCacheService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        eventCacheService = new EventCacheService(eventRepository, kafkaTemplate, new ObjectMapper(),
+                new SimpleMeterRegistry(), 100, 60);
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(
+                EventEntity.builder().id(1L).title("Concert").maxCapacity(5).build()));
+    }
+
+    @Test
+    void testRepeatedReadsHitTheCache() {
+        assertEquals("Concert", eventCacheService.get(1L).orElseThrow().getTitle());
+        assertEquals("Concert", eventCacheService.get(1L).orElseThrow().getTitle());
+        verify(eventRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testRemoteInvalidationDropsEntry() {
+        eventCacheService.get(1L);
+        eventCacheService.handleInvalidation("{\"eventId\":1,\"origin\":\"other-instance\"}");
+        eventCacheService.get(1L);
+        verify(eventRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testLocalInvalidationIsBroadcast() {
+        eventCacheService.get(1L);
+        eventCacheService.invalidate(1L);
+        eventCacheService.get(1L);
+        verify(eventRepository, times(2)).findById(1L);
+        verify(kafkaTemplate).send(any(), eq("1"), anyString());
+    }
+}
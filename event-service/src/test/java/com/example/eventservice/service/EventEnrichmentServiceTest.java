@@ -0,0 +1,101 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.model.EventResponse;
+import com.example.eventservice.model.UserEventStatusResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class EventEnrichmentServiceTest {
+    @Mock
+    private InvitationClient invitationClient;
+    @Mock
+    private WaitlistService waitlistService;
+    @Mock
+    private EventStatsService eventStatsService;
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private EventEnrichmentService enrichmentService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+        enrichmentService = new EventEnrichmentService(invitationClient, waitlistService, eventStatsService, executor, meterRegistry);
+        ReflectionTestUtils.setField(enrichmentService, "deadlineMs", 200L);
+        when(eventStatsService.getStats(any())).thenReturn(EventStatsService.Snapshot.builder().confirmed(3).waitlist(1).build());
+        when(waitlistService.getUserWaitlistPositions(anyCollection(), anyString())).thenReturn(Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testAllLookupsArriveBeforeDeadline() {
+        when(invitationClient.getUserEventStatuses(any())).thenReturn(ResponseEntity.ok(List.of(
+                UserEventStatusResponse.builder().eventId(1L).registered(true).build())));
+
+        EventResponse response = eventResponse(1L);
+        enrichmentService.enrich(List.of(response), "a@b.com");
+
+        assertTrue(response.getUserRegistered());
+        assertEquals(3L, response.getConfirmedParticipants());
+        assertEquals(1L, response.getWaitlistCount());
+        assertNull(response.getUnknownFields());
+    }
+
+    @Test
+    void testSlowLookupIsReportedUnknownAtDeadline() {
+        // Appel bloqué jusqu'à la fin du test : enrich doit rendre la main à l'échéance sans l'attendre
+        CountDownLatch released = new CountDownLatch(1);
+        AtomicBoolean lookupFinished = new AtomicBoolean();
+        when(invitationClient.getUserEventStatuses(any())).thenAnswer(invocation -> {
+            released.await(10, TimeUnit.SECONDS);
+            lookupFinished.set(true);
+            return ResponseEntity.ok(List.of());
+        });
+
+        EventResponse response = eventResponse(1L);
+        try {
+            enrichmentService.enrich(List.of(response), "a@b.com");
+            assertFalse(lookupFinished.get());
+        } finally {
+            released.countDown();
+        }
+
+        assertNull(response.getUserRegistered());
+        assertTrue(response.getUnknownFields().contains("userRegistered"));
+        assertEquals(3L, response.getConfirmedParticipants());
+        assertEquals(1.0, meterRegistry.get("event.enrichment.unknown").tag("lookup", "userStatus").counter().count());
+    }
+
+    private EventResponse eventResponse(Long id) {
+        EventResponse response = new EventResponse();
+        response.setId(id);
+        return response;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.entity.EventReminder;
+import com.example.eventservice.model.EventReminderMessage;
+import com.example.eventservice.repository.EventReminderRepository;
+import com.example.eventservice.repository.EventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EventReminderServiceTest {
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private EventReminderRepository reminderRepository;
+    @Mock
+    private LeaseService leaseService;
+    @Mock
+    private InvitationProjectionService invitationProjectionService;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private ClusterJobRunner clusterJobRunner;
+    @InjectMocks
+    private EventReminderService eventReminderService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(eventReminderService, "offsetMinutes", 60L);
+        ReflectionTestUtils.setField(eventReminderService, "eventReminderTopic", "event.reminder");
+        when(reminderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testOnlyLeaderLoadsDueReminders() {
+        ReflectionTestUtils.setField(eventReminderService, "clusterJobRunner",
+                new ClusterJobRunner(leaseService, new SimpleMeterRegistry()));
+        when(reminderRepository.findPendingBefore(any())).thenReturn(List.of());
+
+        eventReminderService.sendEventReminders();
+        verify(reminderRepository, never()).findPendingBefore(any());
+
+        ReflectionTestUtils.setField(eventReminderService, "leader", true);
+        eventReminderService.sendEventReminders();
+        verify(reminderRepository).findPendingBefore(any());
+    }
+
+    @Test
+    void testScheduleCreatesPendingReminderOneHourBefore() {
+        LocalDateTime eventDate = LocalDateTime.now().plusDays(2);
+        when(reminderRepository.findByEventId(1L)).thenReturn(Optional.empty());
+
+        eventReminderService.schedule(EventEntity.builder().id(1L).eventDate(eventDate).build());
+
+        ArgumentCaptor<EventReminder> captor = ArgumentCaptor.forClass(EventReminder.class);
+        verify(reminderRepository).save(captor.capture());
+        assertEquals(EventReminder.ReminderStatus.PENDING, captor.getValue().getStatus());
+        assertEquals(eventDate.minusMinutes(60), captor.getValue().getFireAt());
+    }
+
+    @Test
+    void testSentReminderIsNotRearmedWhenDateIsUnchanged() {
+        LocalDateTime eventDate = LocalDateTime.now().plusDays(2);
+        EventReminder sent = EventReminder.builder().id(5L).eventId(1L)
+                .fireAt(eventDate.minusMinutes(60)).status(EventReminder.ReminderStatus.SENT).build();
+        when(reminderRepository.findByEventId(1L)).thenReturn(Optional.of(sent));
+
+        eventReminderService.schedule(EventEntity.builder().id(1L).eventDate(eventDate).build());
+
+        verify(reminderRepository, never()).save(any());
+    }
+
+    @Test
+    void testMovedEventGetsNewReminder() {
+        LocalDateTime eventDate = LocalDateTime.now().plusDays(2);
+        EventReminder sent = EventReminder.builder().id(5L).eventId(1L)
+                .fireAt(eventDate.minusDays(1)).status(EventReminder.ReminderStatus.SENT).build();
+        when(reminderRepository.findByEventId(1L)).thenReturn(Optional.of(sent));
+
+        eventReminderService.schedule(EventEntity.builder().id(1L).eventDate(eventDate).build());
+
+        assertEquals(EventReminder.ReminderStatus.PENDING, sent.getStatus());
+        assertEquals(eventDate.minusMinutes(60), sent.getFireAt());
+    }
+
+    @Test
+    void testCancelMarksPendingReminderCancelled() {
+        EventReminder pending = EventReminder.builder().id(5L).eventId(1L)
+                .fireAt(LocalDateTime.now().plusHours(3)).status(EventReminder.ReminderStatus.PENDING).build();
+        when(reminderRepository.findByEventId(1L)).thenReturn(Optional.of(pending));
+
+        eventReminderService.cancel(1L);
+
+        assertEquals(EventReminder.ReminderStatus.CANCELLED, pending.getStatus());
+    }
+
+    @Test
+    void testReminderIsSplitIntoKeyedChunksOfOneBatch() {
+        ReflectionTestUtils.setField(eventReminderService, "chunkSize", 2);
+        when(invitationProjectionService.findParticipantEmails(1L, InvitationProjectionService.STATUS_CONFIRMED))
+                .thenReturn(List.of("a@x.com", "b@x.com", "c@x.com", "d@x.com", "e@x.com"));
+
+        eventReminderService.sendReminderForEvent(EventEntity.builder().id(1L).title("t")
+                .eventDate(LocalDateTime.now().plusHours(1)).build());
+
+        ArgumentCaptor<Object> keys = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<Object> messages = ArgumentCaptor.forClass(Object.class);
+        verify(outboxService, times(3)).enqueue(eq("event.reminder"), keys.capture(), messages.capture());
+        assertEquals(List.of("1-0", "1-1", "1-2"), keys.getAllValues());
+
+        EventReminderMessage last = (EventReminderMessage) messages.getAllValues().get(2);
+        EventReminderMessage first = (EventReminderMessage) messages.getAllValues().get(0);
+        assertEquals(List.of("e@x.com"), last.getParticipantEmails());
+        assertEquals(2, last.getChunkIndex());
+        assertEquals(3, last.getChunkCount());
+        assertEquals(5, last.getTotalRecipients());
+        assertNotNull(first.getBatchId());
+        assertEquals(first.getBatchId(), last.getBatchId());
+    }
+}
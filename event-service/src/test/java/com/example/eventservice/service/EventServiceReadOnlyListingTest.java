@@ -0,0 +1,110 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.model.EventPage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La liste des événements est une lecture pure : une seule requête, aucune entité chargée ni mise à jour
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({EventService.class, EventServiceReadOnlyListingTest.MockConfig.class})
+class EventServiceReadOnlyListingTest {
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        WaitlistService waitlistService() {
+            return Mockito.mock(WaitlistService.class);
+        }
+        @Bean
+        EventStatsService eventStatsService() {
+            return Mockito.mock(EventStatsService.class);
+        }
+        @Bean
+        EventCacheService eventCacheService() {
+            return Mockito.mock(EventCacheService.class);
+        }
+        @Bean
+        EventReminderService eventReminderService() {
+            return Mockito.mock(EventReminderService.class);
+        }
+    }
+
+    @Autowired
+    private EventService eventService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private LocalDateTime drawEndsAt;
+
+    @BeforeEach
+    void setUp() {
+        drawEndsAt = LocalDateTime.now().plusHours(6).withNano(0);
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(EventEntity.builder()
+                    .title("Event " + i)
+                    .eventDate(LocalDateTime.now().plusDays(i + 1))
+                    .location("Paris")
+                    .organizerId("organizer")
+                    .waitlistDrawEndsAt(i == 0 ? drawEndsAt : null)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testGetEventPageIssuesNoUpdate() {
+        EventPage page = eventService.getEventPage(null, null, null, null, null, false);
+        entityManager.flush();
+
+        assertEquals(3, page.getEvents().size());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        // Projection : aucune entité chargée dans le contexte de persistance
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetEventPageExposesWaitlistDrawEnd() {
+        EventPage page = eventService.getEventPage(null, null, null, null, null, false);
+
+        assertEquals(drawEndsAt, page.getEvents().get(0).getWaitlistDrawEndsAt());
+        assertNull(page.getEvents().get(1).getWaitlistDrawEndsAt());
+    }
+
+    @Test
+    void testGetEventPageRunsInReadOnlyTransaction() throws NoSuchMethodException {
+        Transactional transactional = EventService.class
+                .getMethod("getEventPage", String.class, Integer.class, LocalDateTime.class, LocalDateTime.class,
+                        String.class, boolean.class)
+                .getAnnotation(Transactional.class);
+
+        assertTrue(transactional.readOnly());
+    }
+}
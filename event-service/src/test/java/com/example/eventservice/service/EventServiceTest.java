@@ -1,14 +1,20 @@
 package com.example.eventservice.service;
 
 import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.model.EventPage;
 import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.repository.EventSummary;
 import com.example.eventservice.model.EventRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +25,12 @@ import static org.mockito.Mockito.*;
 class EventServiceTest {
     @Mock
     private EventRepository eventRepository;
+    @Mock
+    private EventStatsService eventStatsService;
+    @Mock
+    private EventCacheService eventCacheService;
+    @Mock
+    private EventReminderService eventReminderService;
     @InjectMocks
     private EventService eventService;
 
@@ -28,11 +40,12 @@ class EventServiceTest {
     }
 
     @Test
-    void testGetAllEvents_empty() {
-        when(eventRepository.findAll()).thenReturn(Collections.emptyList());
-        List<EventEntity> result = eventService.getAllEvents();
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+    void testGetEventPage_empty() {
+        when(eventRepository.findPage(any(), any(), any(), anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        EventPage result = eventService.getEventPage(null, null, null, null, null, false);
+        assertNotNull(result.getEvents());
+        assertTrue(result.getEvents().isEmpty());
+        assertNull(result.getNextCursor());
     }
 
     @Test
@@ -40,6 +53,7 @@ class EventServiceTest {
         EventEntity event = new EventEntity();
         when(eventRepository.save(event)).thenReturn(event);
         assertEquals(event, eventService.createEvent(event));
+        verify(eventReminderService).schedule(event);
     }
 
     @Test
@@ -53,6 +67,9 @@ class EventServiceTest {
     void testDeleteEvent() {
         eventService.deleteEvent(1L);
         verify(eventRepository, times(1)).deleteById(1L);
+        verify(eventStatsService, times(1)).remove(1L);
+        verify(eventCacheService, times(1)).invalidate(1L);
+        verify(eventReminderService, times(1)).cancel(1L);
     }
 
     @Test
@@ -66,5 +83,53 @@ class EventServiceTest {
         when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
         when(eventRepository.save(any())).thenReturn(event);
         assertEquals(event, eventService.updateEvent(1L, req));
+        verify(eventCacheService).invalidate(1L);
+    }
+
+    @Test
+    void testGetEventPage_returnsCursorThatResumesAfterLastEvent() {
+        LocalDateTime date = LocalDateTime.of(2030, 5, 1, 18, 0);
+        EventSummary first = summary(1L, date);
+        EventSummary second = summary(2L, date);
+        when(eventRepository.findPage(any(), any(), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+
+        EventPage page = eventService.getEventPage(null, 1, null, null, null, false);
+
+        assertEquals(List.of(first), page.getEvents());
+        assertNotNull(page.getNextCursor());
+
+        when(eventRepository.findPage(any(), any(), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(second));
+        EventPage next = eventService.getEventPage(page.getNextCursor(), 1, null, null, null, false);
+
+        assertNull(next.getNextCursor());
+        verify(eventRepository).findPage(any(), any(), eq(date), eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void testGetEventPage_withoutSizeUsesDefaultPageSize() {
+        ReflectionTestUtils.setField(eventService, "defaultPageSize", 2);
+        LocalDateTime date = LocalDateTime.of(2030, 5, 1, 18, 0);
+        List<EventSummary> rows = List.of(summary(1L, date), summary(2L, date), summary(3L, date));
+        when(eventRepository.findPage(any(), any(), any(), anyLong(), eq(PageRequest.of(0, 3)))).thenReturn(rows);
+
+        EventPage page = eventService.getEventPage(null, null, null, null, null, false);
+
+        assertEquals(rows.subList(0, 2), page.getEvents());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetEventPage_invalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> eventService.getEventPage("not-a-cursor", 10, null, null, null, false));
+    }
+
+    private EventSummary summary(Long id, LocalDateTime eventDate) {
+        EventSummary summary = mock(EventSummary.class);
+        when(summary.getId()).thenReturn(id);
+        when(summary.getEventDate()).thenReturn(eventDate);
+        return summary;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventWaitlistTest {
+
+    @Test
+    void testRankCountAndPopFollowTicketOrder() {
+        EventWaitlist waitlist = new EventWaitlist(1L, List.of(waiting("a", 3), waiting("b", 7)));
+        waitlist.addTicketRange(8, 200);
+        for (int i = 0; i < 150; i++) {
+            waitlist.join("user" + i, null);
+        }
+
+        assertEquals(152, waitlist.waitingCount());
+        assertEquals(2, waitlist.rank("b"));
+        assertEquals(152, waitlist.rank("user149"));
+
+        waitlist.leave("b");
+        assertEquals(2, waitlist.rank("user0"));
+
+        // Les inscriptions sont persistées avant toute promotion (WaitlistEngine.popNext)
+        waitlist.drain();
+        List<WaitlistEntry> popped = waitlist.popNext(2, WaitlistEntry.WaitlistStatus.CONFIRMED);
+        assertEquals(List.of("a", "user0"), popped.stream().map(WaitlistEntry::getUserEmail).toList());
+        assertEquals(1, waitlist.rank("user1"));
+        assertNull(waitlist.rank("a"));
+        assertEquals(149, waitlist.waitingCount());
+        // La promotion est écrite par l'appelant : rien n'est laissé au lot suivant
+        assertFalse(waitlist.hasPending());
+        assertFalse(waitlist.tracks("user0"));
+    }
+
+    @Test
+    void testDrainReportsPersistedStateAndTarget() {
+        EventWaitlist waitlist = new EventWaitlist(1L, new ArrayList<>(List.of(waiting("a", 1))));
+        waitlist.addTicketRange(2, 10);
+        waitlist.join("b", null);
+        waitlist.leave("a");
+
+        List<EventWaitlist.PendingWrite> writes = waitlist.drain();
+
+        assertEquals(2, writes.size());
+        EventWaitlist.PendingWrite insert = writes.get(0);
+        assertNull(insert.before());
+        assertEquals(2, insert.after().getTicket());
+        EventWaitlist.PendingWrite delete = writes.get(1);
+        assertEquals(WaitlistEntry.WaitlistStatus.WAITING, delete.before());
+        assertNull(delete.after());
+        assertFalse(waitlist.hasPending());
+    }
+
+    @Test
+    void testLeaveOfPersistedEntryIsReportedUntilWritten() {
+        EventWaitlist waitlist = new EventWaitlist(1L, List.of(waiting("a", 1)));
+        waitlist.addTicketRange(2, 10);
+        waitlist.join("b", null);
+        waitlist.leave("b");
+        waitlist.leave("a");
+
+        // "b" n'a jamais été écrit : sa réinscription reste une insertion
+        assertFalse(waitlist.hasPendingRemoval("b"));
+        assertTrue(waitlist.hasPendingRemoval("a"));
+        waitlist.drain();
+        assertFalse(waitlist.hasPendingRemoval("a"));
+    }
+
+    @Test
+    void testJoinMessageTravelsWithTheInsertOnly() {
+        EventWaitlist waitlist = new EventWaitlist(1L, List.of());
+        waitlist.addTicketRange(1, 10);
+        waitlist.join("a", "invitation-a");
+        waitlist.join("b", "invitation-b");
+        waitlist.leave("b");
+
+        List<EventWaitlist.PendingWrite> writes = waitlist.drain();
+        assertEquals("invitation-a", writes.get(0).joinMessage());
+        assertNull(writes.get(1).joinMessage());
+
+        // Lot en échec : le message est rejoué avec l'insertion
+        waitlist.restore(writes);
+        assertEquals("invitation-a", waitlist.drain().get(0).joinMessage());
+    }
+
+    @Test
+    void testRestoredWriteDoesNotOverrideNewerOne() {
+        EventWaitlist waitlist = new EventWaitlist(1L, List.of());
+        waitlist.addTicketRange(1, 10);
+        waitlist.join("a", null);
+        List<EventWaitlist.PendingWrite> failed = waitlist.drain();
+        waitlist.leave("a");
+
+        waitlist.restore(failed);
+        List<EventWaitlist.PendingWrite> retried = waitlist.drain();
+
+        // L'insertion n'a jamais eu lieu : la suppression plus récente part d'un état sans ligne
+        assertEquals(1, retried.size());
+        assertNull(retried.get(0).before());
+        assertNull(retried.get(0).after());
+    }
+
+    private static WaitlistEntry waiting(String email, int ticket) {
+        return WaitlistEntry.builder()
+                .eventId(1L)
+                .userEmail(email)
+                .ticket(ticket)
+                .status(WaitlistEntry.WaitlistStatus.WAITING)
+                .notificationSent(false)
+                .build();
+    }
+}
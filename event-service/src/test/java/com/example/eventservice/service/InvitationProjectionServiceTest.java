@@ -0,0 +1,184 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.entity.InvitationProjection;
+import com.example.eventservice.model.InvitationResponse;
+import com.example.eventservice.model.InvitationWatermark;
+import com.example.eventservice.repository.InvitationProjectionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InvitationProjectionServiceTest {
+    @Mock
+    private InvitationProjectionRepository projectionRepository;
+    @Mock
+    private InvitationClient invitationClient;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private EventStatsService eventStatsService;
+    @Mock
+    private LeaseService leaseService;
+
+    private InvitationProjectionGate gate;
+    private InvitationProjectionService projectionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        gate = new InvitationProjectionGate();
+        projectionService = new InvitationProjectionService(projectionRepository, invitationClient,
+                objectMapper, transactionTemplate, eventStatsService, leaseService, gate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(projectionService, "bootstrapEnabled", true);
+        ReflectionTestUtils.setField(projectionService, "snapshotPageSize", 500);
+        ReflectionTestUtils.setField(projectionService, "bootstrapMaxLagSeconds", 300L);
+        ReflectionTestUtils.setField(projectionService, "bootstrapLeaseTtlSeconds", 60L);
+        ReflectionTestUtils.setField(projectionService, "bootstrapMaxWaitMs", 300000L);
+    }
+
+    @Test
+    void testUpsertCreatesProjection() {
+        when(projectionRepository.findByEventIdAndUserEmail(1L, "a@b.com")).thenReturn(Optional.empty());
+
+        projectionService.handleInvitationLifecycle(
+                "{\"type\":\"UPSERTED\",\"invitationId\":10,\"eventId\":1,\"userEmail\":\"a@b.com\",\"status\":\"CONFIRMED\"}");
+
+        ArgumentCaptor<InvitationProjection> captor = ArgumentCaptor.forClass(InvitationProjection.class);
+        verify(projectionRepository).save(captor.capture());
+        assertEquals("CONFIRMED", captor.getValue().getStatus());
+        assertEquals(10L, captor.getValue().getInvitationId());
+        verify(eventStatsService).onInvitationStatusChanged(1L, null, "CONFIRMED");
+    }
+
+    @Test
+    void testStaleUpsertIsIgnored() {
+        InvitationProjection existing = InvitationProjection.builder()
+                .eventId(1L)
+                .userEmail("a@b.com")
+                .status("CANCELLED")
+                .sourceUpdatedAt(LocalDateTime.of(2030, 1, 1, 12, 0))
+                .build();
+        when(projectionRepository.findByEventIdAndUserEmail(1L, "a@b.com")).thenReturn(Optional.of(existing));
+
+        projectionService.handleInvitationLifecycle(
+                "{\"type\":\"UPSERTED\",\"eventId\":1,\"userEmail\":\"a@b.com\",\"status\":\"CONFIRMED\",\"updatedAt\":\"2030-01-01T11:00:00\"}");
+
+        assertEquals("CANCELLED", existing.getStatus());
+        verify(eventStatsService, never()).onInvitationStatusChanged(eq(1L), eq("CANCELLED"), eq("CONFIRMED"));
+    }
+
+    @Test
+    void testDeleteRemovesProjection() {
+        when(projectionRepository.findByEventIdAndUserEmail(1L, "a@b.com")).thenReturn(Optional.of(
+                InvitationProjection.builder().eventId(1L).userEmail("a@b.com").status("CONFIRMED").build()));
+
+        projectionService.handleInvitationLifecycle(
+                "{\"type\":\"DELETED\",\"eventId\":1,\"userEmail\":\"a@b.com\"}");
+        verify(projectionRepository).deleteByEventIdAndUserEmail(1L, "a@b.com");
+        verify(eventStatsService).onInvitationStatusChanged(1L, "CONFIRMED", null);
+    }
+
+    @Test
+    void testBootstrapRebuildsEmptyProjectionUnderLease() {
+        when(invitationClient.getInvitationWatermark()).thenReturn(ResponseEntity.ok(
+                InvitationWatermark.builder().count(1).lastUpdatedAt(LocalDateTime.of(2030, 1, 1, 12, 0)).build()));
+        when(projectionRepository.count()).thenReturn(0L);
+        when(leaseService.acquireOrRenew(eq(InvitationProjectionService.BOOTSTRAP_LEASE), any())).thenReturn(OptionalLong.of(1));
+        InvitationResponse invitation = new InvitationResponse();
+        invitation.setId(10L);
+        invitation.setEventId(1L);
+        invitation.setUserEmail("a@b.com");
+        invitation.setStatus("CONFIRMED");
+        when(invitationClient.getInvitationSnapshot(0L, 500)).thenReturn(ResponseEntity.ok(List.of(invitation)));
+        when(invitationClient.getInvitationSnapshot(10L, 500)).thenReturn(ResponseEntity.ok(List.of()));
+
+        assertThrows(ResponseStatusException.class, () -> projectionService.findParticipantEmails(1L, "CONFIRMED"));
+        projectionService.bootstrap();
+
+        assertTrue(gate.isOpen());
+        verify(invitationClient).getInvitationSnapshot(0L, 500);
+        verify(eventStatsService).reconcile();
+        verify(leaseService).release(InvitationProjectionService.BOOTSTRAP_LEASE);
+        projectionService.findParticipantEmails(1L, "CONFIRMED");
+        verify(projectionRepository).findUserEmailsByEventIdAndStatus(1L, "CONFIRMED");
+    }
+
+    @Test
+    void testRebuildReadsPastAPageShorterThanRequested() {
+        // Le serveur plafonne la taille des pages : une page courte n'est pas la dernière
+        when(invitationClient.getInvitationSnapshot(0L, 500)).thenReturn(ResponseEntity.ok(List.of(snapshot(10L))));
+        when(invitationClient.getInvitationSnapshot(10L, 500)).thenReturn(ResponseEntity.ok(List.of(snapshot(11L))));
+        when(invitationClient.getInvitationSnapshot(11L, 500)).thenReturn(ResponseEntity.ok(List.of()));
+
+        assertEquals(2, projectionService.rebuildFromSnapshot());
+
+        // Les projections non relues ne sont supprimées qu'après la dernière page
+        InOrder order = inOrder(invitationClient, transactionTemplate);
+        order.verify(invitationClient).getInvitationSnapshot(11L, 500);
+        order.verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void testBootstrapOpensReadsWhenProjectionIsCurrent() {
+        LocalDateTime lastUpdate = LocalDateTime.of(2030, 1, 1, 12, 0);
+        when(invitationClient.getInvitationWatermark()).thenReturn(ResponseEntity.ok(
+                InvitationWatermark.builder().count(3).lastUpdatedAt(lastUpdate).build()));
+        when(projectionRepository.count()).thenReturn(3L);
+        when(projectionRepository.findLastSourceUpdatedAt()).thenReturn(lastUpdate.minusSeconds(10));
+
+        projectionService.bootstrap();
+
+        assertTrue(gate.isOpen());
+        verify(leaseService, never()).acquireOrRenew(any(), any());
+        verify(invitationClient, never()).getInvitationSnapshot(any(), anyInt());
+    }
+
+    @Test
+    void testBootstrapWaitsWhileAnotherInstanceRebuilds() {
+        LocalDateTime lastUpdate = LocalDateTime.of(2030, 1, 1, 12, 0);
+        when(invitationClient.getInvitationWatermark()).thenReturn(ResponseEntity.ok(
+                InvitationWatermark.builder().count(3).lastUpdatedAt(lastUpdate).build()));
+        when(projectionRepository.count()).thenReturn(3L);
+        when(projectionRepository.findLastSourceUpdatedAt()).thenReturn(lastUpdate.minusHours(1));
+        when(leaseService.acquireOrRenew(eq(InvitationProjectionService.BOOTSTRAP_LEASE), any())).thenReturn(OptionalLong.empty());
+
+        projectionService.bootstrap();
+
+        assertFalse(gate.isOpen());
+        verify(invitationClient, never()).getInvitationSnapshot(any(), anyInt());
+
+        // Reconstruction terminée ailleurs : la projection a rattrapé invitation-service
+        when(projectionRepository.findLastSourceUpdatedAt()).thenReturn(lastUpdate);
+        projectionService.bootstrap();
+        assertTrue(gate.isOpen());
+    }
+
+    private static InvitationResponse snapshot(Long id) {
+        InvitationResponse invitation = new InvitationResponse();
+        invitation.setId(id);
+        invitation.setEventId(1L);
+        invitation.setUserEmail("user" + id + "@b.com");
+        invitation.setStatus("CONFIRMED");
+        return invitation;
+    }
+}
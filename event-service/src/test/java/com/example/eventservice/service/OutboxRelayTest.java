@@ -0,0 +1,96 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.OutboxMessage;
+import com.example.eventservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private LeaseService leaseService;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxRepository, leaseService, kafkaTemplate, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 2);
+        when(leaseService.acquireOrRenew(eq(OutboxRelay.LEASE_NAME), any())).thenReturn(OptionalLong.of(1L));
+        when(leaseService.currentToken(OutboxRelay.LEASE_NAME)).thenReturn(OptionalLong.of(1L));
+        when(kafkaTemplate.executeInTransaction(any())).thenAnswer(invocation ->
+                ((KafkaOperations.OperationsCallback<String, String, Object>) invocation.getArgument(0)).doInOperations(kafkaTemplate));
+    }
+
+    @Test
+    void testRelayPublishesBatchesInOrderThenDeletesThem() {
+        when(outboxRepository.findNextBatch(any()))
+                .thenReturn(List.of(message(1L, "7"), message(2L, "7")))
+                .thenReturn(List.of(message(3L, "8")));
+        outboxRelay.maintainLeadership();
+
+        outboxRelay.relay();
+
+        InOrder inOrder = inOrder(kafkaTemplate, outboxRepository);
+        inOrder.verify(kafkaTemplate).send("topic", "7", "payload-1");
+        inOrder.verify(kafkaTemplate).send("topic", "7", "payload-2");
+        inOrder.verify(outboxRepository).deleteByIdIn(List.of(1L, 2L));
+        inOrder.verify(kafkaTemplate).send("topic", "8", "payload-3");
+        inOrder.verify(outboxRepository).deleteByIdIn(List.of(3L));
+        assertEquals(3.0, meterRegistry.counter("outbox.relay.published").count());
+    }
+
+    @Test
+    void testFailedBatchIsKeptForNextRun() {
+        when(outboxRepository.findNextBatch(any())).thenReturn(List.of(message(1L, "7")));
+        doThrow(new IllegalStateException("broker indisponible")).when(kafkaTemplate).executeInTransaction(any());
+        outboxRelay.maintainLeadership();
+
+        outboxRelay.relay();
+
+        verify(outboxRepository, never()).deleteByIdIn(any());
+        assertEquals(1.0, meterRegistry.counter("outbox.relay.failures").count());
+    }
+
+    @Test
+    void testRelayDoesNothingWithoutLease() {
+        outboxRelay.relay();
+
+        verifyNoInteractions(outboxRepository, kafkaTemplate);
+    }
+
+    private static OutboxMessage message(Long id, String key) {
+        return OutboxMessage.builder()
+                .id(id)
+                .topic("topic")
+                .messageKey(key)
+                .payload("payload-" + id)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
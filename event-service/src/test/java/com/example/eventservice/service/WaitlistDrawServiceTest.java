@@ -0,0 +1,140 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tirage : un seul lot attribue les rangs selon la graine de l'événement, les retardataires passent à la suite
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WaitlistDrawService.class, WaitlistDrawServiceTest.MockConfig.class})
+class WaitlistDrawServiceTest {
+
+    private static final long SEED = 42L;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        EventStatsService eventStatsService() {
+            return Mockito.mock(EventStatsService.class);
+        }
+        @Bean
+        EventCacheService eventCacheService() {
+            return Mockito.mock(EventCacheService.class);
+        }
+        @Bean
+        WaitlistEngine waitlistEngine() {
+            return Mockito.mock(WaitlistEngine.class);
+        }
+        @Bean
+        WaitlistStreamService waitlistStreamService() {
+            return Mockito.mock(WaitlistStreamService.class);
+        }
+        @Bean
+        ClusterJobRunner clusterJobRunner() {
+            return Mockito.mock(ClusterJobRunner.class);
+        }
+    }
+
+    @Autowired
+    private WaitlistDrawService drawService;
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    @Autowired
+    private EventRepository eventRepository;
+
+    @AfterEach
+    void cleanUp() {
+        waitlistRepository.deleteAll();
+        eventRepository.deleteAll();
+    }
+
+    @Test
+    void testDrawAssignsSeededOrderInOneBatch() {
+        EventEntity event = event(LocalDateTime.now().minusMinutes(1));
+        List<String> entrants = enter(event.getId(), 1, 200);
+        assertEquals(List.of(event.getId()), waitlistRepository.findEventIdsWithDueDraw(LocalDateTime.now()));
+
+        assertEquals(200, drawService.draw(event.getId()));
+
+        List<WaitlistEntry> drawn = waitlistRepository.findWaitingByEventId(event.getId());
+        assertEquals(200, drawn.size());
+        assertEquals(WaitlistDrawService.shuffle(entrants, SEED), drawn.stream().map(WaitlistEntry::getUserEmail).toList());
+        assertEquals(1, drawn.get(0).getTicket());
+        assertEquals(200, drawn.get(199).getTicket());
+        assertNotNull(eventRepository.findById(event.getId()).orElseThrow().getWaitlistDrawnAt());
+        assertTrue(waitlistRepository.findEventIdsWithDueDraw(LocalDateTime.now()).isEmpty());
+    }
+
+    @Test
+    void testLateEntrantsAreAppendedAfterTheDraw() {
+        EventEntity event = event(LocalDateTime.now().minusMinutes(1));
+        enter(event.getId(), 1, 10);
+        drawService.draw(event.getId());
+
+        List<String> late = enter(event.getId(), 11, 12);
+        drawService.draw(event.getId());
+
+        List<WaitlistEntry> waiting = new ArrayList<>(waitlistRepository.findWaitingByEventId(event.getId()));
+        waiting.sort(Comparator.comparing(WaitlistEntry::getTicket));
+        assertEquals(late, waiting.subList(10, 12).stream().map(WaitlistEntry::getUserEmail).toList());
+        assertEquals(12, waiting.get(11).getTicket());
+    }
+
+    @Test
+    void testOpenWindowIsNotDrawn() {
+        EventEntity event = event(LocalDateTime.now().plusHours(1));
+        enter(event.getId(), 1, 5);
+
+        assertTrue(waitlistRepository.findEventIdsWithDueDraw(LocalDateTime.now()).isEmpty());
+    }
+
+    private EventEntity event(LocalDateTime drawEndsAt) {
+        return eventRepository.save(EventEntity.builder()
+                .title("Ouverture")
+                .eventDate(LocalDateTime.now().plusDays(10))
+                .location("Paris")
+                .organizerId("organizer")
+                .waitlistDrawEndsAt(drawEndsAt)
+                .waitlistDrawSeed(SEED)
+                .build());
+    }
+
+    private List<String> enter(Long eventId, int from, int to) {
+        List<String> emails = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            String email = "user" + i + "@example.com";
+            waitlistRepository.saveAndFlush(WaitlistEntry.builder()
+                    .eventId(eventId)
+                    .userEmail(email)
+                    .ticket(WaitlistDrawService.UNDRAWN_TICKET)
+                    .status(WaitlistEntry.WaitlistStatus.ENTERED)
+                    .notificationSent(false)
+                    .build());
+            emails.add(email);
+        }
+        return emails;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.example.eventservice.repository.WaitlistSequenceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chargement d'une liste hors de la map : une liste retirée pendant la lecture n'est pas remplacée par une copie périmée
+ */
+class WaitlistEngineLoadTest {
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+    @Mock
+    private WaitlistSequenceRepository sequenceRepository;
+    @Mock
+    private EventStatsService eventStatsService;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private WaitlistStreamService waitlistStreamService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WaitlistEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        engine = new WaitlistEngine(waitlistRepository, sequenceRepository, eventStatsService, outboxService,
+                waitlistStreamService, new ObjectMapper(), transactionManager, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testListClearedDuringLoadIsReloaded() {
+        when(waitlistRepository.findWaitingByEventId(1L))
+                .thenAnswer(invocation -> {
+                    // Une autre liste est lue pendant ce chargement, puis les listes sont vidées
+                    assertEquals(0, engine.waitingCount(2L));
+                    engine.clear();
+                    return List.of(waiting("stale@example.com", 1));
+                })
+                .thenReturn(List.of());
+
+        assertEquals(0, engine.waitingCount(1L));
+        verify(waitlistRepository, times(2)).findWaitingByEventId(1L);
+    }
+
+    @Test
+    void testLoadedListIsKept() {
+        when(waitlistRepository.findWaitingByEventId(1L)).thenReturn(List.of(waiting("a@example.com", 1)));
+
+        assertEquals(1, engine.waitingCount(1L));
+        assertEquals(1, engine.rank(1L, "a@example.com"));
+        verify(waitlistRepository, times(1)).findWaitingByEventId(1L);
+    }
+
+    private static WaitlistEntry waiting(String userEmail, int ticket) {
+        return WaitlistEntry.builder()
+                .eventId(1L)
+                .userEmail(userEmail)
+                .ticket(ticket)
+                .status(WaitlistEntry.WaitlistStatus.WAITING)
+                .notificationSent(false)
+                .build();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Promotion depuis la mémoire : le changement de statut est validé ou annulé avec la transaction de l'appelant,
+ * sans attendre le lot suivant
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WaitlistEngine.class, WaitlistEnginePromotionTest.MockConfig.class})
+class WaitlistEnginePromotionTest {
+
+    private static final long EVENT_ID = 11L;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        EventStatsService eventStatsService() {
+            return Mockito.mock(EventStatsService.class);
+        }
+        @Bean
+        OutboxService outboxService() {
+            return Mockito.mock(OutboxService.class);
+        }
+        @Bean
+        WaitlistStreamService waitlistStreamService() {
+            return Mockito.mock(WaitlistStreamService.class);
+        }
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private WaitlistEngine engine;
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    @Autowired
+    private WaitlistStreamService waitlistStreamService;
+    @Autowired
+    private EventStatsService eventStatsService;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        waitlistRepository.deleteAll();
+        for (int i = 1; i <= 3; i++) {
+            waitlistRepository.save(WaitlistEntry.builder()
+                    .eventId(EVENT_ID)
+                    .userEmail("user" + i + "@example.com")
+                    .ticket(i)
+                    .status(WaitlistEntry.WaitlistStatus.WAITING)
+                    .notificationSent(false)
+                    .build());
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        engine.onPartitionsAssigned(
+                Map.of(new TopicPartition("waitlist.changes", engine.partitionFor(EVENT_ID)), 0L),
+                Mockito.mock(ConsumerSeekAware.ConsumerSeekCallback.class));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        engine.onPartitionsRevoked(List.of(new TopicPartition("waitlist.changes", engine.partitionFor(EVENT_ID))));
+        waitlistRepository.deleteAll();
+        Mockito.reset(waitlistStreamService, eventStatsService, outboxService);
+    }
+
+    @Test
+    void testPromotionIsPersistedWithCallerTransaction() {
+        List<WaitlistEntry> promoted = transactionTemplate.execute(status ->
+                engine.popNext(EVENT_ID, 2, WaitlistEntry.WaitlistStatus.CONFIRMED));
+
+        assertEquals(List.of("user1@example.com", "user2@example.com"),
+                promoted.stream().map(WaitlistEntry::getUserEmail).toList());
+        // Aucun flush : la ligne est déjà à jour à la validation
+        assertEquals(WaitlistEntry.WaitlistStatus.CONFIRMED,
+                waitlistRepository.findByEventIdAndUserEmail(EVENT_ID, "user1@example.com").orElseThrow().getStatus());
+        assertEquals(1, waitlistRepository.countWaitingByEventId(EVENT_ID));
+        assertEquals(1, engine.waitingCount(EVENT_ID));
+        Mockito.verify(waitlistStreamService).publish(Mockito.argThat(updates -> updates.size() == 2));
+    }
+
+    @Test
+    void testRolledBackPromotionLeavesEntriesWaiting() {
+        transactionTemplate.executeWithoutResult(status -> {
+            engine.popNext(EVENT_ID, 2, WaitlistEntry.WaitlistStatus.CONFIRMED);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(3, waitlistRepository.countWaitingByEventId(EVENT_ID));
+        // Liste rechargée depuis la table : les entrées sont de nouveau en tête
+        assertEquals(3, engine.waitingCount(EVENT_ID));
+        assertEquals(1, engine.rank(EVENT_ID, "user1@example.com"));
+        Mockito.verifyNoInteractions(waitlistStreamService);
+    }
+
+    @Test
+    void testPendingJoinIsWrittenBeforeBeingPromoted() {
+        engine.waitingCount(EVENT_ID);
+        transactionTemplate.executeWithoutResult(status ->
+                engine.popNext(EVENT_ID, 3, WaitlistEntry.WaitlistStatus.CONFIRMED));
+        engine.join(EVENT_ID, "late@example.com", null);
+
+        transactionTemplate.executeWithoutResult(status ->
+                engine.popNext(EVENT_ID, 1, WaitlistEntry.WaitlistStatus.CONFIRMED));
+
+        assertEquals(WaitlistEntry.WaitlistStatus.CONFIRMED,
+                waitlistRepository.findByEventIdAndUserEmail(EVENT_ID, "late@example.com").orElseThrow().getStatus());
+        assertEquals(0, engine.waitingCount(EVENT_ID));
+    }
+
+    @Test
+    void testPromotionWaitsForTheBatchBeingFlushed() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                engine.popNext(EVENT_ID, 3, WaitlistEntry.WaitlistStatus.CONFIRMED));
+        engine.join(EVENT_ID, "late@example.com", null);
+        // L'écriture du lot est suspendue avant sa validation
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            writing.countDown();
+            resume.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(eventStatsService).onWaitlistStatusChanged(EVENT_ID, null, WaitlistEntry.WaitlistStatus.WAITING);
+
+        Thread flusher = new Thread(engine::flush);
+        flusher.start();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        List<List<WaitlistEntry>> promoted = new CopyOnWriteArrayList<>();
+        Thread promoter = new Thread(() -> promoted.add(transactionTemplate.execute(status ->
+                engine.popNext(EVENT_ID, 1, WaitlistEntry.WaitlistStatus.CONFIRMED))));
+        promoter.start();
+        // La promotion attend le verrou de la liste tant que le lot n'est pas validé
+        while (promoter.getState() != Thread.State.BLOCKED && promoter.isAlive()) {
+            Thread.onSpinWait();
+        }
+        resume.countDown();
+        flusher.join(10000);
+        promoter.join(10000);
+
+        assertEquals(1, promoted.size());
+        assertEquals("late@example.com", promoted.get(0).get(0).getUserEmail());
+        assertEquals(WaitlistEntry.WaitlistStatus.CONFIRMED,
+                waitlistRepository.findByEventIdAndUserEmail(EVENT_ID, "late@example.com").orElseThrow().getStatus());
+    }
+
+    @Test
+    void testRejoinAfterUnwrittenLeaveGetsANewTicketAndInvitation() {
+        engine.leave(EVENT_ID, "user1@example.com");
+        Object invitation = Map.of("userEmail", "user1@example.com");
+        WaitlistEntry rejoined = engine.join(EVENT_ID, "user1@example.com", invitation);
+        engine.flush();
+
+        WaitlistEntry persisted = waitlistRepository.findByEventIdAndUserEmail(EVENT_ID, "user1@example.com").orElseThrow();
+        assertEquals(rejoined.getTicket(), persisted.getTicket());
+        Mockito.verify(outboxService).enqueue(Mockito.anyString(), Mockito.eq(EVENT_ID), Mockito.eq(invitation));
+        // Après rechargement, la réinscription est en fin de liste
+        engine.onPartitionsRevoked(List.of(new TopicPartition("waitlist.changes", engine.partitionFor(EVENT_ID))));
+        engine.onPartitionsAssigned(
+                Map.of(new TopicPartition("waitlist.changes", engine.partitionFor(EVENT_ID)), 0L),
+                Mockito.mock(ConsumerSeekAware.ConsumerSeekCallback.class));
+        assertEquals(3, engine.rank(EVENT_ID, "user1@example.com"));
+    }
+
+    @Test
+    void testPromotionRequiresCallerTransaction() {
+        assertThrows(IllegalStateException.class,
+                () -> engine.popNext(EVENT_ID, 1, WaitlistEntry.WaitlistStatus.CONFIRMED));
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.OutboxMessage;
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.repository.OutboxRepository;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+/**
+ * Expiration par lots : chaque lot dans sa transaction, qui écrit dans l'outbox une demande de redistribution
+ * par événement avec toutes ses places
+ */
+@DataJpaTest(properties = "waitlist.expiry.chunk-size=250")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WaitlistExpiryService.class, ClusterJobRunner.class, OutboxService.class, WaitlistExpiryServiceTest.MockConfig.class})
+class WaitlistExpiryServiceTest {
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        EventStatsService eventStatsService() {
+            return Mockito.mock(EventStatsService.class);
+        }
+        @Bean
+        WaitlistStreamService waitlistStreamService() {
+            return Mockito.mock(WaitlistStreamService.class);
+        }
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+        @Bean
+        LeaseService leaseService() {
+            LeaseService leaseService = Mockito.mock(LeaseService.class);
+            when(leaseService.acquireOrRenew(anyString(), any())).thenReturn(OptionalLong.of(1L));
+            when(leaseService.getInstanceId()).thenReturn("test-instance");
+            return leaseService;
+        }
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private WaitlistExpiryService waitlistExpiryService;
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private WaitlistStreamService waitlistStreamService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime past = LocalDateTime.now().minusMinutes(5);
+        List<WaitlistEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= 600; i++) {
+            entries.add(notified(1L, i, past));
+        }
+        for (int i = 1; i <= 3; i++) {
+            entries.add(notified(2L, i, past));
+        }
+        entries.add(notified(2L, 4, LocalDateTime.now().plusHours(1)));
+        waitlistRepository.saveAll(entries);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        waitlistRepository.deleteAll();
+        outboxRepository.deleteAll();
+        Mockito.reset(waitlistStreamService);
+    }
+
+    @Test
+    void testBacklogIsExpiredInChunksAndRedistributedPerEvent() {
+        waitlistExpiryService.processExpiredNotifications();
+
+        List<WaitlistEntry> all = waitlistRepository.findAll();
+        assertEquals(603, all.stream().filter(entry -> entry.getStatus() == WaitlistEntry.WaitlistStatus.EXPIRED).count());
+        assertEquals(1, all.stream().filter(entry -> entry.getStatus() == WaitlistEntry.WaitlistStatus.NOTIFIED).count());
+
+        // Lots de 250 : 250 + 250 + 100 places pour l'événement 1, un seul lot pour l'événement 2
+        assertEquals(Map.of(1L, 600, 2L, 3), requestedSlots());
+    }
+
+    @Test
+    void testRolledBackChunkRequestsNoRedistribution() {
+        doThrow(new IllegalStateException("publication impossible")).when(waitlistStreamService).publish(anyList());
+
+        assertThrows(IllegalStateException.class,
+                () -> waitlistExpiryService.expireChunk(LocalDateTime.now(), new ClusterJobRunner.Shard(0, 1, 1L)));
+
+        assertTrue(outboxRepository.findAll().isEmpty());
+        assertEquals(0, waitlistRepository.findAll().stream()
+                .filter(entry -> entry.getStatus() == WaitlistEntry.WaitlistStatus.EXPIRED).count());
+    }
+
+    @Test
+    void testNothingToExpire() {
+        waitlistRepository.deleteAll();
+
+        waitlistExpiryService.processExpiredNotifications();
+
+        assertTrue(outboxRepository.findAll().isEmpty());
+    }
+
+    private Map<Long, Integer> requestedSlots() {
+        Map<Long, Integer> slots = new TreeMap<>();
+        for (OutboxMessage message : outboxRepository.findAll()) {
+            assertEquals("waitlist.redistribution", message.getTopic());
+            try {
+                JsonNode request = objectMapper.readTree(message.getPayload());
+                assertEquals(message.getMessageKey(), request.get("eventId").asText());
+                slots.merge(request.get("eventId").asLong(), request.get("availableSlots").asInt(), Integer::sum);
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        }
+        return slots;
+    }
+
+    private static WaitlistEntry notified(Long eventId, int ticket, LocalDateTime expiresAt) {
+        return WaitlistEntry.builder()
+                .eventId(eventId)
+                .userEmail("user" + ticket + "@example.com")
+                .ticket(ticket)
+                .status(WaitlistEntry.WaitlistStatus.NOTIFIED)
+                .notificationSent(true)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.EventSnapshot;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.example.eventservice.repository.WaitlistSequenceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+/**
+ * Inscriptions simultanées sur un même événement : tickets uniques et sans trou, doublons idempotents
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WaitlistService.class, WaitlistJoinConcurrencyTest.MockConfig.class})
+class WaitlistJoinConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistJoinConcurrencyTest.class);
+    private static final long EVENT_ID = 42L;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        EventCacheService eventCacheService() {
+            EventCacheService eventCacheService = Mockito.mock(EventCacheService.class);
+            when(eventCacheService.get(any())).thenReturn(Optional.of(EventSnapshot.builder()
+                    .id(EVENT_ID).title("Flash").waitlistEnabled(true).build()));
+            return eventCacheService;
+        }
+        @Bean
+        InvitationClient invitationClient() {
+            InvitationClient invitationClient = Mockito.mock(InvitationClient.class);
+            when(invitationClient.isUserRegisteredForEvent(anyLong(), anyString())).thenReturn(ResponseEntity.ok(false));
+            return invitationClient;
+        }
+        @Bean
+        EventStatsService eventStatsService() {
+            return Mockito.mock(EventStatsService.class);
+        }
+        @Bean
+        OutboxService outboxService() {
+            return Mockito.mock(OutboxService.class);
+        }
+        @Bean
+        WaitlistStreamService waitlistStreamService() {
+            return Mockito.mock(WaitlistStreamService.class);
+        }
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+        @Bean
+        WaitlistEngine waitlistEngine() {
+            return Mockito.mock(WaitlistEngine.class);
+        }
+        @Bean
+        WaitlistPromotionPublisher waitlistPromotionPublisher() {
+            return Mockito.mock(WaitlistPromotionPublisher.class);
+        }
+    }
+
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    @Autowired
+    private WaitlistSequenceRepository sequenceRepository;
+    @Autowired
+    private OutboxService outboxService;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        waitlistRepository.deleteAll();
+        sequenceRepository.deleteAll();
+        Mockito.reset(outboxService);
+    }
+
+    @Test
+    void testConcurrentJoinsGetUniqueGapFreeTickets() throws Exception {
+        int users = 1000;
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String email = "user" + i + "@example.com";
+            futures.add(executor.submit(() -> {
+                start.await();
+                return waitlistService.joinWaitlist(EVENT_ID, email);
+            }));
+        }
+        // Doublons concurrents : la même inscription renvoyée sans nouveau ticket
+        for (int i = 0; i < 50; i++) {
+            String email = "user" + i + "@example.com";
+            futures.add(executor.submit(() -> {
+                start.await();
+                return waitlistService.joinWaitlist(EVENT_ID, email);
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executor.shutdown();
+        log.info("{} inscriptions ({} threads) en {} s, soit {} inscriptions/s",
+                futures.size(), threads, String.format("%.2f", seconds), String.format("%.0f", futures.size() / seconds));
+
+        List<Integer> tickets = waitlistRepository.findWaitingByEventId(EVENT_ID).stream()
+                .map(WaitlistEntry::getTicket)
+                .toList();
+        assertEquals(IntStream.rangeClosed(1, users).boxed().toList(), tickets);
+        assertEquals(users, sequenceRepository.findLastTicket(EVENT_ID));
+    }
+
+    @Test
+    void testOutboxFailureRollsBackTheJoin() {
+        waitlistService.joinWaitlist(EVENT_ID, "first@example.com");
+        doThrow(new IllegalStateException("outbox indisponible"))
+                .when(outboxService).enqueue(anyString(), any(), any(WaitlistService.WaitlistInvitationMessage.class));
+
+        assertThrows(IllegalStateException.class, () -> waitlistService.joinWaitlist(EVENT_ID, "second@example.com"));
+
+        // Ni entrée sans invitation, ni ticket consommé
+        assertTrue(waitlistRepository.findByEventIdAndUserEmail(EVENT_ID, "second@example.com").isEmpty());
+        assertEquals(1, sequenceRepository.findLastTicket(EVENT_ID));
+    }
+}
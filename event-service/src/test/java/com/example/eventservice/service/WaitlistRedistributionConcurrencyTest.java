@@ -0,0 +1,158 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.EventSnapshot;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redistributions simultanées sur un même événement : chaque personne en attente est promue une seule fois
+ */
+@DataJpaTest(properties = "waitlist.redistribution-batch-size=25")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WaitlistService.class, WaitlistRedistributionConcurrencyTest.MockConfig.class})
+class WaitlistRedistributionConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistRedistributionConcurrencyTest.class);
+    private static final long EVENT_ID = 7L;
+    private static final int WAITING = 2000;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        EventCacheService eventCacheService() {
+            EventCacheService eventCacheService = Mockito.mock(EventCacheService.class);
+            when(eventCacheService.get(any())).thenReturn(Optional.of(EventSnapshot.builder()
+                    .id(EVENT_ID).title("Complet").waitlistEnabled(true).build()));
+            return eventCacheService;
+        }
+        @Bean
+        InvitationClient invitationClient() {
+            return Mockito.mock(InvitationClient.class);
+        }
+        @Bean
+        EventStatsService eventStatsService() {
+            return Mockito.mock(EventStatsService.class);
+        }
+        @Bean
+        OutboxService outboxService() {
+            return Mockito.mock(OutboxService.class);
+        }
+        @Bean
+        WaitlistStreamService waitlistStreamService() {
+            return Mockito.mock(WaitlistStreamService.class);
+        }
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+        @Bean
+        WaitlistEngine waitlistEngine() {
+            return Mockito.mock(WaitlistEngine.class);
+        }
+        @Bean
+        WaitlistPromotionPublisher waitlistPromotionPublisher() {
+            return Mockito.mock(WaitlistPromotionPublisher.class);
+        }
+    }
+
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    @Autowired
+    private WaitlistPromotionPublisher promotionPublisher;
+
+    private final Queue<String> confirmedEmails = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        waitlistRepository.deleteAll();
+        List<WaitlistEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= WAITING; i++) {
+            entries.add(WaitlistEntry.builder()
+                    .eventId(EVENT_ID)
+                    .userEmail("user" + i + "@example.com")
+                    .ticket(i)
+                    .status(WaitlistEntry.WaitlistStatus.WAITING)
+                    .build());
+        }
+        waitlistRepository.saveAll(entries);
+
+        doAnswer(invocation -> {
+            List<WaitlistService.AutoConfirmInvitationMessage> messages = invocation.getArgument(0);
+            messages.forEach(message -> confirmedEmails.add(message.getUserEmail()));
+            return null;
+        }).when(promotionPublisher).publish(anyList());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        waitlistRepository.deleteAll();
+        Mockito.reset(promotionPublisher);
+    }
+
+    @Test
+    void testConcurrentRedistributionsNeverPromoteTwice() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                while (waitlistRepository.countWaitingByEventId(EVENT_ID) > 0) {
+                    waitlistService.redistributeAvailableSlots(EVENT_ID, 25);
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executor.shutdown();
+        log.info("{} promotions ({} threads, lots de 25) en {} s, soit {} promotions/s",
+                WAITING, threads, String.format("%.2f", seconds), String.format("%.0f", WAITING / seconds));
+
+        assertEquals(WAITING, confirmedEmails.size());
+        assertEquals(WAITING, new HashSet<>(confirmedEmails).size());
+        assertEquals(WAITING, waitlistRepository.findAll().stream()
+                .filter(entry -> entry.getStatus() == WaitlistEntry.WaitlistStatus.CONFIRMED)
+                .count());
+    }
+}
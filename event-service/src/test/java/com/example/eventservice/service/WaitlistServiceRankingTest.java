@@ -0,0 +1,186 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.client.InvitationClient;
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.WaitlistResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Le rang en liste d'attente est calculé depuis le ticket d'arrivée : quitter la liste ne réécrit aucune autre entrée
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({WaitlistService.class, WaitlistServiceRankingTest.MockConfig.class})
+class WaitlistServiceRankingTest {
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        EventCacheService eventCacheService() {
+            return Mockito.mock(EventCacheService.class);
+        }
+        @Bean
+        InvitationClient invitationClient() {
+            return Mockito.mock(InvitationClient.class);
+        }
+        @Bean
+        EventStatsService eventStatsService() {
+            return Mockito.mock(EventStatsService.class);
+        }
+        @Bean
+        OutboxService outboxService() {
+            return Mockito.mock(OutboxService.class);
+        }
+        @Bean
+        WaitlistStreamService waitlistStreamService() {
+            return Mockito.mock(WaitlistStreamService.class);
+        }
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+        @Bean
+        WaitlistEngine waitlistEngine() {
+            return Mockito.mock(WaitlistEngine.class);
+        }
+        @Bean
+        WaitlistPromotionPublisher waitlistPromotionPublisher() {
+            return Mockito.mock(WaitlistPromotionPublisher.class);
+        }
+    }
+
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private WaitlistEngine waitlistEngine;
+    @Autowired
+    private EventStatsService eventStatsService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 4; i++) {
+            entityManager.persist(WaitlistEntry.builder()
+                    .eventId(1L)
+                    .userEmail("user" + i + "@example.com")
+                    .ticket(i)
+                    .status(WaitlistEntry.WaitlistStatus.WAITING)
+                    .build());
+        }
+        entityManager.persist(WaitlistEntry.builder()
+                .eventId(2L)
+                .userEmail("user4@example.com")
+                .ticket(1)
+                .status(WaitlistEntry.WaitlistStatus.WAITING)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testLeaveDeletesOneRowAndShiftsLaterRanks() {
+        assertEquals(4, waitlistService.getUserWaitlistPosition(1L, "user4@example.com").orElseThrow().getPosition());
+
+        waitlistService.leaveWaitlist(1L, "user2@example.com");
+        entityManager.flush();
+
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(1, statistics.getEntityDeleteCount());
+        assertEquals(3, waitlistService.getUserWaitlistPosition(1L, "user4@example.com").orElseThrow().getPosition());
+        assertEquals(1, waitlistService.getUserWaitlistPosition(1L, "user1@example.com").orElseThrow().getPosition());
+    }
+
+    @Test
+    void testRankIgnoresEntriesNoLongerWaiting() {
+        WaitlistEntry first = entityManager.getEntityManager()
+                .createQuery("SELECT w FROM WaitlistEntry w WHERE w.userEmail = 'user1@example.com'", WaitlistEntry.class)
+                .getSingleResult();
+        first.setStatus(WaitlistEntry.WaitlistStatus.CONFIRMED);
+        entityManager.flush();
+
+        assertNull(waitlistService.getUserWaitlistPosition(1L, "user1@example.com").orElseThrow().getPosition());
+        assertEquals(3, waitlistService.getUserWaitlistPosition(1L, "user4@example.com").orElseThrow().getPosition());
+    }
+
+    @Test
+    void testPositionsForSeveralEventsInOneCall() {
+        Map<Long, WaitlistResponse> positions = waitlistService.getUserWaitlistPositions(List.of(1L, 2L, 3L), "user4@example.com");
+
+        assertEquals(2, positions.size());
+        assertEquals(4, positions.get(1L).getPosition());
+        assertEquals(1, positions.get(2L).getPosition());
+    }
+
+    @Test
+    void testOwnedEventsNotInMemoryAreReadWithGroupedQueries() {
+        // Événement 2 chargé en mémoire ; événements 1 et 3 possédés mais non chargés
+        WaitlistEntry inMemory = WaitlistEntry.builder()
+                .eventId(2L)
+                .userEmail("user4@example.com")
+                .ticket(1)
+                .status(WaitlistEntry.WaitlistStatus.WAITING)
+                .build();
+        when(waitlistEngine.owns(any())).thenReturn(true);
+        when(waitlistEngine.findLoaded(anyCollection(), eq("user4@example.com")))
+                .thenReturn(Map.of(2L, Optional.of(inMemory)));
+        when(waitlistEngine.rank(2L, "user4@example.com")).thenReturn(1);
+        try {
+            Map<Long, WaitlistResponse> positions = waitlistService.getUserWaitlistPositions(List.of(1L, 2L, 3L), "user4@example.com");
+
+            assertEquals(2, positions.size());
+            assertEquals(4, positions.get(1L).getPosition());
+            assertEquals(1, positions.get(2L).getPosition());
+            // Entrées puis comptage groupé, quel que soit le nombre d'événements non chargés
+            assertEquals(2, statistics.getPrepareStatementCount());
+            verify(waitlistEngine, never()).find(any(), any());
+        } finally {
+            Mockito.reset(waitlistEngine);
+        }
+    }
+
+    @Test
+    void testConfirmedCountIsNotReportedAsZeroWhileTheProjectionIsNotReady() {
+        when(eventStatsService.getStats(1L))
+                .thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Projection des invitations en cours d'initialisation"));
+        try {
+            assertThrows(ResponseStatusException.class, () -> waitlistService.getConfirmedParticipantsCount(1L));
+        } finally {
+            Mockito.reset(eventStatsService);
+        }
+    }
+}
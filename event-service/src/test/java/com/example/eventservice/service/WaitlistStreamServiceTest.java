@@ -0,0 +1,98 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.entity.WaitlistEntry;
+import com.example.eventservice.model.WaitlistResponse;
+import com.example.eventservice.model.WaitlistUpdate;
+import com.example.eventservice.repository.WaitlistRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class WaitlistStreamServiceTest {
+    @Mock
+    private WaitlistRepository waitlistRepository;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private WaitlistStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        streamService = new WaitlistStreamService(waitlistRepository, kafkaTemplate, new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(streamService, "maxSubscribers", 3);
+        ReflectionTestUtils.setField(streamService, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(streamService, "bulkRankThreshold", 0);
+    }
+
+    @Test
+    void testDepartureWakesOnlySubscribersBehind() {
+        subscribe(1L, "a@x.com", 1);
+        subscribe(1L, "b@x.com", 2);
+        subscribe(2L, "c@x.com", 1);
+        when(waitlistRepository.findByEventIdAndUserEmailIn(eq(1L), any()))
+                .thenReturn(List.of(waiting("a@x.com", 3), waiting("b@x.com", 9)));
+        when(waitlistRepository.findWaitingTickets(1L)).thenReturn(List.of(3, 9));
+        // Premier passage : les tickets des abonnés sont appris
+        streamService.onUpdate(WaitlistUpdate.builder().eventId(1L).userEmail("z@x.com").leftQueue(true).build());
+        streamService.push();
+
+        streamService.onUpdate(WaitlistUpdate.builder().eventId(1L).userEmail("y@x.com").ticket(5).leftQueue(true).build());
+
+        assertEquals(Set.of("b@x.com"), streamService.pendingFor(1L));
+        assertTrue(streamService.pendingFor(2L).isEmpty());
+    }
+
+    @Test
+    void testJoinWakesOnlyTheJoiningSubscriber() {
+        subscribe(1L, "a@x.com", 1);
+
+        streamService.onUpdate(WaitlistUpdate.builder().eventId(1L).userEmail("other@x.com").ticket(12).build());
+        assertTrue(streamService.pendingFor(1L).isEmpty());
+
+        streamService.onUpdate(WaitlistUpdate.builder().eventId(1L).userEmail("a@x.com").ticket(1).build());
+        assertEquals(Set.of("a@x.com"), streamService.pendingFor(1L));
+    }
+
+    @Test
+    void testRegistryIsBoundedAndResubscribeReplaces() {
+        subscribe(1L, "a@x.com", 1);
+        subscribe(1L, "a@x.com", 1);
+        subscribe(1L, "b@x.com", 2);
+        subscribe(2L, "c@x.com", 1);
+        assertEquals(3, streamService.getSubscriberCount());
+
+        assertThrows(IllegalStateException.class, () -> subscribe(3L, "d@x.com", 1));
+        assertEquals(3, streamService.getSubscriberCount());
+    }
+
+    private void subscribe(Long eventId, String email, int position) {
+        streamService.subscribe(eventId, email, WaitlistResponse.builder()
+                .eventId(eventId).userEmail(email).position(position).status("WAITING").build());
+    }
+
+    private static WaitlistEntry waiting(String email, int ticket) {
+        return WaitlistEntry.builder()
+                .eventId(1L)
+                .userEmail(email)
+                .ticket(ticket)
+                .status(WaitlistEntry.WaitlistStatus.WAITING)
+                .notificationSent(false)
+                .build();
+    }
+}
@@ -350,7 +350,6 @@ import { WaitlistService } from '../../event/services/waitlist.service';
             <thead>
               <tr>
                 <th>Titre</th>
-                <th>Description</th>
                 <th>Lieu</th>
                 <th>Date</th>
                 <th>Actions</th>
@@ -359,7 +358,6 @@ import { WaitlistService } from '../../event/services/waitlist.service';
             <tbody>
               <tr *ngFor="let event of events">
                 <td>{{ event.title }}</td>
-                <td>{{ event.description }}</td>
                 <td>{{ event.location }}</td>
                 <td>{{ event.eventDate | date:'dd/MM/yyyy HH:mm' }}</td>
                 <td class="actions">
@@ -577,7 +575,7 @@ import { WaitlistService } from '../../event/services/waitlist.service';
             <button type="button" class="btn btn-secondary" (click)="closeEditEventModal()" [disabled]="isUpdatingEvent">
               Annuler
             </button>
-            <button type="submit" class="btn btn-primary" [disabled]="!editEventForm.form.valid || isUpdatingEvent">
+            <button type="submit" class="btn btn-primary" [disabled]="!editEventForm.form.valid || isUpdatingEvent || isLoadingEventDetails">
               <i class="fas fa-spinner fa-spin" *ngIf="isUpdatingEvent"></i>
               <i class="fas fa-save" *ngIf="!isUpdatingEvent"></i>
                Modifier l'événement'
@@ -618,6 +616,7 @@ export class AdminDashboardComponent implements OnInit, OnDestroy {
   showEditEventModal = false;
   editingEvent: EventDetails | null = null;
   isUpdatingEvent = false;
+  isLoadingEventDetails = false;
 
   // Propriétés pour les notifications en temps réel
   hasNewInvitations = false;
@@ -828,7 +827,6 @@ export class AdminDashboardComponent implements OnInit, OnDestroy {
         if (searchTerm) {
           this.events = this.events.filter(event =>
             event.title.toLowerCase().includes(searchTerm) ||
-            event.description.toLowerCase().includes(searchTerm) ||
             event.location.toLowerCase().includes(searchTerm) ||
             event.organizer?.toLowerCase().includes(searchTerm)
           );
@@ -1300,6 +1298,32 @@ export class AdminDashboardComponent implements OnInit, OnDestroy {
     };
     this.showEditEventModal = true;
     this.isUpdatingEvent = false;
+
+    // La liste ne contient pas la description : elle est lue avant de pouvoir enregistrer (sinon elle serait effacée)
+    this.isLoadingEventDetails = true;
+    const editing = this.editingEvent;
+    this.adminEventService.getEvent(event.id).subscribe({
+      next: (details) => {
+        if (this.editingEvent !== editing) {
+          return; // Modale fermée ou autre événement ouvert entre-temps
+        }
+        editing.description = details.description;
+        this.isLoadingEventDetails = false;
+      },
+      error: (error) => {
+        console.error('Erreur lors du chargement de l\'événement:', error);
+        if (this.editingEvent !== editing) {
+          return;
+        }
+        this.isLoadingEventDetails = false;
+        this.closeEditEventModal();
+        this.notificationService.show({
+          message: 'Impossible de charger l\'événement à modifier',
+          type: 'error',
+          duration: 5000
+        });
+      }
+    });
   }
 
   updateEvent() {
@@ -1476,5 +1500,6 @@ export class AdminDashboardComponent implements OnInit, OnDestroy {
     this.showEditEventModal = false;
     this.editingEvent = null; // Clear editing event data
     this.isUpdatingEvent = false;
+    this.isLoadingEventDetails = false;
   }
 }
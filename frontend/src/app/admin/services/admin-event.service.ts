@@ -1,11 +1,12 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpParams } from '@angular/common/http';
+import { EMPTY, Observable } from 'rxjs';
+import { expand, map, reduce } from 'rxjs/operators';
 
 export interface EventDetails {
   id: string;
   title: string;
-  description: string;
+  description?: string; // Absente de la liste : renvoyée par GET /events/{id}
   location: string;
   eventDate: string;
   organizer?: string;
@@ -28,9 +29,29 @@ export class AdminEventService {
 
   constructor(private http: HttpClient) {}
 
+  /**
+   * Tous les événements : GET /events est paginé, les pages sont suivies via l'en-tête X-Next-Cursor
+   */
   getEvents(): Observable<EventDetails[]> {
     // Utiliser l'endpoint avec l'utilisateur connecté pour avoir les compteurs
-    return this.http.get<EventDetails[]>(this.apiUrl);
+    return this.getEventPage().pipe(
+      expand(page => page.nextCursor ? this.getEventPage(page.nextCursor) : EMPTY),
+      reduce((events, page) => events.concat(page.events), [] as EventDetails[])
+    );
+  }
+
+  /**
+   * Événement complet, avec sa description
+   */
+  getEvent(eventId: string): Observable<EventDetails> {
+    return this.http.get<EventDetails>(`${this.apiUrl}/${eventId}`);
+  }
+
+  private getEventPage(cursor?: string): Observable<{ events: EventDetails[], nextCursor: string | null }> {
+    const params = cursor ? new HttpParams().set('cursor', cursor) : new HttpParams();
+    return this.http.get<EventDetails[]>(this.apiUrl, { params, observe: 'response' }).pipe(
+      map(response => ({ events: response.body || [], nextCursor: response.headers.get('X-Next-Cursor') }))
+    );
   }
 
   deleteEvent(eventId: string): Observable<void> {
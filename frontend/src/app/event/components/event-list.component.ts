@@ -106,6 +106,11 @@ import { Router, NavigationEnd } from '@angular/router';
           <div class="event-content">
             <h3 class="event-title" title="{{ event.title }}">{{ event.title }}</h3>
             <p class="event-description" *ngIf="event.description">{{ event.description }}</p>
+            <!-- La liste ne contient pas la description : lue à la demande via GET /events/{id} -->
+            <button class="show-description" type="button" *ngIf="!descriptionLoaded.has(event.id)" (click)="loadDescription(event)">
+              <i class="fas fa-align-left"></i>
+              <span>Voir la description</span>
+            </button>
 
             <div class="event-details">
               <div class="detail-item">
@@ -487,6 +492,8 @@ import { Router, NavigationEnd } from '@angular/router';
     .capacity .fill { height: 100%; background: linear-gradient(90deg, #22c55e, #16a34a); width: 0; transition: width .35s ease; }
     .add-calendar { margin-top: 10px; width: 100%; background: #fff; color: #1e293b; border: 1px solid #e2e8f0; border-radius: 12px; padding: 10px; display: inline-flex; align-items: center; gap: 8px; justify-content: center; cursor: pointer; }
     .add-calendar:hover { background: #f8fafc; }
+    .show-description { margin-bottom: 15px; padding: 0; background: none; border: none; color: #64748b; display: inline-flex; align-items: center; gap: 6px; cursor: pointer; }
+    .show-description:hover { color: #1e293b; }
 
     .custom-button {
       width: 100%;
@@ -691,6 +698,7 @@ export class EventListComponent implements OnInit {
   isLoading = true;
   sortSelected: 'dateAsc' | 'dateDesc' | 'capacity' = 'dateAsc';
   favorites = new Set<string>();
+  descriptionLoaded = new Set<string>();
 
   filters = [
     { label: 'Tous', active: true, type: 'all' },
@@ -760,6 +768,7 @@ export class EventListComponent implements OnInit {
         }
 
         this.events = events;
+        this.descriptionLoaded.clear();
         this.filterEvents();
         this.isLoading = false;
       },
@@ -783,7 +792,6 @@ export class EventListComponent implements OnInit {
       const search = this.searchTerm.toLowerCase();
       filtered = filtered.filter(event =>
         event.title.toLowerCase().includes(search) ||
-        event.description?.toLowerCase().includes(search) ||
         event.location.toLowerCase().includes(search)
       );
     }
@@ -862,8 +870,30 @@ export class EventListComponent implements OnInit {
     return Math.min(100, Math.round((used / event.maxCapacity) * 100));
   }
 
-  // Download ICS file to add to calendar
+  // Description absente de la liste : lue une fois par événement
+  loadDescription(event: EventResponse) {
+    this.eventService.getEventById(event.id).subscribe({
+      next: (details) => {
+        event.description = details.description;
+        this.descriptionLoaded.add(event.id);
+      },
+      error: (error) => console.error(`Error loading description for event ${event.id}:`, error)
+    });
+  }
+
+  // Download ICS file to add to calendar (description lue via GET /events/{id})
   downloadIcs(event: EventResponse) {
+    if (this.descriptionLoaded.has(event.id)) {
+      this.writeIcs(event);
+      return;
+    }
+    this.eventService.getEventById(event.id).subscribe({
+      next: (details) => this.writeIcs({ ...event, description: details.description }),
+      error: () => this.writeIcs(event)
+    });
+  }
+
+  private writeIcs(event: EventResponse) {
     const start = new Date(event.eventDate);
     const end = new Date(start.getTime() + 2 * 60 * 60 * 1000);
     const toIcs = (d: Date) => (
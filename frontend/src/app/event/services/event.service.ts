@@ -1,7 +1,7 @@
 import { Injectable, OnDestroy } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable, timer, Subject, BehaviorSubject } from 'rxjs';
-import { takeUntil, switchMap, catchError, tap } from 'rxjs/operators';
+import { HttpClient, HttpParams } from '@angular/common/http';
+import { Observable, timer, Subject, BehaviorSubject, EMPTY } from 'rxjs';
+import { takeUntil, switchMap, catchError, tap, expand, map, reduce } from 'rxjs/operators';
 import { OccupiedSeat } from '../models/seat.model';
 
 export interface EventRequest {
@@ -14,7 +14,7 @@ export interface EventRequest {
 export interface EventResponse {
   id: string;
   title: string;
-  description?: string;
+  description?: string; // Absente de la liste : renvoyée par GET /events/{id}
   location: string;
   eventDate: string;
   createdBy: string;
@@ -29,6 +29,7 @@ export interface EventResponse {
   userWaitlistStatus?: string; // WAITING, NOTIFIED, CONFIRMED, EXPIRED, CANCELLED
   userHasPendingInvitation?: boolean; // L'utilisateur a une invitation en attente
   userStatus?: string; // Ajouté pour gérer l'état CANCELLED
+  unknownFields?: string[]; // Champs non renseignés car leur source n'a pas répondu à temps
 }
 
 @Injectable({
@@ -200,8 +201,21 @@ export class EventService implements OnDestroy {
     });
   }
 
+  /**
+   * Tous les événements : GET /events est paginé, les pages sont suivies via l'en-tête X-Next-Cursor
+   */
   getAllEvents(): Observable<EventResponse[]> {
-    return this.http.get<EventResponse[]>(this.apiUrl);
+    return this.getEventPage().pipe(
+      expand(page => page.nextCursor ? this.getEventPage(page.nextCursor) : EMPTY),
+      reduce((events, page) => events.concat(page.events), [] as EventResponse[])
+    );
+  }
+
+  private getEventPage(cursor?: string): Observable<{ events: EventResponse[], nextCursor: string | null }> {
+    const params = cursor ? new HttpParams().set('cursor', cursor) : new HttpParams();
+    return this.http.get<EventResponse[]>(this.apiUrl, { params, observe: 'response' }).pipe(
+      map(response => ({ events: response.body || [], nextCursor: response.headers.get('X-Next-Cursor') }))
+    );
   }
 
   getEventById(id: string): Observable<EventResponse> {
@@ -1,16 +1,26 @@
 package com.example.invitationservice.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
 
 @Configuration
 public class KafkaConfig {
@@ -29,12 +39,59 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 1000);
+        // Pas de réordonnancement ni de doublon lors des retries : l'ordre par clé (eventId) est conservé
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
+    @Primary
     public KafkaTemplate<String, String> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    /**
+     * État des verrous de places, compacté : la dernière valeur par place suffit à reconstruire l'état
+     * (même nombre de partitions que seat.lease.requests, dont l'assignation désigne le propriétaire)
+     */
+    @Bean
+    public NewTopic seatLeasesTopic(@Value("${kafka.topics.seat-leases:seat.leases}") String topic,
+                                    @Value("${seat-lease.partitions:12}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).compact().build();
+    }
+
+    @Bean
+    public NewTopic seatLeaseRequestsTopic(@Value("${kafka.topics.seat-lease-requests:seat.lease.requests}") String topic,
+                                           @Value("${seat-lease.partitions:12}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
+    /**
+     * Réponses aux demandes transmises au propriétaire : chaque instance lit tout le topic (groupe propre)
+     * et ne garde que les réponses à ses propres demandes
+     */
+    @Bean
+    public ConcurrentMessageListenerContainer<String, String> seatLeaseRepliesContainer(
+            ConcurrentKafkaListenerContainerFactory<String, String> containerFactory,
+            @Value("${kafka.topics.seat-lease-replies:seat.lease.replies}") String topic) {
+        ConcurrentMessageListenerContainer<String, String> container = containerFactory.createContainer(topic);
+        container.getContainerProperties().setGroupId("invitation-service-seat-lease-replies-" + UUID.randomUUID());
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        container.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        container.setAutoStartup(false);
+        return container;
+    }
+
+    @Bean
+    public ReplyingKafkaTemplate<String, String, String> seatLeaseReplyingTemplate(
+            ConcurrentMessageListenerContainer<String, String> seatLeaseRepliesContainer,
+            @Value("${seat-lease.request-timeout-ms:3000}") long requestTimeoutMs) {
+        ReplyingKafkaTemplate<String, String, String> template =
+                new ReplyingKafkaTemplate<>(producerFactory(), seatLeaseRepliesContainer);
+        template.setSharedReplyTopic(true);
+        template.setDefaultReplyTimeout(Duration.ofMillis(requestTimeoutMs));
+        return template;
+    }
 } 
\ No newline at end of file
@@ -65,10 +65,14 @@ public class SecurityConfig {
                     .requestMatchers("/actuator/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                     .requestMatchers(HttpMethod.GET, "/invitations/check/**").hasAnyRole("USER", ROLE_ADMIN)
                     .requestMatchers(HttpMethod.GET, "/invitations/event/*/occupied-seats").permitAll()
+                    .requestMatchers(HttpMethod.GET, "/invitations/event/*/seat-map").permitAll()
                     .requestMatchers(HttpMethod.POST, "/invitations/event/*/lock-seat").hasAnyRole("USER", ROLE_ADMIN)
                     .requestMatchers(HttpMethod.DELETE, "/invitations/event/*/release-seat").hasAnyRole("USER", ROLE_ADMIN)
+                    .requestMatchers("/invitations/event/*/seat-holds/**").hasAnyRole("USER", ROLE_ADMIN)
+                    .requestMatchers(HttpMethod.POST, "/invitations/event/*/quick-book").hasAnyRole("USER", ROLE_ADMIN)
                     .requestMatchers(HttpMethod.POST, "/invitations").hasAnyRole("USER", ROLE_ADMIN)
                     .requestMatchers(HttpMethod.PATCH, "/invitations/*/confirm").hasRole(ROLE_ADMIN)
+                    .requestMatchers(HttpMethod.GET, "/invitations/jobs/**").hasRole(ROLE_ADMIN)
                     .anyRequest().authenticated();
                 logger.debug("Security configuration: /invitations/check/** requires ROLE_USER or ROLE_ADMIN");
                 logger.debug("Security configuration: POST /invitations requires ROLE_USER or ROLE_ADMIN");
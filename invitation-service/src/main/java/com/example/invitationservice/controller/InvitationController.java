@@ -1,13 +1,20 @@
 package com.example.invitationservice.controller;
 
 import com.example.invitationservice.entity.InvitationEntity;
+import com.example.invitationservice.entity.InvitationStatus;
 import com.example.invitationservice.entity.SeatInfo;
-import com.example.invitationservice.entity.TemporarySeatLock;
 import com.example.invitationservice.model.InvitationRequest;
 import com.example.invitationservice.model.InvitationResponse;
+import com.example.invitationservice.model.InvitationWatermark;
+import com.example.invitationservice.model.SeatHoldRequest;
+import com.example.invitationservice.model.SeatHoldResponse;
+import com.example.invitationservice.model.SeatMapResponse;
+import com.example.invitationservice.model.UserEventStatusRequest;
+import com.example.invitationservice.model.UserEventStatusResponse;
 import com.example.invitationservice.repository.InvitationRepository;
 import com.example.invitationservice.service.InvitationService;
 import com.example.invitationservice.service.SeatLockService;
+import com.example.invitationservice.service.SeatMapEngine;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,12 +26,11 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.ArrayList;
 import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.Set;
-import java.util.HashSet;
 import com.example.invitationservice.exception.InvitationException;
 
 @RestController
@@ -39,6 +45,7 @@ InvitationController {
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final SeatLockService seatLockService;
     private final InvitationRepository invitationRepository;
+    private final SeatMapEngine seatMapEngine;
     
     @Value("${kafka.topics.invitation-responded}")
     private String invitationRespondedTopic;
@@ -53,6 +60,25 @@ InvitationController {
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * Snapshot paginé (par identifiant croissant) pour la reconstruction des projections
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<List<InvitationResponse>> getInvitationSnapshot(
+            @RequestParam(defaultValue = "0") Long afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 1000));
+        List<InvitationResponse> responses = invitationService.getInvitationSnapshot(afterId, pageSize).stream()
+                .map(this::toResponse)
+                .toList();
+        return ResponseEntity.ok(responses);
+    }
+
+    @GetMapping("/snapshot/watermark")
+    public ResponseEntity<InvitationWatermark> getInvitationWatermark() {
+        return ResponseEntity.ok(invitationService.getInvitationWatermark());
+    }
+
     @PostMapping
     public ResponseEntity<InvitationResponse> createInvitation(@Valid @RequestBody InvitationRequest request) {
         log.info("Received invitation request for event {} from user {}", request.getEventId(), request.getUserEmail());
@@ -78,95 +104,75 @@ InvitationController {
         return ResponseEntity.ok(hasPending);
     }
 
+    /**
+     * Statut de l'utilisateur pour un ensemble d'événements en un seul appel.
+     * Retourne une entrée par événement demandé, même sans invitation.
+     */
+    @PostMapping("/status/bulk")
+    public ResponseEntity<List<UserEventStatusResponse>> getUserEventStatuses(@RequestBody UserEventStatusRequest request) {
+        if (request.getUserEmail() == null || request.getEventIds() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        log.debug("Bulk status lookup for user {} on {} event(s)", request.getUserEmail(), request.getEventIds().size());
+        Map<Long, InvitationEntity> invitationsByEvent = invitationService
+                .getUserInvitationsForEvents(request.getUserEmail(), request.getEventIds())
+                .stream()
+                .collect(Collectors.toMap(InvitationEntity::getEventId, Function.identity(), (a, b) -> a));
+
+        List<UserEventStatusResponse> statuses = request.getEventIds().stream()
+                .filter(Objects::nonNull)
+                .map(eventId -> toStatusResponse(eventId, invitationsByEvent.get(eventId)))
+                .toList();
+        return ResponseEntity.ok(statuses);
+    }
+
     @GetMapping("/event/{eventId}/occupied-seats")
     public ResponseEntity<List<SeatInfo>> getOccupiedSeats(@PathVariable String eventId) {
+        Long eventIdLong = parseEventId(eventId);
+        if (eventIdLong == null) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            log.info("=== DEBUT getOccupiedSeats pour event ID: {} ===", eventId);
-            
-            if (eventId == null || eventId.trim().isEmpty()) {
-                log.error("Event ID is null or empty");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            Long eventIdLong;
-            try {
-                eventIdLong = Long.parseLong(eventId);
-            } catch (NumberFormatException e) {
-                log.error("Invalid event ID format: {}", eventId);
-                return ResponseEntity.badRequest().build();
-            }
-            
-            // Créer un nouveau HashSet mutable
-            Set<SeatInfo> occupiedSeats = new HashSet<>();
-            
-            try {
-                // Ajouter les places réservées
-                log.info("Récupération des places réservées pour l'événement {}", eventIdLong);
-                List<SeatInfo> reservedSeats = invitationService.getOccupiedSeatsForEvent(eventIdLong);
-                log.info("Places réservées trouvées: {} pour l'événement {}", reservedSeats != null ? reservedSeats.size() : 0, eventIdLong);
-                
-                if (reservedSeats != null && !reservedSeats.isEmpty()) {
-                    // Créer une nouvelle liste mutable pour éviter UnsupportedOperationException
-                    List<SeatInfo> mutableReservedSeats = new ArrayList<>();
-                    for (SeatInfo seat : reservedSeats) {
-                        if (seat != null) {
-                            log.debug("Place réservée ajoutée: row={}, number={}", seat.getRow(), seat.getNumber());
-                            mutableReservedSeats.add(seat);
-                        }
-                    }
-                    occupiedSeats.addAll(mutableReservedSeats);
-                    log.info("Total places réservées ajoutées: {}", mutableReservedSeats.size());
-                } else {
-                    log.info("Aucune place réservée trouvée pour l'événement {}", eventIdLong);
-                }
-                
-                // Ajouter les places temporairement verrouillées
-                log.info("Récupération des places verrouillées pour l'événement {}", eventIdLong);
-                List<TemporarySeatLock> lockedSeats = seatLockService.getLockedSeats(eventIdLong);
-                log.info("Places verrouillées trouvées: {} pour l'événement {}", lockedSeats != null ? lockedSeats.size() : 0, eventIdLong);
-                
-                if (lockedSeats != null && !lockedSeats.isEmpty()) {
-                    log.info("Traitement de {} places verrouillées", lockedSeats.size());
-                    for (TemporarySeatLock lock : lockedSeats) {
-                        if (lock != null && lock.getRow() != null && lock.getNumber() != null) {
-                        SeatInfo seatInfo = SeatInfo.builder()
-                            .row(lock.getRow())
-                            .number(lock.getNumber())
-                            .build();
-                            log.info("Place verrouillée ajoutée: row={}, number={}, expiry={}", 
-                                lock.getRow(), lock.getNumber(), lock.getExpiryTime());
-                        occupiedSeats.add(seatInfo);
-                        } else {
-                            log.warn("Place verrouillée invalide ignorée: {}", lock);
-                        }
-                    }
-                } else {
-                    log.info("Aucune place verrouillée active trouvée pour l'événement {}", eventIdLong);
-                }
-            } catch (Exception e) {
-                log.error("Error processing seats: {}", e.getMessage(), e);
-            }
-            
-            List<SeatInfo> result = new ArrayList<>(occupiedSeats);
-            log.info("=== RESULTAT FINAL: {} places occupées total pour l'événement {} ===", result.size(), eventIdLong);
-            
-            // Log détaillé du résultat
-            if (result.isEmpty()) {
-                log.warn("ATTENTION: Liste vide retournée pour l'événement {} alors qu'on pourrait s'attendre à des données", eventIdLong);
-            } else {
-                for (SeatInfo seat : result) {
-                    log.info("Place occupée finale: row={}, number={}", seat.getRow(), seat.getNumber());
-                }
-            }
-            
-            return ResponseEntity.ok(result);
-            
+            // Places confirmées et verrouillées, servies par le plan de salle en mémoire
+            List<SeatInfo> occupiedSeats = seatMapEngine.getOccupiedSeats(eventIdLong);
+            log.debug("{} places occupées pour l'événement {}", occupiedSeats.size(), eventIdLong);
+            return ResponseEntity.ok(occupiedSeats);
         } catch (Exception e) {
             log.error("Unexpected error getting occupied seats for event {}: {}", eventId, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Plan de salle compact (encodage par plages), pour les grandes salles
+     */
+    @GetMapping("/event/{eventId}/seat-map")
+    public ResponseEntity<SeatMapResponse> getSeatMap(@PathVariable String eventId) {
+        Long eventIdLong = parseEventId(eventId);
+        if (eventIdLong == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(seatMapEngine.getSeatMap(eventIdLong));
+        } catch (Exception e) {
+            log.error("Unexpected error getting seat map for event {}: {}", eventId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private Long parseEventId(String eventId) {
+        if (eventId == null || eventId.trim().isEmpty()) {
+            log.error("Event ID is null or empty");
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId);
+        } catch (NumberFormatException e) {
+            log.error("Invalid event ID format: {}", eventId);
+            return null;
+        }
+    }
+
     @PostMapping("/event/{eventId}/lock-seat")
     public ResponseEntity<Void> lockSeat(
             @PathVariable String eventId,
@@ -212,6 +218,74 @@ InvitationController {
         }
     }
 
+    /**
+     * Verrouille un groupe de places en une fois : toutes ou aucune (409 si une place est déjà prise)
+     */
+    @PostMapping("/event/{eventId}/seat-holds")
+    public ResponseEntity<SeatHoldResponse> holdSeats(
+            @PathVariable String eventId,
+            @RequestBody SeatHoldRequest request,
+            @AuthenticationPrincipal Jwt jwt) {
+        Long eventIdLong = parseEventId(eventId);
+        if (eventIdLong == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            SeatHoldResponse hold = seatLockService.holdSeats(eventIdLong, request.getSeats(), jwt.getClaimAsString("email"));
+            return hold != null ? ResponseEntity.ok(hold) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid seat group for event {}: {}", eventId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Réservation rapide : verrouille les {@code count} meilleures places contiguës (409 si aucune rangée ne convient)
+     */
+    @PostMapping("/event/{eventId}/quick-book")
+    public ResponseEntity<SeatHoldResponse> quickBook(
+            @PathVariable String eventId,
+            @RequestParam(defaultValue = "1") int count,
+            @AuthenticationPrincipal Jwt jwt) {
+        Long eventIdLong = parseEventId(eventId);
+        if (eventIdLong == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            SeatHoldResponse hold = seatLockService.quickBook(eventIdLong, count, jwt.getClaimAsString("email"));
+            return hold != null ? ResponseEntity.ok(hold) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid quick booking for event {}: {}", eventId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PutMapping("/event/{eventId}/seat-holds/{holdId}")
+    public ResponseEntity<Void> renewSeatHold(
+            @PathVariable String eventId,
+            @PathVariable String holdId,
+            @AuthenticationPrincipal Jwt jwt) {
+        Long eventIdLong = parseEventId(eventId);
+        if (eventIdLong == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean renewed = seatLockService.renewHold(eventIdLong, holdId, jwt.getClaimAsString("email"));
+        return renewed ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/event/{eventId}/seat-holds/{holdId}")
+    public ResponseEntity<Void> releaseSeatHold(
+            @PathVariable String eventId,
+            @PathVariable String holdId,
+            @AuthenticationPrincipal Jwt jwt) {
+        Long eventIdLong = parseEventId(eventId);
+        if (eventIdLong == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean released = seatLockService.releaseHold(eventIdLong, holdId, jwt.getClaimAsString("email"));
+        return released ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
     @PatchMapping("/{invitationId}/confirm")
     public ResponseEntity<InvitationResponse> confirmInvitation(@PathVariable Long invitationId) {
         log.info("Confirming invitation with ID: {}", invitationId);
@@ -299,6 +373,21 @@ InvitationController {
         }
     }
 
+    private UserEventStatusResponse toStatusResponse(Long eventId, InvitationEntity invitation) {
+        if (invitation == null) {
+            return UserEventStatusResponse.builder().eventId(eventId).build();
+        }
+        InvitationStatus status = invitation.getStatus();
+        return UserEventStatusResponse.builder()
+                .eventId(eventId)
+                .status(status.name())
+                .registered(status == InvitationStatus.CONFIRMED)
+                .pending(status == InvitationStatus.PENDING || status == InvitationStatus.WAITLIST)
+                .cancelled(status == InvitationStatus.CANCELLED)
+                .seatInfo(invitation.getSeatInfo())
+                .build();
+    }
+
     private InvitationResponse toResponse(InvitationEntity entity) {
         return InvitationResponse.builder()
                 .id(entity.getId())
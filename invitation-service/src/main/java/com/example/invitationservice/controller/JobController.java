@@ -0,0 +1,26 @@
+package com.example.invitationservice.controller;
+
+import com.example.invitationservice.service.ClusterJobRunner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Statistiques des jobs planifiés de cette instance
+ */
+@RestController
+@RequestMapping("/invitations/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final ClusterJobRunner clusterJobRunner;
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getJobStats() {
+        return ResponseEntity.ok(clusterJobRunner.getStats());
+    }
+}
@@ -11,6 +11,8 @@ import java.time.LocalDateTime;
 @Table(name = "invitations", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"event_id", "user_email"}),
     @UniqueConstraint(columnNames = {"event_id", "seat_row", "seat_number"})
+}, indexes = {
+    @Index(name = "idx_invitations_user_event", columnList = "user_email, event_id")
 })
 @Data
 @Builder
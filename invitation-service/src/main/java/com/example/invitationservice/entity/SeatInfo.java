@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Comparator;
 import java.util.Objects;
 
 @Embeddable
@@ -14,6 +15,13 @@ import java.util.Objects;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SeatInfo {
+    /**
+     * Ordre de prise des places d'un groupe (rangée puis numéro) : deux groupes qui se chevauchent se disputent
+     * d'abord la même place, l'un des deux l'emporte entièrement au lieu de s'interbloquer
+     */
+    public static final Comparator<SeatInfo> SEAT_ORDER =
+            Comparator.comparing(SeatInfo::getRow).thenComparing(SeatInfo::getNumber);
+
     @JsonProperty("row")
     private Integer row;
     
@@ -10,6 +10,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "temporary_seat_lock", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"event_id", "row", "number"})
+}, indexes = {
+    @Index(name = "idx_seat_lock_event_hold", columnList = "event_id, hold_id")
 })
 @Data
 @Builder
@@ -38,6 +40,10 @@ public class TemporarySeatLock {
     @Column(name = "expiry_time", nullable = false)
     private LocalDateTime expiryTime;
 
+    // Groupe de places pris ensemble (null pour une place seule)
+    @Column(name = "hold_id", length = 36)
+    private String holdId;
+
     @Version
     private Long version;
 
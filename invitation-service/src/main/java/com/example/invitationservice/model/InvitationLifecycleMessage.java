@@ -0,0 +1,34 @@
+package com.example.invitationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Changement d'état d'une invitation, publié pour alimenter les projections des autres services
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvitationLifecycleMessage {
+
+    public enum Type {
+        UPSERTED,   // Invitation créée ou modifiée
+        DELETED,    // Invitation supprimée
+        CLEARED     // Toutes les invitations supprimées
+    }
+
+    private Type type;
+    private Long invitationId;
+    private Long eventId;
+    private String userEmail;
+    private String status;
+    private Integer seatRow;
+    private Integer seatNumber;
+    private LocalDateTime updatedAt;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,21 @@
+package com.example.invitationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position courante de la table des invitations, comparée par les projections distantes pour savoir si elles
+ * sont en retard
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvitationWatermark {
+    private long count;
+    private LocalDateTime lastUpdatedAt; // null si aucune invitation
+}
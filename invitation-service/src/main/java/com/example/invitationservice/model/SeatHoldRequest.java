@@ -0,0 +1,17 @@
+package com.example.invitationservice.model;
+
+import com.example.invitationservice.entity.SeatInfo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldRequest {
+    private List<SeatInfo> seats;
+}
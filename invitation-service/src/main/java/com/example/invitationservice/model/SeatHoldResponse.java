@@ -0,0 +1,24 @@
+package com.example.invitationservice.model;
+
+import com.example.invitationservice.entity.SeatInfo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Groupe de places verrouillées ensemble : {@code holdId} sert à les prolonger ou les libérer d'un coup
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldResponse {
+    private String holdId;
+    private Long eventId;
+    private List<SeatInfo> seats;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,39 @@
+package com.example.invitationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Verrou temporaire d'une place, tel que répliqué sur le topic compacté seat.leases
+ * (clé = eventId:row:number, valeur nulle = place libérée)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatLease {
+    private Long eventId;
+    private Integer row;
+    private Integer number;
+    private String userEmail;
+    private long expiresAt; // epoch millis
+    private String holdId;  // groupe de places, null pour une place seule
+
+    public String seatKey() {
+        return seatKey(eventId, row, number);
+    }
+
+    public SeatLease withExpiry(long expiresAt) {
+        return new SeatLease(eventId, row, number, userEmail, expiresAt, holdId);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt <= nowMillis;
+    }
+
+    public static String seatKey(Long eventId, Integer row, Integer number) {
+        return eventId + ":" + row + ":" + number;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.invitationservice.model;
+
+import com.example.invitationservice.entity.SeatInfo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Demande transmise à l'instance propriétaire de l'événement sur seat.lease.requests (clé = eventId) ;
+ * la réponse ("true"/"false") revient sur seat.lease.replies
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatLeaseCommand {
+
+    public enum Type {
+        ACQUIRE,    // Prise ou renouvellement du verrou
+        RELEASE,        // Libération par son titulaire
+        ACQUIRE_GROUP,  // Prise de toutes les places du groupe, ou d'aucune
+        RENEW_GROUP,    // Prolongation des places du groupe
+        RELEASE_GROUP   // Libération des places du groupe
+    }
+
+    private Type type;
+    private Long eventId;
+    private Integer row;
+    private Integer number;
+    private String userEmail;
+    private long durationMs;
+    private long sentAt;
+    private String holdId;
+    private List<SeatInfo> seats;
+}
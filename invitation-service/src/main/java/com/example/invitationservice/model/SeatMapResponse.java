@@ -0,0 +1,23 @@
+package com.example.invitationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Plan de salle encodé par plages, rangée après rangée (index = (rangée - 1) * seatsPerRow + (numéro - 1)).
+ * runs = [longueur, état, longueur, état, ...] avec état 0 = libre, 1 = confirmée, 2 = verrouillée.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatMapResponse {
+    private Long eventId;
+    private int rows;
+    private int seatsPerRow;
+    private int confirmedCount;
+    private int lockedCount;
+    private int[] runs;
+}
@@ -0,0 +1,17 @@
+package com.example.invitationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEventStatusRequest {
+    private String userEmail;
+    private Set<Long> eventIds;
+}
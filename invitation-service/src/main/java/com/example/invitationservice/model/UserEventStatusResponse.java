@@ -0,0 +1,20 @@
+package com.example.invitationservice.model;
+
+import com.example.invitationservice.entity.SeatInfo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEventStatusResponse {
+    private Long eventId;
+    private String status; // Statut de l'invitation (null si aucune invitation)
+    private boolean registered; // Invitation CONFIRMED
+    private boolean pending; // Invitation PENDING ou WAITLIST
+    private boolean cancelled; // Invitation CANCELLED
+    private SeatInfo seatInfo;
+}
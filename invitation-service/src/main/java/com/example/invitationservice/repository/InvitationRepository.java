@@ -2,10 +2,13 @@ package com.example.invitationservice.repository;
 
 import com.example.invitationservice.entity.InvitationEntity;
 import com.example.invitationservice.entity.SeatInfo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +17,19 @@ public interface InvitationRepository extends JpaRepository<InvitationEntity, Lo
     boolean existsByEventIdAndUserEmail(Long eventId, String userEmail);
     Optional<InvitationEntity> findByEventIdAndUserEmail(Long eventId, String userEmail);
 
+    /**
+     * Invitations d'un utilisateur pour un ensemble d'événements (index user_email, event_id)
+     */
+    List<InvitationEntity> findByUserEmailAndEventIdIn(String userEmail, Collection<Long> eventIds);
+
+    /**
+     * Parcours par clé (keyset) de toutes les invitations, pour les snapshots
+     */
+    List<InvitationEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT MAX(i.updatedAt) FROM InvitationEntity i")
+    LocalDateTime findLastUpdatedAt();
+
     @Query("SELECT COUNT(i) > 0 FROM InvitationEntity i WHERE i.eventId = :eventId " +
            "AND i.userEmail = :userEmail AND i.status = 'CONFIRMED'")
     boolean existsByEventIdAndUserEmailAndStatusConfirmed(@Param("eventId") Long eventId, @Param("userEmail") String userEmail);
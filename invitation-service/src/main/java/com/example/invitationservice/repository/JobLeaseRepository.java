@@ -0,0 +1,45 @@
+package com.example.invitationservice.repository;
+
+import com.example.invitationservice.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Crée la ligne du bail si elle n'existe pas (une insertion concurrente lève une violation de clé)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO job_leases (name, fencing_token) " +
+                   "SELECT :name, 0 WHERE NOT EXISTS (SELECT 1 FROM job_leases WHERE name = :name)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    /**
+     * Prend le bail s'il est libre ou expiré, en incrémentant le jeton de fencing
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.holder = :holder, l.expiresAt = :expiresAt, l.fencingToken = l.fencingToken + 1 " +
+           "WHERE l.name = :name AND (l.holder IS NULL OR l.expiresAt IS NULL OR l.expiresAt < :now)")
+    int acquire(@Param("name") String name, @Param("holder") String holder,
+                @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Prolonge le bail si l'instance le détient toujours avec le même jeton
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.expiresAt = :expiresAt " +
+           "WHERE l.name = :name AND l.holder = :holder AND l.fencingToken = :token AND l.expiresAt >= :now")
+    int renew(@Param("name") String name, @Param("holder") String holder, @Param("token") long token,
+              @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE JobLease l SET l.holder = NULL, l.expiresAt = NULL WHERE l.name = :name AND l.holder = :holder")
+    int release(@Param("name") String name, @Param("holder") String holder);
+}
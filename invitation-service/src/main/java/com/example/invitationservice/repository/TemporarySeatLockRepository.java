@@ -28,5 +28,81 @@ public interface TemporarySeatLockRepository extends JpaRepository<TemporarySeat
 
     @Modifying
     @Query("DELETE FROM TemporarySeatLock l WHERE l.expiryTime <= :now")
-    void deleteExpiredLocks(@Param("now") LocalDateTime now);
-} 
\ No newline at end of file
+    int deleteExpiredLocks(@Param("now") LocalDateTime now);
+
+    /**
+     * Prend ou renouvelle le verrou d'une place en une seule instruction (PostgreSQL) : insertion, ou mise à jour
+     * de la ligne existante si son verrou a expiré ou appartient déjà à l'utilisateur.
+     *
+     * @return 1 si l'appelant détient le verrou, 0 si un autre utilisateur le garde
+     */
+    @Modifying
+    @Query(value = "INSERT INTO temporary_seat_lock (event_id, row, number, user_email, lock_time, expiry_time, hold_id, version) " +
+                   "VALUES (:eventId, :row, :number, :userEmail, :now, :expiryTime, :holdId, 0) " +
+                   "ON CONFLICT (event_id, row, number) DO UPDATE SET " +
+                   "lock_time = CASE WHEN temporary_seat_lock.user_email = EXCLUDED.user_email " +
+                   "THEN temporary_seat_lock.lock_time ELSE EXCLUDED.lock_time END, " +
+                   "user_email = EXCLUDED.user_email, expiry_time = EXCLUDED.expiry_time, hold_id = EXCLUDED.hold_id, " +
+                   "version = temporary_seat_lock.version + 1 " +
+                   "WHERE temporary_seat_lock.expiry_time <= :now OR temporary_seat_lock.user_email = :userEmail",
+           nativeQuery = true)
+    int upsertLock(@Param("eventId") Long eventId, @Param("row") Integer row, @Param("number") Integer number,
+                   @Param("userEmail") String userEmail, @Param("now") LocalDateTime now,
+                   @Param("expiryTime") LocalDateTime expiryTime, @Param("holdId") String holdId);
+
+    /**
+     * Reprise d'un verrou expiré ou renouvellement par son titulaire (bases sans ON CONFLICT)
+     */
+    @Modifying
+    @Query("UPDATE TemporarySeatLock l SET " +
+           "l.lockTime = CASE WHEN l.userEmail = :userEmail THEN l.lockTime ELSE :now END, " +
+           "l.userEmail = :userEmail, l.expiryTime = :expiryTime, l.holdId = :holdId, l.version = l.version + 1 " +
+           "WHERE l.eventId = :eventId AND l.row = :row AND l.number = :number " +
+           "AND (l.expiryTime <= :now OR l.userEmail = :userEmail)")
+    int takeOverLock(@Param("eventId") Long eventId, @Param("row") Integer row, @Param("number") Integer number,
+                     @Param("userEmail") String userEmail, @Param("now") LocalDateTime now,
+                     @Param("expiryTime") LocalDateTime expiryTime, @Param("holdId") String holdId);
+
+    /**
+     * Insère le verrou si la place n'en a aucun (bases sans ON CONFLICT ; une insertion concurrente lève une violation de clé)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO temporary_seat_lock (event_id, row, number, user_email, lock_time, expiry_time, hold_id, version) " +
+                   "SELECT :eventId, :row, :number, :userEmail, :now, :expiryTime, :holdId, 0 WHERE NOT EXISTS " +
+                   "(SELECT 1 FROM temporary_seat_lock WHERE event_id = :eventId AND row = :row AND number = :number)",
+           nativeQuery = true)
+    int insertLockIfAbsent(@Param("eventId") Long eventId, @Param("row") Integer row, @Param("number") Integer number,
+                           @Param("userEmail") String userEmail, @Param("now") LocalDateTime now,
+                           @Param("expiryTime") LocalDateTime expiryTime, @Param("holdId") String holdId);
+
+    /**
+     * Libère le verrou actif d'une place s'il appartient à l'utilisateur
+     */
+    @Modifying
+    @Query("DELETE FROM TemporarySeatLock l WHERE l.eventId = :eventId AND l.row = :row AND l.number = :number " +
+           "AND l.userEmail = :userEmail AND l.expiryTime > :now")
+    int releaseLock(@Param("eventId") Long eventId, @Param("row") Integer row, @Param("number") Integer number,
+                    @Param("userEmail") String userEmail, @Param("now") LocalDateTime now);
+
+    List<TemporarySeatLock> findByEventIdAndHoldIdAndUserEmail(Long eventId, String holdId, String userEmail);
+
+    /**
+     * Prolonge les verrous encore actifs d'un groupe de places
+     */
+    @Modifying
+    @Query("UPDATE TemporarySeatLock l SET l.expiryTime = :expiryTime, l.version = l.version + 1 " +
+           "WHERE l.eventId = :eventId AND l.holdId = :holdId AND l.userEmail = :userEmail AND l.expiryTime > :now")
+    int renewHold(@Param("eventId") Long eventId, @Param("holdId") String holdId, @Param("userEmail") String userEmail,
+                  @Param("now") LocalDateTime now, @Param("expiryTime") LocalDateTime expiryTime);
+
+    @Modifying
+    @Query("DELETE FROM TemporarySeatLock l WHERE l.eventId = :eventId AND l.holdId = :holdId AND l.userEmail = :userEmail")
+    int releaseHold(@Param("eventId") Long eventId, @Param("holdId") String holdId, @Param("userEmail") String userEmail);
+
+    /**
+     * Supprime la ligne d'une place, quel que soit son titulaire (journal des verrous tenus en mémoire)
+     */
+    @Modifying
+    @Query("DELETE FROM TemporarySeatLock l WHERE l.eventId = :eventId AND l.row = :row AND l.number = :number")
+    int deleteSeat(@Param("eventId") Long eventId, @Param("row") Integer row, @Param("number") Integer number);
+}
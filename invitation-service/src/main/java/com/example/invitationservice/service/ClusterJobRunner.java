@@ -0,0 +1,81 @@
+package com.example.invitationservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exécution des jobs planifiés à l'échelle du cluster : seule l'instance qui détient le bail du job
+ * (table job_leases, voir {@link LeaseService}) l'exécute. Les statistiques par job sont tenues en mémoire.
+ */
+@Service
+@Slf4j
+public class ClusterJobRunner {
+
+    private final LeaseService leaseService;
+    private final Map<String, JobStats> stats = new ConcurrentHashMap<>();
+
+    public ClusterJobRunner(LeaseService leaseService) {
+        this.leaseService = leaseService;
+    }
+
+    /**
+     * Exécute le job si cette instance détient (ou obtient) son bail
+     *
+     * @param job reçoit le jeton de fencing du bail et renvoie le nombre d'éléments traités
+     */
+    public void run(String jobName, Duration leaseTtl, ToIntFunction<Long> job) {
+        JobStats jobStats = stats.computeIfAbsent(jobName, name -> new JobStats());
+        OptionalLong token = leaseService.acquireOrRenew(jobName, leaseTtl);
+        if (token.isEmpty()) {
+            jobStats.skipped.incrementAndGet();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            jobStats.items.addAndGet(job.applyAsInt(token.getAsLong()));
+        } catch (Exception e) {
+            jobStats.failures.incrementAndGet();
+            log.error("Échec du job {}: {}", jobName, e.getMessage(), e);
+        } finally {
+            jobStats.lastDurationMs.set((System.nanoTime() - start) / 1_000_000);
+            jobStats.runs.incrementAndGet();
+            jobStats.lastRun = LocalDateTime.now();
+        }
+    }
+
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        stats.forEach((name, jobStats) -> snapshot.put(name, jobStats.toMap(leaseService.currentToken(name).isPresent())));
+        return snapshot;
+    }
+
+    private static final class JobStats {
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong lastDurationMs = new AtomicLong();
+        private volatile LocalDateTime lastRun;
+
+        private Map<String, Object> toMap(boolean leader) {
+            Map<String, Object> map = new TreeMap<>();
+            map.put("leader", leader);
+            map.put("runs", runs.get());
+            map.put("skippedNotLeader", skipped.get());
+            map.put("failures", failures.get());
+            map.put("itemsProcessed", items.get());
+            map.put("lastDurationMs", lastDurationMs.get());
+            map.put("lastRun", lastRun);
+            return map;
+        }
+    }
+}
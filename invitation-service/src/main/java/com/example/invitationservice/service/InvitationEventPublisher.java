@@ -0,0 +1,84 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.InvitationEntity;
+import com.example.invitationservice.model.InvitationLifecycleMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publie les changements d'état des invitations sur Kafka (clé = eventId).
+ * Les messages sont envoyés après le commit de la transaction courante,
+ * pour ne jamais annoncer un état qui n'a pas été persisté.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvitationEventPublisher {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${kafka.topics.invitation-lifecycle:invitation.lifecycle}")
+    private String invitationLifecycleTopic;
+
+    public void publishUpserted(InvitationEntity invitation) {
+        publish(toMessage(InvitationLifecycleMessage.Type.UPSERTED, invitation));
+    }
+
+    public void publishDeleted(InvitationEntity invitation) {
+        publish(toMessage(InvitationLifecycleMessage.Type.DELETED, invitation));
+    }
+
+    public void publishCleared() {
+        publish(InvitationLifecycleMessage.builder()
+                .type(InvitationLifecycleMessage.Type.CLEARED)
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+
+    private InvitationLifecycleMessage toMessage(InvitationLifecycleMessage.Type type, InvitationEntity invitation) {
+        return InvitationLifecycleMessage.builder()
+                .type(type)
+                .invitationId(invitation.getId())
+                .eventId(invitation.getEventId())
+                .userEmail(invitation.getUserEmail())
+                .status(invitation.getStatus() != null ? invitation.getStatus().name() : null)
+                .seatRow(invitation.getSeatInfo() != null ? invitation.getSeatInfo().getRow() : null)
+                .seatNumber(invitation.getSeatInfo() != null ? invitation.getSeatInfo().getNumber() : null)
+                .updatedAt(invitation.getUpdatedAt())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void publish(InvitationLifecycleMessage message) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(message);
+                }
+            });
+        } else {
+            send(message);
+        }
+    }
+
+    private void send(InvitationLifecycleMessage message) {
+        try {
+            String key = message.getEventId() != null ? message.getEventId().toString() : null;
+            kafkaTemplate.send(invitationLifecycleTopic, key, objectMapper.writeValueAsString(message));
+            log.debug("Invitation lifecycle {} publié pour l'événement {} - utilisateur {}",
+                    message.getType(), message.getEventId(), message.getUserEmail());
+        } catch (Exception e) {
+            log.error("Erreur lors de la publication du changement d'invitation {}: {}", message, e.getMessage(), e);
+        }
+    }
+}
@@ -5,20 +5,23 @@ import com.example.invitationservice.entity.InvitationStatus;
 import com.example.invitationservice.client.EventClient;
 import com.example.invitationservice.entity.SeatInfo;
 import com.example.invitationservice.model.InvitationRequest;
+import com.example.invitationservice.model.InvitationWatermark;
+import com.example.invitationservice.model.SeatHoldResponse;
 import com.example.invitationservice.model.SeatInfoRequest;
 import com.example.invitationservice.repository.InvitationRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.ArrayList;
 import java.util.stream.Collectors;
 
 class InvitationException extends RuntimeException {
@@ -35,6 +38,9 @@ public class InvitationService {
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
     private final EventClient eventClient;
+    private final InvitationEventPublisher invitationEventPublisher;
+    private final SeatMapEngine seatMapEngine;
+    private final SeatLockService seatLockService;
 
     @Value("${kafka.topics.invitation-responded}")
     private String invitationRespondedTopic;
@@ -42,11 +48,37 @@ public class InvitationService {
     @Value("${kafka.topics.waitlist-promotion:waitlist.promotion}")
     private String waitlistPromotionTopic;
 
+    @Value("${kafka.topics.waitlist-redistribution:waitlist.redistribution}")
+    private String waitlistRedistributionTopic;
+
+    // Promotion sans place libérée : attribution de la meilleure place disponible
+    @Value("${seat-allocation.auto-confirm.enabled:true}")
+    private boolean autoAssignSeats;
+
     @Transactional(readOnly = true)
     public List<InvitationEntity> getAllInvitations() {
         return invitationRepository.findAll();
     }
 
+    /**
+     * Page d'invitations triées par identifiant, utilisée pour reconstruire les projections distantes
+     */
+    @Transactional(readOnly = true)
+    public List<InvitationEntity> getInvitationSnapshot(Long afterId, int limit) {
+        return invitationRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Nombre d'invitations et date de la dernière modification, pour détecter une projection en retard
+     */
+    @Transactional(readOnly = true)
+    public InvitationWatermark getInvitationWatermark() {
+        return InvitationWatermark.builder()
+                .count(invitationRepository.count())
+                .lastUpdatedAt(invitationRepository.findLastUpdatedAt())
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public boolean isUserRegisteredForEvent(Long eventId, String userEmail) {
         // Un utilisateur est considéré comme inscrit seulement si son invitation est confirmée
@@ -59,9 +91,20 @@ public class InvitationService {
         return invitationRepository.existsByEventIdAndUserEmailAndStatusPending(eventId, userEmail);
     }
 
+    /**
+     * Invitations d'un utilisateur pour plusieurs événements en une seule requête indexée
+     */
+    @Transactional(readOnly = true)
+    public List<InvitationEntity> getUserInvitationsForEvents(String userEmail, Collection<Long> eventIds) {
+        if (userEmail == null || eventIds == null || eventIds.isEmpty()) {
+            return List.of();
+        }
+        return invitationRepository.findByUserEmailAndEventIdIn(userEmail, eventIds);
+    }
+
     @Transactional(readOnly = true)
     public boolean isSeatOccupied(Long eventId, SeatInfo seatInfo) {
-        return invitationRepository.existsByEventIdAndSeatInfo(eventId, seatInfo);
+        return seatMapEngine.isSeatOccupied(eventId, seatInfo.getRow(), seatInfo.getNumber());
     }
 
     @Transactional
@@ -105,6 +148,7 @@ public class InvitationService {
 
         // Sauvegarder l'invitation
         InvitationEntity savedInvitation = invitationRepository.save(invitation);
+        invitationEventPublisher.publishUpserted(savedInvitation);
 
         log.info("Invitation créée en attente de confirmation pour {} - événement {} - siège {},{}",
                 request.getUserEmail(), eventId,
@@ -121,6 +165,8 @@ public class InvitationService {
 
         invitation.setStatus(InvitationStatus.CONFIRMED);
         invitation = invitationRepository.save(invitation);
+        invitationEventPublisher.publishUpserted(invitation);
+        seatMapEngine.seatConfirmed(invitation.getEventId(), invitation.getSeatInfo());
 
         // Publier le message Kafka pour l'envoi de l'email
         try {
@@ -141,7 +187,7 @@ public class InvitationService {
             String jsonMessage = objectMapper.writeValueAsString(request);
             
             // Envoyer le message
-            kafkaTemplate.send(invitationRespondedTopic, jsonMessage);
+            kafkaTemplate.send(invitationRespondedTopic, String.valueOf(invitation.getEventId()), jsonMessage);
             
             log.info("Message Kafka envoyé pour la confirmation de l'inscription de {} à l'événement {}", 
                     invitation.getUserEmail(), invitation.getEventTitle());
@@ -153,43 +199,12 @@ public class InvitationService {
         }
     }
 
+    /**
+     * Places confirmées de l'événement (le plan complet, verrous compris, est servi par {@link SeatMapEngine})
+     */
     @Transactional(readOnly = true)
     public List<SeatInfo> getOccupiedSeatsForEvent(Long eventId) {
-        log.info("=== DEBUT getOccupiedSeatsForEvent pour event {} ===", eventId);
-        
-        // D'abord, récupérer toutes les invitations pour cet événement
-        List<InvitationEntity> allInvitations = invitationRepository.findAll().stream()
-            .filter(inv -> inv.getEventId().equals(eventId))
-            .toList();
-        log.info("Total invitations trouvées (toutes) pour l'événement {}: {}", eventId, allInvitations.size());
-        
-        for (InvitationEntity inv : allInvitations) {
-            log.info("Invitation trouvée: id={}, status={}, userEmail={}, seatInfo={}", 
-                inv.getId(), inv.getStatus(), inv.getUserEmail(), inv.getSeatInfo());
-        }
-        
-        // Maintenant utiliser la requête filtrée
-        List<InvitationEntity> invitations = invitationRepository.findByEventId(eventId);
-        log.info("Invitations FILTRÉES (avec sièges et non annulées) pour l'événement {}: {}", eventId, invitations.size());
-        
-        List<SeatInfo> occupiedSeats = new ArrayList<>();
-        for (InvitationEntity invitation : invitations) {
-            SeatInfo seatInfo = invitation.getSeatInfo();
-            if (seatInfo != null) {
-                SeatInfo newSeatInfo = SeatInfo.builder()
-                    .row(seatInfo.getRow())
-                    .number(seatInfo.getNumber())
-                    .build();
-                occupiedSeats.add(newSeatInfo);
-                log.info("Place réservée ajoutée: row={}, number={} (invitation id={})", 
-                    seatInfo.getRow(), seatInfo.getNumber(), invitation.getId());
-            } else {
-                log.warn("Invitation {} sans informations de siège ignorée", invitation.getId());
-            }
-        }
-        
-        log.info("=== FIN getOccupiedSeatsForEvent: {} places réservées retournées ===", occupiedSeats.size());
-        return occupiedSeats;
+        return invitationRepository.findOccupiedSeats(eventId);
     }
 
     @Transactional
@@ -212,6 +227,10 @@ public class InvitationService {
         }
 
         invitationRepository.delete(invitation);
+        invitationEventPublisher.publishDeleted(invitation);
+        if (wasConfirmed) {
+            seatMapEngine.seatReleased(eventId, invitation.getSeatInfo());
+        }
 
         log.info("Invitation supprimée avec succès");
 
@@ -236,8 +255,8 @@ public class InvitationService {
             }
             redistribution += "}";
             log.info("[TRIGGER REDISTRIBUTION] eventId={}, row={}, number={}", eventId, seatInfoLiberee != null ? seatInfoLiberee.getRow() : null, seatInfoLiberee != null ? seatInfoLiberee.getNumber() : null);
-            kafkaTemplate.send("waitlist.redistribution", redistribution);
-            log.info("Message de redistribution envoyé pour l'événement {} avec place libérée row={}, number={}", eventId, seatInfoLiberee != null ? seatInfoLiberee.getRow() : null, seatInfoLiberee.getNumber());
+            kafkaTemplate.send(waitlistRedistributionTopic, String.valueOf(eventId), redistribution);
+            log.info("Message de redistribution envoyé pour l'événement {} avec place libérée row={}, number={}", eventId, seatInfoLiberee != null ? seatInfoLiberee.getRow() : null, seatInfoLiberee != null ? seatInfoLiberee.getNumber() : null);
         } catch (Exception e) {
             log.error("Erreur lors de l'envoi du message de redistribution pour l'événement {}: {}", 
                      eventId, e.getMessage(), e);
@@ -248,8 +267,9 @@ public class InvitationService {
      * Écouter les messages de création d'invitation depuis la liste d'attente
      */
     @org.springframework.kafka.annotation.KafkaListener(
-        topics = "waitlist.invitation.created",
-        groupId = "invitation-service-group"
+        topics = "${kafka.topics.waitlist-invitation-created:waitlist.invitation.created}",
+        groupId = "invitation-service-group",
+        concurrency = "${kafka.listeners.waitlist-invitation-created.concurrency:3}"
     )
     public void handleWaitlistInvitationCreation(String message) {
         try {
@@ -288,6 +308,7 @@ public class InvitationService {
                     .build();
 
             InvitationEntity savedInvitation = invitationRepository.save(invitation);
+            invitationEventPublisher.publishUpserted(savedInvitation);
             log.info("Invitation WAITLIST créée avec succès: ID={}, userEmail={}, eventId={}, statut={}",
                     savedInvitation.getId(), savedInvitation.getUserEmail(), savedInvitation.getEventId(), savedInvitation.getStatus());
 
@@ -304,8 +325,9 @@ public class InvitationService {
      * Écouter les messages de confirmation automatique d'invitation
      */
     @org.springframework.kafka.annotation.KafkaListener(
-        topics = "invitation.auto.confirm",
-        groupId = "invitation-service-group"
+        topics = "${kafka.topics.invitation-auto-confirm:invitation.auto.confirm}",
+        groupId = "invitation-service-group",
+        concurrency = "${kafka.listeners.invitation-auto-confirm.concurrency:3}"
     )
     public void handleAutoConfirmInvitation(String message) {
         try {
@@ -331,12 +353,31 @@ public class InvitationService {
                 if (invitation.getStatus() == InvitationStatus.WAITLIST) {
                     // Confirmer automatiquement l'invitation
                     invitation.setStatus(InvitationStatus.CONFIRMED);
-                    // Affecter la place libérée si elle existe
-                    if (row != null && number != null) {
-                        invitation.setSeatInfo(SeatInfo.builder().row(row).number(number).build());
-                        log.info("Affectation de la place libérée: row={}, number={}", row, number);
+                    // Aucune place libérée : meilleure place disponible, verrouillée au nom de l'utilisateur
+                    // le temps de l'enregistrer, puis libérée (la place confirmée la rend occupée)
+                    SeatHoldResponse hold = null;
+                    InvitationEntity savedInvitation;
+                    try {
+                        if (row == null || number == null) {
+                            hold = allocateSeat(eventId, userEmail);
+                            if (hold != null) {
+                                row = hold.getSeats().get(0).getRow();
+                                number = hold.getSeats().get(0).getNumber();
+                            }
+                        }
+                        // Affecter la place libérée ou attribuée si elle existe
+                        if (row != null && number != null) {
+                            invitation.setSeatInfo(SeatInfo.builder().row(row).number(number).build());
+                            log.info("Affectation de la place libérée: row={}, number={}", row, number);
+                        }
+                        savedInvitation = invitationRepository.save(invitation);
+                        invitationEventPublisher.publishUpserted(savedInvitation);
+                        seatMapEngine.seatConfirmed(eventId, savedInvitation.getSeatInfo());
+                    } finally {
+                        if (hold != null) {
+                            seatLockService.releaseHold(eventId, hold.getHoldId(), userEmail);
+                        }
                     }
-                    InvitationEntity savedInvitation = invitationRepository.save(invitation);
 
                     log.info("Invitation WAITLIST confirmée automatiquement: ID={}, nouveau statut={}",
                             savedInvitation.getId(), savedInvitation.getStatus());
@@ -361,6 +402,29 @@ public class InvitationService {
         }
     }
 
+    /**
+     * @return le verrou de la place attribuée, à libérer par l'appelant une fois l'invitation enregistrée
+     */
+    private SeatHoldResponse allocateSeat(Long eventId, String userEmail) {
+        if (!autoAssignSeats) {
+            return null;
+        }
+        try {
+            SeatHoldResponse hold = seatLockService.quickBook(eventId, 1, userEmail);
+            if (hold == null) {
+                log.warn("Aucune place disponible à attribuer pour {} - événement {}", userEmail, eventId);
+                return null;
+            }
+            log.info("Place attribuée automatiquement: row={}, number={}", hold.getSeats().get(0).getRow(),
+                    hold.getSeats().get(0).getNumber());
+            return hold;
+        } catch (Exception e) {
+            log.error("Erreur lors de l'attribution automatique d'une place pour {} - événement {}: {}",
+                    userEmail, eventId, e.getMessage(), e);
+            return null;
+        }
+    }
+
     /**
      * Envoyer email de confirmation
      */
@@ -372,7 +436,7 @@ public class InvitationService {
                 invitation.getUserEmail(), invitation.getEventTitle(), invitation.getEventId()
             );
 
-            kafkaTemplate.send("notification.send", notificationMessage);
+            kafkaTemplate.send("notification.send", String.valueOf(invitation.getEventId()), notificationMessage);
             log.info("Email de confirmation envoyé pour {} - événement {}",
                     invitation.getUserEmail(), invitation.getEventId());
         } catch (Exception e) {
@@ -409,7 +473,7 @@ public class InvitationService {
                 java.time.LocalDateTime.now().toString()
             );
 
-            kafkaTemplate.send(waitlistPromotionTopic, promotionMessage);
+            kafkaTemplate.send(waitlistPromotionTopic, String.valueOf(invitation.getEventId()), promotionMessage);
             log.info("Email de confirmation de promotion envoyé pour {} - événement {} - place: rangée {}, siège {}",
                     invitation.getUserEmail(), invitation.getEventId(), row, number);
         } catch (Exception e) {
@@ -445,6 +509,8 @@ public class InvitationService {
         invitation.setStatus(InvitationStatus.CANCELLED);
         invitation.setSeatInfo(null); // On libère la place
         invitationRepository.save(invitation);
+        invitationEventPublisher.publishUpserted(invitation);
+        seatMapEngine.seatReleased(eventId, seatInfoLiberee);
 
         log.info("Inscription annulée pour {} - événement {} (statut était: {})",
                 userEmail, eventId, wasConfirmed ? "CONFIRMED" : "NON-CONFIRMED");
@@ -469,6 +535,8 @@ public class InvitationService {
         log.info("Nombre d'invitations à supprimer: {}", count);
 
         invitationRepository.deleteAll();
+        invitationEventPublisher.publishCleared();
+        seatMapEngine.invalidateAll();
         log.info("Toutes les invitations supprimées");
 
         log.info("=== FIN clearAllInvitations ===");
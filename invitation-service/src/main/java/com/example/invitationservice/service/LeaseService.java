@@ -0,0 +1,123 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.JobLease;
+import com.example.invitationservice.repository.JobLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Baux d'exécution stockés en base (table job_leases) pour qu'un job ne tourne que sur une instance.
+ * Chaque prise de bail incrémente un jeton de fencing : les écritures d'un job peuvent l'exiger
+ * pour qu'une instance ayant perdu le bail sans le savoir ne puisse plus rien valider.
+ */
+@Service
+@Slf4j
+public class LeaseService {
+
+    private final JobLeaseRepository leaseRepository;
+    private final TransactionTemplate requiresNewTemplate;
+    private final String instanceId;
+    private final Map<String, Long> heldTokens = new ConcurrentHashMap<>();
+
+    public LeaseService(JobLeaseRepository leaseRepository, PlatformTransactionManager transactionManager) {
+        this.leaseRepository = leaseRepository;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.instanceId = hostName() + "-" + UUID.randomUUID();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Prolonge le bail détenu ou tente de le prendre s'il est libre ou expiré
+     *
+     * @return le jeton de fencing si l'instance détient le bail, vide sinon
+     */
+    public OptionalLong acquireOrRenew(String name, Duration ttl) {
+        Long token = null;
+        try {
+            ensureExists(name);
+            Long held = heldTokens.get(name);
+            token = requiresNewTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime expiresAt = now.plus(ttl);
+                if (held != null && leaseRepository.renew(name, instanceId, held, expiresAt, now) == 1) {
+                    return held;
+                }
+                if (leaseRepository.acquire(name, instanceId, expiresAt, now) == 1) {
+                    return leaseRepository.findById(name).map(JobLease::getFencingToken).orElse(null);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Erreur lors de la prise du bail {}: {}", name, e.getMessage());
+        }
+
+        Long previous = token != null ? heldTokens.put(name, token) : heldTokens.remove(name);
+        if (token != null && !token.equals(previous)) {
+            log.info("Bail {} pris par {} (jeton {})", name, instanceId, token);
+        } else if (token == null && previous != null) {
+            log.warn("Bail {} perdu par {}", name, instanceId);
+        }
+        return token != null ? OptionalLong.of(token) : OptionalLong.empty();
+    }
+
+    /**
+     * Jeton du bail tel que connu localement (peut être expiré depuis le dernier renouvellement)
+     */
+    public OptionalLong currentToken(String name) {
+        Long token = heldTokens.get(name);
+        return token != null ? OptionalLong.of(token) : OptionalLong.empty();
+    }
+
+    public void release(String name) {
+        if (heldTokens.remove(name) == null) {
+            return;
+        }
+        try {
+            requiresNewTemplate.executeWithoutResult(status -> leaseRepository.release(name, instanceId));
+            log.info("Bail {} libéré par {}", name, instanceId);
+        } catch (Exception e) {
+            log.warn("Impossible de libérer le bail {}: {}", name, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        heldTokens.keySet().forEach(this::release);
+    }
+
+    private void ensureExists(String name) {
+        if (leaseRepository.existsById(name)) {
+            return;
+        }
+        try {
+            requiresNewTemplate.executeWithoutResult(status -> leaseRepository.insertIfAbsent(name));
+        } catch (DataIntegrityViolationException e) {
+            // Créé en parallèle par une autre instance
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
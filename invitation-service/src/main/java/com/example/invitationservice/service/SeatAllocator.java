@@ -0,0 +1,103 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Choix des meilleures places libres d'un {@link SeatMap} : une place, ou N places contiguës dans une rangée.
+ * Score d'un bloc (plus petit = meilleur) :
+ * {@code row-weight * |rangée - rangée idéale| + center-weight * |centre du bloc - centre de la rangée|},
+ * la rangée idéale étant placée à {@code preferred-row-ratio} de la profondeur (0 = premier rang).
+ * Les rangées sont visitées de la plus proche à la plus lointaine de la rangée idéale ; celles dont la plus longue
+ * plage libre est trop courte sont écartées sans être parcourues, et la recherche s'arrête dès que l'écart de
+ * rangée seul dépasse le meilleur score trouvé.
+ */
+@Component
+class SeatAllocator {
+
+    @Value("${seat-allocation.preferred-row-ratio:0.0}")
+    private double preferredRowRatio;
+
+    @Value("${seat-allocation.row-weight:1.0}")
+    private double rowWeight;
+
+    @Value("${seat-allocation.center-weight:1.0}")
+    private double centerWeight;
+
+    SeatAllocator() {
+    }
+
+    SeatAllocator(double preferredRowRatio, double rowWeight, double centerWeight) {
+        this.preferredRowRatio = preferredRowRatio;
+        this.rowWeight = rowWeight;
+        this.centerWeight = centerWeight;
+    }
+
+    /**
+     * @return les {@code count} places retenues, dans l'ordre des numéros, ou une liste vide si aucune rangée
+     *         n'a assez de places libres contiguës
+     */
+    List<SeatInfo> allocate(SeatMap map, int count, long nowMillis) {
+        int rows = map.getRows();
+        int seatsPerRow = map.getSeatsPerRow();
+        if (count < 1 || count > seatsPerRow || rows == 0) {
+            return List.of();
+        }
+        map.purgeExpiredLocks(nowMillis);
+
+        double idealRow = 1 + preferredRowRatio * (rows - 1);
+        double rowCenter = (seatsPerRow + 1) / 2.0;
+        int first = (int) Math.max(1, Math.min(rows, Math.round(idealRow)));
+        double bestScore = Double.MAX_VALUE;
+        int bestRow = -1;
+        int bestStart = -1;
+
+        // Visite alternée autour de la rangée idéale : écart de rangée croissant
+        int below = first;
+        int above = first + 1;
+        while (below >= 1 || above <= rows) {
+            int row;
+            if (above > rows || (below >= 1 && idealRow - below <= above - idealRow)) {
+                row = below--;
+            } else {
+                row = above++;
+            }
+            double rowScore = rowWeight * Math.abs(row - idealRow);
+            if (rowScore >= bestScore) {
+                break;
+            }
+            if (map.maxFreeRun(row) < count) {
+                continue;
+            }
+            int[] runs = map.freeRuns(row);
+            for (int i = 0; i < runs.length; i += 2) {
+                int runStart = runs[i];
+                int runLength = runs[i + 1];
+                if (runLength < count) {
+                    continue;
+                }
+                // Début du bloc le plus proche du centre, borné à la plage
+                long centered = Math.round(rowCenter - (count - 1) / 2.0);
+                int start = (int) Math.max(runStart, Math.min(runStart + runLength - count, centered));
+                double score = rowScore + centerWeight * Math.abs(start + (count - 1) / 2.0 - rowCenter);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestRow = row;
+                    bestStart = start;
+                }
+            }
+        }
+        if (bestRow < 0) {
+            return List.of();
+        }
+        List<SeatInfo> seats = new ArrayList<>(count);
+        for (int number = bestStart; number < bestStart + count; number++) {
+            seats.add(SeatInfo.builder().row(bestRow).number(number).build());
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.TemporarySeatLock;
+import com.example.invitationservice.model.SeatLease;
+import com.example.invitationservice.repository.TemporarySeatLockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal durable, facultatif, des verrous tenus en mémoire par {@link SeatLeaseManager} : la dernière valeur
+ * de chaque place est recopiée par lots dans temporary_seat_lock. Le journal n'arbitre rien ; un lot en échec
+ * est rejoué au passage suivant, sauf pour les places changées entre-temps.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatLeaseAuditSink {
+
+    private record PendingWrite(SeatLease lease, boolean held) {
+    }
+
+    private final TemporarySeatLockRepository lockRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Dernier état à écrire par place (clé eventId:row:number)
+    private final Map<String, PendingWrite> pending = new LinkedHashMap<>();
+
+    @Value("${seat-lease.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${seat-lease.audit.max-pending:100000}")
+    private int maxPending;
+
+    public void record(SeatLease lease, boolean held) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (pending) {
+            if (pending.size() >= maxPending && !pending.containsKey(lease.seatKey())) {
+                log.warn("Journal des verrous saturé ({} écritures en attente), place {} non journalisée",
+                        pending.size(), lease.seatKey());
+                return;
+            }
+            pending.put(lease.seatKey(), new PendingWrite(lease, held));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${seat-lease.audit.flush-interval-ms:1000}")
+    public void flush() {
+        List<PendingWrite> writes;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            writes = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writes.forEach(this::write));
+        } catch (Exception e) {
+            log.error("Échec de la journalisation de {} verrou(s) de place: {}", writes.size(), e.getMessage());
+            synchronized (pending) {
+                writes.forEach(write -> pending.putIfAbsent(write.lease().seatKey(), write));
+            }
+        }
+    }
+
+    int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void write(PendingWrite write) {
+        SeatLease lease = write.lease();
+        lockRepository.deleteSeat(lease.getEventId(), lease.getRow(), lease.getNumber());
+        if (write.held()) {
+            LocalDateTime expiryTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(lease.getExpiresAt()), ZoneId.systemDefault());
+            lockRepository.save(TemporarySeatLock.builder()
+                    .eventId(lease.getEventId())
+                    .row(lease.getRow())
+                    .number(lease.getNumber())
+                    .userEmail(lease.getUserEmail())
+                    .lockTime(LocalDateTime.now())
+                    .expiryTime(expiryTime)
+                    .holdId(lease.getHoldId())
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,823 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import com.example.invitationservice.model.SeatLease;
+import com.example.invitationservice.model.SeatLeaseCommand;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Verrous temporaires de places tenus en mémoire. Un événement appartient à l'instance à laquelle Kafka assigne
+ * la partition de sa clé dans seat.lease.requests (groupe commun) : elle seule arbitre ses places. Les autres
+ * instances lui transmettent leurs demandes sur ce topic et attendent la réponse.
+ * Chaque changement est publié, avant de répondre, sur le topic compacté seat.leases (même partition) ;
+ * un nouveau propriétaire relit sa partition depuis le début, hors du rééquilibrage, et refuse ses demandes
+ * jusqu'à la fin de la relecture ; chaque instance suit tout le topic pour connaître les verrous des événements
+ * qu'elle ne possède pas. Désactivé par défaut ({@code seat-lease.enabled}) : les verrous passent alors par la base.
+ * L'expiration passe par une roue temporelle hiérarchique ; la table temporary_seat_lock n'est qu'un journal
+ * ({@link SeatLeaseAuditSink}).
+ */
+@Service
+@Slf4j
+public class SeatLeaseManager implements ConsumerSeekAware {
+
+    /**
+     * Abonné aux changements de verrous, qu'ils viennent de cette instance ou du topic
+     */
+    public interface LeaseListener {
+        void leaseChanged(SeatLease lease, boolean held);
+
+        // Verrous de l'événement remplacés en bloc (reprise d'une partition)
+        void leasesReset(Long eventId);
+    }
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ReplyingKafkaTemplate<String, String, String> replyingTemplate;
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final SeatLeaseAuditSink auditSink;
+    private final ObjectMapper objectMapper;
+    private final long tickMs;
+    private final TimingWheel<SeatLease> wheel;
+
+    private final Map<Long, Map<String, SeatLease>> leases = new ConcurrentHashMap<>();
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+    // Partitions assignées en cours de relecture, avec le numéro de l'assignation qui l'a lancée
+    private final Map<Integer, Long> rebuildingPartitions = new ConcurrentHashMap<>();
+    private final AtomicLong assignments = new AtomicLong();
+    // Opérations locales (lecture) contre cession de partitions (écriture)
+    private final ReadWriteLock ownership = new ReentrantReadWriteLock();
+    // Changement d'une place et publication de son résultat : les messages d'une même place partent dans l'ordre
+    private final Lock[] seatLocks = newStripes(64);
+    private final ExecutorService rebuildExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "seat-lease-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile LeaseListener listener;
+
+    @Value("${seat-lease.enabled:false}")
+    private boolean enabled;
+
+    @Value("${seat-lease.partitions:12}")
+    private int partitions;
+
+    @Value("${seat-lease.request-timeout-ms:3000}")
+    private long requestTimeoutMs;
+
+    @Value("${seat-lease.rebuild-timeout-ms:30000}")
+    private long rebuildTimeoutMs;
+
+    @Value("${kafka.topics.seat-leases:seat.leases}")
+    private String leasesTopic;
+
+    @Value("${kafka.topics.seat-lease-requests:seat.lease.requests}")
+    private String requestsTopic;
+
+    public SeatLeaseManager(KafkaTemplate<String, String> kafkaTemplate,
+                            ReplyingKafkaTemplate<String, String, String> seatLeaseReplyingTemplate,
+                            ConsumerFactory<String, String> consumerFactory,
+                            SeatLeaseAuditSink auditSink,
+                            ObjectMapper objectMapper,
+                            @Value("${seat-lease.tick-ms:1000}") long tickMs,
+                            @Value("${seat-lease.wheel-size:64}") int wheelSize) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.replyingTemplate = seatLeaseReplyingTemplate;
+        this.consumerFactory = consumerFactory;
+        this.auditSink = auditSink;
+        this.objectMapper = objectMapper;
+        this.tickMs = tickMs;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    public void setListener(LeaseListener listener) {
+        this.listener = listener;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean owns(Long eventId) {
+        return enabled && eventId != null && ownedPartitions.contains(partitionFor(eventId));
+    }
+
+    /**
+     * Prend ou renouvelle le verrou de la place pour {@code duration}
+     *
+     * @return true si l'utilisateur détient le verrou
+     */
+    public boolean acquire(Long eventId, Integer row, Integer number, String userEmail, Duration duration) {
+        return submit(SeatLeaseCommand.builder()
+                .type(SeatLeaseCommand.Type.ACQUIRE)
+                .eventId(eventId)
+                .row(row)
+                .number(number)
+                .userEmail(userEmail)
+                .durationMs(duration.toMillis())
+                .build());
+    }
+
+    /**
+     * Libère le verrou de la place s'il appartient à l'utilisateur
+     */
+    public boolean release(Long eventId, Integer row, Integer number, String userEmail) {
+        return submit(SeatLeaseCommand.builder()
+                .type(SeatLeaseCommand.Type.RELEASE)
+                .eventId(eventId)
+                .row(row)
+                .number(number)
+                .userEmail(userEmail)
+                .build());
+    }
+
+    /**
+     * Prend toutes les places du groupe sous le même {@code holdId}, ou aucune
+     */
+    public boolean acquireGroup(Long eventId, List<SeatInfo> seats, String userEmail, String holdId, Duration duration) {
+        return submit(SeatLeaseCommand.builder()
+                .type(SeatLeaseCommand.Type.ACQUIRE_GROUP)
+                .eventId(eventId)
+                .seats(seats)
+                .userEmail(userEmail)
+                .holdId(holdId)
+                .durationMs(duration.toMillis())
+                .build());
+    }
+
+    /**
+     * Prolonge de {@code duration} toutes les places encore tenues par le groupe
+     */
+    public boolean renewGroup(Long eventId, String holdId, String userEmail, Duration duration) {
+        return submit(SeatLeaseCommand.builder()
+                .type(SeatLeaseCommand.Type.RENEW_GROUP)
+                .eventId(eventId)
+                .userEmail(userEmail)
+                .holdId(holdId)
+                .durationMs(duration.toMillis())
+                .build());
+    }
+
+    public boolean releaseGroup(Long eventId, String holdId, String userEmail) {
+        return submit(SeatLeaseCommand.builder()
+                .type(SeatLeaseCommand.Type.RELEASE_GROUP)
+                .eventId(eventId)
+                .userEmail(userEmail)
+                .holdId(holdId)
+                .build());
+    }
+
+    /**
+     * Verrous non expirés de l'événement connus de cette instance
+     */
+    public List<SeatLease> activeLeases(Long eventId) {
+        Map<String, SeatLease> eventLeases = leases.get(eventId);
+        if (eventLeases == null) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        return eventLeases.values().stream().filter(lease -> !lease.isExpired(now)).toList();
+    }
+
+    /**
+     * Demandes transmises par les autres instances pour les événements possédés
+     */
+    @org.springframework.kafka.annotation.KafkaListener(
+        topics = "${kafka.topics.seat-lease-requests:seat.lease.requests}",
+        groupId = "invitation-service-seat-leases",
+        concurrency = "${kafka.listeners.seat-lease-requests.concurrency:3}",
+        autoStartup = "${seat-lease.enabled:false}"
+    )
+    public void handleRequest(ConsumerRecord<String, String> record) {
+        try {
+            SeatLeaseCommand command = objectMapper.readValue(record.value(), SeatLeaseCommand.class);
+            // Le demandeur a déjà abandonné : rien à arbitrer
+            if (System.currentTimeMillis() - command.getSentAt() > requestTimeoutMs) {
+                log.debug("Demande de verrou expirée ignorée: {}", command);
+                return;
+            }
+            if (isRebuilding(command.getEventId())) {
+                log.debug("Demande de verrou refusée, partition en cours de relecture: {}", command);
+                reply(record, false);
+                return;
+            }
+            Boolean result = executeIfOwner(command);
+            if (result == null) {
+                log.warn("Demande de verrou reçue pour un événement non possédé: {}", command);
+                return;
+            }
+            reply(record, result);
+        } catch (Exception e) {
+            log.error("Erreur lors du traitement d'une demande de verrou de place: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Réplique du topic compacté pour les événements possédés par d'autres instances (groupe propre à l'instance)
+     */
+    @org.springframework.kafka.annotation.KafkaListener(
+        topics = "${kafka.topics.seat-leases:seat.leases}",
+        groupId = "invitation-service-seat-lease-replica-#{T(java.util.UUID).randomUUID().toString()}",
+        properties = {"auto.offset.reset=earliest"},
+        autoStartup = "${seat-lease.enabled:false}"
+    )
+    public void handleLease(ConsumerRecord<String, String> record) {
+        try {
+            applyReplica(record.key(), record.value());
+        } catch (Exception e) {
+            log.error("Erreur lors de la réplication du verrou {}: {}", record.key(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * La relecture de seat.leases est faite hors du thread du consommateur : un rééquilibrage n'attend pas
+     * {@code rebuild-timeout-ms} par partition. Jusqu'à sa fin, les demandes de la partition sont refusées.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assigned, ConsumerSeekCallback callback) {
+        for (TopicPartition partition : assigned.keySet()) {
+            if (partition.topic().equals(requestsTopic)) {
+                int number = partition.partition();
+                long assignment = assignments.incrementAndGet();
+                rebuildingPartitions.put(number, assignment);
+                rebuildExecutor.execute(() -> rebuild(number, assignment));
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+        ownership.writeLock().lock();
+        try {
+            revoked.stream()
+                    .filter(partition -> partition.topic().equals(requestsTopic))
+                    .forEach(partition -> {
+                        ownedPartitions.remove(partition.partition());
+                        rebuildingPartitions.remove(partition.partition());
+                    });
+        } finally {
+            ownership.writeLock().unlock();
+        }
+        log.info("Verrous de places possédés: partitions {}", ownedPartitions);
+    }
+
+    /**
+     * Partition de l'événement assignée à cette instance mais pas encore relue
+     */
+    boolean isRebuilding(Long eventId) {
+        return enabled && eventId != null && rebuildingPartitions.containsKey(partitionFor(eventId));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Libère les verrous échus. Un verrou renouvelé a une nouvelle échéance dans la roue : l'ancienne est ignorée.
+     */
+    @Scheduled(fixedDelayString = "${seat-lease.tick-ms:1000}")
+    public void expire() {
+        List<SeatLease> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        due.forEach(this::expireLease);
+    }
+
+    /**
+     * Relit la partition puis la reprend, sauf si elle a été révoquée ou réassignée entre-temps
+     */
+    void rebuild(int partition, long assignment) {
+        List<ConsumerRecord<String, String>> records;
+        try {
+            records = readPartition(partition);
+        } catch (Exception e) {
+            log.error("Relecture de la partition {} des verrous de places impossible: {}", partition, e.getMessage(), e);
+            records = List.of();
+        }
+        ownership.writeLock().lock();
+        try {
+            if (rebuildingPartitions.remove(partition, assignment)) {
+                own(partition, records);
+            }
+        } finally {
+            ownership.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reprend une partition : l'état de ses événements est remplacé par la dernière valeur de chaque place
+     */
+    void own(int partition, List<ConsumerRecord<String, String>> records) {
+        Map<String, String> latest = new LinkedHashMap<>();
+        records.forEach(record -> latest.put(record.key(), record.value()));
+
+        ownership.writeLock().lock();
+        Set<Long> affected = new HashSet<>();
+        try {
+            leases.keySet().removeIf(eventId -> partitionFor(eventId) == partition && affected.add(eventId));
+            long now = System.currentTimeMillis();
+            latest.forEach((key, value) -> {
+                SeatLease lease = value != null ? read(value) : null;
+                if (lease != null && !lease.isExpired(now)) {
+                    leases.computeIfAbsent(lease.getEventId(), id -> new ConcurrentHashMap<>()).put(key, lease);
+                    affected.add(lease.getEventId());
+                    schedule(lease);
+                }
+            });
+            ownedPartitions.add(partition);
+        } finally {
+            ownership.writeLock().unlock();
+        }
+        LeaseListener current = listener;
+        if (current != null) {
+            affected.forEach(current::leasesReset);
+        }
+        log.info("Partition {} des verrous de places reprise ({} événement(s))", partition, affected.size());
+    }
+
+    /**
+     * Sous le verrou de lecture : une reprise de partition ne peut pas s'intercaler entre le test de propriété
+     * et l'écriture, et écraser l'état qu'elle vient de relire
+     */
+    void applyReplica(String key, String value) {
+        Long eventId = Long.valueOf(key.substring(0, key.indexOf(':')));
+        SeatLease lease = value != null ? read(value) : null;
+        SeatLease changed;
+        boolean held;
+        ownership.readLock().lock();
+        try {
+            if (owns(eventId)) {
+                return;
+            }
+            Map<String, SeatLease> eventLeases = leases.computeIfAbsent(eventId, id -> new ConcurrentHashMap<>());
+            held = lease != null && !lease.isExpired(System.currentTimeMillis());
+            if (held) {
+                eventLeases.put(key, lease);
+                changed = lease;
+            } else {
+                changed = eventLeases.remove(key);
+            }
+        } finally {
+            ownership.readLock().unlock();
+        }
+        if (changed == null) {
+            return;
+        }
+        if (held) {
+            schedule(changed);
+        }
+        notifyListener(changed, held);
+    }
+
+    /**
+     * Exécute la demande si cette instance possède l'événement
+     *
+     * @return null si l'événement appartient à une autre instance
+     */
+    Boolean executeIfOwner(SeatLeaseCommand command) {
+        ownership.readLock().lock();
+        try {
+            if (!owns(command.getEventId())) {
+                return null;
+            }
+            return execute(command);
+        } finally {
+            ownership.readLock().unlock();
+        }
+    }
+
+    int partitionFor(Long eventId) {
+        return Utils.toPositive(Utils.murmur2(String.valueOf(eventId).getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    int pendingTimers() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private boolean submit(SeatLeaseCommand command) {
+        boolean group = command.getHoldId() != null;
+        if (command.getEventId() == null || (!group && (command.getRow() == null || command.getNumber() == null))) {
+            return false;
+        }
+        command.setSentAt(System.currentTimeMillis());
+        if (isRebuilding(command.getEventId())) {
+            log.debug("Verrou refusé, partition de l'événement {} en cours de relecture", command.getEventId());
+            return false;
+        }
+        Boolean local = executeIfOwner(command);
+        return local != null ? local : forward(command);
+    }
+
+    private boolean execute(SeatLeaseCommand command) {
+        return switch (command.getType()) {
+            case ACQUIRE, RELEASE -> executeSeat(command);
+            case ACQUIRE_GROUP -> acquireGroup(command);
+            case RENEW_GROUP -> renewGroup(command);
+            case RELEASE_GROUP -> releaseGroup(command);
+        };
+    }
+
+    private boolean executeSeat(SeatLeaseCommand command) {
+        long now = System.currentTimeMillis();
+        String key = SeatLease.seatKey(command.getEventId(), command.getRow(), command.getNumber());
+        String userEmail = command.getUserEmail();
+        Map<String, SeatLease> eventLeases = leases.computeIfAbsent(command.getEventId(), id -> new ConcurrentHashMap<>());
+        SeatLease[] changed = {null};
+        // Verrou actif du même utilisateur remplacé par un renouvellement, rétabli si la publication échoue
+        SeatLease[] previous = {null};
+        boolean held = command.getType() == SeatLeaseCommand.Type.ACQUIRE;
+        CompletableFuture<?> sent;
+
+        // Nouvel état calculé dans le compute, publié après lui sous le verrou de la place
+        Lock seatLock = seatLock(key);
+        seatLock.lock();
+        try {
+            if (held) {
+                SeatLease candidate = SeatLease.builder()
+                        .eventId(command.getEventId())
+                        .row(command.getRow())
+                        .number(command.getNumber())
+                        .userEmail(userEmail)
+                        .expiresAt(now + command.getDurationMs())
+                        .build();
+                eventLeases.compute(key, (k, current) -> {
+                    boolean active = current != null && !current.isExpired(now);
+                    if (active && !current.getUserEmail().equals(userEmail)) {
+                        return current;
+                    }
+                    previous[0] = active ? current : null;
+                    changed[0] = candidate;
+                    return candidate;
+                });
+            } else {
+                eventLeases.compute(key, (k, current) -> {
+                    if (current == null || current.isExpired(now) || !current.getUserEmail().equals(userEmail)) {
+                        return current;
+                    }
+                    changed[0] = current;
+                    return null;
+                });
+            }
+            if (changed[0] == null) {
+                return false;
+            }
+            sent = publish(changed[0], held);
+        } finally {
+            seatLock.unlock();
+        }
+
+        try {
+            sent.get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("Publication du verrou {} impossible: {}", key, e.getMessage());
+            if (held) {
+                // Comme pour un groupe : état précédent rétabli et publié, l'envoi ayant pu aboutir malgré l'erreur
+                withSeatLock(key, () -> {
+                    if (swap(eventLeases, key, changed[0], previous[0])) {
+                        publish(previous[0] != null ? previous[0] : changed[0], previous[0] != null);
+                    }
+                });
+            }
+            return false;
+        }
+        if (held) {
+            schedule(changed[0]);
+        }
+        auditSink.record(changed[0], held);
+        notifyListener(changed[0], held);
+        return true;
+    }
+
+    /**
+     * Places prises une à une dans l'ordre {@link SeatInfo#SEAT_ORDER} ; au premier conflit, ou si la publication
+     * échoue, les places déjà prises retrouvent leur état précédent. Les abonnés ne voient que le groupe complet.
+     */
+    private boolean acquireGroup(SeatLeaseCommand command) {
+        if (command.getSeats() == null || command.getSeats().isEmpty()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        String userEmail = command.getUserEmail();
+        Map<String, SeatLease> eventLeases = leases.computeIfAbsent(command.getEventId(), id -> new ConcurrentHashMap<>());
+        Map<String, SeatLease> taken = new LinkedHashMap<>();
+        Map<String, SeatLease> previous = new HashMap<>();
+
+        for (SeatInfo seat : command.getSeats().stream().sorted(SeatInfo.SEAT_ORDER).toList()) {
+            SeatLease candidate = SeatLease.builder()
+                    .eventId(command.getEventId())
+                    .row(seat.getRow())
+                    .number(seat.getNumber())
+                    .userEmail(userEmail)
+                    .expiresAt(now + command.getDurationMs())
+                    .holdId(command.getHoldId())
+                    .build();
+            String key = candidate.seatKey();
+            boolean[] won = {false};
+            withSeatLock(key, () -> eventLeases.compute(key, (k, current) -> {
+                boolean active = current != null && !current.isExpired(now);
+                if (active && !current.getUserEmail().equals(userEmail)) {
+                    return current;
+                }
+                if (active) {
+                    previous.put(k, current);
+                }
+                won[0] = true;
+                return candidate;
+            }));
+            if (!won[0]) {
+                rollback(eventLeases, taken, previous, false);
+                return false;
+            }
+            taken.put(key, candidate);
+        }
+
+        List<CompletableFuture<?>> sent = new ArrayList<>(taken.size());
+        taken.forEach((key, candidate) -> withSeatLock(key, () -> {
+            if (eventLeases.get(key) == candidate) {
+                sent.add(publish(candidate, true));
+            }
+        }));
+        if (!awaitAll(sent, command)) {
+            rollback(eventLeases, taken, previous, true);
+            return false;
+        }
+        taken.values().forEach(lease -> {
+            schedule(lease);
+            auditSink.record(lease, true);
+            notifyListener(lease, true);
+        });
+        return true;
+    }
+
+    private boolean renewGroup(SeatLeaseCommand command) {
+        long now = System.currentTimeMillis();
+        List<SeatLease> renewed = new ArrayList<>();
+        List<CompletableFuture<?>> sent = new ArrayList<>();
+        Map<String, SeatLease> eventLeases = leases.getOrDefault(command.getEventId(), Map.of());
+        for (SeatLease lease : groupLeases(eventLeases, command, now)) {
+            withSeatLock(lease.seatKey(), () -> {
+                SeatLease next = lease.withExpiry(now + command.getDurationMs());
+                if (swap(eventLeases, lease.seatKey(), lease, next)) {
+                    sent.add(publish(next, true));
+                    renewed.add(next);
+                }
+            });
+        }
+        if (renewed.isEmpty() || !awaitAll(sent, command)) {
+            return false;
+        }
+        renewed.forEach(lease -> {
+            schedule(lease);
+            auditSink.record(lease, true);
+            notifyListener(lease, true);
+        });
+        return true;
+    }
+
+    private boolean releaseGroup(SeatLeaseCommand command) {
+        long now = System.currentTimeMillis();
+        List<SeatLease> released = new ArrayList<>();
+        List<CompletableFuture<?>> sent = new ArrayList<>();
+        Map<String, SeatLease> eventLeases = leases.getOrDefault(command.getEventId(), Map.of());
+        for (SeatLease lease : groupLeases(eventLeases, command, now)) {
+            withSeatLock(lease.seatKey(), () -> {
+                if (swap(eventLeases, lease.seatKey(), lease, null)) {
+                    sent.add(publish(lease, false));
+                    released.add(lease);
+                }
+            });
+        }
+        // Places déjà retirées en mémoire : seuls les réplicas peuvent rester en retard jusqu'à l'expiration
+        awaitAll(sent, command);
+        released.forEach(lease -> {
+            auditSink.record(lease, false);
+            notifyListener(lease, false);
+        });
+        return !released.isEmpty();
+    }
+
+    private List<SeatLease> groupLeases(Map<String, SeatLease> eventLeases, SeatLeaseCommand command, long now) {
+        return eventLeases.values().stream()
+                .filter(lease -> command.getHoldId().equals(lease.getHoldId()))
+                .filter(lease -> lease.getUserEmail().equals(command.getUserEmail()) && !lease.isExpired(now))
+                .toList();
+    }
+
+    private void rollback(Map<String, SeatLease> eventLeases, Map<String, SeatLease> taken,
+                          Map<String, SeatLease> previous, boolean published) {
+        taken.forEach((key, candidate) -> withSeatLock(key, () -> {
+            SeatLease restored = previous.get(key);
+            if (swap(eventLeases, key, candidate, restored) && published) {
+                publish(restored != null ? restored : candidate, restored != null);
+            }
+        }));
+    }
+
+    private boolean awaitAll(List<CompletableFuture<?>> sent, SeatLeaseCommand command) {
+        try {
+            CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.error("Publication des verrous du groupe {} (événement {}) impossible: {}",
+                    command.getHoldId(), command.getEventId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean forward(SeatLeaseCommand command) {
+        try {
+            ProducerRecord<String, String> request = new ProducerRecord<>(requestsTopic,
+                    String.valueOf(command.getEventId()), objectMapper.writeValueAsString(command));
+            ConsumerRecord<String, String> reply = replyingTemplate.sendAndReceive(request)
+                    .get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+            return Boolean.parseBoolean(reply.value());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("Pas de réponse du propriétaire de l'événement {} pour {} de la place {}/{}: {}",
+                    command.getEventId(), command.getType(), command.getRow(), command.getNumber(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void reply(ConsumerRecord<String, String> request, boolean result) {
+        Header replyTopic = request.headers().lastHeader(KafkaHeaders.REPLY_TOPIC);
+        Header correlationId = request.headers().lastHeader(KafkaHeaders.CORRELATION_ID);
+        if (replyTopic == null || correlationId == null) {
+            return;
+        }
+        ProducerRecord<String, String> reply = new ProducerRecord<>(
+                new String(replyTopic.value(), StandardCharsets.UTF_8), request.key(), String.valueOf(result));
+        reply.headers().add(KafkaHeaders.CORRELATION_ID, correlationId.value());
+        kafkaTemplate.send(reply);
+    }
+
+    private void expireLease(SeatLease lease) {
+        Map<String, SeatLease> eventLeases = leases.get(lease.getEventId());
+        if (eventLeases == null) {
+            return;
+        }
+        ownership.readLock().lock();
+        try {
+            boolean owner = owns(lease.getEventId());
+            boolean[] removed = {false};
+            withSeatLock(lease.seatKey(), () -> {
+                removed[0] = swap(eventLeases, lease.seatKey(), lease, null);
+                if (removed[0] && owner) {
+                    publish(lease, false);
+                }
+            });
+            if (removed[0]) {
+                if (owner) {
+                    auditSink.record(lease, false);
+                }
+                notifyListener(lease, false);
+            }
+        } finally {
+            ownership.readLock().unlock();
+        }
+    }
+
+    // Échéance décalée d'un tick : la roue ne libère jamais un verrou avant son expiration
+    private void schedule(SeatLease lease) {
+        boolean pending;
+        synchronized (wheel) {
+            pending = wheel.add(lease.getExpiresAt() + tickMs, lease);
+        }
+        if (!pending) {
+            expireLease(lease);
+        }
+    }
+
+    private Lock seatLock(String key) {
+        return seatLocks[Math.floorMod(key.hashCode(), seatLocks.length)];
+    }
+
+    private void withSeatLock(String key, Runnable action) {
+        Lock seatLock = seatLock(key);
+        seatLock.lock();
+        try {
+            action.run();
+        } finally {
+            seatLock.unlock();
+        }
+    }
+
+    /**
+     * Remplace le verrou de la place s'il est toujours {@code expected} (même instance), null = retrait
+     */
+    private static boolean swap(Map<String, SeatLease> eventLeases, String key, SeatLease expected, SeatLease next) {
+        boolean[] swapped = {false};
+        eventLeases.computeIfPresent(key, (k, current) -> {
+            if (current != expected) {
+                return current;
+            }
+            swapped[0] = true;
+            return next;
+        });
+        return swapped[0];
+    }
+
+    private static Lock[] newStripes(int count) {
+        Lock[] stripes = new Lock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
+    }
+
+    private CompletableFuture<?> publish(SeatLease lease, boolean held) {
+        return kafkaTemplate.send(leasesTopic, partitionFor(lease.getEventId()), lease.seatKey(), held ? write(lease) : null);
+    }
+
+    private List<ConsumerRecord<String, String>> readPartition(int partition) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        TopicPartition topicPartition = new TopicPartition(leasesTopic, partition);
+        try (Consumer<String, String> consumer = consumerFactory.createConsumer(null, "seat-lease-rebuild", null, overrides)) {
+            consumer.assign(List.of(topicPartition));
+            consumer.seekToBeginning(List.of(topicPartition));
+            long end = consumer.endOffsets(List.of(topicPartition)).get(topicPartition);
+            long deadline = System.currentTimeMillis() + rebuildTimeoutMs;
+            while (consumer.position(topicPartition) < end && System.currentTimeMillis() < deadline) {
+                consumer.poll(Duration.ofMillis(500)).records(topicPartition).forEach(records::add);
+            }
+            if (consumer.position(topicPartition) < end) {
+                log.error("Relecture incomplète de la partition {} des verrous de places ({} / {})",
+                        partition, consumer.position(topicPartition), end);
+            }
+        }
+        return records;
+    }
+
+    private void notifyListener(SeatLease lease, boolean held) {
+        LeaseListener current = listener;
+        if (current != null) {
+            current.leaseChanged(lease, held);
+        }
+    }
+
+    private SeatLease read(String value) {
+        try {
+            return objectMapper.readValue(value, SeatLease.class);
+        } catch (JsonProcessingException e) {
+            log.error("Verrou de place illisible ignoré: {}", value);
+            return null;
+        }
+    }
+
+    private String write(SeatLease lease) {
+        try {
+            return objectMapper.writeValueAsString(lease);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation du verrou " + lease.seatKey() + " impossible", e);
+        }
+    }
+}
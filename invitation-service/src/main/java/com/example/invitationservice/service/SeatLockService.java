@@ -1,62 +1,70 @@
 package com.example.invitationservice.service;
 
+import com.example.invitationservice.entity.SeatInfo;
 import com.example.invitationservice.entity.TemporarySeatLock;
+import com.example.invitationservice.model.SeatHoldResponse;
 import com.example.invitationservice.repository.TemporarySeatLockRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Optional;
+import java.util.HashSet;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SeatLockService {
 
+    static final String CLEANUP_JOB = "seat-lock-cleanup";
+
     private final TemporarySeatLockRepository lockRepository;
+    private final ClusterJobRunner clusterJobRunner;
+    private final TransactionTemplate transactionTemplate;
+    private final SeatMapEngine seatMapEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final SeatLeaseManager seatLeaseManager;
     private static final int LOCK_DURATION_MINUTES = 5;
 
-    @Transactional
+    // ON CONFLICT disponible (PostgreSQL), déterminé à la première prise de verrou
+    private volatile Boolean upsertSupported;
+
+    // Plus long que l'intervalle : la même instance garde le job d'un passage à l'autre
+    @Value("${seat-lock.cleanup.lease-ttl-seconds:90}")
+    private long cleanupLeaseTtlSeconds;
+
+    @Value("${seat-hold.max-seats:10}")
+    private int maxGroupSeats;
+
+    @Value("${seat-allocation.max-attempts:3}")
+    private int allocationAttempts;
+
+    /**
+     * Prend ou renouvelle le verrou de la place. Avec {@code seat-lease.enabled}, l'arbitrage est fait en mémoire
+     * par l'instance propriétaire de l'événement ({@link SeatLeaseManager}) ; sinon une seule instruction sur
+     * PostgreSQL, arbitrée par la contrainte d'unicité (event_id, row, number). Les verrous expirés sont repris
+     * sur place ; leur suppression reste au job planifié.
+     */
     public boolean lockSeat(Long eventId, Integer row, Integer number, String userEmail) {
         try {
-            log.info("Attempting to lock seat: event={}, row={}, number={}, user={}", eventId, row, number, userEmail);
-            
-            // Nettoyer les verrous expirés d'abord
-            cleanupExpiredLocks();
-            
-            // Vérifier si la place n'est pas déjà verrouillée
-            Optional<TemporarySeatLock> existingLock = lockRepository.findActiveLock(eventId, row, number, LocalDateTime.now());
-            
-            if (existingLock.isPresent()) {
-                TemporarySeatLock lock = existingLock.get();
-                if (lock.getUserEmail().equals(userEmail)) {
-                    // Renouveler le verrou pour le même utilisateur
-                    lock.setExpiryTime(LocalDateTime.now().plusMinutes(LOCK_DURATION_MINUTES));
-                    lockRepository.save(lock);
-                    return true;
-                }
-                log.info("Seat is already locked by another user");
+            boolean locked = seatLeaseManager.isEnabled()
+                    ? seatLeaseManager.acquire(eventId, row, number, userEmail, Duration.ofMinutes(LOCK_DURATION_MINUTES))
+                    : Boolean.TRUE.equals(transactionTemplate.execute(status -> lockInDatabase(eventId, row, number, userEmail)));
+            if (!locked) {
+                log.info("Seat is already locked by another user: event={}, row={}, number={}", eventId, row, number);
                 return false;
             }
-
-            // Créer un nouveau verrou
-            LocalDateTime now = LocalDateTime.now();
-            TemporarySeatLock lock = TemporarySeatLock.builder()
-                    .eventId(eventId)
-                    .row(row)
-                    .number(number)
-                    .userEmail(userEmail)
-                    .lockTime(now)
-                    .expiryTime(now.plusMinutes(LOCK_DURATION_MINUTES))
-                    .build();
-
-            lockRepository.save(lock);
-            log.info("Successfully locked seat: event={}, row={}, number={}, user={}", eventId, row, number, userEmail);
+            log.debug("Locked seat: event={}, row={}, number={}, user={}", eventId, row, number, userEmail);
             return true;
         } catch (Exception e) {
             log.error("Error locking seat: event={}, row={}, number={}, user={}, error={}", 
@@ -65,87 +73,252 @@ public class SeatLockService {
         }
     }
 
-    @Transactional
     public void releaseSeat(Long eventId, Integer row, Integer number, String userEmail) {
         try {
-            log.info("Attempting to release seat: event={}, row={}, number={}, user={}", eventId, row, number, userEmail);
-            lockRepository.findActiveLock(eventId, row, number, LocalDateTime.now())
-                    .ifPresent(lock -> {
-                        if (lock.getUserEmail().equals(userEmail)) {
-                            lockRepository.delete(lock);
-                            log.info("Successfully released seat");
-                        } else {
-                            log.warn("Cannot release seat - locked by different user");
-                        }
-                    });
+            boolean released = seatLeaseManager.isEnabled()
+                    ? seatLeaseManager.release(eventId, row, number, userEmail)
+                    : Boolean.TRUE.equals(transactionTemplate.execute(status -> releaseInDatabase(eventId, row, number, userEmail)));
+            if (released) {
+                log.info("Released seat: event={}, row={}, number={}, user={}", eventId, row, number, userEmail);
+            } else {
+                log.warn("Cannot release seat - not locked by user: event={}, row={}, number={}, user={}",
+                        eventId, row, number, userEmail);
+            }
         } catch (Exception e) {
             log.error("Error releasing seat: event={}, row={}, number={}, user={}, error={}", 
                      eventId, row, number, userEmail, e.getMessage(), e);
         }
     }
 
-    @Transactional(readOnly = true)
-    public List<TemporarySeatLock> getLockedSeats(Long eventId) {
+    /**
+     * Verrouille toutes les places du groupe sous un même identifiant, ou aucune. Les places sont prises dans
+     * l'ordre {@link SeatInfo#SEAT_ORDER} : deux groupes qui se chevauchent ne s'interbloquent pas.
+     *
+     * @return le groupe verrouillé, ou null si une des places est tenue par un autre utilisateur
+     * @throws IllegalArgumentException si la liste est vide, trop longue, incomplète ou contient un doublon
+     */
+    public SeatHoldResponse holdSeats(Long eventId, List<SeatInfo> seats, String userEmail) {
+        validateGroup(seats);
+        List<SeatInfo> ordered = seats.stream().sorted(SeatInfo.SEAT_ORDER).toList();
+        String holdId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(LOCK_DURATION_MINUTES);
         try {
-            log.info("=== DEBUT getLockedSeats pour event: {} ===", eventId);
-            LocalDateTime now = LocalDateTime.now();
-            log.info("Heure actuelle: {}", now);
-            
-            // D'abord, récupérer TOUS les verrous pour cet événement (même expirés)
-            List<TemporarySeatLock> allLocks = lockRepository.findAll().stream()
-                .filter(lock -> lock.getEventId().equals(eventId))
-                .toList();
-            log.info("Total verrous trouvés (tous) pour l'événement {}: {}", eventId, allLocks.size());
-            
-            for (TemporarySeatLock lock : allLocks) {
-                log.info("Verrou trouvé: id={}, row={}, number={}, expiry={}, expired={}", 
-                    lock.getId(), lock.getRow(), lock.getNumber(), lock.getExpiryTime(), 
-                    lock.getExpiryTime().isBefore(now));
+            boolean held = seatLeaseManager.isEnabled()
+                    ? seatLeaseManager.acquireGroup(eventId, ordered, userEmail, holdId, Duration.ofMinutes(LOCK_DURATION_MINUTES))
+                    : Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                        if (holdInDatabase(eventId, ordered, userEmail, holdId)) {
+                            return true;
+                        }
+                        status.setRollbackOnly();
+                        return false;
+                    }));
+            if (!held) {
+                log.info("Seat group not available: event={}, seats={}, user={}", eventId, ordered, userEmail);
+                return null;
+            }
+            log.info("Locked seat group {}: event={}, seats={}, user={}", holdId, eventId, ordered, userEmail);
+            return SeatHoldResponse.builder()
+                    .holdId(holdId)
+                    .eventId(eventId)
+                    .seats(ordered)
+                    .expiresAt(expiresAt)
+                    .build();
+        } catch (Exception e) {
+            log.error("Error locking seat group: event={}, seats={}, user={}, error={}",
+                    eventId, ordered, userEmail, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Réservation rapide : verrouille, en un groupe, les {@code count} meilleures places contiguës disponibles.
+     * Si une place choisie vient d'être prise ailleurs, le plan est relu et le choix recommencé.
+     *
+     * @return le groupe verrouillé, ou null si aucune rangée n'a assez de places libres
+     */
+    public SeatHoldResponse quickBook(Long eventId, int count, String userEmail) {
+        if (count < 1 || count > maxGroupSeats) {
+            throw new IllegalArgumentException("Un groupe compte de 1 à " + maxGroupSeats + " places");
+        }
+        for (int attempt = 1; attempt <= allocationAttempts; attempt++) {
+            List<SeatInfo> seats = seatMapEngine.findBestSeats(eventId, count);
+            if (seats.isEmpty()) {
+                log.info("No {} contiguous seats available: event={}", count, eventId);
+                return null;
             }
-            
-            // Maintenant récupérer seulement les verrous actifs (non expirés)
-            List<TemporarySeatLock> lockedSeats = lockRepository.findByEventIdAndExpiryTimeAfter(eventId, now);
-            log.info("Verrous ACTIFS (non expirés) pour l'événement {}: {}", eventId, lockedSeats.size());
-            
-            for (TemporarySeatLock lock : lockedSeats) {
-                log.info("Verrou actif: id={}, row={}, number={}, expiry={}", 
-                    lock.getId(), lock.getRow(), lock.getNumber(), lock.getExpiryTime());
+            SeatHoldResponse hold = holdSeats(eventId, seats, userEmail);
+            if (hold != null) {
+                return hold;
             }
-            
-            log.info("=== FIN getLockedSeats: {} verrous actifs retournés ===", lockedSeats.size());
-            return lockedSeats;
+            // Plan en retard sur un verrou posé ailleurs : relecture avant le choix suivant
+            seatMapEngine.invalidate(eventId);
+        }
+        log.info("Quick booking gave up after {} attempts: event={}, count={}, user={}",
+                allocationAttempts, eventId, count, userEmail);
+        return null;
+    }
+
+    /**
+     * Prolonge d'une durée de verrou complète toutes les places encore tenues par le groupe
+     */
+    public boolean renewHold(Long eventId, String holdId, String userEmail) {
+        try {
+            return seatLeaseManager.isEnabled()
+                    ? seatLeaseManager.renewGroup(eventId, holdId, userEmail, Duration.ofMinutes(LOCK_DURATION_MINUTES))
+                    : Boolean.TRUE.equals(transactionTemplate.execute(status -> renewInDatabase(eventId, holdId, userEmail)));
         } catch (Exception e) {
-            log.error("Error fetching locked seats for event {}: {}", eventId, e.getMessage(), e);
-            return new ArrayList<>();
+            log.error("Error renewing seat group {}: event={}, user={}, error={}", holdId, eventId, userEmail, e.getMessage(), e);
+            return false;
         }
     }
 
-    @Scheduled(fixedRate = 30000) // Exécuter toutes les 30 secondes
-    @Transactional
-    public void cleanupExpiredLocks() {
+    public boolean releaseHold(Long eventId, String holdId, String userEmail) {
         try {
-            LocalDateTime now = LocalDateTime.now();
-            List<TemporarySeatLock> expiredLocks = lockRepository.findExpiredLocks(now);
-            if (!expiredLocks.isEmpty()) {
-                log.info("Cleaning up {} expired locks", expiredLocks.size());
-                lockRepository.deleteAll(expiredLocks);
-                log.info("Successfully cleaned up expired locks");
+            boolean released = seatLeaseManager.isEnabled()
+                    ? seatLeaseManager.releaseGroup(eventId, holdId, userEmail)
+                    : Boolean.TRUE.equals(transactionTemplate.execute(status -> releaseHoldInDatabase(eventId, holdId, userEmail)));
+            if (released) {
+                log.info("Released seat group {}: event={}, user={}", holdId, eventId, userEmail);
             }
+            return released;
         } catch (Exception e) {
-            log.error("Error cleaning up expired locks: {}", e.getMessage(), e);
+            log.error("Error releasing seat group {}: event={}, user={}, error={}", holdId, eventId, userEmail, e.getMessage(), e);
+            return false;
         }
     }
 
+    private void validateGroup(List<SeatInfo> seats) {
+        if (seats == null || seats.isEmpty() || seats.size() > maxGroupSeats) {
+            throw new IllegalArgumentException("Un groupe compte de 1 à " + maxGroupSeats + " places");
+        }
+        if (seats.stream().anyMatch(seat -> seat == null || seat.getRow() == null || seat.getNumber() == null)) {
+            throw new IllegalArgumentException("Chaque place doit avoir une rangée et un numéro");
+        }
+        if (new HashSet<>(seats).size() != seats.size()) {
+            throw new IllegalArgumentException("Le groupe contient deux fois la même place");
+        }
+    }
+
+    // Une place refusée annule la transaction : les verrous déjà posés par le groupe disparaissent avec elle
+    private boolean holdInDatabase(Long eventId, List<SeatInfo> seats, String userEmail, String holdId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiryTime = now.plusMinutes(LOCK_DURATION_MINUTES);
+        for (SeatInfo seat : seats) {
+            if (!acquire(eventId, seat.getRow(), seat.getNumber(), userEmail, holdId, now, expiryTime)) {
+                return false;
+            }
+        }
+        seats.forEach(seat -> seatMapEngine.seatLocked(TemporarySeatLock.builder()
+                .eventId(eventId)
+                .row(seat.getRow())
+                .number(seat.getNumber())
+                .userEmail(userEmail)
+                .lockTime(now)
+                .expiryTime(expiryTime)
+                .holdId(holdId)
+                .build()));
+        return true;
+    }
+
+    private boolean renewInDatabase(Long eventId, String holdId, String userEmail) {
+        LocalDateTime now = LocalDateTime.now();
+        if (lockRepository.renewHold(eventId, holdId, userEmail, now, now.plusMinutes(LOCK_DURATION_MINUTES)) == 0) {
+            return false;
+        }
+        lockRepository.findByEventIdAndHoldIdAndUserEmail(eventId, holdId, userEmail).forEach(seatMapEngine::seatLocked);
+        return true;
+    }
+
+    private boolean releaseHoldInDatabase(Long eventId, String holdId, String userEmail) {
+        List<TemporarySeatLock> locks = lockRepository.findByEventIdAndHoldIdAndUserEmail(eventId, holdId, userEmail);
+        if (locks.isEmpty()) {
+            return false;
+        }
+        lockRepository.releaseHold(eventId, holdId, userEmail);
+        locks.forEach(lock -> seatMapEngine.seatUnlocked(eventId, lock.getRow(), lock.getNumber()));
+        return true;
+    }
+
+    private boolean lockInDatabase(Long eventId, Integer row, Integer number, String userEmail) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiryTime = now.plusMinutes(LOCK_DURATION_MINUTES);
+        if (!acquire(eventId, row, number, userEmail, null, now, expiryTime)) {
+            return false;
+        }
+        seatMapEngine.seatLocked(TemporarySeatLock.builder()
+                .eventId(eventId)
+                .row(row)
+                .number(number)
+                .userEmail(userEmail)
+                .lockTime(now)
+                .expiryTime(expiryTime)
+                .build());
+        return true;
+    }
+
+    private boolean releaseInDatabase(Long eventId, Integer row, Integer number, String userEmail) {
+        if (lockRepository.releaseLock(eventId, row, number, userEmail, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        seatMapEngine.seatUnlocked(eventId, row, number);
+        return true;
+    }
+
+    private boolean acquire(Long eventId, Integer row, Integer number, String userEmail, String holdId,
+                            LocalDateTime now, LocalDateTime expiryTime) {
+        if (supportsUpsert()) {
+            return lockRepository.upsertLock(eventId, row, number, userEmail, now, expiryTime, holdId) > 0;
+        }
+        // Sans ON CONFLICT (H2 des tests) : reprise ou renouvellement, sinon insertion si la place est libre
+        return lockRepository.takeOverLock(eventId, row, number, userEmail, now, expiryTime, holdId) > 0
+                || lockRepository.insertLockIfAbsent(eventId, row, number, userEmail, now, expiryTime, holdId) > 0;
+    }
+
+    private boolean supportsUpsert() {
+        Boolean supported = upsertSupported;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            upsertSupported = supported;
+        }
+        return Boolean.TRUE.equals(supported);
+    }
+
     @Transactional(readOnly = true)
+    public List<TemporarySeatLock> getLockedSeats(Long eventId) {
+        try {
+            return lockRepository.findByEventIdAndExpiryTimeAfter(eventId, LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Error fetching locked seats for event {}: {}", eventId, e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Exécuté par une seule instance du cluster, celle qui détient le bail "seat-lock-cleanup"
+     */
+    @Scheduled(fixedDelayString = "${seat-lock.cleanup.interval-ms:30000}")
+    public void cleanupExpiredLocks() {
+        clusterJobRunner.run(CLEANUP_JOB, Duration.ofSeconds(cleanupLeaseTtlSeconds), token -> {
+            int deleted = transactionTemplate.execute(status -> lockRepository.deleteExpiredLocks(LocalDateTime.now()));
+            if (deleted > 0) {
+                log.info("Cleaned up {} expired locks", deleted);
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Réponse du plan de salle en mémoire : les verrous des autres instances y arrivent par le topic seat.leases,
+     * ou sont relus périodiquement en base sans gestionnaire de verrous en mémoire
+     */
     public boolean isSeatLocked(Long eventId, Integer row, Integer number, String userEmail) {
         try {
-            return lockRepository.findActiveLock(eventId, row, number, LocalDateTime.now())
-                    .map(lock -> !lock.getUserEmail().equals(userEmail))
-                    .orElse(false);
+            return seatMapEngine.isSeatLocked(eventId, row, number, userEmail);
         } catch (Exception e) {
             log.error("Error checking if seat is locked: event={}, row={}, number={}, user={}, error={}", 
                      eventId, row, number, userEmail, e.getMessage(), e);
             return false;
         }
     }
-} 
\ No newline at end of file
+}
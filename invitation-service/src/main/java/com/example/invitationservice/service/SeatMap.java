@@ -0,0 +1,372 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan de salle d'un événement en mémoire : une bitmap des places confirmées et une des places verrouillées,
+ * indexées par (rangée - 1) * largeur + (numéro - 1). Seuls les verrous actifs gardent un objet (titulaire, expiration).
+ * Les dimensions s'agrandissent à la première place hors plan. Un index des plages libres par rangée
+ * ({@link #freeRuns(int)}), reconstruit seulement pour les rangées modifiées, sert à l'attribution automatique.
+ * Non thread-safe : l'appelant synchronise sur l'instance.
+ */
+class SeatMap {
+
+    static final int FREE = 0;
+    static final int CONFIRMED = 1;
+    static final int LOCKED = 2;
+
+    record Hold(String userEmail, long expiresAtMillis) {
+    }
+
+    private final Long eventId;
+    private final long loadedAtMillis = System.currentTimeMillis();
+    private int rows;
+    private int seatsPerRow;
+    private BitSet confirmed = new BitSet();
+    private BitSet locked = new BitSet();
+    private Map<Integer, Hold> holds = new HashMap<>();
+    private long locksLoadedAtMillis;
+    private long lastAccessMillis = loadedAtMillis;
+    // Plus proche expiration de verrou : la purge ne parcourt les verrous qu'une fois cette échéance passée
+    private long nextExpiryMillis = Long.MAX_VALUE;
+    // Par rangée : [début, longueur, début, longueur, ...] des places libres (numéros à partir de 1)
+    private int[][] freeRuns = new int[0][];
+    private int[] maxFreeRun = new int[0];
+    private final BitSet dirtyRows = new BitSet();
+
+    SeatMap(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    Long getEventId() {
+        return eventId;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
+
+    long getLocksLoadedAtMillis() {
+        return locksLoadedAtMillis;
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    boolean isOccupied(int row, int number) {
+        touch();
+        int index = indexOf(row, number);
+        return index >= 0 && confirmed.get(index);
+    }
+
+    /**
+     * Place verrouillée par un autre utilisateur que {@code userEmail}, verrou non expiré
+     */
+    boolean isLockedByOther(int row, int number, String userEmail, long nowMillis) {
+        touch();
+        int index = indexOf(row, number);
+        if (index < 0 || !locked.get(index)) {
+            return false;
+        }
+        Hold hold = holds.get(index);
+        if (hold == null || hold.expiresAtMillis() <= nowMillis) {
+            unlockIndex(index);
+            return false;
+        }
+        return !hold.userEmail().equals(userEmail);
+    }
+
+    void setConfirmed(int row, int number, boolean value) {
+        if (!valid(row, number)) {
+            return;
+        }
+        ensureCapacity(row, number);
+        confirmed.set(indexOf(row, number), value);
+        dirtyRows.set(row - 1);
+    }
+
+    void lock(int row, int number, String userEmail, long expiresAtMillis) {
+        if (!valid(row, number)) {
+            return;
+        }
+        ensureCapacity(row, number);
+        int index = indexOf(row, number);
+        locked.set(index);
+        holds.put(index, new Hold(userEmail, expiresAtMillis));
+        nextExpiryMillis = Math.min(nextExpiryMillis, expiresAtMillis);
+        dirtyRows.set(row - 1);
+    }
+
+    void unlock(int row, int number) {
+        int index = indexOf(row, number);
+        if (index >= 0) {
+            unlockIndex(index);
+        }
+    }
+
+    /**
+     * Remplace tous les verrous par ceux relus en base
+     */
+    void replaceLocks(Map<SeatInfo, Hold> activeLocks, long nowMillis) {
+        locked = new BitSet();
+        holds = new HashMap<>();
+        nextExpiryMillis = Long.MAX_VALUE;
+        dirtyRows.set(0, rows);
+        activeLocks.forEach((seat, hold) -> lock(seat.getRow(), seat.getNumber(), hold.userEmail(), hold.expiresAtMillis()));
+        locksLoadedAtMillis = nowMillis;
+    }
+
+    int purgeExpiredLocks(long nowMillis) {
+        if (nowMillis < nextExpiryMillis) {
+            return 0;
+        }
+        int purged = 0;
+        long next = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<Integer, Hold>> it = holds.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Hold> entry = it.next();
+            if (entry.getValue().expiresAtMillis() <= nowMillis) {
+                locked.clear(entry.getKey());
+                dirtyRows.set(entry.getKey() / seatsPerRow);
+                it.remove();
+                purged++;
+            } else {
+                next = Math.min(next, entry.getValue().expiresAtMillis());
+            }
+        }
+        nextExpiryMillis = next;
+        return purged;
+    }
+
+    /**
+     * Dimensions minimales de la salle : les places jamais occupées comptent aussi comme libres
+     */
+    void ensureLayout(int minRows, int minSeatsPerRow) {
+        if (minRows >= 1 && minSeatsPerRow >= 1) {
+            ensureCapacity(minRows, minSeatsPerRow);
+        }
+    }
+
+    /**
+     * Plus longue plage de places libres de la rangée (verrous expirés purgés au préalable par l'appelant)
+     */
+    int maxFreeRun(int row) {
+        refreshRow(row);
+        return maxFreeRun[row - 1];
+    }
+
+    /**
+     * Plages libres de la rangée : [début, longueur, début, longueur, ...], tableau partagé à ne pas modifier
+     */
+    int[] freeRuns(int row) {
+        refreshRow(row);
+        return freeRuns[row - 1];
+    }
+
+    int getConfirmedCount() {
+        return confirmed.cardinality();
+    }
+
+    int getLockedCount() {
+        return locked.cardinality();
+    }
+
+    /**
+     * Places confirmées puis verrouillées non expirées
+     */
+    List<SeatInfo> occupiedSeats(long nowMillis) {
+        touch();
+        purgeExpiredLocks(nowMillis);
+        BitSet occupied = (BitSet) confirmed.clone();
+        occupied.or(locked);
+        List<SeatInfo> seats = new ArrayList<>(occupied.cardinality());
+        for (int i = occupied.nextSetBit(0); i >= 0; i = occupied.nextSetBit(i + 1)) {
+            seats.add(SeatInfo.builder().row(i / seatsPerRow + 1).number(i % seatsPerRow + 1).build());
+        }
+        return seats;
+    }
+
+    /**
+     * Encodage par plages du plan, rangée par rangée : [longueur, état, longueur, état, ...]
+     * avec état {@link #FREE}, {@link #CONFIRMED} ou {@link #LOCKED} (une place confirmée l'emporte sur un verrou)
+     */
+    int[] encodeRuns(long nowMillis) {
+        touch();
+        purgeExpiredLocks(nowMillis);
+        int size = rows * seatsPerRow;
+        int[] runs = new int[16];
+        int length = 0;
+        int i = 0;
+        while (i < size) {
+            int state = stateAt(i);
+            int end = nextChange(i, state, size);
+            if (length + 2 > runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[length++] = end - i;
+            runs[length++] = state;
+            i = end;
+        }
+        return Arrays.copyOf(runs, length);
+    }
+
+    /**
+     * Octets occupés par les bitmaps (hors verrous actifs)
+     */
+    long bitmapBytes() {
+        return (confirmed.size() + locked.size()) / 8L;
+    }
+
+    private int stateAt(int index) {
+        if (confirmed.get(index)) {
+            return CONFIRMED;
+        }
+        return locked.get(index) ? LOCKED : FREE;
+    }
+
+    // Saut d'une plage par recherche de bit (pas de parcours place par place des zones libres)
+    private int nextChange(int from, int state, int size) {
+        int end;
+        switch (state) {
+            case CONFIRMED -> end = confirmed.nextClearBit(from);
+            case LOCKED -> {
+                int notLocked = locked.nextClearBit(from);
+                int nextConfirmed = confirmed.nextSetBit(from);
+                end = nextConfirmed >= 0 ? Math.min(notLocked, nextConfirmed) : notLocked;
+            }
+            default -> {
+                int nextConfirmed = confirmed.nextSetBit(from);
+                int nextLocked = locked.nextSetBit(from);
+                end = nextConfirmed < 0 ? nextLocked : nextLocked < 0 ? nextConfirmed : Math.min(nextConfirmed, nextLocked);
+                if (end < 0) {
+                    end = size;
+                }
+            }
+        }
+        return Math.min(end, size);
+    }
+
+    private void unlockIndex(int index) {
+        locked.clear(index);
+        holds.remove(index);
+        dirtyRows.set(index / seatsPerRow);
+    }
+
+    // Rangée reconstruite par sauts de bits : coût proportionnel au nombre de plages, pas de places
+    private void refreshRow(int row) {
+        int r = row - 1;
+        if (!dirtyRows.get(r)) {
+            return;
+        }
+        int start = r * seatsPerRow;
+        int end = start + seatsPerRow;
+        int[] runs = new int[4];
+        int length = 0;
+        int longest = 0;
+        int i = start;
+        while (i < end) {
+            i = nextFree(i, end);
+            if (i >= end) {
+                break;
+            }
+            int nextConfirmed = confirmed.nextSetBit(i);
+            int nextLocked = locked.nextSetBit(i);
+            int runEnd = Math.min(end, Math.min(nextConfirmed < 0 ? end : nextConfirmed, nextLocked < 0 ? end : nextLocked));
+            if (length + 2 > runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[length++] = i - start + 1;
+            runs[length++] = runEnd - i;
+            longest = Math.max(longest, runEnd - i);
+            i = runEnd;
+        }
+        freeRuns[r] = Arrays.copyOf(runs, length);
+        maxFreeRun[r] = longest;
+        dirtyRows.clear(r);
+    }
+
+    private int nextFree(int from, int end) {
+        int i = from;
+        while (i < end) {
+            int clearOfConfirmed = confirmed.nextClearBit(i);
+            int clearOfBoth = locked.nextClearBit(clearOfConfirmed);
+            if (clearOfBoth == clearOfConfirmed) {
+                return clearOfBoth;
+            }
+            i = clearOfBoth;
+        }
+        return end;
+    }
+
+    private int indexOf(int row, int number) {
+        if (!valid(row, number) || row > rows || number > seatsPerRow) {
+            return -1;
+        }
+        return (row - 1) * seatsPerRow + (number - 1);
+    }
+
+    private static boolean valid(int row, int number) {
+        return row >= 1 && number >= 1;
+    }
+
+    private void ensureCapacity(int row, int number) {
+        if (number > seatsPerRow) {
+            relayout(number);
+        }
+        if (row > rows) {
+            freeRuns = Arrays.copyOf(freeRuns, row);
+            maxFreeRun = Arrays.copyOf(maxFreeRun, row);
+            dirtyRows.set(rows, row);
+            rows = row;
+        }
+    }
+
+    // Rangées plus larges que prévu : recopie des bits avec la nouvelle largeur
+    private void relayout(int newSeatsPerRow) {
+        if (seatsPerRow > 0) {
+            confirmed = restride(confirmed, newSeatsPerRow);
+            BitSet relocated = new BitSet();
+            Map<Integer, Hold> rekeyed = new HashMap<>();
+            for (int i = locked.nextSetBit(0); i >= 0; i = locked.nextSetBit(i + 1)) {
+                int index = (i / seatsPerRow) * newSeatsPerRow + i % seatsPerRow;
+                relocated.set(index);
+                Hold hold = holds.get(i);
+                if (hold != null) {
+                    rekeyed.put(index, hold);
+                }
+            }
+            locked = relocated;
+            holds = rekeyed;
+        }
+        seatsPerRow = newSeatsPerRow;
+        dirtyRows.set(0, rows);
+    }
+
+    private BitSet restride(BitSet bits, int newSeatsPerRow) {
+        BitSet restrided = new BitSet(rows * newSeatsPerRow);
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            restrided.set((i / seatsPerRow) * newSeatsPerRow + i % seatsPerRow);
+        }
+        return restrided;
+    }
+
+    private void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,401 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import com.example.invitationservice.entity.TemporarySeatLock;
+import com.example.invitationservice.model.InvitationLifecycleMessage;
+import com.example.invitationservice.model.SeatLease;
+import com.example.invitationservice.model.SeatMapResponse;
+import com.example.invitationservice.repository.InvitationRepository;
+import com.example.invitationservice.repository.TemporarySeatLockRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Plans de salle en mémoire ({@link SeatMap}), un par événement consulté, reconstruits depuis la base à la demande.
+ * Les changements faits par cette instance sont appliqués après le commit ; ceux des autres instances arrivent
+ * par le topic invitation.lifecycle (places confirmées) ou invalident le plan. Les verrous temporaires, qui ne
+ * passent pas par ce topic, viennent de {@link SeatLeaseManager} quand il est actif et sont sinon relus en base
+ * au plus toutes les {@code seat-map.lock-refresh-ms}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatMapEngine implements SeatLeaseManager.LeaseListener {
+
+    private final InvitationRepository invitationRepository;
+    private final TemporarySeatLockRepository lockRepository;
+    private final ObjectMapper objectMapper;
+    private final SeatLeaseManager seatLeaseManager;
+    private final SeatAllocator seatAllocator;
+
+    private final Map<Long, SeatMap> maps = new ConcurrentHashMap<>();
+    // Chargements en cours, hors verrou de la map : les changements reçus entre-temps y sont rejoués
+    private final Map<Long, PendingLoad> loading = new ConcurrentHashMap<>();
+
+    @Value("${seat-map.max-events:2000}")
+    private int maxEvents;
+
+    // Reconstruction complète périodique, filet de sécurité contre un message de cycle de vie perdu
+    @Value("${seat-map.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${seat-map.lock-refresh-ms:5000}")
+    private long lockRefreshMs;
+
+    // Salle par défaut (celle du plan de sélection) : les places jamais occupées sont attribuables
+    @Value("${seat-map.default-rows:1}")
+    private int defaultRows;
+
+    @Value("${seat-map.default-seats-per-row:5}")
+    private int defaultSeatsPerRow;
+
+    @PostConstruct
+    void registerLeaseListener() {
+        seatLeaseManager.setListener(this);
+    }
+
+    public boolean isSeatOccupied(Long eventId, Integer row, Integer number) {
+        if (eventId == null || row == null || number == null) {
+            return false;
+        }
+        SeatMap map = acquire(eventId);
+        synchronized (map) {
+            return map.isOccupied(row, number);
+        }
+    }
+
+    /**
+     * Place verrouillée par un autre utilisateur
+     */
+    public boolean isSeatLocked(Long eventId, Integer row, Integer number, String userEmail) {
+        if (eventId == null || row == null || number == null) {
+            return false;
+        }
+        SeatMap map = acquire(eventId);
+        synchronized (map) {
+            return map.isLockedByOther(row, number, userEmail, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Places confirmées et verrouillées de l'événement
+     */
+    public List<SeatInfo> getOccupiedSeats(Long eventId) {
+        SeatMap map = acquire(eventId);
+        synchronized (map) {
+            return map.occupiedSeats(System.currentTimeMillis());
+        }
+    }
+
+    public SeatMapResponse getSeatMap(Long eventId) {
+        SeatMap map = acquire(eventId);
+        synchronized (map) {
+            int[] runs = map.encodeRuns(System.currentTimeMillis());
+            return SeatMapResponse.builder()
+                    .eventId(eventId)
+                    .rows(map.getRows())
+                    .seatsPerRow(map.getSeatsPerRow())
+                    .confirmedCount(map.getConfirmedCount())
+                    .lockedCount(map.getLockedCount())
+                    .runs(runs)
+                    .build();
+        }
+    }
+
+    /**
+     * Meilleures places libres selon le score de la salle : une place, ou {@code count} places contiguës
+     * d'une même rangée. Rien n'est réservé : l'appelant doit encore les verrouiller.
+     *
+     * @return les places dans l'ordre des numéros, ou une liste vide si aucune rangée ne convient
+     */
+    public List<SeatInfo> findBestSeats(Long eventId, int count) {
+        SeatMap map = acquire(eventId);
+        synchronized (map) {
+            return seatAllocator.allocate(map, count, System.currentTimeMillis());
+        }
+    }
+
+    public void seatConfirmed(Long eventId, SeatInfo seat) {
+        if (seat != null && seat.getRow() != null && seat.getNumber() != null) {
+            afterCommit(() -> update(eventId, map -> map.setConfirmed(seat.getRow(), seat.getNumber(), true)));
+        }
+    }
+
+    public void seatReleased(Long eventId, SeatInfo seat) {
+        if (seat != null && seat.getRow() != null && seat.getNumber() != null) {
+            afterCommit(() -> update(eventId, map -> map.setConfirmed(seat.getRow(), seat.getNumber(), false)));
+        }
+    }
+
+    public void seatLocked(TemporarySeatLock lock) {
+        String userEmail = lock.getUserEmail();
+        long expiresAt = toMillis(lock.getExpiryTime());
+        afterCommit(() -> update(lock.getEventId(), map -> map.lock(lock.getRow(), lock.getNumber(), userEmail, expiresAt)));
+    }
+
+    public void seatUnlocked(Long eventId, Integer row, Integer number) {
+        afterCommit(() -> update(eventId, map -> map.unlock(row, number)));
+    }
+
+    /**
+     * Le plan sera reconstruit depuis la base à la prochaine lecture
+     */
+    public void invalidate(Long eventId) {
+        afterCommit(() -> remove(eventId));
+    }
+
+    public void invalidateAll() {
+        afterCommit(this::clear);
+    }
+
+    @Override
+    public void leaseChanged(SeatLease lease, boolean held) {
+        if (held) {
+            update(lease.getEventId(), map -> map.lock(lease.getRow(), lease.getNumber(), lease.getUserEmail(), lease.getExpiresAt()));
+        } else {
+            update(lease.getEventId(), map -> map.unlock(lease.getRow(), lease.getNumber()));
+        }
+    }
+
+    @Override
+    public void leasesReset(Long eventId) {
+        remove(eventId);
+    }
+
+    /**
+     * Changements d'invitations de toutes les instances (consommateur propre à chaque instance)
+     */
+    @org.springframework.kafka.annotation.KafkaListener(
+        topics = "${kafka.topics.invitation-lifecycle:invitation.lifecycle}",
+        groupId = "invitation-service-seat-map-#{T(java.util.UUID).randomUUID().toString()}",
+        properties = {"auto.offset.reset=latest"}
+    )
+    public void handleLifecycle(String message) {
+        try {
+            InvitationLifecycleMessage change = objectMapper.readValue(message, InvitationLifecycleMessage.class);
+            onLifecycle(change);
+        } catch (Exception e) {
+            log.error("Erreur lors du traitement du changement d'invitation pour le plan de salle: {}", e.getMessage(), e);
+        }
+    }
+
+    void onLifecycle(InvitationLifecycleMessage change) {
+        if (change.getType() == InvitationLifecycleMessage.Type.CLEARED) {
+            clear();
+            return;
+        }
+        if (change.getEventId() == null) {
+            return;
+        }
+        boolean confirmed = "CONFIRMED".equals(change.getStatus());
+        boolean seated = change.getSeatRow() != null && change.getSeatNumber() != null;
+        if (change.getType() == InvitationLifecycleMessage.Type.UPSERTED) {
+            if (confirmed && seated) {
+                update(change.getEventId(), map -> map.setConfirmed(change.getSeatRow(), change.getSeatNumber(), true));
+            } else if ("CANCELLED".equals(change.getStatus())) {
+                // La place libérée par l'annulation n'est plus dans le message : rechargement
+                remove(change.getEventId());
+            }
+        } else if (change.getType() == InvitationLifecycleMessage.Type.DELETED && confirmed && seated) {
+            update(change.getEventId(), map -> map.setConfirmed(change.getSeatRow(), change.getSeatNumber(), false));
+        }
+    }
+
+    int getLoadedEventCount() {
+        return maps.size();
+    }
+
+    /**
+     * Plan de l'événement, chargé ou rafraîchi si besoin. Les requêtes sont faites hors de la map : une lecture
+     * lente ne bloque ni les autres événements du même segment ni les mises à jour, qui sont enregistrées
+     * pendant le chargement et rejouées sur le plan avant son installation.
+     */
+    private SeatMap acquire(Long eventId) {
+        long now = System.currentTimeMillis();
+        SeatMap map = maps.get(eventId);
+        if (map == null || now - map.getLoadedAtMillis() > ttlMs) {
+            LoadTicket ticket = beginLoad(eventId);
+            SeatMap loaded = load(eventId, now);
+            map = finishLoad(eventId, ticket, current -> {
+                if (current != null && now - current.getLoadedAtMillis() <= ttlMs) {
+                    return current;
+                }
+                synchronized (loaded) {
+                    ticket.pending().changes.forEach(change -> change.accept(loaded));
+                }
+                return loaded;
+            });
+            evictIfFull();
+            // Plan invalidé pendant le chargement : servi pour cette lecture, rechargé à la suivante
+            return map != null ? map : loaded;
+        }
+        if (now - map.getLocksLoadedAtMillis() > lockRefreshMs) {
+            LoadTicket ticket = beginLoad(eventId);
+            Map<SeatInfo, SeatMap.Hold> locks = loadLocks(eventId, now);
+            SeatMap refreshed = finishLoad(eventId, ticket, current -> {
+                if (current != null && now - current.getLocksLoadedAtMillis() > lockRefreshMs) {
+                    synchronized (current) {
+                        current.replaceLocks(locks, now);
+                        ticket.pending().changes.forEach(change -> change.accept(current));
+                    }
+                }
+                return current;
+            });
+            if (refreshed == null) {
+                return acquire(eventId);
+            }
+            return refreshed;
+        }
+        return map;
+    }
+
+    private LoadTicket beginLoad(Long eventId) {
+        LoadTicket[] ticket = new LoadTicket[1];
+        loading.compute(eventId, (id, pending) -> {
+            PendingLoad load = pending != null ? pending : new PendingLoad();
+            load.loaders++;
+            ticket[0] = new LoadTicket(load, load.invalidations);
+            return load;
+        });
+        return ticket[0];
+    }
+
+    /**
+     * Installe le résultat d'un chargement sous le verrou de {@code loading}, qui sérialise aussi les mises à jour
+     * de l'événement : aucune ne peut s'intercaler entre le rejeu et l'installation.
+     *
+     * @param install plan à garder dans {@code maps} à partir du plan courant (null = absent)
+     * @return le plan installé, ou null si le plan a été invalidé pendant le chargement
+     */
+    private SeatMap finishLoad(Long eventId, LoadTicket ticket, UnaryOperator<SeatMap> install) {
+        PendingLoad pending = ticket.pending();
+        SeatMap[] installed = new SeatMap[1];
+        loading.compute(eventId, (id, current) -> {
+            if (pending.invalidations == ticket.invalidations()) {
+                installed[0] = maps.compute(id, (key, map) -> install.apply(map));
+            }
+            return --pending.loaders == 0 ? null : pending;
+        });
+        return installed[0];
+    }
+
+    private SeatMap load(Long eventId, long now) {
+        SeatMap map = new SeatMap(eventId);
+        map.ensureLayout(defaultRows, defaultSeatsPerRow);
+        for (SeatInfo seat : invitationRepository.findOccupiedSeats(eventId)) {
+            if (seat.getRow() != null && seat.getNumber() != null) {
+                map.setConfirmed(seat.getRow(), seat.getNumber(), true);
+            }
+        }
+        map.replaceLocks(loadLocks(eventId, now), now);
+        log.debug("Plan de salle de l'événement {} chargé: {}x{} places, {} confirmée(s), {} verrouillée(s)",
+                eventId, map.getRows(), map.getSeatsPerRow(), map.getConfirmedCount(), map.getLockedCount());
+        return map;
+    }
+
+    private Map<SeatInfo, SeatMap.Hold> loadLocks(Long eventId, long now) {
+        Map<SeatInfo, SeatMap.Hold> locks = new HashMap<>();
+        if (seatLeaseManager.isEnabled()) {
+            for (SeatLease lease : seatLeaseManager.activeLeases(eventId)) {
+                locks.put(SeatInfo.builder().row(lease.getRow()).number(lease.getNumber()).build(),
+                        new SeatMap.Hold(lease.getUserEmail(), lease.getExpiresAt()));
+            }
+            return locks;
+        }
+        for (TemporarySeatLock lock : lockRepository.findByEventIdAndExpiryTimeAfter(eventId, LocalDateTime.now())) {
+            locks.put(SeatInfo.builder().row(lock.getRow()).number(lock.getNumber()).build(),
+                    new SeatMap.Hold(lock.getUserEmail(), toMillis(lock.getExpiryTime())));
+        }
+        return locks;
+    }
+
+    private void update(Long eventId, Consumer<SeatMap> change) {
+        // Plan absent : rien à corriger, il sera chargé à jour à la prochaine lecture.
+        // Chargement en cours : le changement est aussi rejoué sur le plan chargé.
+        loading.compute(eventId, (id, pending) -> {
+            maps.computeIfPresent(id, (key, map) -> {
+                synchronized (map) {
+                    change.accept(map);
+                }
+                return map;
+            });
+            if (pending != null) {
+                pending.changes.add(change);
+            }
+            return pending;
+        });
+    }
+
+    private void remove(Long eventId) {
+        loading.compute(eventId, (id, pending) -> {
+            maps.remove(id);
+            if (pending != null) {
+                pending.invalidations++;
+            }
+            return pending;
+        });
+    }
+
+    private void clear() {
+        maps.clear();
+        loading.keySet().forEach(this::remove);
+    }
+
+    private void evictIfFull() {
+        while (maps.size() > maxEvents) {
+            maps.values().stream()
+                    .min(Comparator.comparingLong(SeatMap::getLastAccessMillis))
+                    .ifPresent(eldest -> maps.remove(eldest.getEventId(), eldest));
+        }
+    }
+
+    /**
+     * Chargements en cours d'un plan : changements reçus depuis le premier, nombre d'invalidations.
+     * Modifié uniquement sous le verrou de {@code loading} pour l'événement.
+     */
+    private static final class PendingLoad {
+        private final List<Consumer<SeatMap>> changes = new ArrayList<>();
+        private int loaders;
+        private long invalidations;
+    }
+
+    /**
+     * Un chargement n'installe son plan que si aucune invalidation n'est survenue depuis son début
+     */
+    private record LoadTicket(PendingLoad pending, long invalidations) {
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.invitationservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Roue temporelle hiérarchique : chaque niveau a {@code wheelSize} cases de {@code tickMs}, les échéances
+ * au-delà de sa fenêtre vont dans le niveau supérieur (cases de la largeur de la fenêtre inférieure) et
+ * redescendent quand l'horloge atteint leur case. Ajout en O(1), avance en O(1) par tick plus les éléments échus.
+ * Une échéance est atteinte au tick qui la contient (précision d'un tick).
+ * Non thread-safe : l'appelant synchronise sur l'instance.
+ */
+class TimingWheel<T> {
+
+    private record Timer<T>(long deadlineMillis, T item) {
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final List<List<Timer<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflow;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMillis) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTime = startMillis - startMillis % tickMs;
+    }
+
+    /**
+     * @return false si l'échéance tombe dans le tick courant (élément déjà échu, non ajouté)
+     */
+    boolean add(long deadlineMillis, T item) {
+        return add(new Timer<>(deadlineMillis, item));
+    }
+
+    /**
+     * Avance l'horloge jusqu'à {@code nowMillis} et remet les éléments échus à {@code expired}
+     *
+     * @return le nombre d'éléments échus
+     */
+    int advance(long nowMillis, Consumer<T> expired) {
+        int[] count = {0};
+        Consumer<Timer<T>> reinsert = timer -> {
+            if (!add(timer)) {
+                count[0]++;
+                expired.accept(timer.item());
+            }
+        };
+        while (nowMillis >= currentTime + tickMs) {
+            currentTime += tickMs;
+            if (overflow != null) {
+                overflow.advanceTo(currentTime, reinsert);
+            }
+            flush(currentTime, reinsert);
+        }
+        return count[0];
+    }
+
+    /**
+     * Éléments en attente, y compris ceux des niveaux supérieurs
+     */
+    int size() {
+        return size + (overflow != null ? overflow.size() : 0);
+    }
+
+    private boolean add(Timer<T> timer) {
+        long deadline = timer.deadlineMillis();
+        if (deadline < currentTime + tickMs) {
+            return false;
+        }
+        if (deadline < currentTime + interval) {
+            buckets.get((int) ((deadline / tickMs) % wheelSize)).add(timer);
+            size++;
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new TimingWheel<>(interval, wheelSize, currentTime);
+        }
+        return overflow.add(timer);
+    }
+
+    // Niveau supérieur : les éléments de chaque case atteinte redescendent via la roue de base
+    private void advanceTo(long timeMillis, Consumer<Timer<T>> reinsert) {
+        while (timeMillis >= currentTime + tickMs) {
+            currentTime += tickMs;
+            if (overflow != null) {
+                overflow.advanceTo(currentTime, reinsert);
+            }
+            flush(currentTime, reinsert);
+        }
+    }
+
+    private void flush(long time, Consumer<Timer<T>> reinsert) {
+        List<Timer<T>> bucket = buckets.get((int) ((time / tickMs) % wheelSize));
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timer<T>> due = new ArrayList<>(bucket);
+        bucket.clear();
+        size -= due.size();
+        due.forEach(reinsert);
+    }
+}
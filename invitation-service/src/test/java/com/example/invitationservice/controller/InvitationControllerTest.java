@@ -10,10 +10,21 @@ import org.mockito.Mockito;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.kafka.core.KafkaTemplate;
 import com.example.invitationservice.service.SeatLockService;
+import com.example.invitationservice.service.SeatMapEngine;
 
+import com.example.invitationservice.entity.InvitationEntity;
+import com.example.invitationservice.entity.InvitationStatus;
+import com.example.invitationservice.repository.InvitationRepository;
+import org.springframework.http.MediaType;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import java.util.List;
 import java.util.Map;
@@ -31,9 +42,17 @@ class InvitationControllerTest {
             return Mockito.mock(SeatLockService.class);
         }
         @Bean
+        SeatMapEngine seatMapEngine() {
+            return Mockito.mock(SeatMapEngine.class);
+        }
+        @Bean
         KafkaTemplate<String, String> kafkaTemplate() {
             return Mockito.mock(KafkaTemplate.class);
         }
+        @Bean
+        InvitationRepository invitationRepository() {
+            return Mockito.mock(InvitationRepository.class);
+        }
     }
     @Autowired
     private MockMvc mockMvc;
@@ -55,4 +74,29 @@ class InvitationControllerTest {
                 )))
             .andExpect(status().isOk());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void shouldReturnOneStatusPerRequestedEvent() throws Exception {
+        InvitationEntity confirmed = InvitationEntity.builder()
+                .eventId(1L)
+                .userEmail("test@example.com")
+                .status(InvitationStatus.CONFIRMED)
+                .build();
+        when(invitationService.getUserInvitationsForEvents(eq("test@example.com"), anyCollection()))
+                .thenReturn(List.of(confirmed));
+
+        mockMvc.perform(post("/invitations/status/bulk")
+                .with(csrf())
+                .with(jwt().jwt(jwt -> jwt
+                    .claim("email", "test@example.com")
+                    .claim("realm_access", Map.of("roles", List.of("USER")))
+                    .subject("user-id-123")
+                ))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userEmail\":\"test@example.com\",\"eventIds\":[1,2]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[?(@.eventId == 1)].registered").value(true))
+            .andExpect(jsonPath("$[?(@.eventId == 2)].registered").value(false));
+    }
+}
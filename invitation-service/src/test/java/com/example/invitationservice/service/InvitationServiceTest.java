@@ -1,11 +1,24 @@
 package com.example.invitationservice.service;
 
+import com.example.invitationservice.client.EventClient;
+import com.example.invitationservice.entity.InvitationEntity;
+import com.example.invitationservice.entity.InvitationStatus;
+import com.example.invitationservice.model.SeatHoldResponse;
 import com.example.invitationservice.repository.InvitationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.example.invitationservice.entity.SeatInfo;
@@ -14,6 +27,18 @@ import com.example.invitationservice.entity.SeatInfo;
 class InvitationServiceTest {
     @Mock
     private InvitationRepository invitationRepository;
+    @Mock
+    private SeatMapEngine seatMapEngine;
+    @Mock
+    private SeatLockService seatLockService;
+    @Mock
+    private InvitationEventPublisher invitationEventPublisher;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Mock
+    private EventClient eventClient;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
     @InjectMocks
     private InvitationService invitationService;
 
@@ -33,6 +58,42 @@ class InvitationServiceTest {
         assertThat(invitationService.isUserRegisteredForEvent(1L, "a@b.com")).isTrue();
     }
 
+    @Test
+    void testAutoConfirmWithoutFreedSeatGetsBestAvailableSeat() {
+        ReflectionTestUtils.setField(invitationService, "autoAssignSeats", true);
+        InvitationEntity invitation = InvitationEntity.builder()
+                .id(7L).eventId(1L).userEmail("a@b.com").eventTitle("Concert").status(InvitationStatus.WAITLIST).build();
+        SeatInfo best = SeatInfo.builder().row(1).number(3).build();
+        when(invitationRepository.findByEventIdAndUserEmail(1L, "a@b.com")).thenReturn(Optional.of(invitation));
+        when(invitationRepository.save(any(InvitationEntity.class))).thenAnswer(call -> call.getArgument(0));
+        when(seatLockService.quickBook(1L, 1, "a@b.com"))
+                .thenReturn(SeatHoldResponse.builder().holdId("h").eventId(1L).seats(List.of(best)).build());
+
+        invitationService.handleAutoConfirmInvitation("{\"eventId\":1,\"userEmail\":\"a@b.com\",\"row\":null,\"number\":null}");
+
+        assertThat(invitation.getStatus()).isEqualTo(InvitationStatus.CONFIRMED);
+        assertThat(invitation.getSeatInfo()).isEqualTo(best);
+        verify(seatMapEngine).seatConfirmed(1L, best);
+        // La place est confirmée : le verrou pris pour l'attribuer ne doit pas rester jusqu'à l'expiration
+        verify(seatLockService).releaseHold(1L, "h", "a@b.com");
+    }
+
+    @Test
+    void testAutoConfirmReleasesTheHoldWhenTheSaveFails() {
+        ReflectionTestUtils.setField(invitationService, "autoAssignSeats", true);
+        InvitationEntity invitation = InvitationEntity.builder()
+                .id(7L).eventId(1L).userEmail("a@b.com").eventTitle("Concert").status(InvitationStatus.WAITLIST).build();
+        when(invitationRepository.findByEventIdAndUserEmail(1L, "a@b.com")).thenReturn(Optional.of(invitation));
+        when(invitationRepository.save(any(InvitationEntity.class))).thenThrow(new IllegalStateException("base indisponible"));
+        when(seatLockService.quickBook(1L, 1, "a@b.com")).thenReturn(SeatHoldResponse.builder().holdId("h").eventId(1L)
+                .seats(List.of(SeatInfo.builder().row(1).number(3).build())).build());
+
+        invitationService.handleAutoConfirmInvitation("{\"eventId\":1,\"userEmail\":\"a@b.com\"}");
+
+        verify(seatLockService).releaseHold(1L, "h", "a@b.com");
+        verify(seatMapEngine, never()).seatConfirmed(any(), any());
+    }
+
     @Test
     void testIsSeatOccupied() {
         SeatInfo seat = new SeatInfo();
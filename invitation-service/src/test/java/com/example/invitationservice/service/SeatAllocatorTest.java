@@ -0,0 +1,152 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class SeatAllocatorTest {
+
+    private final SeatAllocator allocator = new SeatAllocator(0.0, 1.0, 1.0);
+
+    @Test
+    void testSingleSeatIsFrontRowCenter() {
+        SeatMap map = emptyMap(3, 9);
+
+        assertThat(allocator.allocate(map, 1, now())).containsExactly(seat(1, 5));
+        map.setConfirmed(1, 5, true);
+        assertThat(allocator.allocate(map, 1, now())).containsExactly(seat(1, 4));
+    }
+
+    @Test
+    void testContiguousBlockSkipsRowsWithoutRoom() {
+        SeatMap map = emptyMap(2, 10);
+        // Rangée 1 : plages libres 2..4, 6..8 et 10 ; rangée 2 : 1..4 et 6..10
+        for (int number : new int[]{1, 5, 9}) {
+            map.setConfirmed(1, number, true);
+        }
+        map.lock(2, 5, "other@x.com", now() + 60000);
+
+        assertThat(allocator.allocate(map, 3, now())).containsExactly(seat(1, 6), seat(1, 7), seat(1, 8));
+        assertThat(allocator.allocate(map, 4, now())).containsExactly(seat(2, 6), seat(2, 7), seat(2, 8), seat(2, 9));
+        assertThat(allocator.allocate(map, 6, now())).isEmpty();
+        assertThat(allocator.allocate(map, 11, now())).isEmpty();
+    }
+
+    @Test
+    void testExpiredLocksAndUnlocksFreeSeatsAgain() {
+        SeatMap map = emptyMap(1, 3);
+        map.lock(1, 1, "a@x.com", now() - 1);
+        map.lock(1, 2, "a@x.com", now() + 60000);
+        map.setConfirmed(1, 3, true);
+
+        assertThat(allocator.allocate(map, 1, now())).containsExactly(seat(1, 1));
+        map.unlock(1, 2);
+        assertThat(allocator.allocate(map, 2, now())).containsExactly(seat(1, 1), seat(1, 2));
+    }
+
+    @Test
+    void testPreferredRowRatioMovesTheIdealRow() {
+        SeatMap map = emptyMap(11, 5);
+        SeatAllocator middle = new SeatAllocator(0.5, 1.0, 1.0);
+
+        assertThat(middle.allocate(map, 2, now())).extracting(SeatInfo::getRow).containsOnly(6);
+    }
+
+    @Test
+    void testMatchesExhaustiveSearchOnFiftyThousandSeats() {
+        int rows = 200;
+        int seatsPerRow = 250;
+        Random random = new Random(25);
+        SeatMap map = emptyMap(rows, seatsPerRow);
+        for (int row = 1; row <= rows; row++) {
+            for (int number = 1; number <= seatsPerRow; number++) {
+                if (random.nextDouble() < 0.5) {
+                    map.setConfirmed(row, number, true);
+                }
+            }
+        }
+
+        // Réponse identique à un parcours exhaustif des blocs, au score près
+        for (int count = 1; count <= 8; count++) {
+            List<SeatInfo> seats = allocator.allocate(map, count, now());
+            assertThat(seats).hasSize(count);
+            assertThat(score(seats.get(0).getRow(), seats.get(0).getNumber(), count, rows, seatsPerRow))
+                    .isEqualTo(bestScore(map, count, rows, seatsPerRow));
+        }
+    }
+
+    @Test
+    void testOnlyRowsThatCanBeatTheBestBlockAreScanned() {
+        int rows = 200;
+        int seatsPerRow = 250;
+        Random random = new Random(25);
+        SeatMap map = emptyMap(rows, seatsPerRow);
+        for (int row = 1; row <= rows; row++) {
+            for (int number = 1; number <= seatsPerRow; number++) {
+                if (random.nextDouble() < 0.5) {
+                    map.setConfirmed(row, number, true);
+                }
+            }
+        }
+        SeatMap counted = spy(map);
+
+        // Travail mesuré en rangées parcourues plutôt qu'en temps : seules celles dont l'écart de rangée reste
+        // sous le meilleur score et dont la plus longue plage libre suffit sont lues place par place
+        for (int count = 1; count <= 8; count++) {
+            clearInvocations(counted);
+            List<SeatInfo> seats = allocator.allocate(counted, count, now());
+
+            double best = score(seats.get(0).getRow(), seats.get(0).getNumber(), count, rows, seatsPerRow);
+            int candidates = 0;
+            for (int row = 1; row <= rows; row++) {
+                if (row - 1.0 <= best && map.maxFreeRun(row) >= count) {
+                    candidates++;
+                }
+            }
+            verify(counted, atMost(candidates)).freeRuns(anyInt());
+        }
+    }
+
+    private static double bestScore(SeatMap map, int count, int rows, int seatsPerRow) {
+        double best = Double.MAX_VALUE;
+        for (int row = 1; row <= rows; row++) {
+            for (int start = 1; start + count - 1 <= seatsPerRow; start++) {
+                boolean free = true;
+                for (int number = start; number < start + count && free; number++) {
+                    free = !map.isOccupied(row, number);
+                }
+                if (free) {
+                    best = Math.min(best, score(row, start, count, rows, seatsPerRow));
+                }
+            }
+        }
+        return best;
+    }
+
+    private static double score(int row, int start, int count, int rows, int seatsPerRow) {
+        return Math.abs(row - 1.0) + Math.abs(start + (count - 1) / 2.0 - (seatsPerRow + 1) / 2.0);
+    }
+
+    private static SeatMap emptyMap(int rows, int seatsPerRow) {
+        SeatMap map = new SeatMap(1L);
+        map.ensureLayout(rows, seatsPerRow);
+        return map;
+    }
+
+    private static SeatInfo seat(int row, int number) {
+        return SeatInfo.builder().row(row).number(number).build();
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import com.example.invitationservice.model.SeatLease;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.requestreply.RequestReplyFuture;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatLeaseManagerTest {
+    private static final long OWNED_EVENT = 1L;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Mock
+    private ReplyingKafkaTemplate<String, String, String> replyingTemplate;
+    @Mock
+    private ConsumerFactory<String, String> consumerFactory;
+    @Mock
+    private SeatLeaseAuditSink auditSink;
+    @Mock
+    private SeatLeaseManager.LeaseListener listener;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SeatLeaseManager manager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(anyString(), anyInt(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        manager = new SeatLeaseManager(kafkaTemplate, replyingTemplate, consumerFactory, auditSink, objectMapper, 10, 16);
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "partitions", 12);
+        ReflectionTestUtils.setField(manager, "requestTimeoutMs", 3000L);
+        ReflectionTestUtils.setField(manager, "leasesTopic", "seat.leases");
+        ReflectionTestUtils.setField(manager, "requestsTopic", "seat.lease.requests");
+        manager.setListener(listener);
+        manager.own(manager.partitionFor(OWNED_EVENT), List.of());
+    }
+
+    @Test
+    void testOwnerArbitratesAndPublishesEveryChange() {
+        int partition = manager.partitionFor(OWNED_EVENT);
+
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "a@x.com", Duration.ofMinutes(5))).isTrue();
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "b@x.com", Duration.ofMinutes(5))).isFalse();
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "a@x.com", Duration.ofMinutes(5))).isTrue();
+        assertThat(manager.release(OWNED_EVENT, 1, 1, "b@x.com")).isFalse();
+        assertThat(manager.release(OWNED_EVENT, 1, 1, "a@x.com")).isTrue();
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "b@x.com", Duration.ofMinutes(5))).isTrue();
+
+        verify(kafkaTemplate, times(3)).send(eq("seat.leases"), eq(partition), eq("1:1:1"), notNull());
+        verify(kafkaTemplate, times(1)).send(eq("seat.leases"), eq(partition), eq("1:1:1"), isNull());
+        verify(auditSink, times(4)).record(any(), anyBoolean());
+        verify(replyingTemplate, never()).sendAndReceive(ArgumentMatchers.<ProducerRecord<String, String>>any());
+        assertThat(manager.activeLeases(OWNED_EVENT)).extracting(SeatLease::getUserEmail).containsExactly("b@x.com");
+    }
+
+    @Test
+    void testOneWinnerUnderContention() throws Exception {
+        int threads = 16;
+        int rounds = 200;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String email = "user" + t + "@x.com";
+            futures.add(executor.submit(() -> {
+                int won = 0;
+                for (int round = 1; round <= rounds; round++) {
+                    barrier.await();
+                    if (manager.acquire(OWNED_EVENT, 1, round, email, Duration.ofMinutes(5))) {
+                        won++;
+                    }
+                }
+                return won;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+
+        assertThat(total).isEqualTo(rounds);
+        assertThat(manager.activeLeases(OWNED_EVENT)).hasSize(rounds);
+    }
+
+    @Test
+    void testExpiredLeaseIsReleasedByTheWheel() throws Exception {
+        assertThat(manager.acquire(OWNED_EVENT, 2, 3, "a@x.com", Duration.ofMillis(20))).isTrue();
+        assertThat(manager.pendingTimers()).isEqualTo(1);
+
+        Thread.sleep(80);
+        manager.expire();
+
+        assertThat(manager.activeLeases(OWNED_EVENT)).isEmpty();
+        assertThat(manager.pendingTimers()).isZero();
+        verify(kafkaTemplate).send(eq("seat.leases"), anyInt(), eq("1:2:3"), isNull());
+        verify(listener).leaseChanged(any(), eq(false));
+        assertThat(manager.acquire(OWNED_EVENT, 2, 3, "b@x.com", Duration.ofMinutes(5))).isTrue();
+    }
+
+    @Test
+    void testFailedPublicationDropsTheLease() {
+        when(kafkaTemplate.send(anyString(), anyInt(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker indisponible")));
+
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "a@x.com", Duration.ofMinutes(5))).isFalse();
+        assertThat(manager.activeLeases(OWNED_EVENT)).isEmpty();
+        verify(auditSink, never()).record(any(), anyBoolean());
+    }
+
+    @Test
+    void testFailedRenewalRestoresThePreviousLease() {
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "a@x.com", Duration.ofMinutes(5))).isTrue();
+        SeatLease held = manager.activeLeases(OWNED_EVENT).get(0);
+        when(kafkaTemplate.send(anyString(), anyInt(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker indisponible")));
+
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "a@x.com", Duration.ofMinutes(10))).isFalse();
+
+        // Verrou d'origine conservé, republié par-dessus le renouvellement éventuellement parti
+        assertThat(manager.activeLeases(OWNED_EVENT)).containsExactly(held);
+        assertThat(manager.acquire(OWNED_EVENT, 1, 1, "b@x.com", Duration.ofMinutes(5))).isFalse();
+        verify(kafkaTemplate, times(3)).send(eq("seat.leases"), anyInt(), eq("1:1:1"), notNull());
+        verify(auditSink, times(1)).record(any(), anyBoolean());
+    }
+
+    @Test
+    void testRequestForAnotherOwnerIsForwarded() {
+        long remoteEvent = remoteEvent();
+        RequestReplyFuture<String, String, String> reply = new RequestReplyFuture<>();
+        reply.complete(new ConsumerRecord<>("seat.lease.replies", 0, 0L, String.valueOf(remoteEvent), "true"));
+        when(replyingTemplate.sendAndReceive(ArgumentMatchers.<ProducerRecord<String, String>>any())).thenReturn(reply);
+
+        assertThat(manager.acquire(remoteEvent, 1, 1, "a@x.com", Duration.ofMinutes(5))).isTrue();
+        verify(kafkaTemplate, never()).send(anyString(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void testReplicaAppliesOnlyForeignEventsAndRebuildReplacesState() throws Exception {
+        long remoteEvent = remoteEvent();
+        SeatLease lease = lease(remoteEvent, 4, 4, "a@x.com");
+
+        manager.applyReplica(lease.seatKey(), objectMapper.writeValueAsString(lease));
+        assertThat(manager.activeLeases(remoteEvent)).containsExactly(lease);
+        verify(listener).leaseChanged(lease, true);
+
+        manager.applyReplica(SeatLease.seatKey(OWNED_EVENT, 1, 1), objectMapper.writeValueAsString(lease(OWNED_EVENT, 1, 1, "a@x.com")));
+        assertThat(manager.activeLeases(OWNED_EVENT)).isEmpty();
+
+        manager.applyReplica(lease.seatKey(), null);
+        assertThat(manager.activeLeases(remoteEvent)).isEmpty();
+
+        // Reprise de la partition : dernière valeur par place, tombstones compris
+        SeatLease kept = lease(remoteEvent, 5, 5, "b@x.com");
+        int partition = manager.partitionFor(remoteEvent);
+        manager.own(partition, List.of(
+                record(partition, lease.seatKey(), objectMapper.writeValueAsString(lease)),
+                record(partition, kept.seatKey(), objectMapper.writeValueAsString(kept)),
+                record(partition, lease.seatKey(), null)));
+
+        assertThat(manager.owns(remoteEvent)).isTrue();
+        assertThat(manager.activeLeases(remoteEvent)).containsExactly(kept);
+        verify(listener).leasesReset(remoteEvent);
+        assertThat(manager.acquire(remoteEvent, 5, 5, "c@x.com", Duration.ofMinutes(5))).isFalse();
+    }
+
+    @Test
+    void testGroupIsAllOrNothing() {
+        assertThat(manager.acquire(OWNED_EVENT, 3, 3, "b@x.com", Duration.ofMinutes(5))).isTrue();
+
+        assertThat(manager.acquireGroup(OWNED_EVENT, List.of(seat(3, 4), seat(3, 2), seat(3, 3)), "a@x.com", "h1",
+                Duration.ofMinutes(5))).isFalse();
+        assertThat(manager.activeLeases(OWNED_EVENT)).extracting(SeatLease::seatKey).containsExactly("1:3:3");
+        // Places prises puis rendues : ni publiées ni signalées aux abonnés
+        verify(listener, times(1)).leaseChanged(any(), anyBoolean());
+        verify(kafkaTemplate, times(1)).send(anyString(), anyInt(), anyString(), any());
+
+        assertThat(manager.acquireGroup(OWNED_EVENT, List.of(seat(3, 4), seat(3, 2)), "a@x.com", "h1",
+                Duration.ofMinutes(5))).isTrue();
+        assertThat(manager.activeLeases(OWNED_EVENT)).filteredOn(lease -> "h1".equals(lease.getHoldId())).hasSize(2);
+        verify(listener, times(3)).leaseChanged(any(), eq(true));
+    }
+
+    @Test
+    void testGroupIsRenewedAndReleasedAsAUnit() {
+        assertThat(manager.acquireGroup(OWNED_EVENT, List.of(seat(1, 1), seat(1, 2), seat(1, 3)), "a@x.com", "h1",
+                Duration.ofMillis(500))).isTrue();
+
+        assertThat(manager.renewGroup(OWNED_EVENT, "h1", "b@x.com", Duration.ofMinutes(5))).isFalse();
+        assertThat(manager.renewGroup(OWNED_EVENT, "h1", "a@x.com", Duration.ofMinutes(5))).isTrue();
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(4).toMillis();
+        assertThat(manager.activeLeases(OWNED_EVENT)).hasSize(3).allMatch(lease -> lease.getExpiresAt() > expiresAt);
+
+        assertThat(manager.releaseGroup(OWNED_EVENT, "h1", "a@x.com")).isTrue();
+        assertThat(manager.activeLeases(OWNED_EVENT)).isEmpty();
+        assertThat(manager.releaseGroup(OWNED_EVENT, "h1", "a@x.com")).isFalse();
+    }
+
+    @Test
+    void testOverlappingGroupsNeverShareASeat() throws Exception {
+        // Chaque thread demande 4 places contiguës, dans le désordre ; les groupes voisins se chevauchent
+        int threads = 12;
+        int rounds = 100;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicIntegerArray winners = new AtomicIntegerArray(rounds);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t * 2 + 1;
+            String email = "user" + t + "@x.com";
+            futures.add(executor.submit(() -> {
+                for (int round = 1; round <= rounds; round++) {
+                    List<SeatInfo> group = new ArrayList<>(List.of(
+                            seat(round, first + 3), seat(round, first), seat(round, first + 2), seat(round, first + 1)));
+                    Collections.shuffle(group);
+                    barrier.await();
+                    if (manager.acquireGroup(OWNED_EVENT, group, email, email + "-" + round, Duration.ofMinutes(5))) {
+                        winners.incrementAndGet(round - 1);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<SeatLease> held = manager.activeLeases(OWNED_EVENT);
+        Map<String, List<SeatLease>> byHold = held.stream().collect(Collectors.groupingBy(SeatLease::getHoldId));
+        assertThat(byHold.values()).allMatch(group -> group.size() == 4);
+        assertThat(held.stream().map(SeatLease::seatKey).distinct().count()).isEqualTo(held.size());
+        for (int round = 0; round < rounds; round++) {
+            assertThat(winners.get(round)).as("rangée " + (round + 1)).isPositive();
+        }
+        assertThat(byHold).hasSize(IntStream.range(0, rounds).map(winners::get).sum());
+    }
+
+    @Test
+    void testLeaseIsPublishedAfterTheMapIsUpdated() {
+        List<List<SeatLease>> visibleWhenSent = new ArrayList<>();
+        when(kafkaTemplate.send(anyString(), anyInt(), anyString(), any())).thenAnswer(invocation -> {
+            visibleWhenSent.add(manager.activeLeases(OWNED_EVENT));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertThat(manager.acquire(OWNED_EVENT, 2, 2, "a@x.com", Duration.ofMinutes(5))).isTrue();
+
+        // Dans un compute, le nouveau verrou ne serait pas encore visible
+        assertThat(visibleWhenSent).hasSize(1);
+        assertThat(visibleWhenSent.get(0)).extracting(SeatLease::seatKey).containsExactly("1:2:2");
+    }
+
+    @Test
+    void testAssignedPartitionRejectsRequestsUntilRebuilt() throws Exception {
+        long remoteEvent = remoteEvent();
+        int partition = manager.partitionFor(remoteEvent);
+        TopicPartition leasesPartition = new TopicPartition("seat.leases", partition);
+        CountDownLatch rebuildStarted = new CountDownLatch(1);
+        CountDownLatch topicRead = new CountDownLatch(1);
+        @SuppressWarnings("unchecked")
+        Consumer<String, String> consumer = mock(Consumer.class);
+        when(consumer.endOffsets(any())).thenAnswer(invocation -> {
+            rebuildStarted.countDown();
+            topicRead.await();
+            return Map.of(leasesPartition, 0L);
+        });
+        when(consumerFactory.createConsumer(isNull(), anyString(), isNull(), any(Properties.class))).thenReturn(consumer);
+
+        // Le rééquilibrage n'attend pas la relecture
+        manager.onPartitionsAssigned(Map.of(new TopicPartition("seat.lease.requests", partition), 0L), null);
+        assertThat(rebuildStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(manager.isRebuilding(remoteEvent)).isTrue();
+        assertThat(manager.acquire(remoteEvent, 1, 1, "a@x.com", Duration.ofMinutes(5))).isFalse();
+        verify(replyingTemplate, never()).sendAndReceive(ArgumentMatchers.<ProducerRecord<String, String>>any());
+
+        topicRead.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!manager.owns(remoteEvent) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(manager.isRebuilding(remoteEvent)).isFalse();
+        assertThat(manager.acquire(remoteEvent, 1, 1, "a@x.com", Duration.ofMinutes(5))).isTrue();
+    }
+
+    @Test
+    void testPartitionRevokedDuringRebuildIsNotOwned() {
+        long remoteEvent = remoteEvent();
+        int partition = manager.partitionFor(remoteEvent);
+        TopicPartition requests = new TopicPartition("seat.lease.requests", partition);
+        @SuppressWarnings("unchecked")
+        Consumer<String, String> consumer = mock(Consumer.class);
+        when(consumer.endOffsets(any())).thenAnswer(invocation -> {
+            manager.onPartitionsRevoked(List.of(requests));
+            return Map.of(new TopicPartition("seat.leases", partition), 0L);
+        });
+        when(consumerFactory.createConsumer(isNull(), anyString(), isNull(), any(Properties.class))).thenReturn(consumer);
+        ReflectionTestUtils.setField(manager, "rebuildingPartitions", new ConcurrentHashMap<>(Map.of(partition, 7L)));
+
+        manager.rebuild(partition, 7L);
+
+        assertThat(manager.owns(remoteEvent)).isFalse();
+        assertThat(manager.isRebuilding(remoteEvent)).isFalse();
+    }
+
+    private long remoteEvent() {
+        long eventId = OWNED_EVENT + 1;
+        while (manager.owns(eventId)) {
+            eventId++;
+        }
+        return eventId;
+    }
+
+    private static SeatInfo seat(int row, int number) {
+        return SeatInfo.builder().row(row).number(number).build();
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, String key, String value) {
+        return new ConsumerRecord<>("seat.leases", partition, 0L, key, value);
+    }
+
+    private static SeatLease lease(Long eventId, int row, int number, String userEmail) {
+        return SeatLease.builder()
+                .eventId(eventId)
+                .row(row)
+                .number(number)
+                .userEmail(userEmail)
+                .expiresAt(System.currentTimeMillis() + 60000)
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contention sur une même place : à chaque manche, tous les threads tentent de verrouiller la même place
+ * et un seul doit l'obtenir. Mesure les verrous obtenus par seconde et le p99 d'une tentative.
+ * Même exercice pour des groupes de places qui se chevauchent : tout ou rien, sans interblocage.
+ * Exécuté seulement sur PostgreSQL (instruction ON CONFLICT) ; le comportement fonctionnel est couvert sur H2 par
+ * {@link SeatLockServiceDatabaseTest}. Par exemple :
+ * SEAT_LOCK_BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/invitationdb mvn test -Dtest=SeatLockContentionBenchmarkTest
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "SEAT_LOCK_BENCHMARK_DB_URL", matches = ".+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SeatLockService.class, SeatLockContentionBenchmarkTest.MockConfig.class})
+class SeatLockContentionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatLockContentionBenchmarkTest.class);
+    // Événement réservé au banc d'essai : seules ses lignes sont supprimées
+    private static final long EVENT_ID = -22L;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        SeatMapEngine seatMapEngine() {
+            return Mockito.mock(SeatMapEngine.class);
+        }
+        @Bean
+        SeatLeaseManager seatLeaseManager() {
+            return Mockito.mock(SeatLeaseManager.class);
+        }
+        @Bean
+        ClusterJobRunner clusterJobRunner() {
+            return Mockito.mock(ClusterJobRunner.class);
+        }
+    }
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("SEAT_LOCK_BENCHMARK_DB_URL"));
+        registry.add("spring.datasource.username", () -> env("SEAT_LOCK_BENCHMARK_DB_USER", "postgres"));
+        registry.add("spring.datasource.password", () -> env("SEAT_LOCK_BENCHMARK_DB_PASSWORD", "postgres"));
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "40");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private SeatLockService seatLockService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM temporary_seat_lock WHERE event_id = ?", EVENT_ID);
+    }
+
+    @Test
+    void testOneWinnerPerSeatUnderContention() throws Exception {
+        int threads = 32;
+        int rounds = 300;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicIntegerArray winners = new AtomicIntegerArray(rounds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String email = "user" + t + "@example.com";
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[rounds];
+                for (int round = 0; round < rounds; round++) {
+                    barrier.await();
+                    long start = System.nanoTime();
+                    if (seatLockService.lockSeat(EVENT_ID, 1, round + 1, email)) {
+                        winners.incrementAndGet(round);
+                    }
+                    latencies[round] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        long[] latencies = new long[threads * rounds];
+        int i = 0;
+        for (Future<long[]> future : futures) {
+            for (long latency : future.get()) {
+                latencies[i++] = latency;
+            }
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        log.info("{} tentatives ({} threads, {} places) en {} s : {} verrous obtenus/s, {} tentatives/s, p50 {} ms, p99 {} ms",
+                latencies.length, threads, rounds, String.format("%.2f", seconds),
+                String.format("%.0f", rounds / seconds), String.format("%.0f", latencies.length / seconds),
+                String.format("%.2f", latencies[latencies.length / 2] / 1e6),
+                String.format("%.2f", latencies[(int) (latencies.length * 0.99)] / 1e6));
+
+        for (int round = 0; round < rounds; round++) {
+            assertEquals(1, winners.get(round), "place " + (round + 1));
+        }
+        assertEquals(rounds, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM temporary_seat_lock WHERE event_id = ?", Integer.class, EVENT_ID));
+    }
+
+    @Test
+    void testOverlappingGroupHoldsAreAllOrNothing() throws Exception {
+        // Groupes de 4 places contiguës, voisins chevauchants, demandés dans le désordre
+        int threads = 16;
+        int rounds = 100;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicIntegerArray winners = new AtomicIntegerArray(rounds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t * 2 + 1;
+            String email = "user" + t + "@example.com";
+            futures.add(executor.submit(() -> {
+                for (int round = 1; round <= rounds; round++) {
+                    List<SeatInfo> group = new ArrayList<>(List.of(seat(round, first + 3), seat(round, first),
+                            seat(round, first + 2), seat(round, first + 1)));
+                    Collections.shuffle(group);
+                    barrier.await();
+                    if (seatLockService.holdSeats(EVENT_ID, group, email) != null) {
+                        winners.incrementAndGet(round - 1);
+                    }
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executor.shutdown();
+
+        int held = IntStream.range(0, rounds).map(winners::get).sum();
+        log.info("{} demandes de groupes ({} threads) en {} s : {} groupes obtenus",
+                threads * rounds, threads, String.format("%.2f", seconds), held);
+        for (int round = 0; round < rounds; round++) {
+            assertTrue(winners.get(round) > 0, "rangée " + (round + 1));
+        }
+        assertEquals(held * 4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM temporary_seat_lock WHERE event_id = ?", Integer.class, EVENT_ID));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT hold_id FROM temporary_seat_lock WHERE event_id = ? " +
+                "GROUP BY hold_id HAVING COUNT(*) <> 4) partial", Integer.class, EVENT_ID));
+    }
+
+    private static SeatInfo seat(int row, int number) {
+        return SeatInfo.builder().row(row).number(number).build();
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
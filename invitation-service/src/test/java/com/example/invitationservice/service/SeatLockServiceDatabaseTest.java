@@ -0,0 +1,219 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import com.example.invitationservice.model.SeatHoldResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verrous de places et groupes de places en base (mode par défaut, seat-lease.enabled=false) sur H2 : sans ON CONFLICT,
+ * la prise passe par la reprise ou le renouvellement puis l'insertion si la place est libre
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:seatlocks;DB_CLOSE_DELAY=-1;NON_KEYWORDS=ROW")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SeatLockService.class, SeatLockServiceDatabaseTest.MockConfig.class})
+class SeatLockServiceDatabaseTest {
+
+    private static final long EVENT_ID = 22L;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        SeatMapEngine seatMapEngine() {
+            return Mockito.mock(SeatMapEngine.class);
+        }
+        @Bean
+        SeatLeaseManager seatLeaseManager() {
+            return Mockito.mock(SeatLeaseManager.class);
+        }
+        @Bean
+        ClusterJobRunner clusterJobRunner() {
+            return Mockito.mock(ClusterJobRunner.class);
+        }
+    }
+
+    @Autowired
+    private SeatLockService seatLockService;
+    @Autowired
+    private SeatMapEngine seatMapEngine;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM temporary_seat_lock");
+        Mockito.reset(seatMapEngine);
+    }
+
+    @Test
+    void testHolderRenewsAndExpiredLockIsTakenOver() {
+        assertThat(seatLockService.lockSeat(EVENT_ID, 2, 1, "a@example.com")).isTrue();
+        assertThat(seatLockService.lockSeat(EVENT_ID, 2, 1, "a@example.com")).isTrue();
+        assertThat(seatLockService.lockSeat(EVENT_ID, 2, 1, "b@example.com")).isFalse();
+
+        jdbcTemplate.update("UPDATE temporary_seat_lock SET expiry_time = ? WHERE event_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), EVENT_ID);
+        assertThat(seatLockService.lockSeat(EVENT_ID, 2, 1, "b@example.com")).isTrue();
+        assertThat(holders()).containsExactly("b@example.com");
+    }
+
+    @Test
+    void testOnlyTheHolderReleasesTheSeat() {
+        assertThat(seatLockService.lockSeat(EVENT_ID, 1, 1, "a@example.com")).isTrue();
+
+        seatLockService.releaseSeat(EVENT_ID, 1, 1, "b@example.com");
+        assertThat(holders()).containsExactly("a@example.com");
+        Mockito.verify(seatMapEngine, Mockito.never()).seatUnlocked(EVENT_ID, 1, 1);
+
+        seatLockService.releaseSeat(EVENT_ID, 1, 1, "a@example.com");
+        assertThat(holders()).isEmpty();
+        Mockito.verify(seatMapEngine).seatUnlocked(EVENT_ID, 1, 1);
+        assertThat(seatLockService.lockSeat(EVENT_ID, 1, 1, "b@example.com")).isTrue();
+    }
+
+    @Test
+    void testOneWinnerPerSeatUnderContention() throws Exception {
+        int threads = 8;
+        int rounds = 20;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicIntegerArray winners = new AtomicIntegerArray(rounds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String email = "user" + t + "@example.com";
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        barrier.await();
+                        if (seatLockService.lockSeat(EVENT_ID, 1, round + 1, email)) {
+                            winners.incrementAndGet(round);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            assertThat(winners.get(round)).as("place " + (round + 1)).isEqualTo(1);
+        }
+        assertThat(holders()).hasSize(rounds);
+    }
+
+    @Test
+    void testGroupHoldIsRolledBackWhenALaterSeatIsTaken() {
+        assertThat(seatLockService.lockSeat(EVENT_ID, 3, 2, "a@example.com")).isTrue();
+        Mockito.reset(seatMapEngine);
+
+        // (3,1) est pris en premier, puis (3,2) est refusé : la transaction du groupe est annulée
+        assertThat(seatLockService.holdSeats(EVENT_ID, List.of(seat(3, 2), seat(3, 1)), "b@example.com")).isNull();
+
+        assertThat(holders()).containsExactly("a@example.com");
+        Mockito.verify(seatMapEngine, Mockito.never()).seatLocked(Mockito.any());
+        assertThat(seatLockService.lockSeat(EVENT_ID, 3, 1, "c@example.com")).isTrue();
+    }
+
+    @Test
+    void testGroupHoldIsRenewedAndReleasedAsAUnit() {
+        SeatHoldResponse hold = seatLockService.holdSeats(EVENT_ID, List.of(seat(3, 2), seat(3, 1)), "a@example.com");
+        assertThat(hold).isNotNull();
+        assertThat(hold.getSeats()).containsExactly(seat(3, 1), seat(3, 2));
+        assertThat(jdbcTemplate.queryForList("SELECT hold_id FROM temporary_seat_lock WHERE event_id = ?",
+                String.class, EVENT_ID)).containsOnly(hold.getHoldId()).hasSize(2);
+
+        LocalDateTime nearExpiry = LocalDateTime.now().plusSeconds(30);
+        jdbcTemplate.update("UPDATE temporary_seat_lock SET expiry_time = ? WHERE event_id = ?",
+                Timestamp.valueOf(nearExpiry), EVENT_ID);
+        assertThat(seatLockService.renewHold(EVENT_ID, hold.getHoldId(), "b@example.com")).isFalse();
+        assertThat(seatLockService.renewHold(EVENT_ID, hold.getHoldId(), "a@example.com")).isTrue();
+        assertThat(jdbcTemplate.queryForList("SELECT expiry_time FROM temporary_seat_lock WHERE event_id = ?",
+                Timestamp.class, EVENT_ID)).allMatch(expiry -> expiry.toLocalDateTime().isAfter(nearExpiry.plusMinutes(1)));
+
+        assertThat(seatLockService.releaseHold(EVENT_ID, hold.getHoldId(), "b@example.com")).isFalse();
+        assertThat(seatLockService.releaseHold(EVENT_ID, hold.getHoldId(), "a@example.com")).isTrue();
+        assertThat(holders()).isEmpty();
+        Mockito.verify(seatMapEngine).seatUnlocked(EVENT_ID, 3, 1);
+        Mockito.verify(seatMapEngine).seatUnlocked(EVENT_ID, 3, 2);
+    }
+
+    @Test
+    void testOverlappingGroupHoldsAreAllOrNothing() throws Exception {
+        // Groupes de 4 places contiguës, voisins chevauchants, demandés dans le désordre
+        int threads = 6;
+        int rounds = 10;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicInteger held = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * 2 + 1;
+                String email = "user" + t + "@example.com";
+                futures.add(executor.submit(() -> {
+                    for (int round = 1; round <= rounds; round++) {
+                        List<SeatInfo> group = new ArrayList<>(List.of(seat(round, first + 3), seat(round, first),
+                                seat(round, first + 2), seat(round, first + 1)));
+                        Collections.shuffle(group);
+                        barrier.await();
+                        if (seatLockService.holdSeats(EVENT_ID, group, email) != null) {
+                            held.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(held.get()).isPositive();
+        assertThat(holders()).hasSize(held.get() * 4);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT hold_id FROM temporary_seat_lock WHERE event_id = ? " +
+                "GROUP BY hold_id HAVING COUNT(*) <> 4) incomplete", Integer.class, EVENT_ID)).isZero();
+    }
+
+    private static SeatInfo seat(int row, int number) {
+        return SeatInfo.builder().row(row).number(number).build();
+    }
+
+    private List<String> holders() {
+        return jdbcTemplate.queryForList("SELECT user_email FROM temporary_seat_lock WHERE event_id = ?",
+                String.class, EVENT_ID);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.invitationservice.service;
+
+import com.example.invitationservice.entity.SeatInfo;
+import com.example.invitationservice.entity.TemporarySeatLock;
+import com.example.invitationservice.model.InvitationLifecycleMessage;
+import com.example.invitationservice.model.SeatLease;
+import com.example.invitationservice.model.SeatMapResponse;
+import com.example.invitationservice.repository.InvitationRepository;
+import com.example.invitationservice.repository.TemporarySeatLockRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatMapEngineTest {
+    @Mock
+    private InvitationRepository invitationRepository;
+    @Mock
+    private TemporarySeatLockRepository lockRepository;
+    @Mock
+    private SeatLeaseManager seatLeaseManager;
+
+    private SeatMapEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        engine = new SeatMapEngine(invitationRepository, lockRepository, new ObjectMapper(), seatLeaseManager,
+                new SeatAllocator(0.0, 1.0, 1.0));
+        ReflectionTestUtils.setField(engine, "maxEvents", 2);
+        ReflectionTestUtils.setField(engine, "ttlMs", 300000L);
+        ReflectionTestUtils.setField(engine, "lockRefreshMs", 300000L);
+    }
+
+    @Test
+    void testLoadsOnceAndAnswersFromBitmaps() {
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(List.of(seat(1, 2), seat(3, 10)));
+        when(lockRepository.findByEventIdAndExpiryTimeAfter(eq(1L), any()))
+                .thenReturn(List.of(lock(1L, 2, 5, "other@x.com", 5)));
+
+        assertThat(engine.isSeatOccupied(1L, 1, 2)).isTrue();
+        assertThat(engine.isSeatOccupied(1L, 3, 10)).isTrue();
+        assertThat(engine.isSeatOccupied(1L, 2, 2)).isFalse();
+        assertThat(engine.isSeatOccupied(1L, 40, 1)).isFalse();
+        assertThat(engine.isSeatLocked(1L, 2, 5, "me@x.com")).isTrue();
+        assertThat(engine.isSeatLocked(1L, 2, 5, "other@x.com")).isFalse();
+        assertThat(engine.getOccupiedSeats(1L)).containsExactly(seat(1, 2), seat(2, 5), seat(3, 10));
+
+        verify(invitationRepository, times(1)).findOccupiedSeats(1L);
+    }
+
+    @Test
+    void testLocalChangesAreAppliedWithoutReload() {
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(List.of(seat(1, 1)));
+        engine.isSeatOccupied(1L, 1, 1);
+
+        engine.seatConfirmed(1L, seat(2, 30));
+        engine.seatReleased(1L, seat(1, 1));
+        engine.seatLocked(lock(1L, 1, 3, "other@x.com", 5));
+
+        assertThat(engine.isSeatOccupied(1L, 2, 30)).isTrue();
+        assertThat(engine.isSeatOccupied(1L, 1, 1)).isFalse();
+        assertThat(engine.isSeatLocked(1L, 1, 3, "me@x.com")).isTrue();
+
+        engine.seatUnlocked(1L, 1, 3);
+        assertThat(engine.isSeatLocked(1L, 1, 3, "me@x.com")).isFalse();
+        verify(invitationRepository, times(1)).findOccupiedSeats(1L);
+    }
+
+    @Test
+    void testExpiredLockIsIgnored() {
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(List.of());
+        engine.isSeatOccupied(1L, 1, 1);
+        engine.seatLocked(lock(1L, 1, 1, "other@x.com", -1));
+
+        assertThat(engine.isSeatLocked(1L, 1, 1, "me@x.com")).isFalse();
+        assertThat(engine.getOccupiedSeats(1L)).isEmpty();
+    }
+
+    @Test
+    void testSeatMapIsRunLengthEncoded() {
+        // Rangée 1 : C C L F, rangée 2 : F F F C
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(List.of(seat(1, 1), seat(1, 2), seat(2, 4)));
+        when(lockRepository.findByEventIdAndExpiryTimeAfter(eq(1L), any()))
+                .thenReturn(List.of(lock(1L, 1, 3, "other@x.com", 5)));
+
+        SeatMapResponse seatMap = engine.getSeatMap(1L);
+
+        assertThat(seatMap.getRows()).isEqualTo(2);
+        assertThat(seatMap.getSeatsPerRow()).isEqualTo(4);
+        assertThat(seatMap.getRuns()).containsExactly(2, SeatMap.CONFIRMED, 1, SeatMap.LOCKED, 4, SeatMap.FREE, 1, SeatMap.CONFIRMED);
+        assertThat(seatMap.getConfirmedCount()).isEqualTo(3);
+        assertThat(seatMap.getLockedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testWiderRowKeepsExistingSeats() {
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(List.of(seat(2, 3)));
+        engine.isSeatOccupied(1L, 2, 3);
+
+        engine.seatConfirmed(1L, seat(1, 50));
+
+        assertThat(engine.isSeatOccupied(1L, 2, 3)).isTrue();
+        assertThat(engine.isSeatOccupied(1L, 1, 50)).isTrue();
+        assertThat(engine.isSeatOccupied(1L, 1, 3)).isFalse();
+    }
+
+    @Test
+    void testTenThousandSeatVenueStaysCompact() {
+        List<SeatInfo> seats = new ArrayList<>();
+        for (int row = 1; row <= 100; row++) {
+            for (int number = 1; number <= 100; number += 2) {
+                seats.add(seat(row, number));
+            }
+        }
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(seats);
+
+        assertThat(engine.getOccupiedSeats(1L)).hasSize(5000);
+        SeatMap map = (SeatMap) ReflectionTestUtils.invokeMethod(engine, "acquire", 1L);
+        assertThat(map.bitmapBytes()).isLessThan(4096);
+    }
+
+    @Test
+    void testRemoteCancellationInvalidatesAndLeastRecentEventIsEvicted() {
+        when(invitationRepository.findOccupiedSeats(any())).thenReturn(List.of(seat(1, 1)));
+        engine.isSeatOccupied(1L, 1, 1);
+
+        engine.onLifecycle(InvitationLifecycleMessage.builder()
+                .type(InvitationLifecycleMessage.Type.UPSERTED).eventId(1L).status("CANCELLED").build());
+        engine.isSeatOccupied(1L, 1, 1);
+        verify(invitationRepository, times(2)).findOccupiedSeats(1L);
+
+        engine.isSeatOccupied(2L, 1, 1);
+        engine.isSeatOccupied(3L, 1, 1);
+        assertThat(engine.getLoadedEventCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testLeasesFromManagerReplaceDatabaseLocks() {
+        when(seatLeaseManager.isEnabled()).thenReturn(true);
+        when(seatLeaseManager.activeLeases(1L)).thenReturn(List.of(lease(1L, 1, 4, "other@x.com")));
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(List.of());
+
+        assertThat(engine.isSeatLocked(1L, 1, 4, "me@x.com")).isTrue();
+        engine.leaseChanged(lease(1L, 1, 4, "other@x.com"), false);
+        engine.leaseChanged(lease(1L, 2, 2, "other@x.com"), true);
+
+        assertThat(engine.isSeatLocked(1L, 1, 4, "me@x.com")).isFalse();
+        assertThat(engine.isSeatLocked(1L, 2, 2, "me@x.com")).isTrue();
+        verify(lockRepository, never()).findByEventIdAndExpiryTimeAfter(any(), any());
+
+        engine.leasesReset(1L);
+        assertThat(engine.getLoadedEventCount()).isZero();
+    }
+
+    @Test
+    void testBestSeatsComeFromTheDefaultVenueLayout() {
+        ReflectionTestUtils.setField(engine, "defaultRows", 2);
+        ReflectionTestUtils.setField(engine, "defaultSeatsPerRow", 5);
+        when(invitationRepository.findOccupiedSeats(1L)).thenReturn(List.of(seat(1, 3)));
+
+        assertThat(engine.findBestSeats(1L, 1)).containsExactly(seat(1, 2));
+        assertThat(engine.findBestSeats(1L, 3)).containsExactly(seat(2, 2), seat(2, 3), seat(2, 4));
+
+        engine.seatLocked(lock(1L, 2, 3, "other@x.com", 5));
+        assertThat(engine.findBestSeats(1L, 3)).isEmpty();
+    }
+
+    @Test
+    void testChangeReceivedDuringLoadIsReplayedOnTheLoadedMap() {
+        // Requête de chargement lente : une confirmation arrive avant qu'elle ne réponde
+        when(invitationRepository.findOccupiedSeats(1L)).thenAnswer(invocation -> {
+            engine.seatConfirmed(1L, seat(2, 2));
+            return List.of(seat(1, 1));
+        });
+
+        assertThat(engine.isSeatOccupied(1L, 1, 1)).isTrue();
+        assertThat(engine.isSeatOccupied(1L, 2, 2)).isTrue();
+        verify(invitationRepository, times(1)).findOccupiedSeats(1L);
+    }
+
+    @Test
+    void testMapInvalidatedDuringLoadIsNotKept() {
+        when(invitationRepository.findOccupiedSeats(1L))
+                .thenAnswer(invocation -> {
+                    engine.invalidate(1L);
+                    return List.of(seat(1, 1));
+                })
+                .thenReturn(List.of());
+
+        assertThat(engine.isSeatOccupied(1L, 1, 1)).isTrue();
+        assertThat(engine.getLoadedEventCount()).isZero();
+        assertThat(engine.isSeatOccupied(1L, 1, 1)).isFalse();
+        verify(invitationRepository, times(2)).findOccupiedSeats(1L);
+    }
+
+    private static SeatLease lease(Long eventId, int row, int number, String userEmail) {
+        return SeatLease.builder()
+                .eventId(eventId)
+                .row(row)
+                .number(number)
+                .userEmail(userEmail)
+                .expiresAt(System.currentTimeMillis() + 60000)
+                .build();
+    }
+
+    private static SeatInfo seat(int row, int number) {
+        return SeatInfo.builder().row(row).number(number).build();
+    }
+
+    private static TemporarySeatLock lock(Long eventId, int row, int number, String userEmail, int minutes) {
+        return TemporarySeatLock.builder()
+                .eventId(eventId)
+                .row(row)
+                .number(number)
+                .userEmail(userEmail)
+                .lockTime(LocalDateTime.now())
+                .expiryTime(LocalDateTime.now().plusMinutes(minutes))
+                .build();
+    }
+}
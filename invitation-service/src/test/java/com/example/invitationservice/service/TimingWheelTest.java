@@ -0,0 +1,66 @@
+package com.example.invitationservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void testItemsExpireAtTheirTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.add(250, "a");
+        wheel.add(430, "b");
+        List<String> expired = new ArrayList<>();
+
+        assertThat(wheel.advance(199, expired::add)).isZero();
+        assertThat(wheel.advance(200, expired::add)).isEqualTo(1);
+        assertThat(expired).containsExactly("a");
+        assertThat(wheel.advance(450, expired::add)).isEqualTo(1);
+        assertThat(expired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void testDistantDeadlinesCascadeFromOverflowWheels() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 0);
+        for (int deadline = 10; deadline <= 2000; deadline += 10) {
+            assertThat(wheel.add(deadline, deadline)).isTrue();
+        }
+        assertThat(wheel.size()).isEqualTo(200);
+
+        List<Integer> expired = new ArrayList<>();
+        for (long now = 0; now <= 2000; now += 10) {
+            long current = now;
+            wheel.advance(now, item -> {
+                assertThat((long) item).isLessThanOrEqualTo(current).isGreaterThan(current - 10);
+                expired.add(item);
+            });
+        }
+        assertThat(expired).hasSize(200).isSorted();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void testDueDeadlineIsRejected() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1000);
+
+        assertThat(wheel.add(1050, "due")).isFalse();
+        assertThat(wheel.add(1100, "next")).isTrue();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testLargeJumpExpiresEverything() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 16, 0);
+        for (int i = 1; i <= 1000; i++) {
+            wheel.add(i * 37L, i);
+        }
+
+        assertThat(wheel.advance(1000 * 37L, item -> { })).isEqualTo(1000);
+        assertThat(wheel.size()).isZero();
+    }
+}
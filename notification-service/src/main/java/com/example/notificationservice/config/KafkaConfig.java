@@ -49,6 +49,8 @@ public class KafkaConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Rappels publiés par le relais de l'outbox d'event-service dans des transactions Kafka
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
         
         // Configuration pour la gestion des erreurs
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
@@ -1,6 +1,7 @@
 package com.example.notificationservice.controller;
 
 import com.example.notificationservice.service.MonitoringService;
+import com.example.notificationservice.service.ReminderBatchTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +16,7 @@ import java.util.Map;
 public class MetricsController {
 
     private final MonitoringService monitoringService;
+    private final ReminderBatchTracker reminderBatchTracker;
 
     /**
      * Obtenir toutes les métriques Resilience4j
@@ -56,6 +58,15 @@ public class MetricsController {
         return ResponseEntity.ok(metrics);
     }
 
+    /**
+     * Obtenir le suivi des rappels envoyés par lots
+     */
+    @GetMapping("/reminder-batches")
+    public ResponseEntity<Map<String, Object>> getReminderBatchMetrics() {
+        log.info("Demande des métriques des rappels par lots");
+        return ResponseEntity.ok(reminderBatchTracker.getMetrics());
+    }
+
     /**
      * Obtenir le statut de santé des services
      */
@@ -21,6 +21,7 @@ public class NotificationService {
     private final EmailRetryService emailRetryService;
     private final KafkaRetryService kafkaRetryService;
     private final ObjectMapper objectMapper;
+    private final ReminderBatchTracker reminderBatchTracker;
 
     @KafkaListener(topics = "${kafka.topics.invitation-responded}")
     public void handleInvitationResponse(String message) {
@@ -59,12 +60,25 @@ public class NotificationService {
         }
     }
 
-    @KafkaListener(topics = "${kafka.topics.event-reminder}")
+    /**
+     * Un message = un lot de destinataires d'un rappel. Les lots sont répartis sur les partitions du topic
+     * (clé eventId-index) et consommés en parallèle par plusieurs threads.
+     */
+    @KafkaListener(topics = "${kafka.topics.event-reminder}", concurrency = "${notification.reminder.concurrency:3}")
     public void handleEventReminder(String message) {
         try {
-            log.info("Réception d'un message de rappel d'événement: {}", message);
-            
             EventReminderMessage reminderMessage = objectMapper.readValue(message, EventReminderMessage.class);
+            log.info("Réception du lot {}/{} du rappel de l'événement {} ({} destinataire(s), batch {})",
+                    reminderMessage.getChunkIndex() != null ? reminderMessage.getChunkIndex() + 1 : 1,
+                    reminderMessage.getChunkCount() != null ? reminderMessage.getChunkCount() : 1,
+                    reminderMessage.getEventId(), reminderMessage.getParticipantEmails().size(),
+                    reminderMessage.getBatchId());
+
+            if (reminderBatchTracker.isChunkSent(reminderMessage)) {
+                log.info("Lot {} du batch {} déjà envoyé, message ignoré",
+                        reminderMessage.getChunkIndex(), reminderMessage.getBatchId());
+                return;
+            }
             
             // Préparer le contenu de l'email
                 String subject = String.format("Rappel - %s commence dans 1 heure", reminderMessage.getEventTitle());
@@ -92,10 +106,12 @@ public class NotificationService {
             batchFuture.whenComplete((result, throwable) -> {
                 if (throwable != null) {
                     log.error("Échec de l'envoi en batch des rappels pour l'événement : {}", reminderMessage.getEventTitle(), throwable);
+                    reminderBatchTracker.onChunkFailed(reminderMessage);
                     sendToDeadLetterQueue("event-reminder", message, throwable);
                 } else {
                     log.info("Batch de {} emails de rappel envoyé avec succès pour l'événement : {}", 
                             participantEmails.length, reminderMessage.getEventTitle());
+                    reminderBatchTracker.onChunkSent(reminderMessage);
             }
             });
             
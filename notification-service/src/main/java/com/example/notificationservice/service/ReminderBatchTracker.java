@@ -0,0 +1,201 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.model.EventReminderMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suivi de l'envoi des rappels découpés en lots. Chaque lot est identifié par (batchId, chunkIndex) ;
+ * un batch est terminé quand tous ses lots ont été traités, avec ou sans succès.
+ * Un lot déjà envoyé avec succès et relivré par Kafka n'est pas renvoyé, y compris après la fin du batch :
+ * les batchs terminés restent connus, dans la limite de notification.reminder.completed-batch-max entrées
+ * et de notification.reminder.completed-batch-ttl-minutes.
+ */
+@Service
+@Slf4j
+public class ReminderBatchTracker {
+
+    private final Map<String, BatchProgress> batches = new ConcurrentHashMap<>();
+    // Batchs terminés, par ordre de fin : le plus ancien est oublié en premier
+    private final LinkedHashMap<String, BatchProgress> completed = new LinkedHashMap<>();
+    private final AtomicLong completedBatches = new AtomicLong();
+    private final AtomicLong failedChunks = new AtomicLong();
+
+    // Un batch dont des lots n'arrivent jamais est oublié passé ce délai
+    @Value("${notification.reminder.batch-ttl-minutes:120}")
+    private long batchTtlMinutes = 120;
+
+    @Value("${notification.reminder.completed-batch-ttl-minutes:1440}")
+    private long completedBatchTtlMinutes = 1440;
+
+    @Value("${notification.reminder.completed-batch-max:10000}")
+    private int completedBatchMax = 10000;
+
+    /**
+     * Le lot a-t-il déjà été envoyé avec succès ?
+     */
+    public boolean isChunkSent(EventReminderMessage message) {
+        if (message.getBatchId() == null) {
+            return false;
+        }
+        BatchProgress progress = batches.get(message.getBatchId());
+        if (progress == null) {
+            progress = completedProgress(message.getBatchId());
+        }
+        return progress != null && progress.isSent(chunkIndex(message));
+    }
+
+    public void onChunkSent(EventReminderMessage message) {
+        record(message, true);
+    }
+
+    public void onChunkFailed(EventReminderMessage message) {
+        failedChunks.incrementAndGet();
+        record(message, false);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("inFlightBatches", batches.size());
+        synchronized (completed) {
+            metrics.put("rememberedBatches", completed.size());
+        }
+        metrics.put("completedBatches", completedBatches.get());
+        metrics.put("failedChunks", failedChunks.get());
+        return metrics;
+    }
+
+    private void record(EventReminderMessage message, boolean sent) {
+        // Message sans découpage (ancien format) : rien à suivre
+        if (message.getBatchId() == null) {
+            return;
+        }
+        evictExpired();
+        int recipients = message.getParticipantEmails() != null ? message.getParticipantEmails().size() : 0;
+        // Lot relivré d'un batch terminé (lot en échec renvoyé avec succès) : seul son état est mis à jour
+        BatchProgress done = completedProgress(message.getBatchId());
+        if (done != null) {
+            done.record(chunkIndex(message), sent, recipients);
+            return;
+        }
+        int chunkCount = message.getChunkCount() != null ? message.getChunkCount() : 1;
+        BatchProgress progress = batches.computeIfAbsent(message.getBatchId(), id -> new BatchProgress(chunkCount));
+        if (!progress.record(chunkIndex(message), sent, recipients)) {
+            return;
+        }
+        // Connu comme terminé avant de quitter les batchs en cours : un lot relivré entre-temps reste reconnu
+        remember(message.getBatchId(), progress);
+        if (batches.remove(message.getBatchId(), progress)) {
+            completedBatches.incrementAndGet();
+            log.info("Rappel de l'événement {} terminé (batch {}): {} lot(s), {}/{} destinataire(s) notifié(s), {} lot(s) en échec",
+                    message.getEventId(), message.getBatchId(), chunkCount, progress.sentRecipients(),
+                    message.getTotalRecipients(), progress.failedCount());
+        }
+    }
+
+    private BatchProgress completedProgress(String batchId) {
+        synchronized (completed) {
+            return completed.get(batchId);
+        }
+    }
+
+    private void remember(String batchId, BatchProgress progress) {
+        synchronized (completed) {
+            progress.markCompleted();
+            completed.put(batchId, progress);
+            Iterator<BatchProgress> oldest = completed.values().iterator();
+            while (completed.size() > completedBatchMax && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+    }
+
+    private void evictExpired() {
+        long threshold = System.currentTimeMillis() - batchTtlMinutes * 60_000;
+        batches.entrySet().removeIf(entry -> {
+            if (entry.getValue().createdAtMillis() < threshold) {
+                log.warn("Batch de rappel {} abandonné: lots manquants après {} min", entry.getKey(), batchTtlMinutes);
+                return true;
+            }
+            return false;
+        });
+        long completedThreshold = System.currentTimeMillis() - completedBatchTtlMinutes * 60_000;
+        synchronized (completed) {
+            Iterator<BatchProgress> oldest = completed.values().iterator();
+            while (oldest.hasNext() && oldest.next().completedAtMillis() < completedThreshold) {
+                oldest.remove();
+            }
+        }
+    }
+
+    private static int chunkIndex(EventReminderMessage message) {
+        return message.getChunkIndex() != null ? message.getChunkIndex() : 0;
+    }
+
+    /**
+     * Lots traités d'un batch : un lot en échec peut passer en succès à la relivraison, pas l'inverse
+     */
+    private static final class BatchProgress {
+        private final int chunkCount;
+        private final long createdAtMillis = System.currentTimeMillis();
+        private volatile long completedAtMillis;
+        private final BitSet sent = new BitSet();
+        private final BitSet failed = new BitSet();
+        private long sentRecipients;
+
+        private BatchProgress(int chunkCount) {
+            this.chunkCount = chunkCount;
+        }
+
+        /**
+         * @return true si ce lot termine le batch
+         */
+        synchronized boolean record(int chunkIndex, boolean success, int recipients) {
+            if (sent.get(chunkIndex)) {
+                return false;
+            }
+            if (success) {
+                failed.clear(chunkIndex);
+                sent.set(chunkIndex);
+                sentRecipients += recipients;
+            } else {
+                failed.set(chunkIndex);
+            }
+            return sent.cardinality() + failed.cardinality() == chunkCount;
+        }
+
+        synchronized boolean isSent(int chunkIndex) {
+            return sent.get(chunkIndex);
+        }
+
+        synchronized long sentRecipients() {
+            return sentRecipients;
+        }
+
+        synchronized int failedCount() {
+            return failed.cardinality();
+        }
+
+        long createdAtMillis() {
+            return createdAtMillis;
+        }
+
+        void markCompleted() {
+            completedAtMillis = System.currentTimeMillis();
+        }
+
+        long completedAtMillis() {
+            return completedAtMillis;
+        }
+    }
+}
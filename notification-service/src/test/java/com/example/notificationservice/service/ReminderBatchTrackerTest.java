@@ -0,0 +1,96 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.model.EventReminderMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderBatchTrackerTest {
+
+    private final ReminderBatchTracker tracker = new ReminderBatchTracker();
+
+    @Test
+    void testBatchCompletesWhenAllChunksAreProcessed() {
+        tracker.onChunkSent(chunk(0));
+        tracker.onChunkFailed(chunk(1));
+        assertEquals(1, tracker.getMetrics().get("inFlightBatches"));
+
+        tracker.onChunkSent(chunk(2));
+
+        assertEquals(0, tracker.getMetrics().get("inFlightBatches"));
+        assertEquals(1L, tracker.getMetrics().get("completedBatches"));
+        assertEquals(1L, tracker.getMetrics().get("failedChunks"));
+    }
+
+    @Test
+    void testRedeliveredChunkIsRecognisedAsSent() {
+        tracker.onChunkSent(chunk(0));
+
+        assertTrue(tracker.isChunkSent(chunk(0)));
+        assertFalse(tracker.isChunkSent(chunk(1)));
+    }
+
+    @Test
+    void testRedeliveryAfterBatchCompletionIsStillRecognised() {
+        tracker.onChunkSent(chunk(0));
+        tracker.onChunkFailed(chunk(1));
+        tracker.onChunkSent(chunk(2));
+        assertEquals(0, tracker.getMetrics().get("inFlightBatches"));
+
+        assertTrue(tracker.isChunkSent(chunk(0)));
+        assertFalse(tracker.isChunkSent(chunk(1)));
+
+        // Le lot en échec renvoyé avec succès ne rouvre pas le batch
+        tracker.onChunkSent(chunk(1));
+        assertTrue(tracker.isChunkSent(chunk(1)));
+        assertEquals(0, tracker.getMetrics().get("inFlightBatches"));
+        assertEquals(1L, tracker.getMetrics().get("completedBatches"));
+    }
+
+    @Test
+    void testCompletedBatchesAreBounded() {
+        ReflectionTestUtils.setField(tracker, "completedBatchMax", 2);
+        for (int batch = 1; batch <= 3; batch++) {
+            tracker.onChunkSent(single("batch-" + batch));
+        }
+
+        assertEquals(2, tracker.getMetrics().get("rememberedBatches"));
+        assertFalse(tracker.isChunkSent(single("batch-1")));
+        assertTrue(tracker.isChunkSent(single("batch-3")));
+    }
+
+    @Test
+    void testMessageWithoutBatchIdIsNotTracked() {
+        EventReminderMessage legacy = EventReminderMessage.builder().eventId(1L).participantEmails(List.of("a@x.com")).build();
+
+        tracker.onChunkSent(legacy);
+
+        assertFalse(tracker.isChunkSent(legacy));
+        assertEquals(0, tracker.getMetrics().get("inFlightBatches"));
+    }
+
+    private static EventReminderMessage single(String batchId) {
+        return EventReminderMessage.builder()
+                .eventId(1L)
+                .batchId(batchId)
+                .chunkIndex(0)
+                .chunkCount(1)
+                .totalRecipients(1)
+                .participantEmails(List.of("a@x.com"))
+                .build();
+    }
+
+    private static EventReminderMessage chunk(int index) {
+        return EventReminderMessage.builder()
+                .eventId(1L)
+                .batchId("batch-1")
+                .chunkIndex(index)
+                .chunkCount(3)
+                .totalRecipients(5)
+                .participantEmails(List.of("a@x.com", "b@x.com"))
+                .build();
+    }
+}